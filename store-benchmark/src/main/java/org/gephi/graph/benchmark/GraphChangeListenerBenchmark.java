@@ -0,0 +1,92 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.Graph;
+import org.gephi.graph.api.GraphChangeEvent;
+import org.gephi.graph.api.GraphChangeListener;
+import org.gephi.graph.api.GraphFactory;
+import org.gephi.graph.api.GraphModel;
+import org.gephi.graph.api.Node;
+
+/**
+ * Measures the overhead of graph change listeners on the ingest path.
+ */
+public class GraphChangeListenerBenchmark {
+
+    private int eventCount;
+
+    public Runnable ingestWithoutListener(final int nodes, final int batchSize) {
+        return ingest(nodes, batchSize, false, false);
+    }
+
+    public Runnable ingestWithListener(final int nodes, final int batchSize) {
+        return ingest(nodes, batchSize, true, false);
+    }
+
+    public Runnable ingestWithAsyncListener(final int nodes, final int batchSize) {
+        return ingest(nodes, batchSize, true, true);
+    }
+
+    private Runnable ingest(final int nodes, final int batchSize, final boolean listener, final boolean async) {
+        Runnable runnable = new Runnable() {
+            @Override
+            public void run() {
+                GraphModel graphModel = GraphModel.Factory.newInstance();
+                Graph graph = graphModel.getGraph();
+                GraphFactory factory = graphModel.factory();
+                ExecutorService executor = async ? Executors.newSingleThreadExecutor() : null;
+                if (listener) {
+                    graphModel.addGraphChangeListener(graph, new GraphChangeListener() {
+                        @Override
+                        public void graphChanged(GraphChangeEvent event) {
+                            eventCount++;
+                        }
+                    }, executor);
+                }
+
+                List<Node> nodeList = new ArrayList<Node>(nodes);
+                for (int i = 0; i < nodes; i++) {
+                    nodeList.add(factory.newNode(String.valueOf(i)));
+                }
+                for (int i = 0; i < nodes; i += batchSize) {
+                    graph.writeLock();
+                    try {
+                        int end = Math.min(nodes, i + batchSize);
+                        for (int j = i; j < end; j++) {
+                            graph.addNode(nodeList.get(j));
+                            if (j > 0) {
+                                Edge edge = factory.newEdge(nodeList.get(j - 1), nodeList.get(j));
+                                graph.addEdge(edge);
+                            }
+                        }
+                    } finally {
+                        graph.writeUnlock();
+                    }
+                }
+                if (executor != null) {
+                    executor.shutdown();
+                }
+            }
+        };
+        return runnable;
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.benchmark;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import org.gephi.graph.api.Column;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.Graph;
+import org.gephi.graph.api.GraphFactory;
+import org.gephi.graph.api.GraphModel;
+import org.gephi.graph.api.Node;
+
+/**
+ * Compares the stream and channel serialization paths, to and from a file.
+ */
+public class SerializationBenchmark {
+
+    private final GraphModel graphModel;
+    private final File file;
+
+    public SerializationBenchmark(int nodes, int edgesPerNode) throws IOException {
+        graphModel = GraphModel.Factory.newInstance();
+        Column score = graphModel.getNodeTable().addColumn("score", Double.class);
+        Column name = graphModel.getEdgeTable().addColumn("name", String.class);
+        Graph graph = graphModel.getGraph();
+        GraphFactory factory = graphModel.factory();
+        Node[] nodeArray = new Node[nodes];
+        for (int i = 0; i < nodes; i++) {
+            nodeArray[i] = factory.newNode(String.valueOf(i));
+            nodeArray[i].setAttribute(score, i * 0.5);
+            nodeArray[i].setLabel("Node " + i);
+            graph.addNode(nodeArray[i]);
+        }
+        for (int i = 0; i < nodes; i++) {
+            for (int j = 1; j <= edgesPerNode; j++) {
+                Edge edge = factory.newEdge(nodeArray[i], nodeArray[(i + j) % nodes]);
+                edge.setAttribute(name, "Edge " + i + "-" + j);
+                graph.addEdge(edge);
+            }
+        }
+        file = File.createTempFile("serialization-benchmark", ".bin");
+        file.deleteOnExit();
+    }
+
+    public Runnable writeStream() {
+        return new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(
+                            file)));
+                    try {
+                        GraphModel.Serialization.write(output, graphModel);
+                    } finally {
+                        output.close();
+                    }
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        };
+    }
+
+    public Runnable writeChannel() {
+        return new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    GraphModel.Serialization.write(file, graphModel);
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        };
+    }
+
+    public Runnable readStream() {
+        writeChannel().run();
+        return new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+                    try {
+                        GraphModel.Serialization.read(input);
+                    } finally {
+                        input.close();
+                    }
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        };
+    }
+
+    public Runnable readChannel() {
+        writeChannel().run();
+        return new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    GraphModel.Serialization.read(file);
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.benchmark;
+
+import org.gephi.nanobench.NanoBench;
+import org.testng.annotations.Test;
+
+public class GraphChangeListenerBenchmarkTest {
+
+    @Test
+    public void testIngestWithoutListener() {
+        int[] batchSizes = {1, 100, 10000};
+        for (int batchSize : batchSizes) {
+            NanoBench.create().measurements(10).measure("ingest without listener, batch " + batchSize, new GraphChangeListenerBenchmark().ingestWithoutListener(100000, batchSize));
+        }
+    }
+
+    @Test
+    public void testIngestWithListener() {
+        int[] batchSizes = {1, 100, 10000};
+        for (int batchSize : batchSizes) {
+            NanoBench.create().measurements(10).measure("ingest with listener, batch " + batchSize, new GraphChangeListenerBenchmark().ingestWithListener(100000, batchSize));
+        }
+    }
+
+    @Test
+    public void testIngestWithAsyncListener() {
+        int[] batchSizes = {1, 100, 10000};
+        for (int batchSize : batchSizes) {
+            NanoBench.create().measurements(10).measure("ingest with async listener, batch " + batchSize, new GraphChangeListenerBenchmark().ingestWithAsyncListener(100000, batchSize));
+        }
+    }
+}
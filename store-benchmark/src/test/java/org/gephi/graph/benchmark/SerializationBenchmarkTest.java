@@ -0,0 +1,37 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.benchmark;
+
+import java.io.IOException;
+import org.gephi.nanobench.NanoBench;
+import org.testng.annotations.Test;
+
+public class SerializationBenchmarkTest {
+
+    @Test
+    public void testWrite() throws IOException {
+        SerializationBenchmark benchmark = new SerializationBenchmark(200000, 5);
+        NanoBench.create().measurements(10).measure("write data output stream", benchmark.writeStream());
+        NanoBench.create().measurements(10).measure("write channel", benchmark.writeChannel());
+    }
+
+    @Test
+    public void testRead() throws IOException {
+        SerializationBenchmark benchmark = new SerializationBenchmark(200000, 5);
+        NanoBench.create().measurements(10).measure("read data input stream", benchmark.readStream());
+        NanoBench.create().measurements(10).measure("read channel", benchmark.readChannel());
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.api;
+
+import java.io.IOException;
+
+/**
+ * Applies a log written by a {@link ChangeLogWriter} to a graph model.
+ * <p>
+ * Segments are applied in bulk, each one in a single write lock. Changes are
+ * matched to elements by id: adding an existing node or edge updates its
+ * attributes and removing or updating a missing element is ignored, so the log
+ * can also be applied to a model loaded from a snapshot taken while it was
+ * being written.
+ *
+ * @see GraphModel.Serialization#newChangeLogReader(org.gephi.graph.api.GraphModel,
+ *      java.io.DataInput)
+ */
+public interface ChangeLogReader {
+
+    /**
+     * Applies the segments available from the input, until its end.
+     * <p>
+     * This method can be called again once more segments have been appended,
+     * for instance when following a log file. A segment only partially
+     * available is kept aside and applied by a later call, once complete.
+     *
+     * @return number of segments applied
+     * @throws IOException if an io error occurs
+     */
+    public int replay() throws IOException;
+
+    /**
+     * Returns the view replicating the view recorded at <code>index</code>.
+     *
+     * @param index view index returned by
+     *        {@link ChangeLogWriter#recordView(org.gephi.graph.api.GraphView)}
+     * @return view, or null if not replayed yet
+     */
+    public GraphView getView(int index);
+}
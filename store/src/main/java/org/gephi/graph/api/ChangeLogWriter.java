@@ -0,0 +1,71 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.api;
+
+import java.io.IOException;
+
+/**
+ * Append-only binary log of the changes made to a graph model.
+ * <p>
+ * The log starts with the content of the model when the writer is created and
+ * then receives a segment for every batch of changes, as delivered to a
+ * {@link GraphChangeListener}. Segments contain nodes and edges added or
+ * removed, attribute values set, columns added or removed and edge type labels,
+ * as well as the membership changes of the views passed to
+ * {@link #recordView(org.gephi.graph.api.GraphView)}. Node, edge and text
+ * properties such as positions or colors aren't recorded.
+ * <p>
+ * Each segment is written at once and the output is flushed after if it is
+ * <code>Flushable</code>, so a file output stream is a sufficient sink. The log
+ * is applied to other models with a {@link ChangeLogReader}.
+ *
+ * @see GraphModel.Serialization#newChangeLogWriter(org.gephi.graph.api.GraphModel,
+ *      java.io.DataOutput)
+ */
+public interface ChangeLogWriter {
+
+    /**
+     * Starts recording the nodes and edges added to or removed from
+     * <code>view</code>.
+     * <p>
+     * The view is identified by the returned index, which can be passed to
+     * {@link ChangeLogReader#getView(int)} to obtain the replicated view. The
+     * view's content and membership changes are written in the same segments as
+     * the graph changes, after them.
+     *
+     * @param view view to record
+     * @return view index in this log
+     */
+    public int recordView(GraphView view);
+
+    /**
+     * Stops recording changes.
+     * <p>
+     * The changes made before this call are written first. If a segment is
+     * being written in the executor, this method waits for it to complete.
+     *
+     * @throws IOException if writing a segment failed
+     */
+    public void close() throws IOException;
+
+    /**
+     * Returns true if this writer has been closed or stopped because of an io
+     * error.
+     *
+     * @return true if closed, false otherwise
+     */
+    public boolean isClosed();
+}
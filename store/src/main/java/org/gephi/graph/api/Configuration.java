@@ -42,6 +42,10 @@ public class Configuration {
     private Class edgeWeightType;
     private TimeRepresentation timeRepresentation;
     private Boolean edgeWeightColumn;
+    private Boolean labelIndex;
+    private Boolean stringIndex;
+    private Boolean degreeIndex;
+    private Boolean rangeAggregates;
 
     /**
      * Default constructor.
@@ -53,6 +57,10 @@ public class Configuration {
         edgeWeightType = GraphStoreConfiguration.DEFAULT_EDGE_WEIGHT_TYPE;
         timeRepresentation = GraphStoreConfiguration.DEFAULT_TIME_REPRESENTATION;
         edgeWeightColumn = true;
+        labelIndex = false;
+        stringIndex = false;
+        degreeIndex = false;
+        rangeAggregates = false;
     }
 
     /**
@@ -188,6 +196,101 @@ public class Configuration {
         this.edgeWeightColumn = edgeWeightColumn;
     }
 
+    /**
+     * Returns whether the node and edge label columns are indexed.
+     *
+     * @return label index
+     */
+    public Boolean getLabelIndex() {
+        return labelIndex;
+    }
+
+    /**
+     * Sets whether the node and edge label columns are indexed.
+     * <p>
+     * When enabled, labels can be looked up by value, prefix or substring
+     * through the node and edge {@link Index}. Disabled by default.
+     *
+     * @param labelIndex label index
+     */
+    public void setLabelIndex(Boolean labelIndex) {
+        this.labelIndex = labelIndex;
+    }
+
+    /**
+     * Returns whether indexed string columns support fast prefix and substring
+     * lookups.
+     *
+     * @return string index
+     */
+    public Boolean getStringIndex() {
+        return stringIndex;
+    }
+
+    /**
+     * Sets whether indexed string columns support fast prefix and substring
+     * lookups.
+     * <p>
+     * When enabled, indexed string columns keep their values sorted so
+     * {@link Index#getByPrefix(org.gephi.graph.api.Column, java.lang.String, boolean) }
+     * and
+     * {@link Index#getBySubstring(org.gephi.graph.api.Column, java.lang.String, boolean) }
+     * don't have to scan all distinct values. This makes updates to these
+     * columns more expensive. Disabled by default.
+     *
+     * @param stringIndex string index
+     */
+    public void setStringIndex(Boolean stringIndex) {
+        this.stringIndex = stringIndex;
+    }
+
+    /**
+     * Returns whether nodes are indexed by degree.
+     *
+     * @return degree index
+     */
+    public Boolean getDegreeIndex() {
+        return degreeIndex;
+    }
+
+    /**
+     * Sets whether nodes are indexed by degree.
+     * <p>
+     * When enabled, the index is available through
+     * {@link GraphModel#getDegreeIndex() } and maintained on every edge addition
+     * and removal. Disabled by default.
+     *
+     * @param degreeIndex degree index
+     */
+    public void setDegreeIndex(Boolean degreeIndex) {
+        this.degreeIndex = degreeIndex;
+    }
+
+    /**
+     * Returns whether dynamic attribute values keep range aggregates.
+     *
+     * @return range aggregates
+     */
+    public Boolean getRangeAggregates() {
+        return rangeAggregates;
+    }
+
+    /**
+     * Sets whether dynamic attribute values keep range aggregates.
+     * <p>
+     * When enabled, the numeric timestamp and interval maps created for element
+     * attributes have their range aggregates enabled, so minimum, maximum and
+     * average estimates over an interval are logarithmic in the map size.
+     * Disabled by default.
+     *
+     * @param rangeAggregates range aggregates
+     * @see org.gephi.graph.api.types.TimestampMap#setRangeAggregatesEnabled(boolean)
+     * @see org.gephi.graph.api.types.IntervalMap#setRangeAggregatesEnabled(boolean)
+     */
+    public void setRangeAggregates(Boolean rangeAggregates) {
+        this.rangeAggregates = rangeAggregates;
+    }
+
     /**
      * Copy this configuration.
      *
@@ -201,6 +304,10 @@ public class Configuration {
         copy.edgeWeightType = edgeWeightType;
         copy.timeRepresentation = timeRepresentation;
         copy.edgeWeightColumn = edgeWeightColumn;
+        copy.labelIndex = labelIndex;
+        copy.stringIndex = stringIndex;
+        copy.degreeIndex = degreeIndex;
+        copy.rangeAggregates = rangeAggregates;
         return copy;
     }
 
@@ -213,6 +320,10 @@ public class Configuration {
         hash = 19 * hash + (this.edgeWeightType != null ? this.edgeWeightType.hashCode() : 0);
         hash = 19 * hash + (this.timeRepresentation != null ? this.timeRepresentation.hashCode() : 0);
         hash = 19 * hash + (this.edgeWeightColumn != null ? this.edgeWeightColumn.hashCode() : 0);
+        hash = 19 * hash + (this.labelIndex != null ? this.labelIndex.hashCode() : 0);
+        hash = 19 * hash + (this.stringIndex != null ? this.stringIndex.hashCode() : 0);
+        hash = 19 * hash + (this.degreeIndex != null ? this.degreeIndex.hashCode() : 0);
+        hash = 19 * hash + (this.rangeAggregates != null ? this.rangeAggregates.hashCode() : 0);
         return hash;
     }
 
@@ -252,6 +363,22 @@ public class Configuration {
                 .equals(other.edgeWeightColumn))) {
             return false;
         }
+        if (this.labelIndex != other.labelIndex && (this.labelIndex == null || !this.labelIndex
+                .equals(other.labelIndex))) {
+            return false;
+        }
+        if (this.stringIndex != other.stringIndex && (this.stringIndex == null || !this.stringIndex
+                .equals(other.stringIndex))) {
+            return false;
+        }
+        if (this.degreeIndex != other.degreeIndex && (this.degreeIndex == null || !this.degreeIndex
+                .equals(other.degreeIndex))) {
+            return false;
+        }
+        if (this.rangeAggregates != other.rangeAggregates && (this.rangeAggregates == null || !this.rangeAggregates
+                .equals(other.rangeAggregates))) {
+            return false;
+        }
         return true;
     }
 }
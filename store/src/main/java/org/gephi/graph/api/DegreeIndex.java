@@ -0,0 +1,157 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.api;
+
+/**
+ * Index that keeps nodes sorted by degree.
+ * <p>
+ * The index is maintained as edges are added and removed so ranking nodes by
+ * degree or computing the degree distribution doesn't require iterating over
+ * all the nodes.
+ * <p>
+ * Degrees are available over all edges or restricted to a single edge type, in
+ * which case only the edges of this type are counted. A node without edges of
+ * the type has a zero degree for this type.
+ *
+ * @see GraphModel#getDegreeIndex()
+ * @see GraphModel#getDegreeIndex(GraphView)
+ */
+public interface DegreeIndex {
+
+    /**
+     * Returns the minimum degree of the given type.
+     *
+     * @param type degree type
+     * @return the minimum degree, or zero if the graph has no nodes
+     */
+    public int getMinDegree(DegreeType type);
+
+    /**
+     * Returns the minimum degree of the given type, counting only the edges of
+     * the given edge type.
+     *
+     * @param type degree type
+     * @param edgeType edge type
+     * @return the minimum degree, or zero if the graph has no nodes
+     */
+    public int getMinDegree(DegreeType type, int edgeType);
+
+    /**
+     * Returns the maximum degree of the given type.
+     *
+     * @param type degree type
+     * @return the maximum degree, or zero if the graph has no nodes
+     */
+    public int getMaxDegree(DegreeType type);
+
+    /**
+     * Returns the maximum degree of the given type, counting only the edges of
+     * the given edge type.
+     *
+     * @param type degree type
+     * @param edgeType edge type
+     * @return the maximum degree, or zero if the graph has no nodes
+     */
+    public int getMaxDegree(DegreeType type, int edgeType);
+
+    /**
+     * Returns the number of nodes with exactly the given degree.
+     *
+     * @param degree degree
+     * @param type degree type
+     * @return the number of nodes with this degree
+     */
+    public int count(int degree, DegreeType type);
+
+    /**
+     * Returns the number of nodes with exactly the given degree, counting only
+     * the edges of the given edge type.
+     *
+     * @param degree degree
+     * @param type degree type
+     * @param edgeType edge type
+     * @return the number of nodes with this degree
+     */
+    public int count(int degree, DegreeType type, int edgeType);
+
+    /**
+     * Returns the nodes with exactly the given degree.
+     *
+     * @param degree degree
+     * @param type degree type
+     * @return nodes with this degree
+     */
+    public NodeIterable get(int degree, DegreeType type);
+
+    /**
+     * Returns the nodes with exactly the given degree, counting only the edges
+     * of the given edge type.
+     *
+     * @param degree degree
+     * @param type degree type
+     * @param edgeType edge type
+     * @return nodes with this degree
+     */
+    public NodeIterable get(int degree, DegreeType type, int edgeType);
+
+    /**
+     * Returns the <code>k</code> nodes with the highest degree, sorted by
+     * decreasing degree.
+     * <p>
+     * Ties are returned in no particular order. If the graph has less than
+     * <code>k</code> nodes, all the nodes are returned.
+     *
+     * @param k number of nodes to return
+     * @param type degree type
+     * @return array of at most <code>k</code> nodes
+     * @throws IllegalArgumentException if <code>k</code> is negative
+     */
+    public Node[] getTopKByDegree(int k, DegreeType type);
+
+    /**
+     * Returns the <code>k</code> nodes with the highest degree, counting only
+     * the edges of the given edge type, sorted by decreasing degree.
+     *
+     * @param k number of nodes to return
+     * @param type degree type
+     * @param edgeType edge type
+     * @return array of at most <code>k</code> nodes
+     * @throws IllegalArgumentException if <code>k</code> is negative
+     */
+    public Node[] getTopKByDegree(int k, DegreeType type, int edgeType);
+
+    /**
+     * Returns the degree histogram.
+     * <p>
+     * The returned array has a length of the maximum degree plus one and the
+     * value at index <code>i</code> is the number of nodes with degree
+     * <code>i</code>.
+     *
+     * @param type degree type
+     * @return degree histogram
+     */
+    public int[] getDegreeHistogram(DegreeType type);
+
+    /**
+     * Returns the degree histogram, counting only the edges of the given edge
+     * type.
+     *
+     * @param type degree type
+     * @param edgeType edge type
+     * @return degree histogram
+     */
+    public int[] getDegreeHistogram(DegreeType type, int edgeType);
+}
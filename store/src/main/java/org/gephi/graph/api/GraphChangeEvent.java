@@ -0,0 +1,48 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.api;
+
+/**
+ * Batch of changes delivered to a {@link GraphChangeListener}.
+ * <p>
+ * Nodes and edges added or removed are the same as a {@link GraphDiff} would
+ * return. Attribute changes are grouped by column and only include the elements
+ * still in the graph when the batch is created.
+ */
+public interface GraphChangeEvent extends GraphDiff {
+
+    /**
+     * Returns the graph the changes were made to.
+     *
+     * @return graph
+     */
+    public Graph getGraph();
+
+    /**
+     * Returns the columns with at least one value changed.
+     *
+     * @return changed columns, or an empty array
+     */
+    public Column[] getChangedColumns();
+
+    /**
+     * Returns the elements whose value changed for the given column.
+     *
+     * @param column column
+     * @return column diff, or null if no value changed for this column
+     */
+    public ColumnDiff getColumnDiff(Column column);
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.api;
+
+/**
+ * Listener notified of the changes made to a graph.
+ * <p>
+ * Contrary to {@link GraphObserver}, which has to be polled, listeners are
+ * called with batches of changes once the graph's write lock has been released.
+ * Changes made while a batch is being delivered are coalesced into the next
+ * batch, so a slow listener receives fewer and larger batches rather than
+ * slowing down the modifications.
+ *
+ * @see GraphModel#addGraphChangeListener(org.gephi.graph.api.Graph,
+ *      org.gephi.graph.api.GraphChangeListener, java.util.concurrent.Executor)
+ */
+public interface GraphChangeListener {
+
+    /**
+     * Called with the changes made to the graph since the previous call.
+     *
+     * @param event changes
+     */
+    public void graphChanged(GraphChangeEvent event);
+}
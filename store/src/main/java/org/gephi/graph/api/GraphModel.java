@@ -17,8 +17,21 @@ package org.gephi.graph.api;
 
 import java.io.DataInput;
 import java.io.DataOutput;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.Executor;
+import org.gephi.graph.impl.ChangeLogReaderImpl;
+import org.gephi.graph.impl.ChangeLogWriterImpl;
+import org.gephi.graph.impl.ColumnarSerialization;
 import org.gephi.graph.impl.GraphModelImpl;
+import org.gephi.graph.impl.GraphSnapshotImpl;
+import org.gephi.graph.impl.MappedGraphSnapshotImpl;
+import org.gephi.graph.impl.utils.ChannelDataInput;
+import org.gephi.graph.impl.utils.ChannelDataOutput;
 import org.joda.time.DateTimeZone;
 
 /**
@@ -149,6 +162,247 @@ public interface GraphModel {
             org.gephi.graph.impl.Serialization s = new org.gephi.graph.impl.Serialization();
             s.serializeGraphModel(output, (GraphModelImpl) graphModel);
         }
+
+        /**
+         * Read the <code>channel</code> and return the read graph model.
+         * <p>
+         * The channel is read in large chunks and isn't closed.
+         *
+         * @param channel channel to read from
+         * @return new graph model
+         * @throws IOException if an io error occurs
+         */
+        public static GraphModel read(ReadableByteChannel channel) throws IOException {
+            return read(new ChannelDataInput(channel));
+        }
+
+        /**
+         * Write <code>graphModel</code> to <code>channel</code>.
+         * <p>
+         * The model is streamed to the channel in large chunks, without holding
+         * the whole serialized model in memory. The channel isn't closed.
+         *
+         * @param channel channel to write to
+         * @param graphModel graph model to write
+         * @throws IOException if an io error occurs
+         */
+        public static void write(WritableByteChannel channel, GraphModel graphModel) throws IOException {
+            ChannelDataOutput output = new ChannelDataOutput(channel);
+            write(output, graphModel);
+            output.flush();
+        }
+
+        /**
+         * Read the <code>file</code> and return the read graph model.
+         *
+         * @param file file to read from
+         * @return new graph model
+         * @throws IOException if an io error occurs
+         */
+        public static GraphModel read(File file) throws IOException {
+            FileInputStream stream = new FileInputStream(file);
+            try {
+                return read(stream.getChannel());
+            } finally {
+                stream.close();
+            }
+        }
+
+        /**
+         * Write <code>graphModel</code> to <code>file</code>.
+         *
+         * @param file file to write to
+         * @param graphModel graph model to write
+         * @throws IOException if an io error occurs
+         */
+        public static void write(File file, GraphModel graphModel) throws IOException {
+            FileOutputStream stream = new FileOutputStream(file);
+            try {
+                write(stream.getChannel(), graphModel);
+            } finally {
+                stream.close();
+            }
+        }
+
+        /**
+         * Read the columnar <code>input</code> and return the read graph model.
+         *
+         * @param input data input to read from
+         * @return new graph model
+         * @throws IOException if an io error occurs
+         * @see #writeColumnar(java.io.DataOutput,
+         *      org.gephi.graph.api.GraphModel)
+         */
+        public static GraphModel readColumnar(DataInput input) throws IOException {
+            try {
+                ColumnarSerialization s = new ColumnarSerialization();
+                return s.deserializeGraphModel(input);
+            } catch (ClassNotFoundException e) {
+                throw new IOException(e);
+            }
+        }
+
+        /**
+         * Write <code>graphModel</code> to <code>output</code> in the columnar
+         * format.
+         * <p>
+         * Node and edge ids, attribute columns and properties are written as
+         * separate chunks, each encoded according to its values. This format is
+         * usually more compact than the default one and allows to read a single
+         * column with
+         * {@link #readColumn(java.io.DataInput, java.lang.Class, java.lang.String)}.
+         *
+         * @param output data output to write to
+         * @param graphModel graph model to write
+         * @throws IOException if an io error occurs
+         */
+        public static void writeColumnar(DataOutput output, GraphModel graphModel) throws IOException {
+            ColumnarSerialization s = new ColumnarSerialization();
+            s.serializeGraphModel(output, (GraphModelImpl) graphModel);
+        }
+
+        /**
+         * Read the values of a single column from the columnar
+         * <code>input</code>, without decoding the other columns.
+         *
+         * @param input data input to read from
+         * @param elementClass <code>Node.class</code> or
+         *        <code>Edge.class</code>
+         * @param columnId column id
+         * @return column values, in the store order of the nodes or edges
+         * @throws IOException if an io error occurs or if the column can't be
+         *         found
+         * @throws IllegalArgumentException if <code>elementClass</code> isn't
+         *         <code>Node.class</code> or <code>Edge.class</code>
+         */
+        public static Object[] readColumn(DataInput input, Class<? extends Element> elementClass, String columnId) throws IOException {
+            try {
+                ColumnarSerialization s = new ColumnarSerialization();
+                return s.deserializeColumn(input, elementClass, columnId);
+            } catch (ClassNotFoundException e) {
+                throw new IOException(e);
+            }
+        }
+
+        /**
+         * Write <code>snapshot</code> to <code>file</code> so it can be opened
+         * with {@link #mapSnapshot(java.io.File) }.
+         *
+         * @param file file to write to
+         * @param snapshot snapshot to write, created by
+         *        {@link GraphModel#snapshotAt(double) } or
+         *        {@link GraphModel#snapshotOver(org.gephi.graph.api.Interval, org.gephi.graph.api.Estimator)}
+         * @throws IOException if an io error occurs
+         */
+        public static void writeSnapshot(File file, GraphSnapshot snapshot) throws IOException {
+            FileOutputStream stream = new FileOutputStream(file);
+            try {
+                ChannelDataOutput output = new ChannelDataOutput(stream.getChannel());
+                MappedGraphSnapshotImpl.serialize(output, (GraphSnapshotImpl) snapshot);
+                output.flush();
+            } finally {
+                stream.close();
+            }
+        }
+
+        /**
+         * Open the snapshot written to <code>file</code> by
+         * {@link #writeSnapshot(java.io.File, org.gephi.graph.api.GraphSnapshot) }
+         * .
+         * <p>
+         * The file is memory-mapped and only the tables are read when opening
+         * it. Topology, ids and attribute values are decoded from the mapping
+         * when accessed, so opening is fast regardless of the graph size and
+         * processes mapping the same file share its pages. Nodes and edges
+         * returned by the snapshot are lightweight copies whose attributes are
+         * read from the mapping.
+         *
+         * @param file file to map
+         * @return read-only snapshot
+         * @throws IOException if an io error occurs or if the file isn't a
+         *         valid snapshot
+         */
+        public static GraphSnapshot mapSnapshot(File file) throws IOException {
+            try {
+                return MappedGraphSnapshotImpl.map(file);
+            } catch (ClassNotFoundException e) {
+                throw new IOException(e);
+            }
+        }
+
+        /**
+         * Open the snapshot written to <code>file</code> by
+         * {@link #writeSnapshot(java.io.File, org.gephi.graph.api.GraphSnapshot) }
+         * as a read-only graph model.
+         * <p>
+         * The file is mapped as with {@link #mapSnapshot(java.io.File) }. The
+         * graph and the indexes of the returned model decode the mapping on
+         * access. Views, time indexes, observers and modifications aren't
+         * supported.
+         *
+         * @param file file to map
+         * @return read-only graph model
+         * @throws IOException if an io error occurs or if the file isn't a
+         *         valid snapshot
+         */
+        public static GraphModel mapGraphModel(File file) throws IOException {
+            try {
+                return MappedGraphSnapshotImpl.map(file).getGraphModel();
+            } catch (ClassNotFoundException e) {
+                throw new IOException(e);
+            }
+        }
+
+        /**
+         * Starts logging the changes made to <code>graphModel</code> to
+         * <code>output</code>.
+         * <p>
+         * The content of the model is written first, so the log can be applied
+         * to an empty model.
+         *
+         * @param graphModel graph model to log
+         * @param output data output to write to
+         * @return change log writer
+         * @throws IOException if an io error occurs
+         */
+        public static ChangeLogWriter newChangeLogWriter(GraphModel graphModel, DataOutput output) throws IOException {
+            return new ChangeLogWriterImpl((GraphModelImpl) graphModel, output);
+        }
+
+        /**
+         * Starts logging the changes made to <code>graphModel</code> to
+         * <code>output</code>, encoding and writing segments in
+         * <code>executor</code>.
+         * <p>
+         * The content of the model is written first, in the calling thread.
+         * Later segments are written by the executor, so threads modifying the
+         * model don't wait for the output. Changes not delivered yet when the
+         * writer is closed aren't written.
+         *
+         * @param graphModel graph model to log
+         * @param output data output to write to
+         * @param executor executor writing segments
+         * @return change log writer
+         * @throws IOException if an io error occurs
+         */
+        public static ChangeLogWriter newChangeLogWriter(GraphModel graphModel, DataOutput output, Executor executor) throws IOException {
+            if (executor == null) {
+                throw new NullPointerException();
+            }
+            return new ChangeLogWriterImpl((GraphModelImpl) graphModel, output, executor);
+        }
+
+        /**
+         * Returns a reader applying the change log read from <code>input</code>
+         * to <code>graphModel</code>.
+         *
+         * @param graphModel graph model to apply changes to
+         * @param input data input to read from
+         * @return change log reader
+         */
+        public static ChangeLogReader newChangeLogReader(GraphModel graphModel, DataInput input) {
+            return new ChangeLogReaderImpl((GraphModelImpl) graphModel, input);
+        }
     }
 
     /**
@@ -473,6 +727,54 @@ public interface GraphModel {
      */
     public TimeIndex<Edge> getEdgeTimeIndex(GraphView view);
 
+    /**
+     * Gets the node degree index.
+     *
+     * @return node degree index, or null if degree indexing is disabled
+     */
+    public DegreeIndex getDegreeIndex();
+
+    /**
+     * Gets the node degree index for the given view.
+     * <p>
+     * Only the nodes and edges in the view are counted. The index is created
+     * the first time it's requested and then maintained as the view changes.
+     *
+     * @param view view to get the index from
+     * @return node degree index, or null if degree indexing is disabled
+     */
+    public DegreeIndex getDegreeIndex(GraphView view);
+
+    /**
+     * Creates a read-only snapshot of the graph at the given timestamp.
+     * <p>
+     * The snapshot contains the elements that exist at <code>timestamp</code>
+     * and dynamic attributes are resolved to their value at this timestamp.
+     * This is equivalent to calling
+     * {@link #snapshotOver(org.gephi.graph.api.Interval, org.gephi.graph.api.Estimator)}
+     * with a zero-length interval and {@link Estimator#FIRST}.
+     *
+     * @param timestamp timestamp
+     * @return graph snapshot
+     * @throws IllegalArgumentException if the timestamp is infinite or NaN
+     */
+    public GraphSnapshot snapshotAt(double timestamp);
+
+    /**
+     * Creates a read-only snapshot of the graph over the given interval.
+     * <p>
+     * The snapshot contains the elements that exist during
+     * <code>interval</code> and dynamic attributes are resolved with
+     * <code>estimator</code>. Columns whose type doesn't support the estimator
+     * use their own estimator instead. If <code>estimator</code> is null, each
+     * column's estimator is used.
+     *
+     * @param interval interval
+     * @param estimator estimator, or null
+     * @return graph snapshot
+     */
+    public GraphSnapshot snapshotOver(Interval interval, Estimator estimator);
+
     /**
      * Gets the time bounds.
      * <p>
@@ -514,6 +816,46 @@ public interface GraphModel {
      */
     public GraphObserver createGraphObserver(Graph graph, boolean withGraphDiff);
 
+    /**
+     * Creates and returns a new observer of the visual properties of nodes and
+     * edges.
+     *
+     * @return newly created properties observer
+     */
+    public PropertiesObserver createPropertiesObserver();
+
+    /**
+     * Adds a listener notified of the changes made to <code>graph</code>.
+     * <p>
+     * The listener is called in the thread releasing the write lock, after it
+     * has been released.
+     *
+     * @param graph the graph to listen to
+     * @param listener listener to add
+     */
+    public void addGraphChangeListener(Graph graph, GraphChangeListener listener);
+
+    /**
+     * Adds a listener notified of the changes made to <code>graph</code>,
+     * called from the given executor.
+     * <p>
+     * At most one batch per listener is submitted to the executor at a time.
+     *
+     * @param graph the graph to listen to
+     * @param listener listener to add
+     * @param executor executor the listener is called from
+     */
+    public void addGraphChangeListener(Graph graph, GraphChangeListener listener, Executor executor);
+
+    /**
+     * Removes a listener added with
+     * {@link #addGraphChangeListener(org.gephi.graph.api.Graph, org.gephi.graph.api.GraphChangeListener)}
+     * .
+     *
+     * @param listener listener to remove
+     */
+    public void removeGraphChangeListener(GraphChangeListener listener);
+
     /**
      * Returns the time format used to display time.
      *
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.api;
+
+/**
+ * Read-only static copy of the graph over a time interval.
+ * <p>
+ * A snapshot contains the nodes and edges that exist during the interval, with
+ * all dynamic attributes and edge weights resolved to a single value. Elements
+ * without timestamps or intervals are always included and edges are only
+ * included if both their source and target are.
+ * <p>
+ * Nodes and edges are identified by a dense index, from zero to the node or
+ * edge count. Attribute values are stored in columnar arrays indexed the same
+ * way, which avoids any locking or time lookup when reading them. Columns of
+ * primitive types are stored in primitive arrays (e.g. <code>double[]</code>
+ * for a <code>Double</code> or <code>TimestampDoubleMap</code> column) and the
+ * other columns in <code>Object[]</code> arrays. Missing values are resolved to
+ * the column's default value, or to zero or <code>false</code> for primitive
+ * columns without default value.
+ * <p>
+ * The snapshot doesn't reflect changes made to the graph after its creation.
+ *
+ * @see GraphModel#snapshotAt(double)
+ * @see GraphModel#snapshotOver(org.gephi.graph.api.Interval,
+ *      org.gephi.graph.api.Estimator)
+ */
+public interface GraphSnapshot {
+
+    /**
+     * Returns the interval this snapshot was created for.
+     *
+     * @return snapshot interval
+     */
+    public Interval getInterval();
+
+    /**
+     * Returns the estimator used to resolve dynamic attributes.
+     *
+     * @return estimator, or null if each column's estimator was used
+     */
+    public Estimator getEstimator();
+
+    /**
+     * Returns the node table, which defines the node columns.
+     *
+     * @return node table
+     */
+    public Table getNodeTable();
+
+    /**
+     * Returns the edge table, which defines the edge columns.
+     *
+     * @return edge table
+     */
+    public Table getEdgeTable();
+
+    /**
+     * Returns the number of nodes in this snapshot.
+     *
+     * @return node count
+     */
+    public int getNodeCount();
+
+    /**
+     * Returns the number of edges in this snapshot.
+     *
+     * @return edge count
+     */
+    public int getEdgeCount();
+
+    /**
+     * Returns the node at the given index.
+     *
+     * @param index node index
+     * @return node
+     * @throws IndexOutOfBoundsException if the index is out of bounds
+     */
+    public Node getNode(int index);
+
+    /**
+     * Returns the edge at the given index.
+     *
+     * @param index edge index
+     * @return edge
+     * @throws IndexOutOfBoundsException if the index is out of bounds
+     */
+    public Edge getEdge(int index);
+
+    /**
+     * Returns the index of the given node in this snapshot.
+     *
+     * @param node node
+     * @return node index, or -1 if the node isn't in this snapshot
+     */
+    public int getIndex(Node node);
+
+    /**
+     * Returns the index of the given edge in this snapshot.
+     *
+     * @param edge edge
+     * @return edge index, or -1 if the edge isn't in this snapshot
+     */
+    public int getIndex(Edge edge);
+
+    /**
+     * Returns the index of the source node of the given edge.
+     *
+     * @param edgeIndex edge index
+     * @return source node index
+     */
+    public int getSource(int edgeIndex);
+
+    /**
+     * Returns the index of the target node of the given edge.
+     *
+     * @param edgeIndex edge index
+     * @return target node index
+     */
+    public int getTarget(int edgeIndex);
+
+    /**
+     * Returns the resolved weight of the given edge.
+     *
+     * @param edgeIndex edge index
+     * @return edge weight
+     */
+    public double getWeight(int edgeIndex);
+
+    /**
+     * Returns the number of edges with the given node as source.
+     *
+     * @param nodeIndex node index
+     * @return out-degree in this snapshot
+     */
+    public int getOutDegree(int nodeIndex);
+
+    /**
+     * Returns the number of edges with the given node as target.
+     *
+     * @param nodeIndex node index
+     * @return in-degree in this snapshot
+     */
+    public int getInDegree(int nodeIndex);
+
+    /**
+     * Returns the index of the i-th edge with the given node as source.
+     *
+     * @param nodeIndex node index
+     * @param i position, between zero and the node's out-degree
+     * @return edge index
+     */
+    public int getOutEdge(int nodeIndex, int i);
+
+    /**
+     * Returns the index of the i-th edge with the given node as target.
+     *
+     * @param nodeIndex node index
+     * @param i position, between zero and the node's in-degree
+     * @return edge index
+     */
+    public int getInEdge(int nodeIndex, int i);
+
+    /**
+     * Returns the array of resolved values for the given node or edge column.
+     * <p>
+     * The array is indexed by node or edge index. It's a reference to the
+     * underlying array so it shouldn't be written to.
+     *
+     * @param column node or edge column
+     * @return primitive or object array of values
+     * @throws IllegalArgumentException if the column didn't exist when the
+     *         snapshot was created
+     */
+    public Object getValues(Column column);
+
+    /**
+     * Returns the resolved value of the given column for the node or edge at
+     * <code>index</code>.
+     *
+     * @param column node or edge column
+     * @param index node or edge index
+     * @return value
+     * @throws IllegalArgumentException if the column didn't exist when the
+     *         snapshot was created
+     */
+    public Object getAttribute(Column column, int index);
+}
@@ -47,6 +47,103 @@ public interface Index<T extends Element> {
      */
     public Iterable<T> get(Column column, Object value);
 
+    /**
+     * Counts the elements with the given tuple of <em>values</em> in the given
+     * <em>columns</em>.
+     * <p>
+     * The columns should be the columns, or a leading prefix of the columns, of
+     * a composite index added with {@link Table#addIndex(Column...)}.
+     *
+     * @param columns the columns to count values
+     * @param values the values, one for each column
+     * @return the number of elements in the index with <em>values</em> in
+     *         <em>columns</em>, or zero if none
+     * @throws IllegalArgumentException if no composite index starts with the
+     *         given columns
+     */
+    public int count(Column[] columns, Object[] values);
+
+    /**
+     * Gets an Iterable of all elements in the index with the given tuple of
+     * <em>values</em> in the given <em>columns</em>.
+     * <p>
+     * The columns should be the columns, or a leading prefix of the columns, of
+     * a composite index added with {@link Table#addIndex(Column...)}.
+     *
+     * @param columns the columns to get values
+     * @param values the values, one for each column
+     * @return an iterable with elements with <em>values</em> in
+     *         <em>columns</em>, or null if values not found
+     * @throws IllegalArgumentException if no composite index starts with the
+     *         given columns
+     */
+    public Iterable<T> get(Column[] columns, Object[] values);
+
+    /**
+     * Gets all elements in the index whose value in the given <em>column</em>
+     * starts with <em>prefix</em>.
+     * <p>
+     * Only applies for string columns.
+     *
+     * @param column the column to get values
+     * @param prefix the prefix to look for
+     * @param ignoreCase true if the comparison should be case-insensitive
+     * @return an iterable with elements whose value starts with <em>prefix</em>
+     */
+    public Iterable<T> getByPrefix(Column column, String prefix, boolean ignoreCase);
+
+    /**
+     * Gets all elements in the index whose value in the given <em>column</em>
+     * contains <em>substring</em>.
+     * <p>
+     * Only applies for string columns.
+     *
+     * @param column the column to get values
+     * @param substring the substring to look for
+     * @param ignoreCase true if the comparison should be case-insensitive
+     * @return an iterable with elements whose value contains <em>substring</em>
+     */
+    public Iterable<T> getBySubstring(Column column, String substring, boolean ignoreCase);
+
+    /**
+     * Gets all elements in the index whose array value in the given
+     * <em>column</em> contains <em>value</em>.
+     * <p>
+     * Only applies for array columns. Array items are given in their wrapper
+     * type (e.g. <code>Integer</code> for an <code>int[]</code> column).
+     *
+     * @param column the array column to get values
+     * @param value the array item to look for
+     * @return an iterable with elements whose array contains <em>value</em>
+     */
+    public Iterable<T> getContaining(Column column, Object value);
+
+    /**
+     * Gets all elements in the index whose array value in the given
+     * <em>column</em> contains at least one of <em>values</em>.
+     * <p>
+     * Only applies for array columns.
+     *
+     * @param column the array column to get values
+     * @param values the array items to look for
+     * @return an iterable with elements whose array contains any of
+     *         <em>values</em>
+     */
+    public Iterable<T> getContainingAny(Column column, Object... values);
+
+    /**
+     * Gets all elements in the index whose array value in the given
+     * <em>column</em> contains all of <em>values</em>.
+     * <p>
+     * Only applies for array columns.
+     *
+     * @param column the array column to get values
+     * @param values the array items to look for
+     * @return an iterable with elements whose array contains all of
+     *         <em>values</em>
+     */
+    public Iterable<T> getContainingAll(Column column, Object... values);
+
     /**
      * Returns all unique values in the given column.
      *
@@ -91,6 +188,63 @@ public interface Index<T extends Element> {
      */
     public Number getMaxValue(Column column);
 
+    /**
+     * Returns the sum of the values in the given column.
+     * <p>
+     * Only applies for numerical columns. Null values are ignored.
+     *
+     * @param column the column
+     * @return the sum of the values in the column
+     */
+    public Number getSum(Column column);
+
+    /**
+     * Returns the average of the values in the given column.
+     * <p>
+     * Only applies for numerical columns. Null values are ignored.
+     *
+     * @param column the column
+     * @return the average value in the column, or null if the column has no
+     *         values
+     */
+    public Double getAverage(Column column);
+
+    /**
+     * Returns the population variance of the values in the given column.
+     * <p>
+     * Only applies for numerical columns. Null values are ignored.
+     *
+     * @param column the column
+     * @return the variance of the values in the column, or null if the column
+     *         has no values
+     */
+    public Double getVariance(Column column);
+
+    /**
+     * Returns the value at the given <em>quantile</em> in the given column,
+     * using the nearest-rank method.
+     * <p>
+     * Only applies for numerical columns. Null values are ignored.
+     *
+     * @param column the column
+     * @param quantile the quantile, between 0 and 1
+     * @return the value at <em>quantile</em>, or null if the column has no
+     *         values
+     */
+    public Number getQuantile(Column column, double quantile);
+
+    /**
+     * Returns the number of values falling in each of <em>bins</em> equal-width
+     * bins between the minimum and maximum value of the given column.
+     * <p>
+     * Only applies for numerical columns. Null values are ignored.
+     *
+     * @param column the column
+     * @param bins the number of bins
+     * @return the count of values in each bin
+     */
+    public int[] getHistogram(Column column, int bins);
+
     /**
      * Returns the element type of this index.
      *
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.api;
+
+/**
+ * Observer over the visual properties of nodes and edges.
+ * <p>
+ * A properties observer collects the nodes and edges whose position, color or
+ * size, or whose text color, size, visibility or text, have been set. It lets
+ * renderers only update the elements changed since their previous frame.
+ * <p>
+ * Users should periodically call the <code>hasPropertiesChanged()</code> method
+ * and then obtain the store ids of the changed elements with
+ * <code>getChangedNodes()</code> and <code>getChangedEdges()</code>. Each call
+ * to <code>hasPropertiesChanged()</code> resets the observer.
+ * <p>
+ * The returned store ids may belong to elements that have been removed since
+ * and whose store id can have been reused. Changes made to elements not in the
+ * graph are ignored.
+ * <p>
+ * Observers should be destroyed when not needed anymore. A new observer can be
+ * obtained from the <code>GraphModel</code>.
+ * <p>
+ * Note that observer instances are not thread-safe and should not be called
+ * from multiple threads simultaneously.
+ *
+ * @see GraphModel#createPropertiesObserver()
+ */
+public interface PropertiesObserver {
+
+    /**
+     * Returns true if the properties of any node or edge have been set since
+     * the last call.
+     *
+     * @return true if changed, false otherwise
+     */
+    public boolean hasPropertiesChanged();
+
+    /**
+     * Returns the store ids of the nodes whose properties have been set before
+     * the last call to <code>hasPropertiesChanged()</code>.
+     *
+     * @return sorted node store ids
+     */
+    public int[] getChangedNodes();
+
+    /**
+     * Returns the store ids of the edges whose properties have been set before
+     * the last call to <code>hasPropertiesChanged()</code>.
+     *
+     * @return sorted edge store ids
+     */
+    public int[] getChangedEdges();
+
+    /**
+     * Destroys this observer.
+     */
+    public void destroy();
+
+    /**
+     * Returns true if this observer has been destroyed.
+     *
+     * @return true if destroyed, false otherwise
+     */
+    public boolean isDestroyed();
+}
@@ -102,6 +102,35 @@ public interface Table extends ColumnIterable {
      */
     public void removeColumn(String id);
 
+    /**
+     * Adds a composite index over the given columns.
+     * <p>
+     * A composite index can be queried with a tuple of values for all its
+     * columns, or for any leading prefix of its columns, through
+     * {@link Index#get(org.gephi.graph.api.Column[], java.lang.Object[])}. All
+     * columns must be indexed, not dynamic and belong to this table.
+     *
+     * @param columns the columns, in lookup order
+     * @throws IllegalArgumentException if the columns are invalid or if the
+     *         index already exists
+     */
+    public void addIndex(Column... columns);
+
+    /**
+     * Removes the composite index over the given columns.
+     *
+     * @param columns the columns, in lookup order
+     */
+    public void removeIndex(Column... columns);
+
+    /**
+     * Returns true if this table has a composite index over the given columns.
+     *
+     * @param columns the columns, in lookup order
+     * @return true if the composite index exists, false otherwise
+     */
+    public boolean hasIndex(Column... columns);
+
     /**
      * Counts the columns in this table.
      *
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.api;
+
+/**
+ * Event signaling an element entering or leaving the graph at a point in time.
+ * <p>
+ * With the interval time representation, elements enter at the start of their
+ * intervals and leave at the end. Touching intervals of the same element are
+ * merged. With the timestamp representation, time is considered discrete:
+ * elements enter at the first timestamp of a series of consecutive index
+ * timestamps they belong to and leave at the last one.
+ *
+ * @param <T> the element class
+ * @see TimeIndex#getEvents()
+ */
+public final class TimeEvent<T extends Element> {
+
+    private final double time;
+    private final T element;
+    private final TimeEventType type;
+
+    /**
+     * Constructor.
+     *
+     * @param time event time
+     * @param element element
+     * @param type event type
+     */
+    public TimeEvent(double time, T element, TimeEventType type) {
+        this.time = time;
+        this.element = element;
+        this.type = type;
+    }
+
+    /**
+     * Returns the time of this event.
+     *
+     * @return event time
+     */
+    public double getTime() {
+        return time;
+    }
+
+    /**
+     * Returns the element entering or leaving.
+     *
+     * @return element
+     */
+    public T getElement() {
+        return element;
+    }
+
+    /**
+     * Returns the type of this event.
+     *
+     * @return event type
+     */
+    public TimeEventType getType() {
+        return type;
+    }
+
+    @Override
+    public String toString() {
+        return type + " " + element.getId() + " at " + time;
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.api;
+
+import java.util.Iterator;
+
+/**
+ * Time event iterable.
+ * <p>
+ * The read lock is held until the iteration completes or {@link #doBreak()} is
+ * called.
+ *
+ * @param <T> the element class
+ */
+public interface TimeEventIterable<T extends Element> extends Iterable<TimeEvent<T>> {
+
+    /**
+     * Returns the event iterator.
+     *
+     * @return the iterator
+     */
+    @Override
+    public Iterator<TimeEvent<T>> iterator();
+
+    /**
+     * Break the iterator and release read lock (if any).
+     */
+    public void doBreak();
+}
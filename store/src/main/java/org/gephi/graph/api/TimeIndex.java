@@ -51,4 +51,69 @@ public interface TimeIndex<T extends Element> {
      * @return elements at this interval
      */
     public ElementIterable<T> get(Interval interval);
+
+    /**
+     * Returns the number of distinct elements between the given interval
+     * (bounds included).
+     * <p>
+     * This is equivalent to counting the elements returned by
+     * {@link #get(Interval)} but doesn't iterate over the result.
+     *
+     * @param interval interval
+     * @return number of elements at this interval
+     */
+    public int count(Interval interval);
+
+    /**
+     * Returns the stream of elements entering and leaving this index, in time
+     * order.
+     * <p>
+     * Events are computed lazily while iterating, from a single walk over the
+     * index. At equal time, enter events come before leave events. See
+     * {@link TimeEvent} for how enter and leave times are defined.
+     *
+     * @return event iterable
+     */
+    public TimeEventIterable<T> getEvents();
+
+    /**
+     * Returns the number of distinct elements in each of <code>buckets</code>
+     * equal time buckets between <code>start</code> and <code>end</code>.
+     * <p>
+     * Buckets include their start bound but not their end bound, except the
+     * last bucket which includes <code>end</code>. Counts are computed in a
+     * single sweep over the index, which is much faster than calling
+     * {@link #count(Interval)} for each bucket. Histograms of a view are
+     * obtained from the view's time index.
+     *
+     * @param start start of the first bucket
+     * @param end end of the last bucket
+     * @param buckets number of buckets
+     * @return element count for each bucket
+     * @throws IllegalArgumentException if <code>start</code> or
+     *         <code>end</code> is infinite or NaN, if <code>start</code> is
+     *         greater than <code>end</code> or if <code>buckets</code> isn't
+     *         positive
+     */
+    public int[] histogram(double start, double end, int buckets);
+
+    /**
+     * Returns the number of elements alive at the end of each of
+     * <code>buckets</code> equal time buckets between <code>start</code> and
+     * <code>end</code>.
+     * <p>
+     * Counts are the running sum of the enter and leave events returned by
+     * {@link #getEvents()}, so elements are alive from the time they enter
+     * until the time they leave, both included.
+     *
+     * @param start start of the first bucket
+     * @param end end of the last bucket
+     * @param buckets number of buckets
+     * @return number of alive elements for each bucket
+     * @throws IllegalArgumentException if <code>start</code> or
+     *         <code>end</code> is infinite or NaN, if <code>start</code> is
+     *         greater than <code>end</code> or if <code>buckets</code> isn't
+     *         positive
+     */
+    public int[] cumulativeHistogram(double start, double end, int buckets);
 }
@@ -63,6 +63,23 @@ public final class IntervalByteMap extends IntervalMap<Byte> {
         System.arraycopy(vals, 0, values, 0, vals.length);
     }
 
+    /**
+     * Puts all the given intervals and values.
+     * <p>
+     * The <code>keys</code> array must be in the same format returned by
+     * {@link #getIntervals() }. Intervals that are sorted and start after the
+     * current last interval are appended in bulk.
+     *
+     * @param keys flat array of interval bounds
+     * @param vals values, one per interval
+     * @throws IllegalArgumentException if <code>keys</code> doesn't contain two
+     *         bounds per value or if an interval overlaps with an existing
+     *         interval
+     */
+    public void putAll(double[] keys, byte[] vals) {
+        putAllInner(keys, vals, vals.length);
+    }
+
     /**
      * Get the value for the given interval.
      *
@@ -149,4 +166,14 @@ public final class IntervalByteMap extends IntervalMap<Byte> {
     protected void setValuesArray(Object array) {
         values = (byte[]) array;
     }
+
+    @Override
+    protected Object newValuesArray(int length) {
+        return new byte[length];
+    }
+
+    @Override
+    protected void setValue(int index, Byte value) {
+        values[index] = value;
+    }
 }
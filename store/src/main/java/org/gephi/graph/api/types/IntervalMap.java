@@ -18,6 +18,7 @@ package org.gephi.graph.api.types;
 import java.lang.reflect.Array;
 import org.gephi.graph.api.Estimator;
 import java.math.BigDecimal;
+import java.math.MathContext;
 import java.math.RoundingMode;
 import java.util.Arrays;
 import org.gephi.graph.api.AttributeUtils;
@@ -39,6 +40,12 @@ public abstract class IntervalMap<T> implements TimeMap<Interval, T> {
 
     protected double[] array;
     protected int size = 0;
+    // True if the array is shared with other maps and must be copied before
+    // being modified
+    private boolean sharedArray;
+    // Range aggregates, built lazily for numeric maps when enabled
+    private boolean aggregatesEnabled;
+    private volatile RangeAggregates aggregates;
 
     /**
      * Default constructor.
@@ -58,7 +65,7 @@ public abstract class IntervalMap<T> implements TimeMap<Interval, T> {
      * @param capacity timestamp capacity
      */
     public IntervalMap(int capacity) {
-        array = new double[capacity];
+        array = new double[capacity * 2];
         Arrays.fill(array, Double.MAX_VALUE);
     }
 
@@ -80,28 +87,14 @@ public abstract class IntervalMap<T> implements TimeMap<Interval, T> {
         if (value == null) {
             throw new NullPointerException();
         }
-        Object values = getValuesArray();
-        int valuesLength = Array.getLength(values);
 
+        invalidateAggregates();
         final int index = putInner(interval.getLow(), interval.getHigh());
         if (index < 0) {
-            int insertIndex = -index - 1;
-
-            if (size - 1 < valuesLength) {
-                if (insertIndex < size - 1) {
-                    System.arraycopy(values, insertIndex, values, insertIndex + 1, size - insertIndex - 1);
-                }
-                Array.set(values, insertIndex, value);
-            } else {
-                Object newArray = Array.newInstance(values.getClass().getComponentType(), valuesLength + 1);
-                System.arraycopy(values, 0, newArray, 0, insertIndex);
-                System.arraycopy(values, insertIndex, newArray, insertIndex + 1, valuesLength - insertIndex);
-                Array.set(newArray, insertIndex, value);
-                setValuesArray(newArray);
-            }
+            setValue(-index - 1, value);
             return true;
         } else {
-            Array.set(values, index, value);
+            setValue(index, value);
         }
         return false;
     }
@@ -112,6 +105,7 @@ public abstract class IntervalMap<T> implements TimeMap<Interval, T> {
 
         final int removeIndex = removeInner(interval.getLow(), interval.getHigh());
         if (removeIndex >= 0) {
+            invalidateAggregates();
             if (removeIndex != size) {
                 System.arraycopy(values, removeIndex + 1, values, removeIndex, size - removeIndex);
             }
@@ -152,36 +146,150 @@ public abstract class IntervalMap<T> implements TimeMap<Interval, T> {
 
     @Override
     public T[] toValuesArray() {
-        Object values = getValuesArray();
-        int length = Array.getLength(values);
-        if (values.getClass().getComponentType().isPrimitive() || size < length) {
-            T[] res = (T[]) Array.newInstance(getTypeClass(), size);
-            for (int i = 0; i < size; i++) {
-                res[i] = (T) Array.get(values, i);
-            }
-            return res;
-        } else {
-            return (T[]) values;
+        T[] res = (T[]) Array.newInstance(getTypeClass(), size);
+        for (int i = 0; i < size; i++) {
+            res[i] = getValue(i);
         }
+        return res;
     }
 
     protected Object toNativeArray() {
         Object values = getValuesArray();
-        int length = Array.getLength(values);
-        if (size < length - 1) {
-            Object res = Array.newInstance(values.getClass().getComponentType(), size);
+        if (size * 2 < array.length) {
+            Object res = newValuesArray(size);
             System.arraycopy(values, 0, res, 0, size);
             return res;
         }
         return values;
     }
 
+    /**
+     * Puts all the given intervals and values, stored in a primitive or object
+     * array.
+     * <p>
+     * The <code>keys</code> array must be in the same format returned by
+     * {@link #getIntervals() }. Intervals that are sorted, don't overlap and all
+     * start after the current last interval are appended in bulk. Other
+     * intervals are inserted one by one.
+     *
+     * @param keys flat array of interval bounds
+     * @param values values array, of the same type as the values array
+     * @param valuesLength length of <code>values</code>
+     * @throws IllegalArgumentException if the intervals overlap existing
+     *         intervals
+     */
+    protected void putAllInner(double[] keys, Object values, int valuesLength) {
+        if (keys.length != valuesLength * 2) {
+            throw new IllegalArgumentException("Keys must contain two bounds per value");
+        }
+        invalidateAggregates();
+        if (isAppendable(keys)) {
+            ensureCapacity(size + valuesLength);
+            System.arraycopy(keys, 0, array, size * 2, keys.length);
+            System.arraycopy(values, 0, getValuesArray(), size, valuesLength);
+            size += valuesLength;
+        } else {
+            for (int i = 0; i < valuesLength; i++) {
+                int index = putInner(keys[i * 2], keys[i * 2 + 1]);
+                System.arraycopy(values, i, getValuesArray(), index < 0 ? -index - 1 : index, 1);
+            }
+        }
+    }
+
+    private boolean isAppendable(double[] keys) {
+        if (keys.length == 0) {
+            return true;
+        }
+        if (size > 0 && keys[0] <= array[size * 2 - 1]) {
+            return false;
+        }
+        for (int i = 0; i < keys.length; i += 2) {
+            if (keys[i] > keys[i + 1] || (i > 0 && keys[i] <= keys[i - 1])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Ensures both the keys and values arrays can hold at least
+     * <code>capacity</code> intervals.
+     * <p>
+     * Arrays grow by half their size so appending intervals one by one is
+     * amortized constant time.
+     *
+     * @param capacity minimum capacity, in number of intervals
+     */
+    protected void ensureCapacity(int capacity) {
+        int currentCapacity = array.length / 2;
+        if (capacity > currentCapacity) {
+            int newCapacity = Math.max(capacity, currentCapacity + (currentCapacity >> 1));
+            double[] newArray = new double[newCapacity * 2];
+            System.arraycopy(array, 0, newArray, 0, size * 2);
+            array = newArray;
+            sharedArray = false;
+
+            Object newValues = newValuesArray(newCapacity);
+            System.arraycopy(getValuesArray(), 0, newValues, 0, size);
+            setValuesArray(newValues);
+        } else {
+            unshareArray();
+        }
+    }
+
+    /**
+     * Trims this map's arrays to its size and, if <code>pool</code> isn't null,
+     * shares its intervals array with the maps having identical intervals
+     * compacted with the same pool.
+     * <p>
+     * Values are stored as before so reading the map isn't slower. The shared
+     * intervals array is copied the first time the map's intervals are
+     * modified.
+     *
+     * @param pool intervals pool, or null to only trim the arrays
+     */
+    public void compact(TimeKeysPool pool) {
+        if (size * 2 < array.length) {
+            setValuesArray(toNativeArray());
+            array = Arrays.copyOf(array, size * 2);
+            sharedArray = false;
+        }
+        if (pool != null) {
+            array = pool.intern(array);
+            sharedArray = true;
+        }
+    }
+
+    private void unshareArray() {
+        if (sharedArray) {
+            array = Arrays.copyOf(array, array.length);
+            sharedArray = false;
+        }
+    }
+
+    private void insertInner(int insertIndex, double intervalStart, double intervalEnd) {
+        int realSize = size * 2;
+        ensureCapacity(size + 1);
+        if (insertIndex < realSize) {
+            System.arraycopy(array, insertIndex, array, insertIndex + 2, realSize - insertIndex);
+            Object values = getValuesArray();
+            System.arraycopy(values, insertIndex / 2, values, insertIndex / 2 + 1, size - insertIndex / 2);
+        }
+        array[insertIndex] = intervalStart;
+        array[insertIndex + 1] = intervalEnd;
+        size++;
+    }
+
     protected abstract T getValue(int index);
 
     protected abstract Object getValuesArray();
 
     protected abstract void setValuesArray(Object array);
 
+    protected abstract Object newValuesArray(int length);
+
+    protected abstract void setValue(int index, T value);
+
     protected int putInner(double intervalStart, double intervalEnd) {
         int realSize = size * 2;
         int index = Arrays.binarySearch(array, 0, realSize, intervalStart);
@@ -199,22 +307,7 @@ public abstract class IntervalMap<T> implements TimeMap<Interval, T> {
                 }
             }
 
-            if (realSize < array.length - 2) {
-                if (insertIndex < realSize) {
-                    System.arraycopy(array, insertIndex, array, insertIndex + 2, realSize - insertIndex);
-                }
-                array[insertIndex] = intervalStart;
-                array[insertIndex + 1] = intervalEnd;
-            } else {
-                double[] newArray = new double[array.length + 2];
-                System.arraycopy(array, 0, newArray, 0, insertIndex);
-                System.arraycopy(array, insertIndex, newArray, insertIndex + 2, array.length - insertIndex);
-                newArray[insertIndex] = intervalStart;
-                newArray[insertIndex + 1] = intervalEnd;
-                array = newArray;
-            }
-
-            size++;
+            insertInner(insertIndex, intervalStart, intervalEnd);
             return -(insertIndex / 2) - 1;
         } else {
             int insertIndex = index % 2 == 0 ? index : index - 1;
@@ -244,22 +337,7 @@ public abstract class IntervalMap<T> implements TimeMap<Interval, T> {
                 }
             }
 
-            if (realSize < array.length - 2) {
-                if (insertIndex < realSize) {
-                    System.arraycopy(array, insertIndex, array, insertIndex + 2, realSize - insertIndex);
-                }
-                array[insertIndex] = intervalStart;
-                array[insertIndex + 1] = intervalEnd;
-            } else {
-                double[] newArray = new double[array.length + 2];
-                System.arraycopy(array, 0, newArray, 0, insertIndex);
-                System.arraycopy(array, insertIndex, newArray, insertIndex + 2, array.length - insertIndex);
-                newArray[insertIndex] = intervalStart;
-                newArray[insertIndex + 1] = intervalEnd;
-                array = newArray;
-            }
-
-            size++;
+            insertInner(insertIndex, intervalStart, intervalEnd);
             return -(insertIndex / 2) - 1;
         }
     }
@@ -284,6 +362,7 @@ public abstract class IntervalMap<T> implements TimeMap<Interval, T> {
                     if (removeIndex == realSize - 2) {
                         size--;
                     } else {
+                        unshareArray();
                         System.arraycopy(array, removeIndex + 2, array, removeIndex, realSize - removeIndex - 2);
                         size--;
                     }
@@ -343,6 +422,26 @@ public abstract class IntervalMap<T> implements TimeMap<Interval, T> {
     }
 
     protected int[] getOverlappingIntervals(double intervalStart, double intervalEnd) {
+        int first = getFirstOverlappingIndex(intervalStart);
+        int last = getLastOverlappingIndex(intervalEnd);
+        if (first > last) {
+            return new int[0];
+        }
+        int[] res = new int[last - first + 1];
+        for (int i = 0; i < res.length; i++) {
+            res[i] = first + i;
+        }
+        return res;
+    }
+
+    /**
+     * Returns the index of the first interval that ends at or after
+     * <code>intervalStart</code>.
+     *
+     * @param intervalStart interval start
+     * @return first overlapping index, or <code>size</code> if none
+     */
+    protected int getFirstOverlappingIndex(double intervalStart) {
         int realSize = size * 2;
         int index = Arrays.binarySearch(array, 0, realSize, intervalStart);
         if (index >= 0) {
@@ -354,45 +453,115 @@ public abstract class IntervalMap<T> implements TimeMap<Interval, T> {
                     break;
                 }
             }
+            return startIndex / 2;
+        }
+        int startIndex = (-index - 1) % 2 == 0 ? (-index - 1) : -index - 2;
+        return startIndex / 2;
+    }
 
-            int[] res = new int[size - (startIndex / 2)];
-            int i = 0;
-            for (; startIndex < realSize && array[startIndex] <= intervalEnd; startIndex += 2) {
-                res[i++] = startIndex / 2;
-            }
-            if (res.length != i) {
-                return Arrays.copyOf(res, i);
-            }
-            return res;
-        } else {
-            int startIndex = (-index - 1) % 2 == 0 ? (-index - 1) : -index - 2;
-            if (startIndex < realSize && array[startIndex] <= intervalEnd) {
-                int[] res = new int[size - (startIndex / 2)];
-                int i = 0;
-                for (; startIndex < realSize && array[startIndex] <= intervalEnd; startIndex += 2) {
-                    res[i++] = startIndex / 2;
-                }
-                if (i != 0) {
-                    if (res.length != i) {
-                        return Arrays.copyOf(res, i);
-                    }
-                    return res;
-                }
+    /**
+     * Returns the index of the last interval that starts at or before
+     * <code>intervalEnd</code>.
+     *
+     * @param intervalEnd interval end
+     * @return last overlapping index, or -1 if none
+     */
+    protected int getLastOverlappingIndex(double intervalEnd) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (array[mid * 2] <= intervalEnd) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
             }
         }
-        return new int[0];
+        return high;
     }
 
     protected double[] getIntervalsWeight(double intervalStart, double intervalEnd, int[] intervals) {
         double[] res = new double[intervals.length];
         for (int i = 0; i < intervals.length; i++) {
-            double start = array[i * 2];
-            double end = array[i * 2 + 1];
-            if (start != end) {
-                start = Math.max(intervalStart, start);
-                end = Math.min(intervalEnd, end);
-                res[i] = end - start;
+            res[i] = getIntervalWeight(intervalStart, intervalEnd, intervals[i]);
+        }
+        return res;
+    }
+
+    private double getIntervalWeight(int index) {
+        double start = array[index * 2];
+        double end = array[index * 2 + 1];
+        return start != end ? end - start : 0.0;
+    }
+
+    private double getIntervalWeight(double intervalStart, double intervalEnd, int index) {
+        double start = array[index * 2];
+        double end = array[index * 2 + 1];
+        if (start != end) {
+            start = Math.max(intervalStart, start);
+            end = Math.min(intervalEnd, end);
+            return end - start;
+        }
+        return 0.0;
+    }
+
+    /**
+     * Discards the range aggregates. Must be called whenever keys or values are
+     * modified.
+     */
+    private void invalidateAggregates() {
+        aggregates = null;
+    }
+
+    /**
+     * Enables or disables the range aggregates of this map.
+     * <p>
+     * When enabled, numeric maps build segment trees and prefix sums on the
+     * first minimum, maximum or average query following a modification, so
+     * later queries are logarithmic in the map size. Averages are exact either
+     * way. Disabled by default.
+     *
+     * @param enabled true to enable range aggregates, false otherwise
+     */
+    public void setRangeAggregatesEnabled(boolean enabled) {
+        aggregatesEnabled = enabled;
+        if (!enabled) {
+            invalidateAggregates();
+        }
+    }
+
+    /**
+     * Returns true if the range aggregates are enabled for this map.
+     *
+     * @return true if range aggregates are enabled, false otherwise
+     */
+    public boolean isRangeAggregatesEnabled() {
+        return aggregatesEnabled;
+    }
+
+    /**
+     * Returns the range aggregates of this map, building them if they are
+     * enabled and the map is numeric.
+     * <p>
+     * Aggregates are immutable once built, so concurrent readers at worst build
+     * them twice.
+     *
+     * @return range aggregates, or null if not available
+     */
+    private RangeAggregates getAggregates() {
+        RangeAggregates res = aggregates;
+        if (res == null && aggregatesEnabled && size >= RangeAggregates.MIN_SIZE && Number.class
+                .isAssignableFrom(getTypeClass())) {
+            double[] values = new double[size];
+            BigDecimal[] weights = new BigDecimal[size];
+            BigDecimal[] weightedValues = new BigDecimal[size];
+            for (int i = 0; i < size; i++) {
+                values[i] = ((Number) getValue(i)).doubleValue();
+                weights[i] = new BigDecimal(getIntervalWeight(i));
+                weightedValues[i] = weights[i].multiply(new BigDecimal(values[i]));
             }
+            res = new RangeAggregates(values, weights, weightedValues);
+            aggregates = res;
         }
         return res;
     }
@@ -435,8 +604,11 @@ public abstract class IntervalMap<T> implements TimeMap<Interval, T> {
 
     @Override
     public void clear() {
+        invalidateAggregates();
         size = 0;
         array = new double[0];
+        sharedArray = false;
+        setValuesArray(newValuesArray(0));
     }
 
     private void overlappingIntervallException() {
@@ -495,22 +667,22 @@ public abstract class IntervalMap<T> implements TimeMap<Interval, T> {
         if (size == 0) {
             return null;
         }
-        int[] intervals = getOverlappingIntervals(interval.getLow(), interval.getHigh());
-        if (intervals.length == 0) {
+        int first = getFirstOverlappingIndex(interval.getLow());
+        if (first > getLastOverlappingIndex(interval.getHigh())) {
             return null;
         }
-        return getValue(intervals[0]);
+        return getValue(first);
     }
 
     protected Object getLast(final Interval interval) {
         if (size == 0) {
             return null;
         }
-        int[] intervals = getOverlappingIntervals(interval.getLow(), interval.getHigh());
-        if (intervals.length == 0) {
+        int last = getLastOverlappingIndex(interval.getHigh());
+        if (getFirstOverlappingIndex(interval.getLow()) > last) {
             return null;
         }
-        return getValue(intervals[intervals.length - 1]);
+        return getValue(last);
     }
 
     protected Object getMin(final Interval interval) {
@@ -522,13 +694,18 @@ public abstract class IntervalMap<T> implements TimeMap<Interval, T> {
         if (size == 0) {
             return null;
         }
-        int[] intervals = getOverlappingIntervals(interval.getLow(), interval.getHigh());
-        if (intervals.length == 0) {
+        int first = getFirstOverlappingIndex(interval.getLow());
+        int last = getLastOverlappingIndex(interval.getHigh());
+        if (first > last) {
             return null;
         }
+        RangeAggregates agg = getAggregates();
+        if (agg != null) {
+            return agg.getMin(first, last);
+        }
         double min = Double.POSITIVE_INFINITY;
-        for (int i = 0; i < intervals.length; i++) {
-            double val = ((Number) getValue(intervals[i])).doubleValue();
+        for (int i = first; i <= last; i++) {
+            double val = ((Number) getValue(i)).doubleValue();
             min = Math.min(val, min);
         }
         return min;
@@ -543,13 +720,18 @@ public abstract class IntervalMap<T> implements TimeMap<Interval, T> {
         if (size == 0) {
             return null;
         }
-        int[] intervals = getOverlappingIntervals(interval.getLow(), interval.getHigh());
-        if (intervals.length == 0) {
+        int first = getFirstOverlappingIndex(interval.getLow());
+        int last = getLastOverlappingIndex(interval.getHigh());
+        if (first > last) {
             return null;
         }
+        RangeAggregates agg = getAggregates();
+        if (agg != null) {
+            return agg.getMax(first, last);
+        }
         double max = Double.NEGATIVE_INFINITY;
-        for (int i = 0; i < intervals.length; i++) {
-            double val = ((Number) getValue(intervals[i])).doubleValue();
+        for (int i = first; i <= last; i++) {
+            double val = ((Number) getValue(i)).doubleValue();
             max = Math.max(val, max);
         }
         return max;
@@ -564,17 +746,22 @@ public abstract class IntervalMap<T> implements TimeMap<Interval, T> {
         if (size == 0) {
             return null;
         }
-        int[] intervals = getOverlappingIntervals(interval.getLow(), interval.getHigh());
-        if (intervals.length == 0) {
+        int first = getFirstOverlappingIndex(interval.getLow());
+        int last = getLastOverlappingIndex(interval.getHigh());
+        if (first > last) {
             return null;
         }
-        double[] weights = getIntervalsWeight(interval.getLow(), interval.getHigh(), intervals);
+        RangeAggregates agg = getAggregates();
+        if (agg != null) {
+            BigDecimal[] sums = getWeightedSums(agg, interval, first, last);
+            return sums[1].divide(sums[0], 10, RoundingMode.HALF_EVEN);
+        }
         BigDecimal result = new BigDecimal(0.0);
         BigDecimal period = new BigDecimal(0.0);
-        for (int i = 0; i < intervals.length; i++) {
-            BigDecimal w = new BigDecimal(weights[i]);
+        for (int i = first; i <= last; i++) {
+            BigDecimal w = new BigDecimal(getIntervalWeight(interval.getLow(), interval.getHigh(), i));
             period = period.add(w);
-            w = w.multiply(new BigDecimal(((Number) getValue(intervals[i])).doubleValue()));
+            w = w.multiply(new BigDecimal(((Number) getValue(i)).doubleValue()));
             result = result.add(w);
         }
         return result.divide(period, 10, RoundingMode.HALF_EVEN);
@@ -584,21 +771,56 @@ public abstract class IntervalMap<T> implements TimeMap<Interval, T> {
         if (size == 0) {
             return null;
         }
-        int[] intervals = getOverlappingIntervals(interval.getLow(), interval.getHigh());
-        if (intervals.length == 0) {
+        int first = getFirstOverlappingIndex(interval.getLow());
+        int last = getLastOverlappingIndex(interval.getHigh());
+        if (first > last) {
             return null;
         }
-        double[] weights = getIntervalsWeight(interval.getLow(), interval.getHigh(), intervals);
+        RangeAggregates agg = getAggregates();
+        if (agg != null) {
+            BigDecimal[] sums = getWeightedSums(agg, interval, first, last);
+            return sums[1].divide(sums[0], MathContext.DECIMAL128).doubleValue();
+        }
         double result = 0.0, period = 0.0;
-        for (int i = 0; i < intervals.length; i++) {
-            double w = weights[i];
+        for (int i = first; i <= last; i++) {
+            double w = getIntervalWeight(interval.getLow(), interval.getHigh(), i);
             period += w;
-            w *= ((Number) getValue(intervals[i])).doubleValue();
+            w *= ((Number) getValue(i)).doubleValue();
             result += w;
         }
         return result / period;
     }
 
+    /**
+     * Returns the exact sums of the weights and of the weighted values of the
+     * intervals between <code>first</code> and <code>last</code>, as the
+     * average scan computes them.
+     * <p>
+     * The prefix sums hold the full interval weights, only the intervals
+     * crossing the bounds of <code>interval</code> are corrected. Intervals
+     * don't overlap so both starts and ends are sorted.
+     */
+    private BigDecimal[] getWeightedSums(RangeAggregates agg, Interval interval, int first, int last) {
+        BigDecimal period = agg.getWeightSum(first, last);
+        BigDecimal result = agg.getWeightedValueSum(first, last);
+        int i = first;
+        for (; i <= last && array[i * 2] < interval.getLow(); i++) {
+            BigDecimal value = new BigDecimal(((Number) getValue(i)).doubleValue());
+            BigDecimal delta = new BigDecimal(getIntervalWeight(interval.getLow(), interval.getHigh(), i))
+                    .subtract(new BigDecimal(getIntervalWeight(i)));
+            period = period.add(delta);
+            result = result.add(delta.multiply(value));
+        }
+        for (int j = last; j >= i && array[j * 2 + 1] > interval.getHigh(); j--) {
+            BigDecimal value = new BigDecimal(((Number) getValue(j)).doubleValue());
+            BigDecimal delta = new BigDecimal(getIntervalWeight(interval.getLow(), interval.getHigh(), j))
+                    .subtract(new BigDecimal(getIntervalWeight(j)));
+            period = period.add(delta);
+            result = result.add(delta.multiply(value));
+        }
+        return new BigDecimal[] { period, result };
+    }
+
     @Override
     public String toString(TimeFormat timeFormat, DateTimeZone timeZone) {
         if (size == 0) {
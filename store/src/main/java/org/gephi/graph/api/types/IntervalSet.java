@@ -123,6 +123,29 @@ public final class IntervalSet implements TimeSet<Interval> {
         return false;
     }
 
+    /**
+     * Returns true if this set contains an interval that overlaps the given
+     * interval.
+     *
+     * @param interval interval
+     * @return true if an interval overlaps, false otherwise
+     */
+    public boolean overlaps(Interval interval) {
+        // Intervals don't overlap each other so the last one starting before
+        // the interval end is also the one ending last
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (array[mid * 2] <= interval.getHigh()) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return high >= 0 && array[high * 2 + 1] >= interval.getLow();
+    }
+
     /**
      * Returns an array of all intervals in this set in a flat format.
      * <p>
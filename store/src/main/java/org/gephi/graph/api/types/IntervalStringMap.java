@@ -62,6 +62,28 @@ public final class IntervalStringMap extends IntervalMap<String> {
         System.arraycopy(vals, 0, values, 0, vals.length);
     }
 
+    /**
+     * Puts all the given intervals and values.
+     * <p>
+     * The <code>keys</code> array must be in the same format returned by
+     * {@link #getIntervals() }. Intervals that are sorted and start after the
+     * current last interval are appended in bulk.
+     *
+     * @param keys flat array of interval bounds
+     * @param vals values, one per interval
+     * @throws IllegalArgumentException if <code>keys</code> doesn't contain two
+     *         bounds per value or if an interval overlaps with an existing
+     *         interval
+     */
+    public void putAll(double[] keys, String[] vals) {
+        for (int i = 0; i < vals.length; i++) {
+            if (vals[i] == null) {
+                throw new NullPointerException();
+            }
+        }
+        putAllInner(keys, vals, vals.length);
+    }
+
     @Override
     public Class<String> getTypeClass() {
         return String.class;
@@ -86,4 +108,14 @@ public final class IntervalStringMap extends IntervalMap<String> {
     protected void setValuesArray(Object array) {
         values = (String[]) array;
     }
+
+    @Override
+    protected Object newValuesArray(int length) {
+        return new String[length];
+    }
+
+    @Override
+    protected void setValue(int index, String value) {
+        values[index] = value;
+    }
 }
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.api.types;
+
+import java.math.BigDecimal;
+
+/**
+ * Precomputed aggregates over the values of a numeric time map.
+ * <p>
+ * Minimum and maximum over an index range are answered by segment trees, so
+ * each query is logarithmic in the map size. Weighted sums are answered by
+ * exact prefix sums, so averages are the same whether aggregates were built or
+ * not. Aggregates are immutable and must be discarded when the map is modified.
+ */
+final class RangeAggregates {
+
+    // Maps smaller than this are simply scanned
+    static final int MIN_SIZE = 16;
+
+    private final int size;
+    private final double[] minTree;
+    private final double[] maxTree;
+    // Prefix sums, the sum of the terms before index i is at i
+    private final BigDecimal[] weightSums;
+    private final BigDecimal[] weightedValueSums;
+
+    /**
+     * Builds the aggregates.
+     * <p>
+     * The weight and weighted value terms are given by the map, at the index
+     * they are summed at.
+     *
+     * @param values values
+     * @param weights weight terms
+     * @param weightedValues weighted value terms
+     */
+    RangeAggregates(double[] values, BigDecimal[] weights, BigDecimal[] weightedValues) {
+        this.size = values.length;
+        this.minTree = new double[size * 2];
+        this.maxTree = new double[size * 2];
+        System.arraycopy(values, 0, minTree, size, size);
+        System.arraycopy(values, 0, maxTree, size, size);
+        for (int i = size - 1; i > 0; i--) {
+            minTree[i] = Math.min(minTree[i * 2], minTree[i * 2 + 1]);
+            maxTree[i] = Math.max(maxTree[i * 2], maxTree[i * 2 + 1]);
+        }
+        this.weightSums = getPrefixSums(weights);
+        this.weightedValueSums = getPrefixSums(weightedValues);
+    }
+
+    /**
+     * Returns the minimum value between <code>from</code> and <code>to</code>,
+     * both inclusive.
+     *
+     * @param from first index
+     * @param to last index
+     * @return minimum value
+     */
+    double getMin(int from, int to) {
+        double min = Double.POSITIVE_INFINITY;
+        for (int l = from + size, r = to + size + 1; l < r; l >>= 1, r >>= 1) {
+            if ((l & 1) == 1) {
+                min = Math.min(min, minTree[l++]);
+            }
+            if ((r & 1) == 1) {
+                min = Math.min(min, minTree[--r]);
+            }
+        }
+        return min;
+    }
+
+    /**
+     * Returns the maximum value between <code>from</code> and <code>to</code>,
+     * both inclusive.
+     *
+     * @param from first index
+     * @param to last index
+     * @return maximum value
+     */
+    double getMax(int from, int to) {
+        double max = Double.NEGATIVE_INFINITY;
+        for (int l = from + size, r = to + size + 1; l < r; l >>= 1, r >>= 1) {
+            if ((l & 1) == 1) {
+                max = Math.max(max, maxTree[l++]);
+            }
+            if ((r & 1) == 1) {
+                max = Math.max(max, maxTree[--r]);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Returns the sum of the weight terms between <code>from</code> and
+     * <code>to</code>, both inclusive.
+     *
+     * @param from first index
+     * @param to last index
+     * @return exact sum of weights
+     */
+    BigDecimal getWeightSum(int from, int to) {
+        return weightSums[to + 1].subtract(weightSums[from]);
+    }
+
+    /**
+     * Returns the sum of the weighted value terms between <code>from</code> and
+     * <code>to</code>, both inclusive.
+     *
+     * @param from first index
+     * @param to last index
+     * @return exact sum of weighted values
+     */
+    BigDecimal getWeightedValueSum(int from, int to) {
+        return weightedValueSums[to + 1].subtract(weightedValueSums[from]);
+    }
+
+    private static BigDecimal[] getPrefixSums(BigDecimal[] terms) {
+        BigDecimal[] sums = new BigDecimal[terms.length + 1];
+        sums[0] = BigDecimal.ZERO;
+        for (int i = 0; i < terms.length; i++) {
+            sums[i + 1] = sums[i].add(terms[i]);
+        }
+        return sums;
+    }
+}
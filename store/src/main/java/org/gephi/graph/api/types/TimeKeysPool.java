@@ -0,0 +1,76 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.api.types;
+
+import it.unimi.dsi.fastutil.doubles.DoubleArrays;
+import it.unimi.dsi.fastutil.objects.Object2ObjectOpenCustomHashMap;
+
+/**
+ * Pool of timestamp and interval arrays shared between time maps.
+ * <p>
+ * Maps compacted with the same pool and having identical keys, for instance the
+ * attributes of elements sampled on the same clock, share a single keys array.
+ * A shared array is copied by a map before it's modified.
+ * <p>
+ * The pool keeps a reference to every array it contains, until it's cleared.
+ *
+ * @see TimestampMap#compact(org.gephi.graph.api.types.TimeKeysPool)
+ * @see IntervalMap#compact(org.gephi.graph.api.types.TimeKeysPool)
+ */
+public final class TimeKeysPool {
+
+    private final Object2ObjectOpenCustomHashMap<double[], double[]> arrays;
+
+    /**
+     * Default constructor.
+     */
+    public TimeKeysPool() {
+        arrays = new Object2ObjectOpenCustomHashMap<double[], double[]>(DoubleArrays.HASH_STRATEGY);
+    }
+
+    /**
+     * Returns the array in this pool equal to <code>array</code>, adding it if
+     * there's none.
+     *
+     * @param array array, which shouldn't be modified afterwards
+     * @return shared array
+     */
+    double[] intern(double[] array) {
+        double[] shared = arrays.get(array);
+        if (shared == null) {
+            arrays.put(array, array);
+            shared = array;
+        }
+        return shared;
+    }
+
+    /**
+     * Returns the number of distinct arrays in this pool.
+     *
+     * @return number of arrays
+     */
+    public int size() {
+        return arrays.size();
+    }
+
+    /**
+     * Removes all arrays from this pool. Maps already sharing an array keep
+     * sharing it.
+     */
+    public void clear() {
+        arrays.clear();
+    }
+}
@@ -63,6 +63,21 @@ public final class TimestampBooleanMap extends TimestampMap<Boolean> {
         System.arraycopy(vals, 0, values, 0, vals.length);
     }
 
+    /**
+     * Puts all the given timestamps and values.
+     * <p>
+     * Timestamps that are sorted and greater than the current last timestamp
+     * are appended in bulk.
+     *
+     * @param keys timestamps
+     * @param vals values, one per timestamp
+     * @throws IllegalArgumentException if <code>keys</code> and
+     *         <code>vals</code> have different lengths
+     */
+    public void putAll(double[] keys, boolean[] vals) {
+        putAllInner(keys, vals, vals.length);
+    }
+
     /**
      * Get the value for the given timestamp.
      *
@@ -102,7 +117,7 @@ public final class TimestampBooleanMap extends TimestampMap<Boolean> {
         }
         double lowBound = interval.getLow();
         double highBound = interval.getHigh();
-        int index = Arrays.binarySearch(array, lowBound);
+        int index = Arrays.binarySearch(array, 0, size, lowBound);
         if (index < 0) {
             index = -index - 1;
         }
@@ -129,7 +144,7 @@ public final class TimestampBooleanMap extends TimestampMap<Boolean> {
         }
         double lowBound = interval.getLow();
         double highBound = interval.getHigh();
-        int index = Arrays.binarySearch(array, lowBound);
+        int index = Arrays.binarySearch(array, 0, size, lowBound);
         if (index < 0) {
             index = -index - 1;
         }
@@ -185,4 +200,14 @@ public final class TimestampBooleanMap extends TimestampMap<Boolean> {
     protected void setValuesArray(Object array) {
         values = (boolean[]) array;
     }
+
+    @Override
+    protected Object newValuesArray(int length) {
+        return new boolean[length];
+    }
+
+    @Override
+    protected void setValue(int index, Boolean value) {
+        values[index] = value;
+    }
 }
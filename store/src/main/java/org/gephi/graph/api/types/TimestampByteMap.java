@@ -62,6 +62,21 @@ public final class TimestampByteMap extends TimestampMap<Byte> {
         System.arraycopy(vals, 0, values, 0, vals.length);
     }
 
+    /**
+     * Puts all the given timestamps and values.
+     * <p>
+     * Timestamps that are sorted and greater than the current last timestamp
+     * are appended in bulk.
+     *
+     * @param keys timestamps
+     * @param vals values, one per timestamp
+     * @throws IllegalArgumentException if <code>keys</code> and
+     *         <code>vals</code> have different lengths
+     */
+    public void putAll(double[] keys, byte[] vals) {
+        putAllInner(keys, vals, vals.length);
+    }
+
     /**
      * Get the value for the given timestamp.
      *
@@ -148,4 +163,14 @@ public final class TimestampByteMap extends TimestampMap<Byte> {
     protected void setValuesArray(Object array) {
         values = (byte[]) array;
     }
+
+    @Override
+    protected Object newValuesArray(int length) {
+        return new byte[length];
+    }
+
+    @Override
+    protected void setValue(int index, Byte value) {
+        values[index] = value;
+    }
 }
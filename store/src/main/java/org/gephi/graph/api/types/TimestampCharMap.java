@@ -63,6 +63,21 @@ public final class TimestampCharMap extends TimestampMap<Character> {
         System.arraycopy(vals, 0, values, 0, vals.length);
     }
 
+    /**
+     * Puts all the given timestamps and values.
+     * <p>
+     * Timestamps that are sorted and greater than the current last timestamp
+     * are appended in bulk.
+     *
+     * @param keys timestamps
+     * @param vals values, one per timestamp
+     * @throws IllegalArgumentException if <code>keys</code> and
+     *         <code>vals</code> have different lengths
+     */
+    public void putAll(double[] keys, char[] vals) {
+        putAllInner(keys, vals, vals.length);
+    }
+
     /**
      * Get the value for the given timestamp.
      *
@@ -102,7 +117,7 @@ public final class TimestampCharMap extends TimestampMap<Character> {
         }
         double lowBound = interval.getLow();
         double highBound = interval.getHigh();
-        int index = Arrays.binarySearch(array, lowBound);
+        int index = Arrays.binarySearch(array, 0, size, lowBound);
         if (index < 0) {
             index = -index - 1;
         }
@@ -127,7 +142,7 @@ public final class TimestampCharMap extends TimestampMap<Character> {
         }
         double lowBound = interval.getLow();
         double highBound = interval.getHigh();
-        int index = Arrays.binarySearch(array, lowBound);
+        int index = Arrays.binarySearch(array, 0, size, lowBound);
         if (index < 0) {
             index = -index - 1;
         }
@@ -181,4 +196,14 @@ public final class TimestampCharMap extends TimestampMap<Character> {
     protected void setValuesArray(Object array) {
         values = (char[]) array;
     }
+
+    @Override
+    protected Object newValuesArray(int length) {
+        return new char[length];
+    }
+
+    @Override
+    protected void setValue(int index, Character value) {
+        values[index] = value;
+    }
 }
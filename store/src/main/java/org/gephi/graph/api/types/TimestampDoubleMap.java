@@ -61,6 +61,21 @@ public final class TimestampDoubleMap extends TimestampMap<Double> {
         System.arraycopy(vals, 0, values, 0, vals.length);
     }
 
+    /**
+     * Puts all the given timestamps and values.
+     * <p>
+     * Timestamps that are sorted and greater than the current last timestamp
+     * are appended in bulk.
+     *
+     * @param keys timestamps
+     * @param vals values, one per timestamp
+     * @throws IllegalArgumentException if <code>keys</code> and
+     *         <code>vals</code> have different lengths
+     */
+    public void putAll(double[] keys, double[] vals) {
+        putAllInner(keys, vals, vals.length);
+    }
+
     /**
      * Get the value for the given timestamp index.
      *
@@ -129,4 +144,14 @@ public final class TimestampDoubleMap extends TimestampMap<Double> {
     protected void setValuesArray(Object array) {
         values = (double[]) array;
     }
+
+    @Override
+    protected Object newValuesArray(int length) {
+        return new double[length];
+    }
+
+    @Override
+    protected void setValue(int index, Double value) {
+        values[index] = value;
+    }
 }
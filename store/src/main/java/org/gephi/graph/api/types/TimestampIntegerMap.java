@@ -63,6 +63,21 @@ public final class TimestampIntegerMap extends TimestampMap<Integer> {
         System.arraycopy(vals, 0, values, 0, vals.length);
     }
 
+    /**
+     * Puts all the given timestamps and values.
+     * <p>
+     * Timestamps that are sorted and greater than the current last timestamp
+     * are appended in bulk.
+     *
+     * @param keys timestamps
+     * @param vals values, one per timestamp
+     * @throws IllegalArgumentException if <code>keys</code> and
+     *         <code>vals</code> have different lengths
+     */
+    public void putAll(double[] keys, int[] vals) {
+        putAllInner(keys, vals, vals.length);
+    }
+
     /**
      * Get the value for the given timestamp.
      *
@@ -143,4 +158,14 @@ public final class TimestampIntegerMap extends TimestampMap<Integer> {
     protected void setValuesArray(Object array) {
         values = (int[]) array;
     }
+
+    @Override
+    protected Object newValuesArray(int length) {
+        return new int[length];
+    }
+
+    @Override
+    protected void setValue(int index, Integer value) {
+        values[index] = value;
+    }
 }
@@ -63,6 +63,21 @@ public final class TimestampLongMap extends TimestampMap<Long> {
         System.arraycopy(vals, 0, values, 0, vals.length);
     }
 
+    /**
+     * Puts all the given timestamps and values.
+     * <p>
+     * Timestamps that are sorted and greater than the current last timestamp
+     * are appended in bulk.
+     *
+     * @param keys timestamps
+     * @param vals values, one per timestamp
+     * @throws IllegalArgumentException if <code>keys</code> and
+     *         <code>vals</code> have different lengths
+     */
+    public void putAll(double[] keys, long[] vals) {
+        putAllInner(keys, vals, vals.length);
+    }
+
     /**
      * Get the value for the given timestamp.
      *
@@ -143,4 +158,14 @@ public final class TimestampLongMap extends TimestampMap<Long> {
     protected void setValuesArray(Object array) {
         values = (long[]) array;
     }
+
+    @Override
+    protected Object newValuesArray(int length) {
+        return new long[length];
+    }
+
+    @Override
+    protected void setValue(int index, Long value) {
+        values[index] = value;
+    }
 }
@@ -18,6 +18,7 @@ package org.gephi.graph.api.types;
 import java.lang.reflect.Array;
 import org.gephi.graph.api.Estimator;
 import java.math.BigDecimal;
+import java.math.MathContext;
 import java.math.RoundingMode;
 import java.util.Arrays;
 import org.gephi.graph.api.AttributeUtils;
@@ -39,6 +40,12 @@ public abstract class TimestampMap<T> implements TimeMap<Double, T> {
 
     protected double[] array;
     protected int size = 0;
+    // True if the array is shared with other maps and must be copied before
+    // being modified
+    private boolean sharedArray;
+    // Range aggregates, built lazily for numeric maps when enabled
+    private boolean aggregatesEnabled;
+    private volatile RangeAggregates aggregates;
 
     /**
      * Default constructor.
@@ -80,28 +87,14 @@ public abstract class TimestampMap<T> implements TimeMap<Double, T> {
         if (value == null) {
             throw new NullPointerException();
         }
-        Object values = getValuesArray();
-        int valuesLength = Array.getLength(values);
 
+        invalidateAggregates();
         final int index = putInner(timestamp);
         if (index < 0) {
-            int insertIndex = -index - 1;
-
-            if (size - 1 < valuesLength) {
-                if (insertIndex < size - 1) {
-                    System.arraycopy(values, insertIndex, values, insertIndex + 1, size - insertIndex - 1);
-                }
-                Array.set(values, insertIndex, value);
-            } else {
-                Object newArray = Array.newInstance(values.getClass().getComponentType(), valuesLength + 1);
-                System.arraycopy(values, 0, newArray, 0, insertIndex);
-                System.arraycopy(values, insertIndex, newArray, insertIndex + 1, valuesLength - insertIndex);
-                Array.set(newArray, insertIndex, value);
-                setValuesArray(newArray);
-            }
+            setValue(-index - 1, value);
             return true;
         } else {
-            Array.set(values, index, value);
+            setValue(index, value);
         }
         return false;
     }
@@ -112,6 +105,7 @@ public abstract class TimestampMap<T> implements TimeMap<Double, T> {
 
         final int removeIndex = removeInner(timestamp);
         if (removeIndex >= 0) {
+            invalidateAggregates();
             if (removeIndex != size) {
                 System.arraycopy(values, removeIndex + 1, values, removeIndex, size - removeIndex);
             }
@@ -152,30 +146,122 @@ public abstract class TimestampMap<T> implements TimeMap<Double, T> {
 
     @Override
     public T[] toValuesArray() {
-        Object values = getValuesArray();
-        int length = Array.getLength(values);
-        if (values.getClass().getComponentType().isPrimitive() || size < length) {
-            T[] res = (T[]) Array.newInstance(getTypeClass(), size);
-            for (int i = 0; i < size; i++) {
-                res[i] = (T) Array.get(values, i);
-            }
-            return res;
-        } else {
-            return (T[]) values;
+        T[] res = (T[]) Array.newInstance(getTypeClass(), size);
+        for (int i = 0; i < size; i++) {
+            res[i] = getValue(i);
         }
+        return res;
     }
 
     protected Object toPrimitiveArray() {
         Object values = getValuesArray();
-        int length = Array.getLength(values);
-        if (size < length - 1) {
-            Object res = Array.newInstance(values.getClass().getComponentType(), size);
+        if (size < array.length) {
+            Object res = newValuesArray(size);
             System.arraycopy(values, 0, res, 0, size);
             return res;
         }
         return values;
     }
 
+    /**
+     * Puts all the given keys and values, stored in a primitive or object
+     * array.
+     * <p>
+     * Keys that are sorted and all greater than the current last key are
+     * appended in bulk. Other keys are inserted one by one.
+     *
+     * @param keys keys
+     * @param values values array, of the same type as the values array
+     * @param valuesLength length of <code>values</code>
+     */
+    protected void putAllInner(double[] keys, Object values, int valuesLength) {
+        if (keys.length != valuesLength) {
+            throw new IllegalArgumentException("Keys and values must have the same length");
+        }
+        invalidateAggregates();
+        if (isAppendable(keys)) {
+            ensureCapacity(size + keys.length);
+            System.arraycopy(keys, 0, array, size, keys.length);
+            System.arraycopy(values, 0, getValuesArray(), size, keys.length);
+            size += keys.length;
+        } else {
+            for (int i = 0; i < keys.length; i++) {
+                int index = putInner(keys[i]);
+                System.arraycopy(values, i, getValuesArray(), index < 0 ? -index - 1 : index, 1);
+            }
+        }
+    }
+
+    private boolean isAppendable(double[] keys) {
+        if (keys.length == 0) {
+            return true;
+        }
+        if (size > 0 && keys[0] <= array[size - 1]) {
+            return false;
+        }
+        for (int i = 1; i < keys.length; i++) {
+            if (keys[i] <= keys[i - 1]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Ensures both the keys and values arrays can hold at least
+     * <code>capacity</code> entries.
+     * <p>
+     * Arrays grow by half their size so appending entries one by one is
+     * amortized constant time.
+     *
+     * @param capacity minimum capacity
+     */
+    protected void ensureCapacity(int capacity) {
+        if (capacity > array.length) {
+            int newCapacity = Math.max(capacity, array.length + (array.length >> 1));
+            double[] newArray = new double[newCapacity];
+            System.arraycopy(array, 0, newArray, 0, size);
+            array = newArray;
+            sharedArray = false;
+
+            Object newValues = newValuesArray(newCapacity);
+            System.arraycopy(getValuesArray(), 0, newValues, 0, size);
+            setValuesArray(newValues);
+        } else {
+            unshareArray();
+        }
+    }
+
+    /**
+     * Trims this map's arrays to its size and, if <code>pool</code> isn't null,
+     * shares its timestamps array with the maps having identical timestamps
+     * compacted with the same pool.
+     * <p>
+     * Values are stored as before so reading the map isn't slower. The shared
+     * timestamps array is copied the first time the map's timestamps are
+     * modified.
+     *
+     * @param pool timestamps pool, or null to only trim the arrays
+     */
+    public void compact(TimeKeysPool pool) {
+        if (size < array.length) {
+            setValuesArray(toPrimitiveArray());
+            array = Arrays.copyOf(array, size);
+            sharedArray = false;
+        }
+        if (pool != null) {
+            array = pool.intern(array);
+            sharedArray = true;
+        }
+    }
+
+    private void unshareArray() {
+        if (sharedArray) {
+            array = Arrays.copyOf(array, array.length);
+            sharedArray = false;
+        }
+    }
+
     @Override
     public abstract Class<T> getTypeClass();
 
@@ -188,23 +274,22 @@ public abstract class TimestampMap<T> implements TimeMap<Double, T> {
 
     protected abstract void setValuesArray(Object array);
 
+    protected abstract Object newValuesArray(int length);
+
+    protected abstract void setValue(int index, T value);
+
     protected int putInner(double timestamp) {
         int index = Arrays.binarySearch(array, 0, size, timestamp);
         if (index < 0) {
             int insertIndex = -index - 1;
 
-            if (size < array.length) {
-                if (insertIndex < size) {
-                    System.arraycopy(array, insertIndex, array, insertIndex + 1, size - insertIndex);
-                }
-                array[insertIndex] = timestamp;
-            } else {
-                double[] newArray = new double[array.length + 1];
-                System.arraycopy(array, 0, newArray, 0, insertIndex);
-                System.arraycopy(array, insertIndex, newArray, insertIndex + 1, array.length - insertIndex);
-                newArray[insertIndex] = timestamp;
-                array = newArray;
+            ensureCapacity(size + 1);
+            if (insertIndex < size) {
+                System.arraycopy(array, insertIndex, array, insertIndex + 1, size - insertIndex);
+                Object values = getValuesArray();
+                System.arraycopy(values, insertIndex, values, insertIndex + 1, size - insertIndex);
             }
+            array[insertIndex] = timestamp;
 
             size++;
         }
@@ -219,6 +304,7 @@ public abstract class TimestampMap<T> implements TimeMap<Double, T> {
             if (removeIndex == size - 1) {
                 size--;
             } else {
+                unshareArray();
                 System.arraycopy(array, removeIndex + 1, array, removeIndex, size - removeIndex - 1);
                 size--;
             }
@@ -293,9 +379,11 @@ public abstract class TimestampMap<T> implements TimeMap<Double, T> {
 
     @Override
     public void clear() {
+        invalidateAggregates();
         size = 0;
         array = new double[0];
-        setValuesArray(Array.newInstance(getValuesArray().getClass().getComponentType(), 0));
+        sharedArray = false;
+        setValuesArray(newValuesArray(0));
     }
 
     @Override
@@ -323,7 +411,7 @@ public abstract class TimestampMap<T> implements TimeMap<Double, T> {
         if (this.size != other.size) {
             return false;
         }
-        for (int i = 0; i < this.array.length && i < other.array.length; i++) {
+        for (int i = 0; i < this.size; i++) {
             double i1 = this.array[i];
             double i2 = other.array[i];
             if (i1 != i2) {
@@ -338,27 +426,121 @@ public abstract class TimestampMap<T> implements TimeMap<Double, T> {
         return true;
     }
 
+    /**
+     * Returns the index of the first timestamp greater or equal to
+     * <code>intervalStart</code>.
+     *
+     * @param intervalStart interval start
+     * @return first overlapping index, or <code>size</code> if none
+     */
+    protected int getFirstOverlappingIndex(double intervalStart) {
+        int index = Arrays.binarySearch(array, 0, size, intervalStart);
+        return index >= 0 ? index : (-index - 1);
+    }
+
+    /**
+     * Returns the index of the last timestamp lower or equal to
+     * <code>intervalEnd</code>.
+     *
+     * @param intervalEnd interval end
+     * @return last overlapping index, or -1 if none
+     */
+    protected int getLastOverlappingIndex(double intervalEnd) {
+        int index = Arrays.binarySearch(array, 0, size, intervalEnd);
+        return index >= 0 ? index : (-index - 2);
+    }
+
+    /**
+     * Discards the range aggregates. Must be called whenever keys or values are
+     * modified.
+     */
+    private void invalidateAggregates() {
+        aggregates = null;
+    }
+
+    /**
+     * Enables or disables the range aggregates of this map.
+     * <p>
+     * When enabled, numeric maps build segment trees and prefix sums on the
+     * first minimum, maximum or average query following a modification, so
+     * later queries are logarithmic in the map size. Averages are exact either
+     * way. Disabled by default.
+     *
+     * @param enabled true to enable range aggregates, false otherwise
+     */
+    public void setRangeAggregatesEnabled(boolean enabled) {
+        aggregatesEnabled = enabled;
+        if (!enabled) {
+            invalidateAggregates();
+        }
+    }
+
+    /**
+     * Returns true if the range aggregates are enabled for this map.
+     *
+     * @return true if range aggregates are enabled, false otherwise
+     */
+    public boolean isRangeAggregatesEnabled() {
+        return aggregatesEnabled;
+    }
+
+    /**
+     * Returns the range aggregates of this map, building them if they are
+     * enabled and the map is numeric.
+     * <p>
+     * Aggregates are immutable once built, so concurrent readers at worst build
+     * them twice.
+     *
+     * @return range aggregates, or null if not available
+     */
+    private RangeAggregates getAggregates() {
+        RangeAggregates res = aggregates;
+        if (res == null && aggregatesEnabled && size >= RangeAggregates.MIN_SIZE && Number.class
+                .isAssignableFrom(getTypeClass())) {
+            double[] values = new double[size];
+            for (int i = 0; i < size; i++) {
+                values[i] = ((Number) getValue(i)).doubleValue();
+            }
+            // Same terms as the average scan, the period between two
+            // timestamps is summed at the second one
+            BigDecimal[] periods = new BigDecimal[size];
+            BigDecimal[] weightedValues = new BigDecimal[size];
+            periods[0] = BigDecimal.ZERO;
+            weightedValues[0] = BigDecimal.ZERO;
+            BigDecimal two = new BigDecimal(2.0);
+            for (int i = 1; i < size; i++) {
+                BigDecimal p = new BigDecimal(array[i] - array[i - 1]);
+                periods[i] = p;
+                weightedValues[i] = new BigDecimal(values[i - 1]).add(new BigDecimal(values[i])).divide(two)
+                        .multiply(p);
+            }
+            res = new RangeAggregates(values, periods, weightedValues);
+            aggregates = res;
+        }
+        return res;
+    }
+
     // Estimators
     protected Object getFirst(final Interval interval) {
         if (size == 0) {
             return null;
         }
-        int[] timestamps = getOverlappingTimestamps(interval.getLow(), interval.getHigh());
-        if (timestamps.length == 0) {
+        int first = getFirstOverlappingIndex(interval.getLow());
+        if (first >= size || array[first] > interval.getHigh()) {
             return null;
         }
-        return getValue(timestamps[0]);
+        return getValue(first);
     }
 
     protected Object getLast(final Interval interval) {
         if (size == 0) {
             return null;
         }
-        int[] timestamps = getOverlappingTimestamps(interval.getLow(), interval.getHigh());
-        if (timestamps.length == 0) {
+        int last = getLastOverlappingIndex(interval.getHigh());
+        if (last < 0 || array[last] < interval.getLow()) {
             return null;
         }
-        return getValue(timestamps[timestamps.length - 1]);
+        return getValue(last);
     }
 
     protected Object getMin(final Interval interval) {
@@ -370,6 +552,12 @@ public abstract class TimestampMap<T> implements TimeMap<Double, T> {
         if (size == 0) {
             return null;
         }
+        RangeAggregates agg = getAggregates();
+        if (agg != null) {
+            int first = getFirstOverlappingIndex(interval.getLow());
+            int last = getLastOverlappingIndex(interval.getHigh());
+            return first <= last ? agg.getMin(first, last) : null;
+        }
         int[] timestamps = getOverlappingTimestamps(interval.getLow(), interval.getHigh());
         if (timestamps.length == 0) {
             return null;
@@ -391,6 +579,12 @@ public abstract class TimestampMap<T> implements TimeMap<Double, T> {
         if (size == 0) {
             return null;
         }
+        RangeAggregates agg = getAggregates();
+        if (agg != null) {
+            int first = getFirstOverlappingIndex(interval.getLow());
+            int last = getLastOverlappingIndex(interval.getHigh());
+            return first <= last ? agg.getMax(first, last) : null;
+        }
         int[] timestamps = getOverlappingTimestamps(interval.getLow(), interval.getHigh());
         if (timestamps.length == 0) {
             return null;
@@ -412,6 +606,18 @@ public abstract class TimestampMap<T> implements TimeMap<Double, T> {
         if (size == 0) {
             return null;
         }
+        RangeAggregates agg = getAggregates();
+        if (agg != null) {
+            int first = getFirstOverlappingIndex(interval.getLow());
+            int last = getLastOverlappingIndex(interval.getHigh());
+            if (first > last) {
+                return null;
+            } else if (first == last) {
+                return new BigDecimal(((Number) getValue(first)).doubleValue());
+            }
+            return agg.getWeightedValueSum(first + 1, last)
+                    .divide(agg.getWeightSum(first + 1, last), 10, RoundingMode.HALF_EVEN);
+        }
         int[] timestamps = getOverlappingTimestamps(interval.getLow(), interval.getHigh());
         if (timestamps.length == 0) {
             return null;
@@ -435,6 +641,18 @@ public abstract class TimestampMap<T> implements TimeMap<Double, T> {
         if (size == 0) {
             return null;
         }
+        RangeAggregates agg = getAggregates();
+        if (agg != null) {
+            int first = getFirstOverlappingIndex(interval.getLow());
+            int last = getLastOverlappingIndex(interval.getHigh());
+            if (first > last) {
+                return null;
+            } else if (first == last) {
+                return ((Number) getValue(first)).doubleValue();
+            }
+            return agg.getWeightedValueSum(first + 1, last)
+                    .divide(agg.getWeightSum(first + 1, last), MathContext.DECIMAL128).doubleValue();
+        }
         int[] timestamps = getOverlappingTimestamps(interval.getLow(), interval.getHigh());
         if (timestamps.length == 0) {
             return null;
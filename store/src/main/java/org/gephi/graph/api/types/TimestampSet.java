@@ -17,6 +17,7 @@ package org.gephi.graph.api.types;
 
 import java.util.Arrays;
 import org.gephi.graph.api.AttributeUtils;
+import org.gephi.graph.api.Interval;
 import org.gephi.graph.api.TimeFormat;
 import org.gephi.graph.impl.FormattingAndParsingUtils;
 import org.joda.time.DateTimeZone;
@@ -90,6 +91,21 @@ public final class TimestampSet implements TimeSet<Double> {
         return index >= 0 && index < size;
     }
 
+    /**
+     * Returns true if this set contains a timestamp within the given interval.
+     *
+     * @param interval interval
+     * @return true if a timestamp overlaps the interval, false otherwise
+     */
+    public boolean overlaps(Interval interval) {
+        int index = Arrays.binarySearch(array, 0, size, interval.getLow());
+        if (index >= 0) {
+            return true;
+        }
+        index = -index - 1;
+        return index < size && array[index] <= interval.getHigh();
+    }
+
     @Override
     public Double[] toArray() {
         Double[] res = new Double[size];
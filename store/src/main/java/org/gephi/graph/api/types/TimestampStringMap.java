@@ -61,6 +61,26 @@ public final class TimestampStringMap extends TimestampMap<String> {
         System.arraycopy(vals, 0, values, 0, vals.length);
     }
 
+    /**
+     * Puts all the given timestamps and values.
+     * <p>
+     * Timestamps that are sorted and greater than the current last timestamp
+     * are appended in bulk.
+     *
+     * @param keys timestamps
+     * @param vals values, one per timestamp
+     * @throws IllegalArgumentException if <code>keys</code> and
+     *         <code>vals</code> have different lengths
+     */
+    public void putAll(double[] keys, String[] vals) {
+        for (int i = 0; i < vals.length; i++) {
+            if (vals[i] == null) {
+                throw new NullPointerException();
+            }
+        }
+        putAllInner(keys, vals, vals.length);
+    }
+
     @Override
     public Class<String> getTypeClass() {
         return String.class;
@@ -85,4 +105,14 @@ public final class TimestampStringMap extends TimestampMap<String> {
     protected void setValuesArray(Object array) {
         values = (String[]) array;
     }
+
+    @Override
+    protected Object newValuesArray(int length) {
+        return new String[length];
+    }
+
+    @Override
+    protected void setValue(int index, String value) {
+        values[index] = value;
+    }
 }
@@ -0,0 +1,340 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import java.io.DataInput;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.util.List;
+import org.gephi.graph.api.ChangeLogReader;
+import org.gephi.graph.api.Column;
+import org.gephi.graph.api.DirectedSubgraph;
+import org.gephi.graph.api.Estimator;
+import org.gephi.graph.api.GraphView;
+import org.gephi.graph.api.Origin;
+import org.gephi.graph.impl.utils.DataInputOutput;
+
+public class ChangeLogReaderImpl implements ChangeLogReader {
+
+    // Model
+    protected final GraphModelImpl graphModel;
+    protected final GraphStore store;
+    // Input
+    protected final DataInput input;
+    protected final Serialization serialization;
+    // Replayed views, by index
+    protected final List<GraphView> views;
+    // Incomplete segment, kept until the rest of it is available
+    protected final byte[] header;
+    protected int headerLength;
+    protected byte[] segment;
+    protected int segmentLength;
+
+    public ChangeLogReaderImpl(GraphModelImpl graphModel, DataInput input) {
+        if (input == null) {
+            throw new NullPointerException();
+        }
+        this.graphModel = graphModel;
+        this.store = graphModel.store;
+        this.input = input;
+        this.serialization = new Serialization(graphModel);
+        this.views = new ObjectArrayList<GraphView>();
+        this.header = new byte[4];
+    }
+
+    @Override
+    public synchronized int replay() throws IOException {
+        int count = 0;
+        byte[] segment;
+        while ((segment = readSegment()) != null) {
+            store.autoWriteLock();
+            try {
+                applySegment(new DataInputOutput(segment));
+            } catch (ClassNotFoundException e) {
+                throw new IOException(e);
+            } finally {
+                store.autoWriteUnlock();
+            }
+            count++;
+        }
+        return count;
+    }
+
+    @Override
+    public synchronized GraphView getView(int index) {
+        return index >= 0 && index < views.size() ? views.get(index) : null;
+    }
+
+    /**
+     * Reads the next segment, or returns null if it isn't complete yet. The
+     * bytes read so far are kept, so the next call resumes where this one
+     * stopped.
+     */
+    private byte[] readSegment() throws IOException {
+        while (headerLength < header.length) {
+            int read = read(header, headerLength, header.length - headerLength);
+            if (read < 0) {
+                return null;
+            }
+            headerLength += read;
+        }
+        if (segment == null) {
+            int length = (header[0] & 0xFF) << 24 | (header[1] & 0xFF) << 16 | (header[2] & 0xFF) << 8 | (header[3] & 0xFF);
+            if (length < 0) {
+                throw new IOException("Invalid change log segment length " + length);
+            }
+            segment = new byte[length];
+            segmentLength = 0;
+        }
+        while (segmentLength < segment.length) {
+            int read = read(segment, segmentLength, segment.length - segmentLength);
+            if (read < 0) {
+                return null;
+            }
+            segmentLength += read;
+        }
+        byte[] res = segment;
+        segment = null;
+        headerLength = 0;
+        return res;
+    }
+
+    /**
+     * Reads up to <code>length</code> bytes without going past the end of the
+     * input, as <code>readFully</code> would consume the bytes available before
+     * failing.
+     *
+     * @return number of bytes read, or -1 at the end of the input
+     */
+    private int read(byte[] bytes, int offset, int length) throws IOException {
+        if (input instanceof InputStream) {
+            return ((InputStream) input).read(bytes, offset, length);
+        } else if (input instanceof RandomAccessFile) {
+            return ((RandomAccessFile) input).read(bytes, offset, length);
+        } else if (input instanceof DataInputOutput) {
+            DataInputOutput buffer = (DataInputOutput) input;
+            int available = Math.min(length, buffer.available());
+            if (available <= 0) {
+                return -1;
+            }
+            buffer.readFully(bytes, offset, available);
+            return available;
+        }
+        try {
+            bytes[offset] = input.readByte();
+            return 1;
+        } catch (EOFException e) {
+            return -1;
+        }
+    }
+
+    private void applySegment(DataInputOutput in) throws IOException, ClassNotFoundException {
+        float version = (Float) serialization.deserialize(in);
+        if (version > Serialization.VERSION) {
+            throw new IOException("The change log version " + version + " isn't supported");
+        }
+        serialization.readVersion = version;
+
+        int record;
+        while ((record = in.readUnsignedByte()) != ChangeLogWriterImpl.END) {
+            switch (record) {
+                case ChangeLogWriterImpl.COLUMN_ADD:
+                    addColumn(in);
+                    break;
+                case ChangeLogWriterImpl.COLUMN_REMOVE: {
+                    TableImpl table = readTable(in);
+                    String id = (String) serialization.deserialize(in);
+                    if (table.hasColumn(id)) {
+                        table.removeColumn(id);
+                    }
+                    break;
+                }
+                case ChangeLogWriterImpl.NODE_ADD:
+                    addNode(in);
+                    break;
+                case ChangeLogWriterImpl.NODE_REMOVE: {
+                    NodeImpl node = store.getNode(serialization.deserialize(in));
+                    if (node != null) {
+                        store.removeNode(node);
+                    }
+                    break;
+                }
+                case ChangeLogWriterImpl.EDGE_ADD:
+                    addEdge(in);
+                    break;
+                case ChangeLogWriterImpl.EDGE_REMOVE: {
+                    EdgeImpl edge = store.getEdge(serialization.deserialize(in));
+                    if (edge != null) {
+                        store.removeEdge(edge);
+                    }
+                    break;
+                }
+                case ChangeLogWriterImpl.ATTRIBUTE: {
+                    TableImpl table = readTable(in);
+                    Object id = serialization.deserialize(in);
+                    String columnId = (String) serialization.deserialize(in);
+                    Object value = serialization.deserialize(in);
+                    ElementImpl element = table == store.nodeTable ? store.getNode(id) : store.getEdge(id);
+                    Column column = table.getColumn(columnId);
+                    if (element != null && column != null) {
+                        setValue(element, column, value);
+                    }
+                    break;
+                }
+                case ChangeLogWriterImpl.VIEW_ADD: {
+                    int index = (Integer) serialization.deserialize(in);
+                    boolean nodeView = (Boolean) serialization.deserialize(in);
+                    boolean edgeView = (Boolean) serialization.deserialize(in);
+                    while (views.size() <= index) {
+                        views.add(null);
+                    }
+                    if (views.get(index) == null) {
+                        views.set(index, store.viewStore.createView(nodeView, edgeView));
+                    }
+                    break;
+                }
+                case ChangeLogWriterImpl.VIEW_NODE_ADD: {
+                    DirectedSubgraph graph = readView(in);
+                    NodeImpl node = store.getNode(serialization.deserialize(in));
+                    if (node != null && !graph.contains(node)) {
+                        graph.addNode(node);
+                    }
+                    break;
+                }
+                case ChangeLogWriterImpl.VIEW_NODE_REMOVE: {
+                    DirectedSubgraph graph = readView(in);
+                    NodeImpl node = store.getNode(serialization.deserialize(in));
+                    if (node != null && graph.contains(node)) {
+                        graph.removeNode(node);
+                    }
+                    break;
+                }
+                case ChangeLogWriterImpl.VIEW_EDGE_ADD: {
+                    DirectedSubgraph graph = readView(in);
+                    EdgeImpl edge = store.getEdge(serialization.deserialize(in));
+                    if (edge != null && !graph.contains(edge)) {
+                        graph.addEdge(edge);
+                    }
+                    break;
+                }
+                case ChangeLogWriterImpl.VIEW_EDGE_REMOVE: {
+                    DirectedSubgraph graph = readView(in);
+                    EdgeImpl edge = store.getEdge(serialization.deserialize(in));
+                    if (edge != null && graph.contains(edge)) {
+                        graph.removeEdge(edge);
+                    }
+                    break;
+                }
+                default:
+                    throw new IOException("Unrecognized change log record " + record);
+            }
+        }
+    }
+
+    private void addColumn(DataInputOutput in) throws IOException, ClassNotFoundException {
+        TableImpl table = readTable(in);
+        String id = (String) serialization.deserialize(in);
+        String title = (String) serialization.deserialize(in);
+        Class typeClass = (Class) serialization.deserialize(in);
+        Origin origin = (Origin) serialization.deserialize(in);
+        Object defaultValue = serialization.deserialize(in);
+        boolean indexed = (Boolean) serialization.deserialize(in);
+        Estimator estimator = (Estimator) serialization.deserialize(in);
+
+        if (!table.hasColumn(id)) {
+            Column column = table.addColumn(id, title, typeClass, origin, defaultValue, indexed);
+            if (estimator != null && column.isDynamic()) {
+                column.setEstimator(estimator);
+            }
+        }
+    }
+
+    private void addNode(DataInputOutput in) throws IOException, ClassNotFoundException {
+        Object id = serialization.deserialize(in);
+        NodeImpl node = store.getNode(id);
+        if (node == null) {
+            node = (NodeImpl) store.factory.newNode(id);
+            readValues(in, node, store.nodeTable);
+            store.addNode(node);
+        } else {
+            readValues(in, node, store.nodeTable);
+        }
+    }
+
+    private void addEdge(DataInputOutput in) throws IOException, ClassNotFoundException {
+        Object id = serialization.deserialize(in);
+        Object sourceId = serialization.deserialize(in);
+        Object targetId = serialization.deserialize(in);
+        Object typeLabel = serialization.deserialize(in);
+        boolean directed = (Boolean) serialization.deserialize(in);
+
+        EdgeImpl edge = store.getEdge(id);
+        if (edge == null) {
+            NodeImpl source = store.getNode(sourceId);
+            NodeImpl target = store.getNode(targetId);
+            if (source == null || target == null) {
+                throw new IOException("The edge source or target can't be found");
+            }
+            int type = store.edgeTypeStore.getId(typeLabel);
+            if (type == EdgeTypeStore.NULL_TYPE) {
+                type = store.edgeTypeStore.addType(typeLabel);
+            }
+            edge = (EdgeImpl) store.factory
+                    .newEdge(id, source, target, type, GraphStoreConfiguration.DEFAULT_EDGE_WEIGHT, directed);
+            readValues(in, edge, store.edgeTable);
+            store.addEdge(edge);
+        } else {
+            readValues(in, edge, store.edgeTable);
+        }
+    }
+
+    private void readValues(DataInputOutput in, ElementImpl element, TableImpl table) throws IOException, ClassNotFoundException {
+        int count = (Integer) serialization.deserialize(in);
+        for (int i = 0; i < count; i++) {
+            String columnId = (String) serialization.deserialize(in);
+            Object value = serialization.deserialize(in);
+            Column column = table.getColumn(columnId);
+            if (column != null) {
+                setValue(element, column, value);
+            }
+        }
+    }
+
+    private void setValue(ElementImpl element, Column column, Object value) {
+        if (value == null) {
+            element.removeAttribute(column);
+        } else {
+            element.setAttribute(column, value);
+        }
+    }
+
+    private TableImpl readTable(DataInputOutput in) throws IOException, ClassNotFoundException {
+        int table = (Integer) serialization.deserialize(in);
+        return table == ChangeLogWriterImpl.NODE_TABLE ? store.nodeTable : store.edgeTable;
+    }
+
+    private DirectedSubgraph readView(DataInputOutput in) throws IOException, ClassNotFoundException {
+        int index = (Integer) serialization.deserialize(in);
+        GraphView view = getView(index);
+        if (view == null) {
+            throw new IOException("Unknown view " + index);
+        }
+        return store.viewStore.getDirectedGraph(view);
+    }
+}
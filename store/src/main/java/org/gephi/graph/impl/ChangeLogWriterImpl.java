@@ -0,0 +1,419 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
+import java.io.DataOutput;
+import java.io.Flushable;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import org.gephi.graph.api.ChangeLogWriter;
+import org.gephi.graph.api.Column;
+import org.gephi.graph.api.ColumnDiff;
+import org.gephi.graph.api.DirectedSubgraph;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.Element;
+import org.gephi.graph.api.GraphChangeEvent;
+import org.gephi.graph.api.GraphChangeListener;
+import org.gephi.graph.api.GraphDiff;
+import org.gephi.graph.api.GraphView;
+import org.gephi.graph.api.Node;
+import org.gephi.graph.impl.utils.DataInputOutput;
+
+/**
+ * Change log writer, listening to the changes of the main graph and of the
+ * recorded views.
+ * <p>
+ * Recorded views are observed along the main graph, so their membership changes
+ * are written in the segment of the structural changes they refer to, after
+ * them.
+ * <p>
+ * A segment is an int length followed by the log version and a sequence of
+ * records ended by {@link #END}. Each record is a type byte followed by values
+ * encoded with the {@link Serialization} codec.
+ * <p>
+ * Segments are encoded and written by the change dispatcher, in the thread
+ * releasing the write lock or in the given executor.
+ */
+public class ChangeLogWriterImpl implements ChangeLogWriter, GraphChangeListener {
+
+    // Records
+    final static int END = 0;
+    final static int COLUMN_ADD = 1;
+    final static int COLUMN_REMOVE = 2;
+    final static int NODE_ADD = 3;
+    final static int NODE_REMOVE = 4;
+    final static int EDGE_ADD = 5;
+    final static int EDGE_REMOVE = 6;
+    final static int ATTRIBUTE = 7;
+    final static int VIEW_ADD = 8;
+    final static int VIEW_NODE_ADD = 9;
+    final static int VIEW_NODE_REMOVE = 10;
+    final static int VIEW_EDGE_ADD = 11;
+    final static int VIEW_EDGE_REMOVE = 12;
+    // Tables
+    final static int NODE_TABLE = 0;
+    final static int EDGE_TABLE = 1;
+    // Model
+    protected final GraphModelImpl graphModel;
+    protected final GraphStore store;
+    // Output
+    protected final DataOutput output;
+    protected final Serialization serialization;
+    protected final DataInputOutput buffer;
+    // Columns already written
+    protected final List<Column> nodeColumns;
+    protected final List<Column> edgeColumns;
+    // Recorded views
+    protected final List<RecordedView> views;
+    // Executor writing segments, null to write them in the thread releasing
+    // the write lock
+    protected final Executor executor;
+    // State
+    protected IOException exception;
+    protected volatile boolean closed;
+
+    public ChangeLogWriterImpl(GraphModelImpl graphModel, DataOutput output) throws IOException {
+        this(graphModel, output, null);
+    }
+
+    public ChangeLogWriterImpl(GraphModelImpl graphModel, DataOutput output, Executor executor) throws IOException {
+        if (output == null) {
+            throw new NullPointerException();
+        }
+        if (graphModel.store.changeDispatcher == null) {
+            throw new UnsupportedOperationException("Not supported.");
+        }
+        this.graphModel = graphModel;
+        this.store = graphModel.store;
+        this.output = output;
+        this.executor = executor;
+        this.serialization = new Serialization(graphModel);
+        this.buffer = new DataInputOutput();
+        this.nodeColumns = new ObjectArrayList<Column>();
+        this.edgeColumns = new ObjectArrayList<Column>();
+        this.views = new ObjectArrayList<RecordedView>();
+
+        store.autoWriteLock();
+        try {
+            synchronized (this) {
+                beginSegment();
+                writeColumns(store.nodeTable, nodeColumns, NODE_TABLE);
+                writeColumns(store.edgeTable, edgeColumns, EDGE_TABLE);
+                for (Node node : store.nodeStore) {
+                    writeNode((NodeImpl) node);
+                }
+                for (Edge edge : store.edgeStore) {
+                    writeEdge((EdgeImpl) edge);
+                }
+                endSegment();
+            }
+            store.changeDispatcher.addListener(store, this, executor);
+        } finally {
+            store.autoWriteUnlock();
+        }
+    }
+
+    @Override
+    public int recordView(GraphView view) {
+        if (view == null) {
+            throw new NullPointerException();
+        }
+        if (view.isMainView() || ((GraphViewImpl) view).graphStore != store) {
+            throw new IllegalArgumentException("The view should be a view of this model, other than the main view");
+        }
+        store.autoWriteLock();
+        try {
+            synchronized (this) {
+                checkNotClosed();
+
+                // The content is written in the next segment, after the
+                // changes not written yet that it may refer to
+                DirectedSubgraph graph = store.viewStore.getDirectedGraph(view);
+                RecordedView recordedView = new RecordedView(views.size(), view.isEdgeView(),
+                        store.viewStore.createGraphObserver(graph, true));
+                DataInputOutput content = recordedView.content;
+                try {
+                    content.write(VIEW_ADD);
+                    serialization.serialize(content, recordedView.index);
+                    serialization.serialize(content, view.isNodeView());
+                    serialization.serialize(content, view.isEdgeView());
+                    if (view.isNodeView()) {
+                        for (Node node : graph.getNodes()) {
+                            writeId(content, VIEW_NODE_ADD, recordedView.index, node);
+                        }
+                    }
+                    if (view.isEdgeView()) {
+                        for (Edge edge : graph.getEdges()) {
+                            writeId(content, VIEW_EDGE_ADD, recordedView.index, edge);
+                        }
+                    }
+                } catch (IOException e) {
+                    store.viewStore.destroyGraphObserver(recordedView.observer);
+                    fail(e);
+                    throw new RuntimeException(e);
+                }
+
+                views.add(recordedView);
+                store.changeDispatcher.addObserver(this, recordedView.observer);
+                return recordedView.index;
+            }
+        } finally {
+            store.autoWriteUnlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        store.changeDispatcher.drain(this);
+        store.autoWriteLock();
+        try {
+            synchronized (this) {
+                stop();
+                if (exception != null) {
+                    throw exception;
+                }
+            }
+        } finally {
+            store.autoWriteUnlock();
+        }
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public void graphChanged(GraphChangeEvent event) {
+        store.autoReadLock();
+        try {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                beginSegment();
+                writeColumns(store.nodeTable, nodeColumns, NODE_TABLE);
+                writeColumns(store.edgeTable, edgeColumns, EDGE_TABLE);
+
+                // Edges are removed before nodes and added after
+                for (Edge edge : event.getRemovedEdges()) {
+                    writeId(EDGE_REMOVE, edge);
+                }
+                for (Node node : event.getRemovedNodes()) {
+                    writeId(NODE_REMOVE, node);
+                }
+                Set<Element> added = new ReferenceOpenHashSet<Element>();
+                for (Node node : event.getAddedNodes()) {
+                    writeNode((NodeImpl) node);
+                    added.add(node);
+                }
+                for (Edge edge : event.getAddedEdges()) {
+                    writeEdge((EdgeImpl) edge);
+                    added.add(edge);
+                }
+
+                // Values of added elements have been written already
+                for (Column column : event.getChangedColumns()) {
+                    ColumnDiff columnDiff = event.getColumnDiff(column);
+                    for (Element element : columnDiff.getTouchedElements()) {
+                        if (!added.contains(element) && !((ColumnImpl) column).isReadOnly()) {
+                            buffer.write(ATTRIBUTE);
+                            serialization.serialize(buffer, element instanceof Node ? NODE_TABLE : EDGE_TABLE);
+                            serialization.serialize(buffer, element.getId());
+                            serialization.serialize(buffer, column.getId());
+                            serialization.serialize(buffer, getValue((ElementImpl) element, column));
+                        }
+                    }
+                }
+
+                for (RecordedView view : views) {
+                    writeView(view, (GraphChangeDispatcher.GraphChangeEventImpl) event);
+                }
+                endSegment();
+            }
+        } catch (IOException e) {
+            fail(e);
+        } finally {
+            store.autoReadUnlock();
+        }
+    }
+
+    private void writeView(RecordedView view, GraphChangeDispatcher.GraphChangeEventImpl event) throws IOException {
+        if (view.content != null) {
+            buffer.write(view.content.getBuf(), 0, view.content.getPos());
+            view.content = null;
+        }
+        GraphDiff diff = event.getDiff(view.observer);
+        if (diff == null) {
+            return;
+        }
+        // Edges of node views follow their nodes
+        if (view.edgeView) {
+            for (Edge edge : diff.getRemovedEdges()) {
+                writeId(buffer, VIEW_EDGE_REMOVE, view.index, edge);
+            }
+        }
+        for (Node node : diff.getRemovedNodes()) {
+            writeId(buffer, VIEW_NODE_REMOVE, view.index, node);
+        }
+        for (Node node : diff.getAddedNodes()) {
+            writeId(buffer, VIEW_NODE_ADD, view.index, node);
+        }
+        if (view.edgeView) {
+            for (Edge edge : diff.getAddedEdges()) {
+                writeId(buffer, VIEW_EDGE_ADD, view.index, edge);
+            }
+        }
+    }
+
+    private void writeColumns(TableImpl table, List<Column> columns, int tableType) throws IOException {
+        for (Iterator<Column> itr = columns.iterator(); itr.hasNext();) {
+            Column column = itr.next();
+            if (table.getColumn(column.getId()) != column) {
+                buffer.write(COLUMN_REMOVE);
+                serialization.serialize(buffer, tableType);
+                serialization.serialize(buffer, column.getId());
+                itr.remove();
+            }
+        }
+        for (Column column : table.toArray()) {
+            if (!columns.contains(column)) {
+                if (!column.isProperty()) {
+                    buffer.write(COLUMN_ADD);
+                    serialization.serialize(buffer, tableType);
+                    serialization.serialize(buffer, column.getId());
+                    serialization.serialize(buffer, column.getTitle());
+                    serialization.serialize(buffer, column.getTypeClass());
+                    serialization.serialize(buffer, column.getOrigin());
+                    serialization.serialize(buffer, column.getDefaultValue());
+                    serialization.serialize(buffer, column.isIndexed());
+                    serialization.serialize(buffer, column.getEstimator());
+                }
+                columns.add(column);
+            }
+        }
+    }
+
+    private void writeNode(NodeImpl node) throws IOException {
+        buffer.write(NODE_ADD);
+        serialization.serialize(buffer, node.getId());
+        writeValues(node, nodeColumns);
+    }
+
+    private void writeEdge(EdgeImpl edge) throws IOException {
+        buffer.write(EDGE_ADD);
+        serialization.serialize(buffer, edge.getId());
+        serialization.serialize(buffer, edge.source.getId());
+        serialization.serialize(buffer, edge.target.getId());
+        serialization.serialize(buffer, edge.getTypeLabel());
+        serialization.serialize(buffer, edge.isDirected());
+        writeValues(edge, edgeColumns);
+    }
+
+    private void writeValues(ElementImpl element, List<Column> columns) throws IOException {
+        Object[] values = new Object[columns.size()];
+        int count = 0;
+        for (int i = 0; i < values.length; i++) {
+            Column column = columns.get(i);
+            if (!((ColumnImpl) column).isReadOnly()) {
+                values[i] = getValue(element, column);
+                if (values[i] != null) {
+                    count++;
+                }
+            }
+        }
+        serialization.serialize(buffer, count);
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) {
+                serialization.serialize(buffer, columns.get(i).getId());
+                serialization.serialize(buffer, values[i]);
+            }
+        }
+    }
+
+    private void writeId(int record, Element element) throws IOException {
+        buffer.write(record);
+        serialization.serialize(buffer, element.getId());
+    }
+
+    private void writeId(DataInputOutput out, int record, int viewIndex, Element element) throws IOException {
+        out.write(record);
+        serialization.serialize(out, viewIndex);
+        serialization.serialize(out, element.getId());
+    }
+
+    private Object getValue(ElementImpl element, Column column) {
+        int index = column.getIndex();
+        synchronized (element) {
+            return index < element.attributes.length ? element.attributes[index] : null;
+        }
+    }
+
+    private void beginSegment() throws IOException {
+        buffer.reset();
+        serialization.serialize(buffer, Serialization.VERSION);
+    }
+
+    private void endSegment() throws IOException {
+        buffer.write(END);
+        output.writeInt(buffer.getPos());
+        output.write(buffer.getBuf(), 0, buffer.getPos());
+        if (output instanceof Flushable) {
+            ((Flushable) output).flush();
+        }
+    }
+
+    private void checkNotClosed() {
+        if (closed) {
+            throw new IllegalStateException("The change log writer is closed");
+        }
+    }
+
+    private void fail(IOException e) {
+        if (exception == null) {
+            exception = e;
+        }
+        stop();
+    }
+
+    private void stop() {
+        if (!closed) {
+            closed = true;
+            store.changeDispatcher.removeListener(this);
+        }
+    }
+
+    protected static final class RecordedView {
+
+        protected final int index;
+        protected final boolean edgeView;
+        protected final GraphObserverImpl observer;
+        // Content when recording started, null once written
+        protected DataInputOutput content;
+
+        public RecordedView(int index, boolean edgeView, GraphObserverImpl observer) {
+            this.index = index;
+            this.edgeView = edgeView;
+            this.observer = observer;
+            this.content = new DataInputOutput();
+        }
+    }
+}
@@ -206,6 +206,12 @@ public class ColumnImpl implements Column {
                 }
             }
         }
+        if (table != null && table.store.graphStore != null) {
+            GraphChangeDispatcher changeDispatcher = table.store.graphStore.changeDispatcher;
+            if (changeDispatcher != null) {
+                changeDispatcher.attributeChanged(this, element);
+            }
+        }
     }
 
     @Override
@@ -15,8 +15,6 @@
  */
 package org.gephi.graph.impl;
 
-import cern.colt.bitvector.BitVector;
-import cern.colt.bitvector.QuickBitVector;
 import it.unimi.dsi.fastutil.objects.ObjectArrayList;
 import it.unimi.dsi.fastutil.objects.ObjectList;
 import org.gephi.graph.api.AttributeUtils;
@@ -39,7 +37,8 @@ public class ColumnObserverImpl implements ColumnObserver {
     protected boolean destroyed;
     // Config
     protected final boolean withDiff;
-    protected BitVector bitVector;
+    // Touched store ids
+    protected final DirtyIdSet dirtyIds = new DirtyIdSet();
     // Cache
     protected ColumnDiffImpl columnDiff;
 
@@ -101,40 +100,42 @@ public class ColumnObserverImpl implements ColumnObserver {
     protected void destroyObserver() {
         destroyed = true;
         columnDiff = null;
-        bitVector = null;
+        dirtyIds.clear();
     }
 
     private void refreshDiff() {
         boolean node = AttributeUtils.isNodeColumn(column);
         columnDiff = node ? new NodeColumnDiffImpl() : new EdgeColumnDiffImpl();
 
-        int size = bitVector.size();
+        // The touched ids are taken without blocking writers and only these
+        // elements are looked up
+        for (int storeId : dirtyIds.drain()) {
+            addElement(storeId, node);
+        }
+    }
 
-        for (int i = 0; i < size; i++) {
-            boolean t = bitVector.get(i);
-            if (t && node) {
-                if (graphStore.nodeStore.isValidIndex(i)) {
-                    Node n = graphStore.nodeStore.get(i);
-                    if (n.getStoreId() == i) {
-                        columnDiff.addElement(n);
-                    }
-                }
-            } else if (t && !node) {
-                if (graphStore.edgeStore.isValidIndex(i)) {
-                    Edge e = graphStore.edgeStore.get(i);
-                    if (e.getStoreId() == i) {
-                        columnDiff.addElement(e);
-                    }
+    private void addElement(int storeId, boolean node) {
+        if (node) {
+            if (graphStore.nodeStore.isValidIndex(storeId)) {
+                Node n = graphStore.nodeStore.get(storeId);
+                if (n != null && n.getStoreId() == storeId) {
+                    columnDiff.addElement(n);
                 }
             }
+        } else if (graphStore.edgeStore.isValidIndex(storeId)) {
+            Edge e = graphStore.edgeStore.get(storeId);
+            if (e != null && e.getStoreId() == storeId) {
+                columnDiff.addElement(e);
+            }
         }
-        bitVector.clear();
     }
 
     protected void setElement(ElementImpl element) {
         int storeId = element.getStoreId();
-        ensureVectorSize(element);
-        bitVector.set(storeId);
+        if (storeId < 0) {
+            return;
+        }
+        dirtyIds.add(storeId);
     }
 
     protected abstract class ColumnDiffImpl<K extends Element> implements ColumnDiff {
@@ -174,24 +175,6 @@ public class ColumnObserverImpl implements ColumnObserver {
         }
     }
 
-    private void ensureVectorSize(ElementImpl element) {
-        int sid = element.getStoreId();
-        if (bitVector == null) {
-            bitVector = new BitVector(sid + 1);
-        } else if (sid >= bitVector.size()) {
-            int newSize = Math
-                    .min(Math.max(sid + 1, (int) (sid * GraphStoreConfiguration.COLUMNDIFF_GROWING_FACTOR)), Integer.MAX_VALUE);
-            bitVector = growBitVector(bitVector, newSize);
-        }
-    }
-
-    private BitVector growBitVector(BitVector bitVector, int size) {
-        long[] elements = bitVector.elements();
-        long[] newElements = QuickBitVector.makeBitVector(size, 1);
-        System.arraycopy(elements, 0, newElements, 0, elements.length);
-        return new BitVector(newElements, size);
-    }
-
     private void readLock() {
         graphStore.autoReadLock();
     }
@@ -308,6 +308,9 @@ public class ColumnStore<T extends Element> implements ColumnIterable {
             Arrays.fill(columns, null);
             if (indexStore != null) {
                 indexStore.clear();
+                for (ColumnImpl[] cols : indexStore.compositeIndexes.toArray(new ColumnImpl[0][])) {
+                    indexStore.removeCompositeIndex(cols);
+                }
             }
         } finally {
             unlock();
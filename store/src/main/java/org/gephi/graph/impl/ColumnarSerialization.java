@@ -0,0 +1,1081 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import it.unimi.dsi.fastutil.doubles.DoubleArrays;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenCustomHashMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import org.gephi.graph.api.Column;
+import org.gephi.graph.api.Configuration;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.Node;
+import org.gephi.graph.api.types.TimeKeysPool;
+import org.gephi.graph.impl.EdgeImpl.EdgePropertiesImpl;
+import org.gephi.graph.impl.NodeImpl.NodePropertiesImpl;
+import org.gephi.graph.impl.utils.DataInputOutput;
+import org.gephi.graph.impl.utils.LongPacker;
+
+/**
+ * Columnar graph model format.
+ * <p>
+ * The configuration, tables, time indexes and views are written with the row
+ * format of {@link Serialization} but nodes and edges are written column by
+ * column. Ids and attribute columns, edge sources, targets, types and
+ * directions and the visual properties are each a separate chunk, encoded
+ * according to its values:
+ * <ul>
+ * <li>Chunks where all values are equal are written once</li>
+ * <li>Strings are dictionary encoded if they repeat</li>
+ * <li>Integer values and store ids are delta and varint encoded</li>
+ * <li>Doubles, floats and integers that don't pack well are written as raw
+ * little-endian arrays</li>
+ * <li>Booleans are written as bitmaps</li>
+ * <li>Other values are written with the row format</li>
+ * </ul>
+ * Chunks are length-prefixed so a single column can be read without decoding
+ * the others, see {@link #deserializeColumn(DataInput, Class, String)}.
+ * <p>
+ * Elements are restored at their serialized store ids, like the row format.
+ */
+public class ColumnarSerialization {
+
+    final static int MAGIC = 0x47534346;
+    // Chunk kinds
+    final static int END = 0;
+    final static int LAYOUT = 1;
+    final static int COLUMN = 2;
+    final static int PROPERTY = 3;
+    // Encodings
+    final static int GENERIC = 0;
+    final static int CONSTANT = 1;
+    final static int STRING_DICTIONARY = 2;
+    final static int STRING_PLAIN = 3;
+    final static int VARINT_DELTA = 4;
+    final static int INTEGER_RAW = 5;
+    final static int DOUBLE_RAW = 6;
+    final static int FLOAT_RAW = 7;
+    final static int BOOLEAN_BITMAP = 8;
+    // Varint value types
+    final static int BYTE_VALUES = 0;
+    final static int SHORT_VALUES = 1;
+    final static int INTEGER_VALUES = 2;
+    final static int LONG_VALUES = 3;
+    final static int CHAR_VALUES = 4;
+    // Properties
+    final static String SOURCE = "source";
+    final static String TARGET = "target";
+    final static String TYPE = "type";
+    final static String DIRECTED = "directed";
+    final static String X = "x";
+    final static String Y = "y";
+    final static String Z = "z";
+    final static String COLOR = "color";
+    final static String SIZE = "size";
+    final static String FIXED = "fixed";
+    final static String TEXT = "text";
+    final static String TEXT_COLOR = "text.color";
+    final static String TEXT_SIZE = "text.size";
+    final static String TEXT_VISIBLE = "text.visible";
+    final static String TEXT_WIDTH = "text.width";
+    final static String TEXT_HEIGHT = "text.height";
+
+    public void serializeGraphModel(DataOutput out, GraphModelImpl model) throws IOException {
+        GraphStore store = model.store;
+        out.writeInt(MAGIC);
+        out.writeFloat(Serialization.VERSION);
+
+        // Configuration, tables and time indexes
+        Serialization serialization = newSerialization(Serialization.VERSION);
+        serialization.model = model;
+        serialization.writtenTimeKeys = new Object2IntOpenCustomHashMap<double[]>(DoubleArrays.HASH_STRATEGY);
+        serialization.writtenTimeKeys.defaultReturnValue(Serialization.NULL_ID);
+        DataInputOutput buffer = new DataInputOutput();
+        serialization.serialize(buffer, model.configuration);
+        serialization.serializeGraphStoreHeader(buffer, store);
+        writeSection(out, buffer);
+
+        serializeNodes(out, store);
+        serializeEdges(out, store);
+
+        // Views
+        serialization.serialize(buffer.reset(), store.viewStore);
+        writeSection(out, buffer);
+    }
+
+    public GraphModelImpl deserializeGraphModel(DataInput is) throws IOException, ClassNotFoundException {
+        float version = readHeader(is);
+
+        Serialization serialization = newSerialization(version);
+        DataInputOutput section = readSection(is);
+        Configuration config = (Configuration) serialization.deserialize(section);
+        GraphModelImpl model = new GraphModelImpl(config);
+        serialization.model = model;
+        serialization.deserializeGraphStoreHeader(section);
+
+        deserializeNodes(is, model.store, version);
+        deserializeEdges(is, model.store, version);
+
+        serialization.deserialize(readSection(is));
+        return model;
+    }
+
+    /**
+     * Reads the values of a single node or edge column, skipping all other
+     * chunks.
+     *
+     * @param is input to read from
+     * @param elementClass <code>Node.class</code> or <code>Edge.class</code>
+     * @param columnId column id
+     * @return values, in the order of the elements in the store
+     * @throws IOException if an io error occurs or if the column can't be found
+     * @throws ClassNotFoundException if a value can't be deserialized
+     */
+    public Object[] deserializeColumn(DataInput is, Class elementClass, String columnId) throws IOException, ClassNotFoundException {
+        if (!elementClass.equals(Node.class) && !elementClass.equals(Edge.class)) {
+            throw new IllegalArgumentException("The element class must be Node or Edge");
+        }
+        float version = readHeader(is);
+        skipFully(is, is.readInt());
+        if (elementClass.equals(Edge.class)) {
+            for (int kind = is.readUnsignedByte(); kind != END; kind = is.readUnsignedByte()) {
+                is.readUTF();
+                skipFully(is, is.readInt());
+            }
+        }
+
+        Layout layout = null;
+        for (int kind = is.readUnsignedByte(); kind != END; kind = is.readUnsignedByte()) {
+            String name = is.readUTF();
+            int length = is.readInt();
+            if (kind == LAYOUT) {
+                layout = readLayout(readChunk(is, length));
+            } else if (kind == COLUMN && name.equals(columnId)) {
+                if (layout == null) {
+                    throw new IOException("The layout must be read before the columns");
+                }
+                return readValues(readChunk(is, length), layout.count, newSerialization(version)).toArray();
+            } else {
+                skipFully(is, length);
+            }
+        }
+        throw new IOException("The column '" + columnId + "' can't be found");
+    }
+
+    private void serializeNodes(DataOutput out, GraphStore store) throws IOException {
+        NodeStore nodeStore = store.nodeStore;
+        NodeImpl[] nodes = nodeStore.toArray();
+
+        DataInputOutput buffer = new DataInputOutput();
+        writeLayout(buffer, nodeStore.blocksCount);
+        for (int i = 0; i < nodeStore.blocksCount; i++) {
+            NodeStore.NodeBlock block = nodeStore.blocks[i];
+            writeBlockLayout(buffer, block.nodeLength, block.garbageArray, block.garbageLength);
+        }
+        writeChunk(out, LAYOUT, "", buffer);
+
+        writeColumns(out, store.nodeTable, nodes);
+
+        if (GraphStoreConfiguration.ENABLE_NODE_PROPERTIES) {
+            int count = nodes.length;
+            Object[] x = new Object[count];
+            Object[] y = new Object[count];
+            Object[] z = new Object[count];
+            Object[] color = new Object[count];
+            Object[] size = new Object[count];
+            Object[] fixed = new Object[count];
+            TextPropertiesImpl[] text = new TextPropertiesImpl[count];
+            for (int i = 0; i < count; i++) {
+                NodePropertiesImpl properties = nodes[i].properties;
+                x[i] = properties.x;
+                y[i] = properties.y;
+                z[i] = properties.z;
+                color[i] = properties.rgba;
+                size[i] = properties.size;
+                fixed[i] = properties.fixed;
+                text[i] = properties.textProperties;
+            }
+            writeValuesChunk(out, PROPERTY, X, x);
+            writeValuesChunk(out, PROPERTY, Y, y);
+            writeValuesChunk(out, PROPERTY, Z, z);
+            writeValuesChunk(out, PROPERTY, COLOR, color);
+            writeValuesChunk(out, PROPERTY, SIZE, size);
+            writeValuesChunk(out, PROPERTY, FIXED, fixed);
+            writeTextProperties(out, text);
+        }
+        out.writeByte(END);
+    }
+
+    private void serializeEdges(DataOutput out, GraphStore store) throws IOException {
+        EdgeStore edgeStore = store.edgeStore;
+        EdgeImpl[] edges = edgeStore.toArray();
+
+        DataInputOutput buffer = new DataInputOutput();
+        writeLayout(buffer, edgeStore.blocksCount);
+        for (int i = 0; i < edgeStore.blocksCount; i++) {
+            EdgeStore.EdgeBlock block = edgeStore.blocks[i];
+            writeBlockLayout(buffer, block.nodeLength, block.garbageArray, block.garbageLength);
+        }
+        writeChunk(out, LAYOUT, "", buffer);
+
+        int count = edges.length;
+        Object[] source = new Object[count];
+        Object[] target = new Object[count];
+        Object[] type = new Object[count];
+        Object[] directed = new Object[count];
+        for (int i = 0; i < count; i++) {
+            EdgeImpl edge = edges[i];
+            source[i] = edge.source.storeId;
+            target[i] = edge.target.storeId;
+            type[i] = edge.type;
+            directed[i] = edge.isDirected();
+        }
+        writeValuesChunk(out, PROPERTY, SOURCE, source);
+        writeValuesChunk(out, PROPERTY, TARGET, target);
+        writeValuesChunk(out, PROPERTY, TYPE, type);
+        writeValuesChunk(out, PROPERTY, DIRECTED, directed);
+
+        writeColumns(out, store.edgeTable, edges);
+
+        if (GraphStoreConfiguration.ENABLE_EDGE_PROPERTIES) {
+            Object[] color = new Object[count];
+            TextPropertiesImpl[] text = new TextPropertiesImpl[count];
+            for (int i = 0; i < count; i++) {
+                EdgePropertiesImpl properties = edges[i].properties;
+                color[i] = properties.rgba;
+                text[i] = properties.textProperties;
+            }
+            writeValuesChunk(out, PROPERTY, COLOR, color);
+            writeTextProperties(out, text);
+        }
+        out.writeByte(END);
+    }
+
+    private void writeColumns(DataOutput out, TableImpl table, ElementImpl[] elements) throws IOException {
+        for (Column column : table.toArray()) {
+            int index = column.getIndex();
+            Object[] values = new Object[elements.length];
+            for (int i = 0; i < elements.length; i++) {
+                Object[] attributes = elements[i].attributes;
+                if (index < attributes.length) {
+                    values[i] = attributes[index];
+                }
+            }
+            writeValuesChunk(out, COLUMN, column.getId(), values);
+        }
+    }
+
+    private void writeTextProperties(DataOutput out, TextPropertiesImpl[] text) throws IOException {
+        int count = text.length;
+        Object[] value = new Object[count];
+        Object[] color = new Object[count];
+        Object[] size = new Object[count];
+        Object[] visible = new Object[count];
+        Object[] width = new Object[count];
+        Object[] height = new Object[count];
+        for (int i = 0; i < count; i++) {
+            TextPropertiesImpl properties = text[i];
+            value[i] = properties.text;
+            color[i] = properties.rgba;
+            size[i] = properties.size;
+            visible[i] = properties.visible;
+            width[i] = properties.width;
+            height[i] = properties.height;
+        }
+        writeValuesChunk(out, PROPERTY, TEXT, value);
+        writeValuesChunk(out, PROPERTY, TEXT_COLOR, color);
+        writeValuesChunk(out, PROPERTY, TEXT_SIZE, size);
+        writeValuesChunk(out, PROPERTY, TEXT_VISIBLE, visible);
+        writeValuesChunk(out, PROPERTY, TEXT_WIDTH, width);
+        writeValuesChunk(out, PROPERTY, TEXT_HEIGHT, height);
+    }
+
+    private void deserializeNodes(DataInput is, GraphStore store, float version) throws IOException, ClassNotFoundException {
+        Chunks chunks = readChunks(is, store.nodeTable, version);
+        Layout layout = chunks.layout;
+        int count = layout.count;
+        Object[][] attributes = getAttributes(chunks, count, GraphStoreConfiguration.ELEMENT_ID_INDEX + 1);
+
+        NodeImpl[] nodes = new NodeImpl[count];
+        for (int i = 0; i < count; i++) {
+            NodeImpl node = new NodeImpl(attributes[i][GraphStoreConfiguration.ELEMENT_ID_INDEX], store);
+            node.attributes = attributes[i];
+            nodes[i] = node;
+        }
+
+        if (GraphStoreConfiguration.ENABLE_NODE_PROPERTIES) {
+            ColumnValues x = chunks.getProperty(X);
+            ColumnValues y = chunks.getProperty(Y);
+            ColumnValues z = chunks.getProperty(Z);
+            ColumnValues color = chunks.getProperty(COLOR);
+            ColumnValues size = chunks.getProperty(SIZE);
+            ColumnValues fixed = chunks.getProperty(FIXED);
+            TextPropertiesImpl[] text = new TextPropertiesImpl[count];
+            for (int i = 0; i < count; i++) {
+                NodePropertiesImpl properties = nodes[i].properties;
+                properties.x = x.getFloat(i);
+                properties.y = y.getFloat(i);
+                properties.z = z.getFloat(i);
+                properties.rgba = color.getInt(i);
+                properties.size = size.getFloat(i);
+                properties.fixed = fixed.getBoolean(i);
+                text[i] = properties.textProperties;
+            }
+            readTextProperties(chunks, text);
+        }
+
+        NodeStore nodeStore = store.nodeStore;
+        nodeStore.restoreBlocks(layout.blocks.size());
+        int offset = 0;
+        for (int i = 0; i < layout.blocks.size(); i++) {
+            BlockLayout block = layout.blocks.get(i);
+            NodeImpl[] blockNodes = new NodeImpl[block.length];
+            offset = fillBlock(blockNodes, block, nodes, offset);
+            nodeStore.restoreBlock(i, blockNodes, block.garbage);
+        }
+    }
+
+    private void deserializeEdges(DataInput is, GraphStore store, float version) throws IOException, ClassNotFoundException {
+        Chunks chunks = readChunks(is, store.edgeTable, version);
+        Layout layout = chunks.layout;
+        int count = layout.count;
+        Object[][] attributes = getAttributes(chunks, count, GraphStoreConfiguration.EDGE_WEIGHT_INDEX + 1);
+
+        NodeStore nodeStore = store.nodeStore;
+        ColumnValues source = chunks.getProperty(SOURCE);
+        ColumnValues target = chunks.getProperty(TARGET);
+        ColumnValues type = chunks.getProperty(TYPE);
+        ColumnValues directed = chunks.getProperty(DIRECTED);
+        EdgeImpl[] edges = new EdgeImpl[count];
+        for (int i = 0; i < count; i++) {
+            int sourceId = source.getInt(i);
+            int targetId = target.getInt(i);
+            if (!nodeStore.isValidIndex(sourceId) || !nodeStore.isValidIndex(targetId) || nodeStore.get(sourceId) == null || nodeStore
+                    .get(targetId) == null) {
+                throw new IOException("The edge source of target can't be found");
+            }
+            Object weight = attributes[i][GraphStoreConfiguration.EDGE_WEIGHT_INDEX];
+            EdgeImpl edge = new EdgeImpl(attributes[i][GraphStoreConfiguration.ELEMENT_ID_INDEX], store,
+                    nodeStore.get(sourceId), nodeStore.get(targetId), type.getInt(i), weight instanceof Double
+                            ? (Double) weight : GraphStoreConfiguration.DEFAULT_EDGE_WEIGHT, directed.getBoolean(i));
+            edge.attributes = attributes[i];
+            edges[i] = edge;
+        }
+
+        if (GraphStoreConfiguration.ENABLE_EDGE_PROPERTIES) {
+            ColumnValues color = chunks.getProperty(COLOR);
+            TextPropertiesImpl[] text = new TextPropertiesImpl[count];
+            for (int i = 0; i < count; i++) {
+                EdgePropertiesImpl properties = edges[i].properties;
+                properties.rgba = color.getInt(i);
+                text[i] = properties.textProperties;
+            }
+            readTextProperties(chunks, text);
+        }
+
+        EdgeStore edgeStore = store.edgeStore;
+        edgeStore.restoreBlocks(layout.blocks.size());
+        int offset = 0;
+        for (int i = 0; i < layout.blocks.size(); i++) {
+            BlockLayout block = layout.blocks.get(i);
+            EdgeImpl[] blockEdges = new EdgeImpl[block.length];
+            offset = fillBlock(blockEdges, block, edges, offset);
+            edgeStore.restoreBlock(i, blockEdges, block.garbage);
+        }
+        edgeStore.restoreAdjacency();
+        nodeStore.restoreIndexes();
+        edgeStore.restoreIndexes();
+    }
+
+    private void readTextProperties(Chunks chunks, TextPropertiesImpl[] text) throws IOException {
+        ColumnValues value = chunks.getProperty(TEXT);
+        ColumnValues color = chunks.getProperty(TEXT_COLOR);
+        ColumnValues size = chunks.getProperty(TEXT_SIZE);
+        ColumnValues visible = chunks.getProperty(TEXT_VISIBLE);
+        ColumnValues width = chunks.getProperty(TEXT_WIDTH);
+        ColumnValues height = chunks.getProperty(TEXT_HEIGHT);
+        for (int i = 0; i < text.length; i++) {
+            TextPropertiesImpl properties = text[i];
+            properties.text = (String) value.get(i);
+            properties.rgba = color.getInt(i);
+            properties.size = size.getFloat(i);
+            properties.visible = visible.getBoolean(i);
+            properties.width = width.getFloat(i);
+            properties.height = height.getFloat(i);
+        }
+    }
+
+    private Object[][] getAttributes(Chunks chunks, int count, int minLength) {
+        Object[][] attributes = new Object[count][];
+        for (int i = 0; i < count; i++) {
+            int length = minLength;
+            for (Map.Entry<Column, ColumnValues> entry : chunks.columns.entrySet()) {
+                int index = entry.getKey().getIndex();
+                if (index >= length && !entry.getValue().isNull(i)) {
+                    length = index + 1;
+                }
+            }
+            Object[] values = new Object[length];
+            for (Map.Entry<Column, ColumnValues> entry : chunks.columns.entrySet()) {
+                if (!entry.getValue().isNull(i)) {
+                    values[entry.getKey().getIndex()] = entry.getValue().get(i);
+                }
+            }
+            attributes[i] = values;
+        }
+        return attributes;
+    }
+
+    private static int fillBlock(ElementImpl[] block, BlockLayout layout, ElementImpl[] elements, int offset) throws IOException {
+        boolean[] isGarbage = new boolean[layout.length];
+        for (int position : layout.garbage) {
+            if (position < 0 || position >= layout.length || isGarbage[position]) {
+                throw new IOException("Invalid garbage position: " + position);
+            }
+            isGarbage[position] = true;
+        }
+        for (int i = 0; i < layout.length; i++) {
+            if (!isGarbage[i]) {
+                block[i] = elements[offset++];
+            }
+        }
+        return offset;
+    }
+
+    private Chunks readChunks(DataInput is, TableImpl table, float version) throws IOException, ClassNotFoundException {
+        Chunks chunks = new Chunks();
+        for (int kind = is.readUnsignedByte(); kind != END; kind = is.readUnsignedByte()) {
+            String name = is.readUTF();
+            DataInputOutput chunk = readChunk(is, is.readInt());
+            if (kind == LAYOUT) {
+                chunks.layout = readLayout(chunk);
+            } else if (chunks.layout == null) {
+                throw new IOException("The layout must be read before the columns");
+            } else if (kind == COLUMN) {
+                Column column = table.getColumn(name);
+                if (column == null) {
+                    throw new IOException("The column '" + name + "' can't be found");
+                }
+                chunks.columns.put(column, readValues(chunk, chunks.layout.count, newSerialization(version)));
+            } else if (kind == PROPERTY) {
+                chunks.properties.put(name, readValues(chunk, chunks.layout.count, newSerialization(version)));
+            } else {
+                throw new IOException("Unknown chunk kind: " + kind);
+            }
+        }
+        if (chunks.layout == null) {
+            throw new IOException("The layout can't be found");
+        }
+        return chunks;
+    }
+
+    private static void writeLayout(DataOutput out, int blocksCount) throws IOException {
+        LongPacker.packInt(out, blocksCount);
+    }
+
+    private static void writeBlockLayout(DataOutput out, int length, short[] garbageArray, int garbageLength) throws IOException {
+        LongPacker.packInt(out, length);
+        LongPacker.packInt(out, garbageLength);
+        for (int i = 0; i < garbageLength; i++) {
+            LongPacker.packInt(out, garbageArray[i] - Short.MIN_VALUE);
+        }
+    }
+
+    private static Layout readLayout(DataInput is) throws IOException {
+        Layout layout = new Layout();
+        int blocksCount = LongPacker.unpackInt(is);
+        for (int i = 0; i < blocksCount; i++) {
+            BlockLayout block = new BlockLayout();
+            block.length = LongPacker.unpackInt(is);
+            block.garbage = new int[LongPacker.unpackInt(is)];
+            for (int j = 0; j < block.garbage.length; j++) {
+                block.garbage[j] = LongPacker.unpackInt(is);
+            }
+            layout.blocks.add(block);
+            layout.count += block.length - block.garbage.length;
+        }
+        return layout;
+    }
+
+    private void writeValuesChunk(DataOutput out, int kind, String name, Object[] values) throws IOException {
+        DataInputOutput buffer = new DataInputOutput();
+        Serialization serialization = newSerialization(Serialization.VERSION);
+        serialization.writtenTimeKeys = new Object2IntOpenCustomHashMap<double[]>(DoubleArrays.HASH_STRATEGY);
+        serialization.writtenTimeKeys.defaultReturnValue(Serialization.NULL_ID);
+        writeValues(buffer, values, serialization);
+        writeChunk(out, kind, name, buffer);
+    }
+
+    private static void writeChunk(DataOutput out, int kind, String name, DataInputOutput buffer) throws IOException {
+        out.writeByte(kind);
+        out.writeUTF(name);
+        out.writeInt(buffer.getPos());
+        out.write(buffer.getBuf(), 0, buffer.getPos());
+    }
+
+    private static DataInputOutput readChunk(DataInput is, int length) throws IOException {
+        if (length < 0) {
+            throw new IOException("Invalid chunk length: " + length);
+        }
+        byte[] chunk = new byte[length];
+        is.readFully(chunk);
+        return new DataInputOutput(chunk);
+    }
+
+    private static void writeSection(DataOutput out, DataInputOutput buffer) throws IOException {
+        out.writeInt(buffer.getPos());
+        out.write(buffer.getBuf(), 0, buffer.getPos());
+    }
+
+    private static DataInputOutput readSection(DataInput is) throws IOException {
+        return readChunk(is, is.readInt());
+    }
+
+    private static float readHeader(DataInput is) throws IOException {
+        if (is.readInt() != MAGIC) {
+            throw new IOException("Not a columnar graph model");
+        }
+        float version = is.readFloat();
+        if (version > Serialization.VERSION) {
+            throw new IOException("Unsupported version: " + version);
+        }
+        return version;
+    }
+
+    private static void skipFully(DataInput is, int length) throws IOException {
+        if (length < 0) {
+            throw new IOException("Invalid chunk length: " + length);
+        }
+        int skipped = is.skipBytes(length);
+        if (skipped < length) {
+            byte[] buffer = new byte[Math.min(length - skipped, 8192)];
+            while (skipped < length) {
+                int n = Math.min(length - skipped, buffer.length);
+                is.readFully(buffer, 0, n);
+                skipped += n;
+            }
+        }
+    }
+
+    private static Serialization newSerialization(float version) {
+        Serialization serialization = new Serialization();
+        serialization.readVersion = version;
+        serialization.readTimeKeys = new ArrayList<double[]>();
+        serialization.timeKeysPool = new TimeKeysPool();
+        return serialization;
+    }
+
+    // Values encodings
+    private static void writeValues(DataOutput out, Object[] values, Serialization serialization) throws IOException {
+        Class type = null;
+        boolean mixed = false;
+        boolean constant = true;
+        int present = 0;
+        for (int i = 0; i < values.length; i++) {
+            Object value = values[i];
+            if (value != null) {
+                present++;
+                if (type == null) {
+                    type = value.getClass();
+                } else if (!type.equals(value.getClass())) {
+                    mixed = true;
+                }
+            }
+            if (constant && i > 0 && (value == null ? values[0] != null : !value.equals(values[0]))) {
+                constant = false;
+            }
+        }
+
+        if (constant) {
+            out.writeByte(CONSTANT);
+            serialization.serialize(out, values.length > 0 ? values[0] : null);
+        } else if (mixed || type == null) {
+            writeGeneric(out, values, serialization);
+        } else if (type.equals(String.class)) {
+            writeStrings(out, values, present, serialization);
+        } else if (type.equals(Integer.class) || type.equals(Long.class) || type.equals(Short.class) || type
+                .equals(Byte.class) || type.equals(Character.class)) {
+            writeIntegers(out, values, present, type);
+        } else if (type.equals(Double.class)) {
+            out.writeByte(DOUBLE_RAW);
+            writePresence(out, values, present);
+            ByteBuffer buffer = ByteBuffer.allocate(present * 8).order(ByteOrder.LITTLE_ENDIAN);
+            for (Object value : values) {
+                if (value != null) {
+                    buffer.putDouble((Double) value);
+                }
+            }
+            out.write(buffer.array());
+        } else if (type.equals(Float.class)) {
+            out.writeByte(FLOAT_RAW);
+            writePresence(out, values, present);
+            ByteBuffer buffer = ByteBuffer.allocate(present * 4).order(ByteOrder.LITTLE_ENDIAN);
+            for (Object value : values) {
+                if (value != null) {
+                    buffer.putFloat((Float) value);
+                }
+            }
+            out.write(buffer.array());
+        } else if (type.equals(Boolean.class)) {
+            out.writeByte(BOOLEAN_BITMAP);
+            writePresence(out, values, present);
+            byte[] bitmap = new byte[(present + 7) / 8];
+            int j = 0;
+            for (Object value : values) {
+                if (value != null) {
+                    if ((Boolean) value) {
+                        bitmap[j >> 3] |= 1 << (j & 7);
+                    }
+                    j++;
+                }
+            }
+            out.write(bitmap);
+        } else {
+            writeGeneric(out, values, serialization);
+        }
+    }
+
+    private static void writeGeneric(DataOutput out, Object[] values, Serialization serialization) throws IOException {
+        out.writeByte(GENERIC);
+        for (Object value : values) {
+            serialization.serialize(out, value);
+        }
+    }
+
+    private static void writeStrings(DataOutput out, Object[] values, int present, Serialization serialization) throws IOException {
+        Object2IntMap<Object> dictionary = new Object2IntOpenHashMap<Object>();
+        dictionary.defaultReturnValue(-1);
+        for (Object value : values) {
+            if (value != null && dictionary.getInt(value) == -1) {
+                dictionary.put(value, dictionary.size());
+            }
+        }
+        if (dictionary.size() * 2 > present) {
+            out.writeByte(STRING_PLAIN);
+            writePresence(out, values, present);
+            for (Object value : values) {
+                if (value != null) {
+                    serialization.serialize(out, value);
+                }
+            }
+            return;
+        }
+
+        out.writeByte(STRING_DICTIONARY);
+        writePresence(out, values, present);
+        Object[] entries = new Object[dictionary.size()];
+        for (Object2IntMap.Entry<Object> entry : dictionary.object2IntEntrySet()) {
+            entries[entry.getIntValue()] = entry.getKey();
+        }
+        LongPacker.packInt(out, entries.length);
+        for (Object entry : entries) {
+            serialization.serialize(out, entry);
+        }
+        for (Object value : values) {
+            if (value != null) {
+                LongPacker.packInt(out, dictionary.getInt(value));
+            }
+        }
+    }
+
+    private static void writeIntegers(DataOutput out, Object[] values, int present, Class type) throws IOException {
+        long varintSize = 0;
+        long previous = 0;
+        for (Object value : values) {
+            if (value != null) {
+                long v = toLong(value);
+                varintSize += getVarintSize(zigzag(v - previous));
+                previous = v;
+            }
+        }
+
+        if (type.equals(Integer.class) && varintSize > present * 4L) {
+            out.writeByte(INTEGER_RAW);
+            writePresence(out, values, present);
+            ByteBuffer buffer = ByteBuffer.allocate(present * 4).order(ByteOrder.LITTLE_ENDIAN);
+            for (Object value : values) {
+                if (value != null) {
+                    buffer.putInt((Integer) value);
+                }
+            }
+            out.write(buffer.array());
+            return;
+        }
+
+        out.writeByte(VARINT_DELTA);
+        if (type.equals(Byte.class)) {
+            out.writeByte(BYTE_VALUES);
+        } else if (type.equals(Short.class)) {
+            out.writeByte(SHORT_VALUES);
+        } else if (type.equals(Integer.class)) {
+            out.writeByte(INTEGER_VALUES);
+        } else if (type.equals(Long.class)) {
+            out.writeByte(LONG_VALUES);
+        } else {
+            out.writeByte(CHAR_VALUES);
+        }
+        writePresence(out, values, present);
+        previous = 0;
+        for (Object value : values) {
+            if (value != null) {
+                long v = toLong(value);
+                packUnsignedLong(out, zigzag(v - previous));
+                previous = v;
+            }
+        }
+    }
+
+    private static ColumnValues readValues(DataInput is, int count, Serialization serialization) throws IOException, ClassNotFoundException {
+        ColumnValues values = new ColumnValues(count);
+        int encoding = is.readUnsignedByte();
+        switch (encoding) {
+            case CONSTANT: {
+                values.constant = serialization.deserialize(is);
+                values.constantSet = true;
+                return values;
+            }
+            case GENERIC: {
+                values.objects = new Object[count];
+                for (int i = 0; i < count; i++) {
+                    values.objects[i] = serialization.deserialize(is);
+                }
+                return values;
+            }
+        }
+
+        int valueType = encoding == VARINT_DELTA ? is.readUnsignedByte() : -1;
+        boolean[] presence = readPresence(is, count);
+        values.presence = presence;
+
+        // Values are decoded at their element position, absent positions
+        // are left empty
+        switch (encoding) {
+            case STRING_PLAIN: {
+                values.objects = new Object[count];
+                for (int i = 0; i < count; i++) {
+                    if (presence == null || presence[i]) {
+                        values.objects[i] = serialization.deserialize(is);
+                    }
+                }
+                break;
+            }
+            case STRING_DICTIONARY: {
+                Object[] entries = new Object[LongPacker.unpackInt(is)];
+                for (int i = 0; i < entries.length; i++) {
+                    entries[i] = serialization.deserialize(is);
+                }
+                values.objects = new Object[count];
+                for (int i = 0; i < count; i++) {
+                    if (presence == null || presence[i]) {
+                        int index = LongPacker.unpackInt(is);
+                        if (index >= entries.length) {
+                            throw new IOException("Invalid dictionary index: " + index);
+                        }
+                        values.objects[i] = entries[index];
+                    }
+                }
+                break;
+            }
+            case VARINT_DELTA: {
+                if (valueType < BYTE_VALUES || valueType > CHAR_VALUES) {
+                    throw new IOException("Unknown value type: " + valueType);
+                }
+                values.valueType = valueType;
+                values.longs = new long[count];
+                long previous = 0;
+                for (int i = 0; i < count; i++) {
+                    if (presence == null || presence[i]) {
+                        // Unsigned varint, see packUnsignedLong()
+                        previous += unzigzag(LongPacker.unpackLong(is));
+                        values.longs[i] = previous;
+                    }
+                }
+                break;
+            }
+            case INTEGER_RAW: {
+                values.ints = new int[count];
+                IntBuffer buffer = readBuffer(is, getPresent(presence, count) * 4).asIntBuffer();
+                if (presence == null) {
+                    buffer.get(values.ints);
+                } else {
+                    for (int i = 0; i < count; i++) {
+                        if (presence[i]) {
+                            values.ints[i] = buffer.get();
+                        }
+                    }
+                }
+                break;
+            }
+            case DOUBLE_RAW: {
+                values.doubles = new double[count];
+                DoubleBuffer buffer = readBuffer(is, getPresent(presence, count) * 8).asDoubleBuffer();
+                if (presence == null) {
+                    buffer.get(values.doubles);
+                } else {
+                    for (int i = 0; i < count; i++) {
+                        if (presence[i]) {
+                            values.doubles[i] = buffer.get();
+                        }
+                    }
+                }
+                break;
+            }
+            case FLOAT_RAW: {
+                values.floats = new float[count];
+                FloatBuffer buffer = readBuffer(is, getPresent(presence, count) * 4).asFloatBuffer();
+                if (presence == null) {
+                    buffer.get(values.floats);
+                } else {
+                    for (int i = 0; i < count; i++) {
+                        if (presence[i]) {
+                            values.floats[i] = buffer.get();
+                        }
+                    }
+                }
+                break;
+            }
+            case BOOLEAN_BITMAP: {
+                byte[] bitmap = new byte[(getPresent(presence, count) + 7) / 8];
+                is.readFully(bitmap);
+                values.booleans = new boolean[count];
+                for (int i = 0, j = 0; i < count; i++) {
+                    if (presence == null || presence[i]) {
+                        values.booleans[i] = (bitmap[j >> 3] & (1 << (j & 7))) != 0;
+                        j++;
+                    }
+                }
+                break;
+            }
+            default:
+                throw new IOException("Unknown encoding: " + encoding);
+        }
+        return values;
+    }
+
+    private static int getPresent(boolean[] presence, int count) {
+        if (presence == null) {
+            return count;
+        }
+        int present = 0;
+        for (boolean p : presence) {
+            present += p ? 1 : 0;
+        }
+        return present;
+    }
+
+    private static void writePresence(DataOutput out, Object[] values, int present) throws IOException {
+        if (present == values.length) {
+            out.writeBoolean(false);
+            return;
+        }
+        out.writeBoolean(true);
+        byte[] bitmap = new byte[(values.length + 7) / 8];
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) {
+                bitmap[i >> 3] |= 1 << (i & 7);
+            }
+        }
+        out.write(bitmap);
+    }
+
+    private static boolean[] readPresence(DataInput is, int count) throws IOException {
+        if (!is.readBoolean()) {
+            return null;
+        }
+        byte[] bitmap = new byte[(count + 7) / 8];
+        is.readFully(bitmap);
+        boolean[] presence = new boolean[count];
+        for (int i = 0; i < count; i++) {
+            presence[i] = (bitmap[i >> 3] & (1 << (i & 7))) != 0;
+        }
+        return presence;
+    }
+
+    private static ByteBuffer readBuffer(DataInput is, int length) throws IOException {
+        byte[] bytes = new byte[length];
+        is.readFully(bytes);
+        return ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static long toLong(Object value) {
+        if (value instanceof Character) {
+            return (Character) value;
+        }
+        return ((Number) value).longValue();
+    }
+
+    private static Object fromLong(long value, int valueType) {
+        switch (valueType) {
+            case BYTE_VALUES:
+                return (byte) value;
+            case SHORT_VALUES:
+                return (short) value;
+            case INTEGER_VALUES:
+                return (int) value;
+            case LONG_VALUES:
+                return value;
+            default:
+                return (char) value;
+        }
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    // Same format as LongPacker.packLong() but accepts the whole unsigned
+    // range, zigzag deltas above 2^62 being negative
+    private static void packUnsignedLong(DataOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write(((int) value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static int getVarintSize(long value) {
+        int size = 1;
+        while ((value & ~0x7FL) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    private static final class Chunks {
+
+        private Layout layout;
+        private final Map<Column, ColumnValues> columns = new HashMap<Column, ColumnValues>();
+        private final Map<String, ColumnValues> properties = new HashMap<String, ColumnValues>();
+
+        private ColumnValues getProperty(String name) throws IOException {
+            ColumnValues values = properties.get(name);
+            if (values == null) {
+                throw new IOException("The property '" + name + "' can't be found");
+            }
+            return values;
+        }
+    }
+
+    /**
+     * Decoded chunk values, kept in the primitive array of their encoding and
+     * only boxed when read as objects.
+     */
+    private static final class ColumnValues {
+
+        private final int count;
+        private boolean[] presence;
+        private Object constant;
+        private boolean constantSet;
+        private Object[] objects;
+        private long[] longs;
+        private int valueType;
+        private int[] ints;
+        private double[] doubles;
+        private float[] floats;
+        private boolean[] booleans;
+
+        private ColumnValues(int count) {
+            this.count = count;
+        }
+
+        private boolean isNull(int index) {
+            if (constantSet) {
+                return constant == null;
+            } else if (objects != null) {
+                return objects[index] == null;
+            }
+            return presence != null && !presence[index];
+        }
+
+        private Object get(int index) {
+            if (constantSet) {
+                return constant;
+            } else if (objects != null) {
+                return objects[index];
+            } else if (presence != null && !presence[index]) {
+                return null;
+            } else if (longs != null) {
+                return fromLong(longs[index], valueType);
+            } else if (ints != null) {
+                return ints[index];
+            } else if (doubles != null) {
+                return doubles[index];
+            } else if (floats != null) {
+                return floats[index];
+            }
+            return booleans[index];
+        }
+
+        private int getInt(int index) {
+            if (ints != null) {
+                return ints[index];
+            } else if (longs != null) {
+                return (int) longs[index];
+            }
+            return (Integer) get(index);
+        }
+
+        private float getFloat(int index) {
+            if (floats != null) {
+                return floats[index];
+            }
+            return (Float) get(index);
+        }
+
+        private boolean getBoolean(int index) {
+            if (booleans != null) {
+                return booleans[index];
+            }
+            return (Boolean) get(index);
+        }
+
+        private Object[] toArray() {
+            Object[] array = new Object[count];
+            for (int i = 0; i < count; i++) {
+                array[i] = get(i);
+            }
+            return array;
+        }
+    }
+
+    private static final class Layout {
+
+        private final java.util.List<BlockLayout> blocks = new ArrayList<BlockLayout>();
+        private int count;
+    }
+
+    private static final class BlockLayout {
+
+        private int length;
+        private int[] garbage;
+    }
+}
@@ -0,0 +1,645 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import it.unimi.dsi.fastutil.ints.Int2ObjectAVLTreeMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectBidirectionalIterator;
+import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet;
+import it.unimi.dsi.fastutil.objects.ObjectSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.gephi.graph.api.DegreeIndex;
+import org.gephi.graph.api.DegreeType;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.GraphView;
+import org.gephi.graph.api.Node;
+import org.gephi.graph.api.NodeIterable;
+
+/**
+ * Degree index of the main graph or of a view.
+ * <p>
+ * The index keeps its own in, out and mutual counters per node, for all edges
+ * and per edge type, and nodes bucketed by degree. Nodes without edges aren't
+ * stored, they are counted from the number of nodes in the graph or the view.
+ * <p>
+ * The main index is updated by the edge store with the node degree changes.
+ * View indexes are created on first use and updated as edges enter and leave
+ * the view, or rebuilt when the whole view changes at once.
+ */
+public class DegreeIndexImpl implements DegreeIndex {
+
+    // Data
+    protected final GraphStore graphStore;
+    protected final GraphLock lock;
+    protected final GraphViewImpl view;
+    protected final DegreeCounter counter;
+    protected final Int2ObjectOpenHashMap<DegreeCounter> typeCounters;
+    // View indexes, only for the main index
+    protected final Object2ObjectOpenHashMap<GraphView, DegreeIndexImpl> viewIndexes;
+
+    public DegreeIndexImpl(GraphStore store, GraphLock graphLock) {
+        this(store, graphLock, null);
+    }
+
+    protected DegreeIndexImpl(GraphStore store, GraphLock graphLock, GraphViewImpl view) {
+        this.graphStore = store;
+        this.lock = graphLock;
+        this.view = view;
+        this.counter = new DegreeCounter();
+        this.typeCounters = new Int2ObjectOpenHashMap<DegreeCounter>();
+        this.viewIndexes = view == null ? new Object2ObjectOpenHashMap<GraphView, DegreeIndexImpl>() : null;
+    }
+
+    @Override
+    public int getMinDegree(DegreeType type) {
+        readLock();
+        try {
+            return getMinDegree(counter, type);
+        } finally {
+            readUnlock();
+        }
+    }
+
+    @Override
+    public int getMinDegree(DegreeType type, int edgeType) {
+        readLock();
+        try {
+            return getMinDegree(getTypeCounter(edgeType), type);
+        } finally {
+            readUnlock();
+        }
+    }
+
+    @Override
+    public int getMaxDegree(DegreeType type) {
+        readLock();
+        try {
+            return getMaxDegree(counter, type);
+        } finally {
+            readUnlock();
+        }
+    }
+
+    @Override
+    public int getMaxDegree(DegreeType type, int edgeType) {
+        readLock();
+        try {
+            return getMaxDegree(getTypeCounter(edgeType), type);
+        } finally {
+            readUnlock();
+        }
+    }
+
+    @Override
+    public int count(int degree, DegreeType type) {
+        readLock();
+        try {
+            return count(counter, degree, type);
+        } finally {
+            readUnlock();
+        }
+    }
+
+    @Override
+    public int count(int degree, DegreeType type, int edgeType) {
+        readLock();
+        try {
+            return count(getTypeCounter(edgeType), degree, type);
+        } finally {
+            readUnlock();
+        }
+    }
+
+    @Override
+    public NodeIterable get(int degree, DegreeType type) {
+        readLock();
+        try {
+            return get(counter, degree, type);
+        } finally {
+            readUnlock();
+        }
+    }
+
+    @Override
+    public NodeIterable get(int degree, DegreeType type, int edgeType) {
+        readLock();
+        try {
+            return get(getTypeCounter(edgeType), degree, type);
+        } finally {
+            readUnlock();
+        }
+    }
+
+    @Override
+    public Node[] getTopKByDegree(int k, DegreeType type) {
+        checkK(k);
+        readLock();
+        try {
+            return getTopKByDegree(counter, k, type);
+        } finally {
+            readUnlock();
+        }
+    }
+
+    @Override
+    public Node[] getTopKByDegree(int k, DegreeType type, int edgeType) {
+        checkK(k);
+        readLock();
+        try {
+            return getTopKByDegree(getTypeCounter(edgeType), k, type);
+        } finally {
+            readUnlock();
+        }
+    }
+
+    @Override
+    public int[] getDegreeHistogram(DegreeType type) {
+        readLock();
+        try {
+            return getDegreeHistogram(counter, type);
+        } finally {
+            readUnlock();
+        }
+    }
+
+    @Override
+    public int[] getDegreeHistogram(DegreeType type, int edgeType) {
+        readLock();
+        try {
+            return getDegreeHistogram(getTypeCounter(edgeType), type);
+        } finally {
+            readUnlock();
+        }
+    }
+
+    /**
+     * Returns the index of <code>view</code>, which is created and filled on
+     * first use.
+     *
+     * @param view view
+     * @return view degree index
+     */
+    protected DegreeIndexImpl getViewIndex(GraphView view) {
+        if (view.isMainView()) {
+            return this;
+        }
+        readLock();
+        try {
+            // Readers can create indexes concurrently
+            synchronized (viewIndexes) {
+                DegreeIndexImpl viewIndex = viewIndexes.get(view);
+                if (viewIndex == null) {
+                    viewIndex = new DegreeIndexImpl(graphStore, lock, (GraphViewImpl) view);
+                    viewIndex.rebuild();
+                    viewIndexes.put(view, viewIndex);
+                }
+                return viewIndex;
+            }
+        } finally {
+            readUnlock();
+        }
+    }
+
+    protected void deleteViewIndex(GraphView view) {
+        synchronized (viewIndexes) {
+            viewIndexes.remove(view);
+        }
+    }
+
+    /**
+     * Called by the edge store once <code>edge</code> is added and the node
+     * degrees updated.
+     *
+     * @param edge added edge
+     * @param sourceMutualDelta change of the source mutual degree
+     * @param targetMutualDelta change of the target mutual degree
+     */
+    protected void addEdge(EdgeImpl edge, int sourceMutualDelta, int targetMutualDelta) {
+        update(edge, 1, sourceMutualDelta, targetMutualDelta);
+
+        if (sourceMutualDelta != 0 && !viewIndexes.isEmpty()) {
+            // Node views get the edge before it's flagged mutual, count the
+            // pair now in the views having both edges
+            for (DegreeIndexImpl viewIndex : viewIndexes.values()) {
+                if (viewIndex.view.containsEdge(edge)) {
+                    int mutual = viewIndex.countMutualInView(edge);
+                    if (mutual > 0) {
+                        viewIndex.update(edge, 0, mutual, mutual);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Called by the edge store once <code>edge</code> is removed and the node
+     * degrees updated.
+     *
+     * @param edge removed edge
+     * @param sourceMutualDelta change of the source mutual degree
+     * @param targetMutualDelta change of the target mutual degree
+     */
+    protected void removeEdge(EdgeImpl edge, int sourceMutualDelta, int targetMutualDelta) {
+        update(edge, -1, sourceMutualDelta, targetMutualDelta);
+    }
+
+    /**
+     * Called by <code>view</code> once <code>edge</code> is added to it.
+     *
+     * @param view view
+     * @param edge edge added to the view
+     */
+    protected void addEdgeInView(GraphViewImpl view, EdgeImpl edge) {
+        DegreeIndexImpl viewIndex = viewIndexes.get(view);
+        if (viewIndex != null) {
+            int mutual = viewIndex.countMutualInView(edge);
+            viewIndex.update(edge, 1, mutual, mutual);
+        }
+    }
+
+    /**
+     * Called by <code>view</code> once <code>edge</code> is removed from it.
+     *
+     * @param view view
+     * @param edge edge removed from the view
+     */
+    protected void removeEdgeInView(GraphViewImpl view, EdgeImpl edge) {
+        DegreeIndexImpl viewIndex = viewIndexes.get(view);
+        if (viewIndex != null) {
+            int mutual = viewIndex.countMutualInView(edge);
+            viewIndex.update(edge, -1, -mutual, -mutual);
+        }
+    }
+
+    /**
+     * Called by <code>view</code> when its membership changes as a whole.
+     *
+     * @param view view
+     */
+    protected void indexView(GraphViewImpl view) {
+        DegreeIndexImpl viewIndex = viewIndexes.get(view);
+        if (viewIndex != null) {
+            viewIndex.rebuild();
+        }
+    }
+
+    protected void removeNode(NodeImpl node) {
+        counter.remove(node);
+        for (DegreeCounter typeCounter : typeCounters.values()) {
+            typeCounter.remove(node);
+        }
+    }
+
+    protected void clear() {
+        counter.clear();
+        typeCounters.clear();
+        if (viewIndexes != null) {
+            for (DegreeIndexImpl viewIndex : viewIndexes.values()) {
+                viewIndex.clear();
+            }
+        }
+    }
+
+    /**
+     * Rebuilds the counters from the edges of the graph or the view, used when
+     * the edges are restored or the view membership changes as a whole.
+     */
+    protected void rebuild() {
+        counter.clear();
+        typeCounters.clear();
+        for (Edge e : graphStore.edgeStore) {
+            EdgeImpl edge = (EdgeImpl) e;
+            if (view == null || view.containsEdge(edge)) {
+                // Count mutual pairs once, on the edge with the lowest source
+                int mutual = edge.isMutual() && edge.source.storeId < edge.target.storeId && (view == null || view
+                        .containsEdge(getReverse(edge))) ? 1 : 0;
+                update(edge, 1, mutual, mutual);
+            }
+        }
+    }
+
+    private void update(EdgeImpl edge, int delta, int sourceMutualDelta, int targetMutualDelta) {
+        counter.update(edge.source, 0, delta, sourceMutualDelta);
+        counter.update(edge.target, delta, 0, targetMutualDelta);
+
+        DegreeCounter typeCounter = typeCounters.get(edge.type);
+        if (typeCounter == null) {
+            typeCounter = new DegreeCounter();
+            typeCounters.put(edge.type, typeCounter);
+        }
+        typeCounter.update(edge.source, 0, delta, sourceMutualDelta);
+        typeCounter.update(edge.target, delta, 0, targetMutualDelta);
+    }
+
+    /**
+     * Returns the number of mutual pairs of the view that <code>edge</code>
+     * belongs to, whether it's in the view or not. A pair is counted once in
+     * the undirected degree, on the edge with the lowest source, as in
+     * {@link GraphViewDecorator#isUndirectedToIgnore(org.gephi.graph.impl.EdgeImpl) }
+     * .
+     */
+    private int countMutualInView(EdgeImpl edge) {
+        int count = 0;
+        if (edge.isDirected() && !edge.isSelfLoop()) {
+            EdgeImpl reverse = getReverse(edge);
+            if (reverse != null && reverse != edge && view.containsEdge(reverse)) {
+                if (edge.isMutual() && edge.source.storeId < edge.target.storeId) {
+                    count++;
+                }
+                if (reverse.isMutual() && reverse.source.storeId < reverse.target.storeId && getReverse(reverse) == edge) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    private EdgeImpl getReverse(EdgeImpl edge) {
+        return graphStore.edgeStore.get(edge.target, edge.source, edge.type, false);
+    }
+
+    private int getMinDegree(DegreeCounter degreeCounter, DegreeType type) {
+        checkType(type);
+        if (countZeroDegree(degreeCounter) > 0 || degreeCounter == null) {
+            return 0;
+        }
+        return degreeCounter.getBuckets(type).getMinDegree();
+    }
+
+    private int getMaxDegree(DegreeCounter degreeCounter, DegreeType type) {
+        checkType(type);
+        if (degreeCounter == null) {
+            return 0;
+        }
+        return degreeCounter.getBuckets(type).getMaxDegree();
+    }
+
+    private int count(DegreeCounter degreeCounter, int degree, DegreeType type) {
+        checkType(type);
+        int count = degree == 0 ? countZeroDegree(degreeCounter) : 0;
+        if (degreeCounter != null) {
+            ObjectSet<NodeImpl> bucket = degreeCounter.getBuckets(type).map.get(degree);
+            count += bucket != null ? bucket.size() : 0;
+        }
+        return count;
+    }
+
+    private NodeIterable get(DegreeCounter degreeCounter, int degree, DegreeType type) {
+        checkType(type);
+        List<Node> nodes = new ArrayList<Node>();
+        if (degreeCounter != null) {
+            ObjectSet<NodeImpl> bucket = degreeCounter.getBuckets(type).map.get(degree);
+            if (bucket != null) {
+                nodes.addAll(bucket);
+            }
+        }
+        if (degree == 0) {
+            addZeroDegreeNodes(degreeCounter, nodes, Integer.MAX_VALUE);
+        }
+        if (nodes.isEmpty()) {
+            return NodeIterable.EMPTY;
+        }
+        return graphStore.getNodeIterableWrapper(Collections.unmodifiableList(nodes).iterator(), false);
+    }
+
+    private Node[] getTopKByDegree(DegreeCounter degreeCounter, int k, DegreeType type) {
+        checkType(type);
+        List<Node> nodes = new ArrayList<Node>(Math.min(k, getNodeCount()));
+        if (degreeCounter != null) {
+            DegreeBuckets buckets = degreeCounter.getBuckets(type);
+            if (!buckets.map.isEmpty()) {
+                ObjectBidirectionalIterator<Int2ObjectMap.Entry<ObjectSet<NodeImpl>>> itr = buckets.map
+                        .int2ObjectEntrySet().iterator(buckets.map.int2ObjectEntrySet().last());
+                // The iterator starts after the last entry so the first
+                // previous() returns it
+                while (nodes.size() < k && itr.hasPrevious()) {
+                    for (NodeImpl node : itr.previous().getValue()) {
+                        if (nodes.size() == k) {
+                            break;
+                        }
+                        nodes.add(node);
+                    }
+                }
+            }
+        }
+        if (nodes.size() < k) {
+            addZeroDegreeNodes(degreeCounter, nodes, k);
+        }
+        return nodes.toArray(new Node[0]);
+    }
+
+    private int[] getDegreeHistogram(DegreeCounter degreeCounter, DegreeType type) {
+        checkType(type);
+        if (getNodeCount() == 0) {
+            return new int[0];
+        }
+        int[] histogram = new int[getMaxDegree(degreeCounter, type) + 1];
+        if (degreeCounter != null) {
+            for (Int2ObjectMap.Entry<ObjectSet<NodeImpl>> entry : degreeCounter.getBuckets(type).map
+                    .int2ObjectEntrySet()) {
+                histogram[entry.getIntKey()] = entry.getValue().size();
+            }
+        }
+        histogram[0] += countZeroDegree(degreeCounter);
+        return histogram;
+    }
+
+    private DegreeCounter getTypeCounter(int edgeType) {
+        return typeCounters.get(edgeType);
+    }
+
+    private int getNodeCount() {
+        return view != null ? view.getNodeCount() : graphStore.nodeStore.size();
+    }
+
+    /**
+     * Returns the number of nodes without any counted edge, which have a zero
+     * degree whatever the degree type.
+     */
+    private int countZeroDegree(DegreeCounter degreeCounter) {
+        return getNodeCount() - (degreeCounter != null ? degreeCounter.counts.size() : 0);
+    }
+
+    private void addZeroDegreeNodes(DegreeCounter degreeCounter, List<Node> nodes, int limit) {
+        if (countZeroDegree(degreeCounter) == 0) {
+            return;
+        }
+        for (Node n : graphStore.nodeStore) {
+            if (nodes.size() >= limit) {
+                break;
+            }
+            NodeImpl node = (NodeImpl) n;
+            if ((view == null || view.containsNode(node)) && (degreeCounter == null || !degreeCounter.counts
+                    .containsKey(node))) {
+                nodes.add(node);
+            }
+        }
+    }
+
+    private static void checkK(int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k can't be negative");
+        }
+    }
+
+    private static void checkType(DegreeType type) {
+        if (type == null) {
+            throw new NullPointerException("The degree type can't be null");
+        }
+    }
+
+    private void readLock() {
+        if (lock != null) {
+            lock.readLock();
+        }
+    }
+
+    private void readUnlock() {
+        if (lock != null) {
+            lock.readUnlock();
+        }
+    }
+
+    /**
+     * In, out and mutual counters of the nodes with at least one edge, and the
+     * matching degree buckets.
+     */
+    protected static class DegreeCounter {
+
+        protected final Object2ObjectOpenHashMap<NodeImpl, int[]> counts;
+        protected final DegreeBuckets degreeBuckets;
+        protected final DegreeBuckets inDegreeBuckets;
+        protected final DegreeBuckets outDegreeBuckets;
+        protected final DegreeBuckets undirectedDegreeBuckets;
+
+        public DegreeCounter() {
+            counts = new Object2ObjectOpenHashMap<NodeImpl, int[]>();
+            degreeBuckets = new DegreeBuckets();
+            inDegreeBuckets = new DegreeBuckets();
+            outDegreeBuckets = new DegreeBuckets();
+            undirectedDegreeBuckets = new DegreeBuckets();
+        }
+
+        public void update(NodeImpl node, int inDelta, int outDelta, int mutualDelta) {
+            int[] c = counts.get(node);
+            if (c == null) {
+                c = new int[3];
+            } else {
+                removeFromBuckets(node, c);
+            }
+            c[0] += inDelta;
+            c[1] += outDelta;
+            c[2] += mutualDelta;
+            if (c[0] == 0 && c[1] == 0) {
+                counts.remove(node);
+            } else {
+                counts.put(node, c);
+                addToBuckets(node, c);
+            }
+        }
+
+        public void remove(NodeImpl node) {
+            int[] c = counts.remove(node);
+            if (c != null) {
+                removeFromBuckets(node, c);
+            }
+        }
+
+        public DegreeBuckets getBuckets(DegreeType type) {
+            checkType(type);
+            switch (type) {
+                case IN_DEGREE:
+                    return inDegreeBuckets;
+                case OUT_DEGREE:
+                    return outDegreeBuckets;
+                case UNDIRECTED_DEGREE:
+                    return undirectedDegreeBuckets;
+                default:
+                    return degreeBuckets;
+            }
+        }
+
+        public void clear() {
+            counts.clear();
+            degreeBuckets.clear();
+            inDegreeBuckets.clear();
+            outDegreeBuckets.clear();
+            undirectedDegreeBuckets.clear();
+        }
+
+        private void addToBuckets(NodeImpl node, int[] c) {
+            degreeBuckets.add(node, c[0] + c[1]);
+            inDegreeBuckets.add(node, c[0]);
+            outDegreeBuckets.add(node, c[1]);
+            undirectedDegreeBuckets.add(node, c[0] + c[1] - c[2]);
+        }
+
+        private void removeFromBuckets(NodeImpl node, int[] c) {
+            degreeBuckets.remove(node, c[0] + c[1]);
+            inDegreeBuckets.remove(node, c[0]);
+            outDegreeBuckets.remove(node, c[1]);
+            undirectedDegreeBuckets.remove(node, c[0] + c[1] - c[2]);
+        }
+    }
+
+    protected static class DegreeBuckets {
+
+        protected final Int2ObjectAVLTreeMap<ObjectSet<NodeImpl>> map;
+        protected int size;
+
+        public DegreeBuckets() {
+            map = new Int2ObjectAVLTreeMap<ObjectSet<NodeImpl>>();
+        }
+
+        public void add(NodeImpl node, int degree) {
+            ObjectSet<NodeImpl> bucket = map.get(degree);
+            if (bucket == null) {
+                bucket = new ObjectOpenHashSet<NodeImpl>();
+                map.put(degree, bucket);
+            }
+            if (bucket.add(node)) {
+                size++;
+            }
+        }
+
+        public void remove(NodeImpl node, int degree) {
+            ObjectSet<NodeImpl> bucket = map.get(degree);
+            if (bucket != null && bucket.remove(node)) {
+                size--;
+                if (bucket.isEmpty()) {
+                    map.remove(degree);
+                }
+            }
+        }
+
+        public int getMinDegree() {
+            return map.isEmpty() ? 0 : map.firstIntKey();
+        }
+
+        public int getMaxDegree() {
+            return map.isEmpty() ? 0 : map.lastIntKey();
+        }
+
+        public void clear() {
+            map.clear();
+            size = 0;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Thread-safe set of store ids touched since it was last drained.
+ * <p>
+ * Ids are appended to an int list, which may contain duplicates, until a bitmap
+ * up to the highest id takes less space. Draining returns the ids sorted and
+ * without duplicates.
+ */
+public class DirtyIdSet {
+
+    private static final int[] EMPTY = new int[0];
+    private int[] ids;
+    private int count;
+    private int maxId;
+    private BitSet set;
+
+    public synchronized void add(int id) {
+        if (set != null) {
+            set.set(id);
+            return;
+        }
+        if (ids == null) {
+            ids = new int[GraphStoreConfiguration.COLUMNDIFF_DEFAULT_SIZE];
+        } else if (count == ids.length) {
+            ids = Arrays.copyOf(ids, (int) (count * 1.5) + 1);
+        }
+        ids[count++] = id;
+        maxId = Math.max(maxId, id);
+
+        if (count >= GraphStoreConfiguration.COLUMNDIFF_BITMAP_MIN_SIZE && maxId < count * 32L) {
+            set = new BitSet(maxId + 1);
+            for (int i = 0; i < count; i++) {
+                set.set(ids[i]);
+            }
+            ids = null;
+            count = 0;
+        }
+    }
+
+    public synchronized boolean isEmpty() {
+        return count == 0 && (set == null || set.isEmpty());
+    }
+
+    /**
+     * Returns the ids added since the last call, sorted and without duplicates,
+     * and clears this set.
+     *
+     * @return sorted ids
+     */
+    public int[] drain() {
+        int[] listIds;
+        int listCount;
+        BitSet bitSet;
+        synchronized (this) {
+            listIds = ids;
+            listCount = count;
+            bitSet = set;
+            ids = null;
+            count = 0;
+            maxId = 0;
+            set = null;
+        }
+
+        if (bitSet != null) {
+            int[] res = new int[bitSet.cardinality()];
+            for (int i = bitSet.nextSetBit(0), j = 0; i >= 0; i = bitSet.nextSetBit(i + 1)) {
+                res[j++] = i;
+            }
+            return res;
+        } else if (listIds != null) {
+            Arrays.sort(listIds, 0, listCount);
+            int j = 0;
+            for (int i = 0; i < listCount; i++) {
+                if (j == 0 || listIds[i] != listIds[j - 1]) {
+                    listIds[j++] = listIds[i];
+                }
+            }
+            return Arrays.copyOf(listIds, j);
+        }
+        return EMPTY;
+    }
+
+    public synchronized void clear() {
+        ids = null;
+        count = 0;
+        maxId = 0;
+        set = null;
+    }
+}
@@ -55,7 +55,7 @@ public class EdgeImpl extends ElementImpl implements Edge {
         this.target = target;
         this.flags = (byte) (directed ? 1 : 0);
         this.type = type;
-        this.properties = GraphStoreConfiguration.ENABLE_EDGE_PROPERTIES ? new EdgePropertiesImpl() : null;
+        this.properties = GraphStoreConfiguration.ENABLE_EDGE_PROPERTIES ? new EdgePropertiesImpl(this) : null;
         this.attributes = new Object[GraphStoreConfiguration.EDGE_WEIGHT_INDEX + 1];
         this.attributes[GraphStoreConfiguration.ELEMENT_ID_INDEX] = id;
         if (graphStore == null || graphStore.configuration.getEdgeWeightType().equals(Double.class)) {
@@ -409,11 +409,17 @@ public class EdgeImpl extends ElementImpl implements Edge {
 
     protected static class EdgePropertiesImpl implements EdgeProperties {
 
+        protected final EdgeImpl edge;
         protected final TextPropertiesImpl textProperties;
         protected int rgba;
 
         public EdgePropertiesImpl() {
-            textProperties = new TextPropertiesImpl();
+            this(null);
+        }
+
+        public EdgePropertiesImpl(EdgeImpl edge) {
+            this.edge = edge;
+            textProperties = new TextPropertiesImpl(edge);
             this.rgba = 255 << 24; // Alpha set to 1
         }
 
@@ -462,26 +468,37 @@ public class EdgeImpl extends ElementImpl implements Edge {
         @Override
         public void setR(float r) {
             rgba = (rgba & 0xFF00FFFF) | (((int) (r * 255f)) << 16);
+            propertiesChanged();
         }
 
         @Override
         public void setG(float g) {
             rgba = (rgba & 0xFFFF00FF) | ((int) (g * 255f)) << 8;
+            propertiesChanged();
         }
 
         @Override
         public void setB(float b) {
             rgba = (rgba & 0xFFFFFF00) | ((int) (b * 255f));
+            propertiesChanged();
         }
 
         @Override
         public void setAlpha(float a) {
             rgba = (rgba & 0xFFFFFF) | ((int) (a * 255f)) << 24;
+            propertiesChanged();
         }
 
         @Override
         public void setColor(Color color) {
             rgba = (color.getAlpha() << 24) | color.getRGB();
+            propertiesChanged();
+        }
+
+        private void propertiesChanged() {
+            if (edge != null && edge.graphStore != null) {
+                edge.graphStore.propertiesChanged(edge);
+            }
         }
 
         public int deepHashCode() {
@@ -55,6 +55,8 @@ public class EdgeStore implements Collection<Edge>, EdgeIterable {
     protected final EdgeTypeStore edgeTypeStore;
     // View store
     protected final GraphViewStore viewStore;
+    // Degree index (optional)
+    protected DegreeIndexImpl degreeIndex;
 
     public EdgeStore() {
         initStore();
@@ -62,14 +64,16 @@ public class EdgeStore implements Collection<Edge>, EdgeIterable {
         this.edgeTypeStore = null;
         this.viewStore = null;
         this.version = null;
+        this.degreeIndex = null;
     }
 
-    public EdgeStore(final EdgeTypeStore edgeTypeStore, final GraphLock lock, final GraphViewStore viewStore, final GraphVersion graphVersion) {
+    public EdgeStore(final EdgeTypeStore edgeTypeStore, final GraphLock lock, final GraphViewStore viewStore, final GraphVersion graphVersion, final DegreeIndexImpl degreeIndex) {
         initStore();
         this.lock = lock;
         this.edgeTypeStore = edgeTypeStore;
         this.viewStore = viewStore;
         this.version = graphVersion;
+        this.degreeIndex = degreeIndex;
     }
 
     private void initStore() {
@@ -127,6 +131,128 @@ public class EdgeStore implements Collection<Edge>, EdgeIterable {
         dictionary.trim(Math.max(GraphStoreConfiguration.EDGESTORE_BLOCK_SIZE, size * 2));
     }
 
+    /**
+     * Prepares this empty store to have <code>count</code> blocks restored with
+     * {@link #restoreBlock(int, EdgeImpl[], int[]) restoreBlock}.
+     * <p>
+     * Restoring bypasses the checks, views and indexing done when edges are
+     * added, it's only meant for a store known to be consistent, like a
+     * serialized one. Once all blocks are restored, the adjacency must be
+     * rebuilt with {@link #restoreAdjacency()} and the indexes with
+     * {@link #restoreIndexes()}.
+     *
+     * @param count number of blocks
+     */
+    protected void restoreBlocks(int count) {
+        if (size > 0 || garbageSize > 0 || currentBlock.nodeLength > 0) {
+            throw new IllegalStateException("The store is not empty");
+        }
+        if (count > blocks.length) {
+            blocks = Arrays.copyOf(blocks, count);
+        }
+        for (int i = 0; i < count; i++) {
+            if (blocks[i] == null) {
+                blocks[i] = new EdgeBlock(i);
+            }
+        }
+        blocksCount = Math.max(1, count);
+        currentBlockIndex = blocksCount - 1;
+        currentBlock = blocks[currentBlockIndex];
+    }
+
+    /**
+     * Restores the edges of the block at <code>index</code>, at the positions
+     * they have in <code>edges</code>.
+     *
+     * @param index block index
+     * @param edges block edges, with null at the garbage positions
+     * @param garbage garbage positions, in the order they'll be reused
+     */
+    protected void restoreBlock(int index, EdgeImpl[] edges, int[] garbage) {
+        EdgeBlock block = blocks[index];
+        for (int i = 0; i < edges.length; i++) {
+            EdgeImpl edge = edges[i];
+            if (edge != null) {
+                block.backingArray[i] = edge;
+                edge.setStoreId(block.offset + i);
+                dictionary.put(edge.getId(), edge.storeId);
+                if (!edge.isDirected()) {
+                    undirectedSize++;
+                }
+                size++;
+            }
+        }
+        block.nodeLength = edges.length;
+        for (int i = 0; i < garbage.length; i++) {
+            block.garbageArray[i] = (short) (garbage[i] + Short.MIN_VALUE);
+        }
+        block.garbageLength = garbage.length;
+        garbageSize += garbage.length;
+    }
+
+    /**
+     * Rebuilds the adjacency lists, node degrees, dictionaries and mutual edges
+     * of the restored edges in a single pass, in store order.
+     */
+    protected void restoreAdjacency() {
+        for (EdgeStoreIterator itr = new EdgeStoreIterator(); itr.hasNext();) {
+            EdgeImpl edge = itr.next();
+            int type = edge.type;
+            NodeImpl source = edge.source;
+            NodeImpl target = edge.target;
+            boolean directed = edge.isDirected();
+
+            insertOutEdge(edge);
+            insertInEdge(edge);
+            source.outDegree++;
+            target.inDegree++;
+
+            ensureLongDictionaryCapacity(type);
+            Long2ObjectOpenCustomHashMap<int[]> dico = longDictionary[type];
+            long longId = getLongId(source, target, directed);
+            int[] dicoValue = dico.get(longId);
+            if (dicoValue == null) {
+                dicoValue = new int[] { edge.storeId };
+            } else {
+                dicoValue = Arrays.copyOf(dicoValue, dicoValue.length + 1);
+                dicoValue[dicoValue.length - 1] = edge.storeId;
+            }
+            dico.put(longId, dicoValue);
+
+            if (directed && !edge.isSelfLoop()) {
+                int[] index = dico.get(getLongId(target, source, true));
+                if (index != null) {
+                    for (int i = 0; i < index.length; i++) {
+                        EdgeImpl mutual = get(index[i]);
+                        if (!mutual.isMutual()) {
+                            mutual.setMutual(true);
+                            edge.setMutual(true);
+                            source.mutualDegree++;
+                            target.mutualDegree++;
+                            mutualEdgesSize++;
+                            mutualEdgesTypeSize[type]++;
+                            break;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Indexes the attributes and degrees of all restored edges.
+     */
+    protected void restoreIndexes() {
+        for (EdgeStoreIterator itr = new EdgeStoreIterator(); itr.hasNext();) {
+            EdgeImpl edge = itr.next();
+            edge.restoreRangeAggregates();
+            edge.indexAttributes();
+        }
+        if (degreeIndex != null) {
+            degreeIndex.rebuild();
+        }
+    }
+
     private void ensureHeadOutCapacity(final NodeImpl node, final int type) {
         EdgeImpl[] out = node.headOut;
         int outLength = out.length;
@@ -276,6 +402,9 @@ public class EdgeStore implements Collection<Edge>, EdgeIterable {
         if (!isEmpty()) {
             incrementVersion();
         }
+        if (version != null) {
+            version.invalidateChangeLog();
+        }
 
         for (EdgeStoreIterator itr = new EdgeStoreIterator(); itr.hasNext();) {
             EdgeImpl edge = itr.next();
@@ -576,6 +705,9 @@ public class EdgeStore implements Collection<Edge>, EdgeIterable {
             insertOutEdge(edge);
             insertInEdge(edge);
 
+            int sourceMutualDegree = source.mutualDegree;
+            int targetMutualDegree = target.mutualDegree;
+
             source.outDegree++;
             target.inDegree++;
 
@@ -614,7 +746,16 @@ public class EdgeStore implements Collection<Edge>, EdgeIterable {
                 undirectedSize++;
             }
 
+            if (degreeIndex != null) {
+                degreeIndex
+                        .addEdge(edge, source.mutualDegree - sourceMutualDegree, target.mutualDegree - targetMutualDegree);
+            }
+
             size++;
+
+            if (version != null) {
+                version.logChange(edge);
+            }
             return true;
         } else if (isValidIndex(edge.storeId) && get(edge.storeId) == edge) {
             return false;
@@ -633,6 +774,9 @@ public class EdgeStore implements Collection<Edge>, EdgeIterable {
             checkEdgeExists(edge);
 
             incrementVersion();
+            if (version != null) {
+                version.logChange(edge);
+            }
 
             if (viewStore != null) {
                 viewStore.removeEdge(edge);
@@ -651,6 +795,9 @@ public class EdgeStore implements Collection<Edge>, EdgeIterable {
             NodeImpl source = edge.source;
             NodeImpl target = edge.target;
 
+            int sourceMutualDegree = source.mutualDegree;
+            int targetMutualDegree = target.mutualDegree;
+
             source.outDegree--;
             target.inDegree--;
 
@@ -716,6 +863,11 @@ public class EdgeStore implements Collection<Edge>, EdgeIterable {
                 undirectedSize--;
             }
 
+            if (degreeIndex != null) {
+                degreeIndex
+                        .removeEdge(edge, source.mutualDegree - sourceMutualDegree, target.mutualDegree - targetMutualDegree);
+            }
+
             if (edgeTypeStore != null) {
                 // TODO - if type count is zero, do smthing
             }
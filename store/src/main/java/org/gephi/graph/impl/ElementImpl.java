@@ -294,15 +294,25 @@ public abstract class ElementImpl implements Element {
     public void setLabel(String label) {
         if (GraphStoreConfiguration.ENABLE_ELEMENT_LABEL) {
             int index = GraphStoreConfiguration.ELEMENT_LABEL_INDEX;
+            ColumnStore columnStore = getColumnStore();
+            Object value = label;
             synchronized (this) {
+                Object oldValue = null;
                 if (index >= attributes.length) {
                     Object[] newArray = new Object[index + 1];
                     System.arraycopy(attributes, 0, newArray, 0, attributes.length);
                     attributes = newArray;
+                } else {
+                    oldValue = attributes[index];
+                }
+                if (columnStore != null && columnStore.indexStore != null && isValid()) {
+                    Column col = columnStore.getColumnByIndex(index);
+                    if (col.isIndexed()) {
+                        value = columnStore.indexStore.set(col, oldValue, label, this);
+                    }
                 }
-                attributes[index] = label;
+                attributes[index] = value;
             }
-            ColumnStore columnStore = getColumnStore();
             if (columnStore != null && isValid()) {
                 Column col = columnStore.getColumnByIndex(index);
                 ((ColumnImpl) col).incrementVersion(this);
@@ -415,6 +425,9 @@ public abstract class ElementImpl implements Element {
                 } catch (IllegalAccessException ex) {
                     throw new RuntimeException(ex);
                 }
+                if (graphStore != null && graphStore.configuration.getRangeAggregates()) {
+                    setRangeAggregatesEnabled(dynamicValue);
+                }
             } else {
                 dynamicValue = (TimeMap) oldValue;
             }
@@ -616,6 +629,22 @@ public abstract class ElementImpl implements Element {
         return null;
     }
 
+    /**
+     * Enables the range aggregates of the restored time maps, if the
+     * configuration asks for it.
+     */
+    protected void restoreRangeAggregates() {
+        if (graphStore != null && graphStore.configuration.getRangeAggregates()) {
+            synchronized (this) {
+                for (Object value : attributes) {
+                    if (value instanceof TimeMap) {
+                        setRangeAggregatesEnabled((TimeMap) value);
+                    }
+                }
+            }
+        }
+    }
+
     protected void indexAttributes() {
         synchronized (this) {
             ColumnStore columnStore = getColumnStore();
@@ -728,6 +757,14 @@ public abstract class ElementImpl implements Element {
         }
     }
 
+    static void setRangeAggregatesEnabled(TimeMap timeMap) {
+        if (timeMap instanceof TimestampMap) {
+            ((TimestampMap) timeMap).setRangeAggregatesEnabled(true);
+        } else if (timeMap instanceof IntervalMap) {
+            ((IntervalMap) timeMap).setRangeAggregatesEnabled(true);
+        }
+    }
+
     void checkColumnDynamic(Column column) {
         if (!((ColumnImpl) column).isDynamic()) {
             throw new IllegalArgumentException("The column is not dynamic");
@@ -0,0 +1,443 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import it.unimi.dsi.fastutil.objects.Object2ObjectLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import it.unimi.dsi.fastutil.objects.ObjectList;
+import it.unimi.dsi.fastutil.objects.ReferenceLinkedOpenHashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.gephi.graph.api.Column;
+import org.gephi.graph.api.ColumnDiff;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.EdgeIterable;
+import org.gephi.graph.api.Element;
+import org.gephi.graph.api.ElementIterable;
+import org.gephi.graph.api.Graph;
+import org.gephi.graph.api.GraphChangeEvent;
+import org.gephi.graph.api.GraphChangeListener;
+import org.gephi.graph.api.GraphDiff;
+import org.gephi.graph.api.Node;
+import org.gephi.graph.api.NodeIterable;
+
+/**
+ * Delivers batches of changes to graph change listeners.
+ * <p>
+ * Structural changes are read from a graph observer, which replays the graph's
+ * change log, and attribute changes are collected per column as they happen.
+ * Listeners are scheduled when the outermost write lock is released, or right
+ * away for attribute changes made without holding the write lock. Nothing is
+ * computed while the lock is held besides recording changed attributes.
+ */
+public class GraphChangeDispatcher {
+
+    protected final GraphStore graphStore;
+    protected final List<ListenerRegistration> registrations;
+
+    public GraphChangeDispatcher(GraphStore graphStore) {
+        this.graphStore = graphStore;
+        this.registrations = new CopyOnWriteArrayList<ListenerRegistration>();
+    }
+
+    public void addListener(Graph graph, GraphChangeListener listener, Executor executor) {
+        if (listener == null) {
+            throw new NullPointerException();
+        }
+        GraphObserverImpl observer;
+        if (graph.getView().isMainView()) {
+            observer = graphStore.createGraphObserver(graph, true);
+        } else {
+            observer = graphStore.viewStore.createGraphObserver(graph, true);
+        }
+        registrations.add(new ListenerRegistration(graph, listener, executor, observer));
+    }
+
+    public boolean removeListener(GraphChangeListener listener) {
+        ListenerRegistration registration = getRegistration(listener);
+        if (registration != null) {
+            registrations.remove(registration);
+            registration.destroy();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Attaches <code>observer</code> to the registration of
+     * <code>listener</code>.
+     * <p>
+     * The observer's diff is computed under the same lock as the diff of the
+     * listener's graph and is delivered in the same event, see
+     * {@link GraphChangeEventImpl#getDiff(GraphObserverImpl)}. The listener is
+     * called once with no diff for the observer if it hasn't changed since it
+     * was attached. The observer is destroyed with the registration.
+     *
+     * @param listener registered listener
+     * @param observer observer with diff
+     */
+    protected void addObserver(GraphChangeListener listener, GraphObserverImpl observer) {
+        ListenerRegistration registration = getRegistration(listener);
+        if (registration == null) {
+            throw new IllegalArgumentException("The listener isn't registered");
+        }
+        registration.observers.add(observer);
+    }
+
+    /**
+     * Delivers the pending changes of <code>listener</code> in the current
+     * thread, after waiting for the batch being delivered in the executor if
+     * any.
+     * <p>
+     * The wait is skipped if the current thread holds the write lock, as the
+     * batch being delivered may wait for the lock.
+     *
+     * @param listener registered listener
+     */
+    protected void drain(GraphChangeListener listener) {
+        ListenerRegistration registration = getRegistration(listener);
+        if (registration != null) {
+            registration.drain();
+        }
+    }
+
+    public boolean hasListeners() {
+        return !registrations.isEmpty();
+    }
+
+    private ListenerRegistration getRegistration(GraphChangeListener listener) {
+        for (ListenerRegistration registration : registrations) {
+            if (registration.listener == listener) {
+                return registration;
+            }
+        }
+        return null;
+    }
+
+    private void destroyObserver(GraphObserverImpl observer) {
+        if (!observer.isDestroyed()) {
+            if (observer.graph.getView().isMainView()) {
+                graphStore.destroyGraphObserver(observer);
+            } else {
+                graphStore.viewStore.destroyGraphObserver(observer);
+            }
+        }
+    }
+
+    protected void attributeChanged(ColumnImpl column, ElementImpl element) {
+        if (!registrations.isEmpty()) {
+            for (ListenerRegistration registration : registrations) {
+                registration.attributeChanged(column, element);
+            }
+            if (!graphStore.lock.isWriteLockedByCurrentThread()) {
+                flush();
+            }
+        }
+    }
+
+    /**
+     * Schedules the listeners with pending changes. Called once the write lock
+     * has been released.
+     */
+    protected void flush() {
+        if (!registrations.isEmpty()) {
+            for (ListenerRegistration registration : registrations) {
+                if (registration.hasPendingChanges()) {
+                    registration.dirty = true;
+                    registration.schedule();
+                }
+            }
+        }
+    }
+
+    protected final class ListenerRegistration implements Runnable {
+
+        protected final Graph graph;
+        protected final GraphChangeListener listener;
+        protected final Executor executor;
+        protected final GraphObserverImpl observer;
+        // Observers whose diffs are delivered with the graph's diff
+        protected final List<GraphObserverImpl> observers;
+        // True while a batch is submitted or being delivered
+        protected final AtomicBoolean scheduled;
+        // True if changes were made since the last batch was created
+        protected volatile boolean dirty;
+        // Changed elements per column, guarded by this
+        protected Map<ColumnImpl, ReferenceLinkedOpenHashSet<ElementImpl>> attributeChanges;
+        protected volatile boolean destroyed;
+
+        public ListenerRegistration(Graph graph, GraphChangeListener listener, Executor executor, GraphObserverImpl observer) {
+            this.graph = graph;
+            this.listener = listener;
+            this.executor = executor;
+            this.observer = observer;
+            this.observers = new CopyOnWriteArrayList<GraphObserverImpl>();
+            this.scheduled = new AtomicBoolean();
+        }
+
+        protected synchronized void attributeChanged(ColumnImpl column, ElementImpl element) {
+            if (attributeChanges == null) {
+                attributeChanges = new Object2ObjectLinkedOpenHashMap<ColumnImpl, ReferenceLinkedOpenHashSet<ElementImpl>>();
+            }
+            ReferenceLinkedOpenHashSet<ElementImpl> elements = attributeChanges.get(column);
+            if (elements == null) {
+                elements = new ReferenceLinkedOpenHashSet<ElementImpl>();
+                attributeChanges.put(column, elements);
+            }
+            elements.add(element);
+        }
+
+        protected synchronized boolean hasPendingChanges() {
+            if (destroyed) {
+                return false;
+            }
+            if (attributeChanges != null || hasGraphChanged(observer)) {
+                return true;
+            }
+            for (GraphObserverImpl o : observers) {
+                if (o.isNew() || hasGraphChanged(o)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean hasGraphChanged(GraphObserverImpl o) {
+            GraphVersion graphVersion = o.graphVersion;
+            return !o.isDestroyed() && (o.nodeVersion < graphVersion.nodeVersion || o.edgeVersion < graphVersion.edgeVersion);
+        }
+
+        protected void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                if (executor != null) {
+                    try {
+                        executor.execute(this);
+                    } catch (RuntimeException e) {
+                        scheduled.set(false);
+                        throw e;
+                    }
+                } else {
+                    run();
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            do {
+                dirty = false;
+                try {
+                    GraphChangeEventImpl event = createEvent();
+                    if (event != null) {
+                        listener.graphChanged(event);
+                    }
+                } finally {
+                    scheduled.set(false);
+                    synchronized (this) {
+                        notifyAll();
+                    }
+                }
+                // Changes made meanwhile are delivered in a new batch
+            } while (dirty && scheduled.compareAndSet(false, true));
+        }
+
+        protected void drain() {
+            boolean wait = !graphStore.lock.isWriteLockedByCurrentThread();
+            synchronized (this) {
+                while (!destroyed && !scheduled.compareAndSet(false, true)) {
+                    if (!wait) {
+                        return;
+                    }
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+                if (destroyed) {
+                    return;
+                }
+            }
+            run();
+        }
+
+        private GraphChangeEventImpl createEvent() {
+            Map<ColumnImpl, ReferenceLinkedOpenHashSet<ElementImpl>> changes;
+            synchronized (this) {
+                if (destroyed) {
+                    return null;
+                }
+                changes = attributeChanges;
+                attributeChanges = null;
+            }
+
+            graph.readLock();
+            try {
+                GraphDiff diff = null;
+                if (observer.hasGraphChanged()) {
+                    diff = observer.getDiff();
+                }
+                Map<GraphObserverImpl, GraphDiff> observerDiffs = null;
+                boolean newObservers = false;
+                for (GraphObserverImpl o : observers) {
+                    newObservers |= o.isNew();
+                    if (o.hasGraphChanged()) {
+                        if (observerDiffs == null) {
+                            observerDiffs = new Object2ObjectLinkedOpenHashMap<GraphObserverImpl, GraphDiff>();
+                        }
+                        observerDiffs.put(o, o.getDiff());
+                    }
+                }
+                Map<Column, ColumnDiff> columnDiffs = null;
+                if (changes != null) {
+                    for (Map.Entry<ColumnImpl, ReferenceLinkedOpenHashSet<ElementImpl>> entry : changes.entrySet()) {
+                        ObjectList<Element> elements = new ObjectArrayList<Element>(entry.getValue().size());
+                        for (ElementImpl element : entry.getValue()) {
+                            if (contains(element)) {
+                                elements.add(element);
+                            }
+                        }
+                        if (!elements.isEmpty()) {
+                            if (columnDiffs == null) {
+                                columnDiffs = new Object2ObjectLinkedOpenHashMap<Column, ColumnDiff>();
+                            }
+                            columnDiffs.put(entry.getKey(), new ColumnDiffImpl(elements));
+                        }
+                    }
+                }
+                if (diff == null && columnDiffs == null && observerDiffs == null && !newObservers) {
+                    return null;
+                }
+                return new GraphChangeEventImpl(graph, diff, columnDiffs, observerDiffs);
+            } finally {
+                graph.readUnlock();
+            }
+        }
+
+        private boolean contains(ElementImpl element) {
+            if (!element.isValid() || element.graphStore != graphStore) {
+                return false;
+            }
+            if (element instanceof NodeImpl) {
+                return graph.contains((Node) element);
+            }
+            return graph.contains((Edge) element);
+        }
+
+        protected synchronized void destroy() {
+            destroyed = true;
+            attributeChanges = null;
+            destroyObserver(observer);
+            for (GraphObserverImpl o : observers) {
+                destroyObserver(o);
+            }
+            notifyAll();
+        }
+    }
+
+    protected final class GraphChangeEventImpl implements GraphChangeEvent {
+
+        protected final Graph graph;
+        protected final GraphDiff diff;
+        protected final Map<Column, ColumnDiff> columnDiffs;
+        protected final Map<GraphObserverImpl, GraphDiff> observerDiffs;
+
+        public GraphChangeEventImpl(Graph graph, GraphDiff diff, Map<Column, ColumnDiff> columnDiffs, Map<GraphObserverImpl, GraphDiff> observerDiffs) {
+            this.graph = graph;
+            this.diff = diff;
+            this.columnDiffs = columnDiffs;
+            this.observerDiffs = observerDiffs;
+        }
+
+        /**
+         * Returns the diff of an observer attached to the registration, or null
+         * if its graph hasn't changed.
+         *
+         * @param observer attached observer
+         * @return diff or null
+         */
+        public GraphDiff getDiff(GraphObserverImpl observer) {
+            if (observerDiffs == null) {
+                return null;
+            }
+            return observerDiffs.get(observer);
+        }
+
+        @Override
+        public Graph getGraph() {
+            return graph;
+        }
+
+        @Override
+        public NodeIterable getAddedNodes() {
+            return diff != null ? diff.getAddedNodes() : NodeIterable.EMPTY;
+        }
+
+        @Override
+        public NodeIterable getRemovedNodes() {
+            return diff != null ? diff.getRemovedNodes() : NodeIterable.EMPTY;
+        }
+
+        @Override
+        public EdgeIterable getAddedEdges() {
+            return diff != null ? diff.getAddedEdges() : EdgeIterable.EMPTY;
+        }
+
+        @Override
+        public EdgeIterable getRemovedEdges() {
+            return diff != null ? diff.getRemovedEdges() : EdgeIterable.EMPTY;
+        }
+
+        @Override
+        public Column[] getChangedColumns() {
+            if (columnDiffs == null) {
+                return new Column[0];
+            }
+            return columnDiffs.keySet().toArray(new Column[0]);
+        }
+
+        @Override
+        public ColumnDiff getColumnDiff(Column column) {
+            if (columnDiffs == null) {
+                return null;
+            }
+            return columnDiffs.get(column);
+        }
+    }
+
+    protected final class ColumnDiffImpl implements ColumnDiff {
+
+        protected final ObjectList<Element> touchedElements;
+
+        public ColumnDiffImpl(ObjectList<Element> touchedElements) {
+            this.touchedElements = touchedElements;
+        }
+
+        @Override
+        public ElementIterable getTouchedElements() {
+            Element first = touchedElements.get(0);
+            if (first instanceof Node) {
+                return graphStore.getNodeIterableWrapper((Iterator) touchedElements.iterator(), false);
+            }
+            return graphStore.getEdgeIterableWrapper((Iterator) touchedElements.iterator(), false);
+        }
+    }
+}
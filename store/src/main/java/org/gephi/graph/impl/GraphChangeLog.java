@@ -0,0 +1,82 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+/**
+ * Bounded log of the structural changes of a graph, shared by the observers of
+ * this graph.
+ * <p>
+ * The store ids of added and removed nodes and edges are recorded in a ring
+ * buffer and identified by an increasing position. Only ids are kept so the log
+ * doesn't retain removed elements. Observers keep the position they last read
+ * from and compare the ids changed since then with their cache, as long as they
+ * haven't been overwritten. Operations changing the whole graph at once
+ * invalidate the log instead of recording every element.
+ */
+public class GraphChangeLog {
+
+    protected final int mask;
+    protected final int[] storeIds;
+    protected final boolean[] nodes;
+    // Position of the next change
+    protected long position;
+    // Changes before this position can't be replayed
+    protected long validPosition;
+
+    public GraphChangeLog(int size) {
+        if (size <= 0 || (size & (size - 1)) != 0) {
+            throw new IllegalArgumentException("The size should be a power of two");
+        }
+        mask = size - 1;
+        storeIds = new int[size];
+        nodes = new boolean[size];
+    }
+
+    public void add(ElementImpl element) {
+        int index = (int) (position & mask);
+        storeIds[index] = element.getStoreId();
+        nodes[index] = element instanceof NodeImpl;
+        position++;
+    }
+
+    public void invalidate() {
+        position++;
+        validPosition = position;
+    }
+
+    /**
+     * Returns true if all the changes since <code>from</code> are still in the
+     * log.
+     *
+     * @param from position to replay from
+     * @return true if the changes can be replayed, false otherwise
+     */
+    public boolean canReplay(long from) {
+        return from >= validPosition && position - from <= storeIds.length;
+    }
+
+    public long getPosition() {
+        return position;
+    }
+
+    public int getStoreId(long pos) {
+        return storeIds[(int) (pos & mask)];
+    }
+
+    public boolean isNode(long pos) {
+        return nodes[(int) (pos & mask)];
+    }
+}
@@ -58,6 +58,10 @@ public class GraphLock {
         writeLock.unlock();
     }
 
+    public boolean isWriteLockedByCurrentThread() {
+        return readWriteLock.isWriteLockedByCurrentThread();
+    }
+
     public void checkHoldWriteLock() {
         if (!readWriteLock.isWriteLockedByCurrentThread()) {
             throw new IllegalMonitorStateException(
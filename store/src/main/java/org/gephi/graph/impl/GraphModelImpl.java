@@ -15,7 +15,10 @@
  */
 package org.gephi.graph.impl;
 
+import java.util.concurrent.Executor;
 import org.gephi.graph.api.Configuration;
+import org.gephi.graph.api.DegreeIndex;
+import org.gephi.graph.api.Estimator;
 import org.gephi.graph.api.Index;
 import org.gephi.graph.api.Table;
 import org.gephi.graph.api.TimeFormat;
@@ -25,12 +28,15 @@ import org.gephi.graph.api.DirectedSubgraph;
 import org.gephi.graph.api.Edge;
 import org.gephi.graph.api.Graph;
 import org.gephi.graph.api.GraphBridge;
+import org.gephi.graph.api.GraphChangeListener;
 import org.gephi.graph.api.GraphFactory;
 import org.gephi.graph.api.GraphModel;
 import org.gephi.graph.api.GraphObserver;
+import org.gephi.graph.api.GraphSnapshot;
 import org.gephi.graph.api.GraphView;
 import org.gephi.graph.api.Node;
 import org.gephi.graph.api.Origin;
+import org.gephi.graph.api.PropertiesObserver;
 import org.gephi.graph.api.Subgraph;
 import org.gephi.graph.api.UndirectedGraph;
 import org.gephi.graph.api.UndirectedSubgraph;
@@ -336,6 +342,41 @@ public class GraphModelImpl implements GraphModel {
         return null;
     }
 
+    @Override
+    public DegreeIndex getDegreeIndex() {
+        return store.degreeIndex;
+    }
+
+    @Override
+    public DegreeIndex getDegreeIndex(GraphView view) {
+        DegreeIndexImpl degreeIndex = store.degreeIndex;
+        if (degreeIndex != null) {
+            return degreeIndex.getViewIndex(view);
+        }
+        return null;
+    }
+
+    @Override
+    public GraphSnapshot snapshotAt(double timestamp) {
+        if (Double.isInfinite(timestamp) || Double.isNaN(timestamp)) {
+            throw new IllegalArgumentException("Timestamp can't be NaN or infinity");
+        }
+        return snapshotOver(new Interval(timestamp, timestamp), Estimator.FIRST);
+    }
+
+    @Override
+    public GraphSnapshot snapshotOver(Interval interval, Estimator estimator) {
+        if (interval == null) {
+            throw new NullPointerException();
+        }
+        store.autoReadLock();
+        try {
+            return new GraphSnapshotImpl(store, interval, estimator);
+        } finally {
+            store.autoReadUnlock();
+        }
+    }
+
     @Override
     public GraphObserver createGraphObserver(Graph graph, boolean withGraphDiff) {
         store.autoWriteLock();
@@ -350,6 +391,41 @@ public class GraphModelImpl implements GraphModel {
         }
     }
 
+    @Override
+    public PropertiesObserver createPropertiesObserver() {
+        return store.createPropertiesObserver();
+    }
+
+    @Override
+    public void addGraphChangeListener(Graph graph, GraphChangeListener listener) {
+        addGraphChangeListener(graph, listener, null);
+    }
+
+    @Override
+    public void addGraphChangeListener(Graph graph, GraphChangeListener listener, Executor executor) {
+        if (store.changeDispatcher == null) {
+            throw new UnsupportedOperationException("Not supported.");
+        }
+        store.autoWriteLock();
+        try {
+            store.changeDispatcher.addListener(graph, listener, executor);
+        } finally {
+            store.autoWriteUnlock();
+        }
+    }
+
+    @Override
+    public void removeGraphChangeListener(GraphChangeListener listener) {
+        if (store.changeDispatcher != null) {
+            store.autoWriteLock();
+            try {
+                store.changeDispatcher.removeListener(listener);
+            } finally {
+                store.autoWriteUnlock();
+            }
+        }
+    }
+
     @Override
     public TimeFormat getTimeFormat() {
         return store.timeFormat;
@@ -429,6 +505,31 @@ public class GraphModelImpl implements GraphModel {
                 configuration.setEdgeLabelType(config.getEdgeLabelType());
             }
 
+            // Replace label columns if label or string indexing changes:
+            boolean replaceLabels = GraphStoreConfiguration.ENABLE_ELEMENT_LABEL && (!config.getLabelIndex()
+                    .equals(configuration.getLabelIndex()) || !config.getStringIndex()
+                    .equals(configuration.getStringIndex()));
+            // Set before the columns are added, their index depends on it
+            configuration.setStringIndex(config.getStringIndex());
+            if (replaceLabels) {
+                TableImpl<Node> nodeTable = store.nodeTable;
+                nodeTable.removeColumn(GraphStoreConfiguration.ELEMENT_LABEL_COLUMN_ID);
+                TableImpl<Edge> edgeTable = store.edgeTable;
+                edgeTable.removeColumn(GraphStoreConfiguration.ELEMENT_LABEL_COLUMN_ID);
+
+                nodeTable.store.addColumn(new ColumnImpl(nodeTable, GraphStoreConfiguration.ELEMENT_LABEL_COLUMN_ID,
+                        String.class, "Label", null, Origin.PROPERTY, config.getLabelIndex(), false));
+                edgeTable.store.addColumn(new ColumnImpl(edgeTable, GraphStoreConfiguration.ELEMENT_LABEL_COLUMN_ID,
+                        String.class, "Label", null, Origin.PROPERTY, config.getLabelIndex(), false));
+                configuration.setLabelIndex(config.getLabelIndex());
+            }
+
+            // Create or drop the degree index
+            if (!config.getDegreeIndex().equals(configuration.getDegreeIndex())) {
+                configuration.setDegreeIndex(config.getDegreeIndex());
+                store.resetDegreeIndex();
+            }
+
             // Replace dynamic timeset columns if time representation changes:
             if (!config.getTimeRepresentation().equals(configuration.getTimeRepresentation())) {
                 TableImpl<Node> nodeTable = store.nodeTable;
@@ -485,6 +586,9 @@ public class GraphModelImpl implements GraphModel {
                 configuration.setEdgeWeightType(newWeightType);
             }
 
+            // Only affects the maps created from now on, the store is empty
+            configuration.setRangeAggregates(config.getRangeAggregates());
+
             store.factory.resetConfiguration();
         } finally {
             store.autoWriteUnlock();
@@ -15,9 +15,14 @@
  */
 package org.gephi.graph.impl;
 
+import it.unimi.dsi.fastutil.ints.IntIterator;
+import it.unimi.dsi.fastutil.ints.IntLinkedOpenHashSet;
+import it.unimi.dsi.fastutil.ints.IntSet;
 import it.unimi.dsi.fastutil.objects.ObjectArrayList;
 import it.unimi.dsi.fastutil.objects.ObjectList;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
 import java.util.Collections;
+import java.util.Set;
 import org.gephi.graph.api.Edge;
 import org.gephi.graph.api.EdgeIterable;
 import org.gephi.graph.api.Graph;
@@ -43,6 +48,9 @@ public class GraphObserverImpl implements GraphObserver {
     protected GraphDiffImpl graphDiff;
     protected NodeImpl[] nodeCache;
     protected EdgeImpl[] edgeCache;
+    // Change log, null if diffs are computed by comparing the graph and cache
+    protected GraphChangeLog changeLog;
+    protected long changeLogPosition;
 
     public GraphObserverImpl(GraphStore store, GraphVersion graphVersion, Graph graph, boolean withDiff) {
         this.graphStore = store;
@@ -52,6 +60,10 @@ public class GraphObserverImpl implements GraphObserver {
         if (withDiff) {
             readLock();
             initCache();
+            if (isChangeLogCompatible(graph)) {
+                changeLog = graphVersion.acquireChangeLog();
+                changeLogPosition = changeLog.getPosition();
+            }
             readUnlock();
         }
         this.nodeVersion = graphVersion.nodeVersion;
@@ -113,9 +125,153 @@ public class GraphObserverImpl implements GraphObserver {
         }
     }
 
+    /**
+     * Returns true if the diff of <code>graph</code> can be computed from the
+     * change log. It's not the case for undirected decorators, which don't
+     * iterate over both edges of a mutual pair.
+     *
+     * @param graph graph
+     * @return true if the change log can be used, false otherwise
+     */
+    private static boolean isChangeLogCompatible(Graph graph) {
+        if (graph instanceof GraphStore) {
+            return true;
+        }
+        return graph instanceof GraphViewDecorator && !((GraphViewDecorator) graph).undirected;
+    }
+
     protected void refreshDiff() {
         graphDiff = new GraphDiffImpl();
 
+        if (changeLog != null && changeLog.canReplay(changeLogPosition)) {
+            replayChanges();
+        } else {
+            rescan();
+        }
+        if (changeLog != null) {
+            changeLogPosition = changeLog.getPosition();
+        }
+    }
+
+    /**
+     * Computes the diff from the store ids changed since the last refresh. The
+     * cache holds the elements seen at these ids then, and the graph holds the
+     * current ones. Elements re-added at another id are found in both and
+     * aren't part of the diff.
+     */
+    private void replayChanges() {
+        IntSet nodeIds = new IntLinkedOpenHashSet();
+        IntSet edgeIds = new IntLinkedOpenHashSet();
+        for (long pos = changeLogPosition; pos < changeLog.getPosition(); pos++) {
+            if (changeLog.isNode(pos)) {
+                nodeIds.add(changeLog.getStoreId(pos));
+            } else {
+                edgeIds.add(changeLog.getStoreId(pos));
+            }
+        }
+
+        if (!nodeIds.isEmpty()) {
+            ensureNodeCacheSize(graphStore.nodeStore.maxStoreId());
+            Set<NodeImpl> moved = null;
+            for (IntIterator itr = nodeIds.iterator(); itr.hasNext();) {
+                int storeId = itr.nextInt();
+                NodeImpl cached = storeId < nodeCache.length ? nodeCache[storeId] : null;
+                if (cached != null && cached != getNode(storeId)) {
+                    nodeCache[storeId] = null;
+                    if (cached.storeId != NodeStore.NULL_ID && graph.contains(cached)) {
+                        if (moved == null) {
+                            moved = new ReferenceOpenHashSet<NodeImpl>();
+                        }
+                        moved.add(cached);
+                    } else {
+                        graphDiff.removedNodes.add(cached);
+                    }
+                }
+            }
+            for (IntIterator itr = nodeIds.iterator(); itr.hasNext();) {
+                int storeId = itr.nextInt();
+                NodeImpl current = getNode(storeId);
+                if (current != null && nodeCache[storeId] != current) {
+                    nodeCache[storeId] = current;
+                    if (moved == null || !moved.contains(current)) {
+                        graphDiff.addedNodes.add(current);
+                    }
+                }
+            }
+        }
+
+        if (!edgeIds.isEmpty()) {
+            ensureEdgeCacheSize(graphStore.edgeStore.maxStoreId());
+            Set<EdgeImpl> moved = null;
+            for (IntIterator itr = edgeIds.iterator(); itr.hasNext();) {
+                int storeId = itr.nextInt();
+                EdgeImpl cached = storeId < edgeCache.length ? edgeCache[storeId] : null;
+                if (cached != null && cached != getEdge(storeId)) {
+                    edgeCache[storeId] = null;
+                    if (cached.storeId != EdgeStore.NULL_ID && graph.contains(cached)) {
+                        if (moved == null) {
+                            moved = new ReferenceOpenHashSet<EdgeImpl>();
+                        }
+                        moved.add(cached);
+                    } else {
+                        graphDiff.removedEdges.add(cached);
+                    }
+                }
+            }
+            for (IntIterator itr = edgeIds.iterator(); itr.hasNext();) {
+                int storeId = itr.nextInt();
+                EdgeImpl current = getEdge(storeId);
+                if (current != null && edgeCache[storeId] != current) {
+                    edgeCache[storeId] = current;
+                    if (moved == null || !moved.contains(current)) {
+                        graphDiff.addedEdges.add(current);
+                    }
+                }
+            }
+        }
+    }
+
+    private NodeImpl getNode(int storeId) {
+        NodeStore nodeStore = graphStore.nodeStore;
+        if (nodeStore.isValidIndex(storeId)) {
+            NodeImpl node = nodeStore.get(storeId);
+            if (node != null && graph.contains(node)) {
+                return node;
+            }
+        }
+        return null;
+    }
+
+    private EdgeImpl getEdge(int storeId) {
+        EdgeStore edgeStore = graphStore.edgeStore;
+        if (edgeStore.isValidIndex(storeId)) {
+            EdgeImpl edge = edgeStore.get(storeId);
+            if (edge != null && graph.contains(edge)) {
+                return edge;
+            }
+        }
+        return null;
+    }
+
+    private void ensureNodeCacheSize(int size) {
+        if (size > nodeCache.length) {
+            int newSize = Math.max(size, (int) (size * GraphStoreConfiguration.COLUMNDIFF_GROWING_FACTOR));
+            NodeImpl[] newCache = new NodeImpl[Math.max(newSize, graphStore.nodeStore.maxStoreId())];
+            System.arraycopy(nodeCache, 0, newCache, 0, nodeCache.length);
+            nodeCache = newCache;
+        }
+    }
+
+    private void ensureEdgeCacheSize(int size) {
+        if (size > edgeCache.length) {
+            int newSize = Math.max(size, (int) (size * GraphStoreConfiguration.COLUMNDIFF_GROWING_FACTOR));
+            EdgeImpl[] newCache = new EdgeImpl[Math.max(newSize, graphStore.edgeStore.maxStoreId())];
+            System.arraycopy(edgeCache, 0, newCache, 0, edgeCache.length);
+            edgeCache = newCache;
+        }
+    }
+
+    private void rescan() {
         if (nodeVersion < graphVersion.nodeVersion) {
             int maxStoreId = graphStore.nodeStore.maxStoreId();
 
@@ -246,6 +402,10 @@ public class GraphObserverImpl implements GraphObserver {
     public void destroyObserver() {
         checkNotDestroyed();
 
+        if (changeLog != null) {
+            graphVersion.releaseChangeLog();
+            changeLog = null;
+        }
         nodeCache = null;
         edgeCache = null;
         destroyed = true;
@@ -0,0 +1,548 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.gephi.graph.api.AttributeUtils;
+import org.gephi.graph.api.Column;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.Estimator;
+import org.gephi.graph.api.GraphSnapshot;
+import org.gephi.graph.api.Interval;
+import org.gephi.graph.api.Node;
+import org.gephi.graph.api.Table;
+import org.gephi.graph.api.types.IntervalSet;
+import org.gephi.graph.api.types.TimeMap;
+import org.gephi.graph.api.types.TimestampSet;
+
+public class GraphSnapshotImpl implements GraphSnapshot {
+
+    protected final GraphStore store;
+    protected final Interval interval;
+    protected final Estimator estimator;
+    // Elements
+    protected final NodeImpl[] nodes;
+    protected final EdgeImpl[] edges;
+    protected final int[] nodeIndexes;
+    protected final int[] edgeIndexes;
+    // Topology
+    protected final int[] sources;
+    protected final int[] targets;
+    protected final int[] outOffsets;
+    protected final int[] outEdges;
+    protected final int[] inOffsets;
+    protected final int[] inEdges;
+    // Columns, by column index
+    protected final Column[] nodeColumns;
+    protected final Column[] edgeColumns;
+    protected final Object[] nodeValues;
+    protected final Object[] edgeValues;
+    // Set values of primitive columns, null if all are set
+    protected final boolean[][] nodePresence;
+    protected final boolean[][] edgePresence;
+
+    public GraphSnapshotImpl(GraphStore store, Interval interval, Estimator estimator) {
+        this.store = store;
+        this.interval = interval;
+        this.estimator = estimator;
+
+        nodeIndexes = new int[store.nodeStore.blocksCount * GraphStoreConfiguration.NODESTORE_BLOCK_SIZE];
+        nodes = collectNodes(store.nodeStore);
+        edgeIndexes = new int[store.edgeStore.blocksCount * GraphStoreConfiguration.EDGESTORE_BLOCK_SIZE];
+        edges = collectEdges(store.edgeStore);
+
+        sources = new int[edges.length];
+        targets = new int[edges.length];
+        for (int i = 0; i < edges.length; i++) {
+            sources[i] = nodeIndexes[edges[i].source.storeId];
+            targets[i] = nodeIndexes[edges[i].target.storeId];
+        }
+        outOffsets = new int[nodes.length + 1];
+        outEdges = new int[edges.length];
+        fillAdjacency(sources, outOffsets, outEdges);
+        inOffsets = new int[nodes.length + 1];
+        inEdges = new int[edges.length];
+        fillAdjacency(targets, inOffsets, inEdges);
+
+        nodeColumns = getColumns(store.nodeTable);
+        nodeValues = new Object[nodeColumns.length];
+        nodePresence = new boolean[nodeColumns.length][];
+        edgeColumns = getColumns(store.edgeTable);
+        edgeValues = new Object[edgeColumns.length];
+        edgePresence = new boolean[edgeColumns.length][];
+        resolveValues(nodes, nodeColumns, nodeValues, nodePresence, GraphStoreConfiguration.NODESTORE_BLOCK_SIZE);
+        resolveValues(edges, edgeColumns, edgeValues, edgePresence, GraphStoreConfiguration.EDGESTORE_BLOCK_SIZE);
+    }
+
+    @Override
+    public Interval getInterval() {
+        return interval;
+    }
+
+    @Override
+    public Estimator getEstimator() {
+        return estimator;
+    }
+
+    @Override
+    public Table getNodeTable() {
+        return store.nodeTable;
+    }
+
+    @Override
+    public Table getEdgeTable() {
+        return store.edgeTable;
+    }
+
+    @Override
+    public int getNodeCount() {
+        return nodes.length;
+    }
+
+    @Override
+    public int getEdgeCount() {
+        return edges.length;
+    }
+
+    @Override
+    public Node getNode(int index) {
+        return nodes[index];
+    }
+
+    @Override
+    public Edge getEdge(int index) {
+        return edges[index];
+    }
+
+    @Override
+    public int getIndex(Node node) {
+        int storeId = ((NodeImpl) node).storeId;
+        if (storeId >= 0 && storeId < nodeIndexes.length) {
+            int index = nodeIndexes[storeId];
+            if (index >= 0 && nodes[index] == node) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public int getIndex(Edge edge) {
+        int storeId = ((EdgeImpl) edge).storeId;
+        if (storeId >= 0 && storeId < edgeIndexes.length) {
+            int index = edgeIndexes[storeId];
+            if (index >= 0 && edges[index] == edge) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public int getSource(int edgeIndex) {
+        return sources[edgeIndex];
+    }
+
+    @Override
+    public int getTarget(int edgeIndex) {
+        return targets[edgeIndex];
+    }
+
+    @Override
+    public double getWeight(int edgeIndex) {
+        if (GraphStoreConfiguration.EDGE_WEIGHT_INDEX < edgeValues.length) {
+            Object weights = edgeValues[GraphStoreConfiguration.EDGE_WEIGHT_INDEX];
+            if (weights instanceof double[]) {
+                return ((double[]) weights)[edgeIndex];
+            }
+        }
+        checkIndex(edgeIndex, edges.length);
+        return GraphStoreConfiguration.DEFAULT_EDGE_WEIGHT;
+    }
+
+    @Override
+    public int getOutDegree(int nodeIndex) {
+        return outOffsets[nodeIndex + 1] - outOffsets[nodeIndex];
+    }
+
+    @Override
+    public int getInDegree(int nodeIndex) {
+        return inOffsets[nodeIndex + 1] - inOffsets[nodeIndex];
+    }
+
+    @Override
+    public int getOutEdge(int nodeIndex, int i) {
+        checkIndex(i, getOutDegree(nodeIndex));
+        return outEdges[outOffsets[nodeIndex] + i];
+    }
+
+    @Override
+    public int getInEdge(int nodeIndex, int i) {
+        checkIndex(i, getInDegree(nodeIndex));
+        return inEdges[inOffsets[nodeIndex] + i];
+    }
+
+    @Override
+    public Object getValues(Column column) {
+        int index = column.getIndex();
+        if (index >= 0 && index < nodeColumns.length && nodeColumns[index] == column) {
+            return nodeValues[index];
+        } else if (index >= 0 && index < edgeColumns.length && edgeColumns[index] == column) {
+            return edgeValues[index];
+        }
+        throw new IllegalArgumentException("The column '" + column.getId() + "' isn't part of this snapshot");
+    }
+
+    @Override
+    public Object getAttribute(Column column, int index) {
+        Object values = getValues(column);
+        boolean[] presence = getPresence(column);
+        if (presence != null && !presence[index]) {
+            return null;
+        }
+        return Array.get(values, index);
+    }
+
+    /**
+     * Returns which values of a primitive column are set, or null if they all
+     * are. Primitive arrays can't hold nulls, so unset values are zeros in
+     * {@link #getValues(org.gephi.graph.api.Column)}.
+     *
+     * @param column node or edge column
+     * @return presence array or null
+     */
+    protected boolean[] getPresence(Column column) {
+        int index = column.getIndex();
+        if (index >= 0 && index < nodeColumns.length && nodeColumns[index] == column) {
+            return nodePresence[index];
+        }
+        return edgePresence[index];
+    }
+
+    private NodeImpl[] collectNodes(NodeStore nodeStore) {
+        Arrays.fill(nodeIndexes, -1);
+        final List<NodeImpl[]> blocks = new ArrayList<NodeImpl[]>(nodeStore.blocksCount);
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(nodeStore.blocksCount);
+        for (int i = 0; i < nodeStore.blocksCount; i++) {
+            final NodeStore.NodeBlock block = nodeStore.blocks[i];
+            final int blockIndex = i;
+            blocks.add(null);
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    NodeImpl[] res = new NodeImpl[block.nodeLength];
+                    int length = 0;
+                    for (int j = 0; j < block.nodeLength; j++) {
+                        NodeImpl node = block.backingArray[j];
+                        if (node != null && isInInterval(node)) {
+                            res[length++] = node;
+                        }
+                    }
+                    blocks.set(blockIndex, Arrays.copyOf(res, length));
+                    return null;
+                }
+            });
+        }
+        execute(tasks);
+
+        NodeImpl[] res = concat(blocks, new NodeImpl[0]);
+        for (int i = 0; i < res.length; i++) {
+            nodeIndexes[res[i].storeId] = i;
+        }
+        return res;
+    }
+
+    private EdgeImpl[] collectEdges(EdgeStore edgeStore) {
+        Arrays.fill(edgeIndexes, -1);
+        final List<EdgeImpl[]> blocks = new ArrayList<EdgeImpl[]>(edgeStore.blocksCount);
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(edgeStore.blocksCount);
+        for (int i = 0; i < edgeStore.blocksCount; i++) {
+            final EdgeStore.EdgeBlock block = edgeStore.blocks[i];
+            final int blockIndex = i;
+            blocks.add(null);
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    EdgeImpl[] res = new EdgeImpl[block.nodeLength];
+                    int length = 0;
+                    for (int j = 0; j < block.nodeLength; j++) {
+                        EdgeImpl edge = block.backingArray[j];
+                        if (edge != null && nodeIndexes[edge.source.storeId] >= 0 && nodeIndexes[edge.target.storeId] >= 0 && isInInterval(edge)) {
+                            res[length++] = edge;
+                        }
+                    }
+                    blocks.set(blockIndex, Arrays.copyOf(res, length));
+                    return null;
+                }
+            });
+        }
+        execute(tasks);
+
+        EdgeImpl[] res = concat(blocks, new EdgeImpl[0]);
+        for (int i = 0; i < res.length; i++) {
+            edgeIndexes[res[i].storeId] = i;
+        }
+        return res;
+    }
+
+    private boolean isInInterval(ElementImpl element) {
+        Object[] attributes = element.attributes;
+        if (GraphStoreConfiguration.ENABLE_ELEMENT_TIME_SET && GraphStoreConfiguration.ELEMENT_TIMESET_INDEX < attributes.length) {
+            Object timeSet = attributes[GraphStoreConfiguration.ELEMENT_TIMESET_INDEX];
+            if (timeSet instanceof TimestampSet) {
+                TimestampSet timestampSet = (TimestampSet) timeSet;
+                return timestampSet.isEmpty() || timestampSet.overlaps(interval);
+            } else if (timeSet instanceof IntervalSet) {
+                IntervalSet intervalSet = (IntervalSet) timeSet;
+                return intervalSet.isEmpty() || intervalSet.overlaps(interval);
+            }
+        }
+        return true;
+    }
+
+    private void resolveValues(final ElementImpl[] elements, final Column[] columns, final Object[] values, final boolean[][] presence, int chunkSize) {
+        final Estimator[] estimators = new Estimator[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            if (columns[i] != null) {
+                estimators[i] = getEstimator(columns[i]);
+                values[i] = newValuesArray(getValueType(columns[i], estimators[i]), elements.length);
+                if (!(values[i] instanceof Object[])) {
+                    presence[i] = new boolean[elements.length];
+                }
+            }
+        }
+
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+        for (int start = 0; start < elements.length; start += chunkSize) {
+            final int from = start;
+            final int to = Math.min(elements.length, start + chunkSize);
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    for (int i = 0; i < columns.length; i++) {
+                        Column column = columns[i];
+                        if (column != null) {
+                            Object array = values[i];
+                            boolean[] present = presence[i];
+                            for (int j = from; j < to; j++) {
+                                Object value = resolveValue(elements[j], column, estimators[i]);
+                                setValue(array, j, value);
+                                if (present != null) {
+                                    present[j] = value != null;
+                                }
+                            }
+                        }
+                    }
+                    return null;
+                }
+            });
+        }
+        execute(tasks);
+
+        for (int i = 0; i < presence.length; i++) {
+            if (presence[i] != null && isAllSet(presence[i])) {
+                presence[i] = null;
+            }
+        }
+    }
+
+    private static boolean isAllSet(boolean[] presence) {
+        for (boolean present : presence) {
+            if (!present) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Object resolveValue(ElementImpl element, Column column, Estimator columnEstimator) {
+        int index = column.getIndex();
+        Object[] attributes = element.attributes;
+        Object value = index < attributes.length ? attributes[index] : null;
+        if (value instanceof TimeMap) {
+            TimeMap timeMap = (TimeMap) value;
+            value = timeMap.isEmpty() ? null : timeMap.get(interval, columnEstimator);
+        }
+        if (value == null) {
+            if (index == GraphStoreConfiguration.EDGE_WEIGHT_INDEX && element instanceof EdgeImpl) {
+                return GraphStoreConfiguration.DEFAULT_EDGE_WEIGHT;
+            }
+            return column.getDefaultValue();
+        }
+        return value;
+    }
+
+    /**
+     * Returns the estimator used to resolve the values of a dynamic column, or
+     * null if the column isn't dynamic.
+     * <p>
+     * Supported estimators only depend on the map type, so they are checked
+     * once per column on an empty map.
+     */
+    private Estimator getEstimator(Column column) {
+        Class type = column.getTypeClass();
+        if (!TimeMap.class.isAssignableFrom(type)) {
+            return null;
+        }
+        TimeMap timeMap;
+        try {
+            timeMap = (TimeMap) type.newInstance();
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+        if (estimator != null && timeMap.isSupported(estimator)) {
+            return estimator;
+        }
+        Estimator columnEstimator = column.getEstimator();
+        if (columnEstimator != null && timeMap.isSupported(columnEstimator)) {
+            return columnEstimator;
+        }
+        return GraphStoreConfiguration.DEFAULT_ESTIMATOR;
+    }
+
+    private Class getValueType(Column column, Estimator columnEstimator) {
+        Class type = column.getTypeClass();
+        if (TimeMap.class.isAssignableFrom(type)) {
+            type = AttributeUtils.getStaticType(type);
+            if (Estimator.AVERAGE.equals(columnEstimator) && Number.class.isAssignableFrom(type)) {
+                return double.class;
+            }
+        }
+        try {
+            return AttributeUtils.getPrimitiveType(type);
+        } catch (IllegalArgumentException e) {
+            // Not a wrapped primitive
+            return Object.class;
+        }
+    }
+
+    private static Column[] getColumns(TableImpl table) {
+        ColumnImpl[] columns = table.store.toArray();
+        int length = 0;
+        for (ColumnImpl column : columns) {
+            length = Math.max(length, column.getIndex() + 1);
+        }
+        Column[] res = new Column[length];
+        for (ColumnImpl column : columns) {
+            res[column.getIndex()] = column;
+        }
+        return res;
+    }
+
+    private static Object newValuesArray(Class type, int length) {
+        if (type.isPrimitive()) {
+            return Array.newInstance(type, length);
+        }
+        return new Object[length];
+    }
+
+    private static void setValue(Object array, int index, Object value) {
+        if (array instanceof Object[]) {
+            ((Object[]) array)[index] = value;
+        } else if (value == null) {
+            // Primitive arrays keep their zero value
+        } else if (array instanceof double[]) {
+            ((double[]) array)[index] = ((Number) value).doubleValue();
+        } else if (array instanceof float[]) {
+            ((float[]) array)[index] = ((Number) value).floatValue();
+        } else if (array instanceof long[]) {
+            ((long[]) array)[index] = ((Number) value).longValue();
+        } else if (array instanceof int[]) {
+            ((int[]) array)[index] = ((Number) value).intValue();
+        } else if (array instanceof short[]) {
+            ((short[]) array)[index] = ((Number) value).shortValue();
+        } else if (array instanceof byte[]) {
+            ((byte[]) array)[index] = ((Number) value).byteValue();
+        } else if (array instanceof boolean[]) {
+            ((boolean[]) array)[index] = (Boolean) value;
+        } else if (array instanceof char[]) {
+            ((char[]) array)[index] = (Character) value;
+        }
+    }
+
+    private static void fillAdjacency(int[] nodes, int[] offsets, int[] adjacency) {
+        for (int i = 0; i < nodes.length; i++) {
+            offsets[nodes[i] + 1]++;
+        }
+        for (int i = 1; i < offsets.length; i++) {
+            offsets[i] += offsets[i - 1];
+        }
+        int[] positions = Arrays.copyOf(offsets, offsets.length - 1);
+        for (int i = 0; i < nodes.length; i++) {
+            adjacency[positions[nodes[i]]++] = i;
+        }
+    }
+
+    private static <T> T[] concat(List<T[]> blocks, T[] empty) {
+        int length = 0;
+        for (T[] block : blocks) {
+            length += block.length;
+        }
+        T[] res = Arrays.copyOf(empty, length);
+        int offset = 0;
+        for (T[] block : blocks) {
+            System.arraycopy(block, 0, res, offset, block.length);
+            offset += block.length;
+        }
+        return res;
+    }
+
+    private static void checkIndex(int index, int length) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + length);
+        }
+    }
+
+    private static void execute(List<Callable<Void>> tasks) {
+        int threads = Math.min(tasks.size(), Runtime.getRuntime().availableProcessors());
+        if (threads <= 1) {
+            try {
+                for (Callable<Void> task : tasks) {
+                    task.call();
+                }
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+            return;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -20,6 +20,7 @@ import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 import org.gephi.graph.api.Configuration;
 import org.gephi.graph.api.Origin;
 import org.gephi.graph.api.TimeFormat;
@@ -51,6 +52,7 @@ public class GraphStore implements DirectedGraph, DirectedSubgraph {
     protected final TableImpl<Edge> edgeTable;
     protected final GraphViewStore viewStore;
     protected final TimeStore timeStore;
+    protected DegreeIndexImpl degreeIndex;
     protected final GraphAttributesImpl attributes;
     // Factory
     protected final GraphFactoryImpl factory;
@@ -59,6 +61,8 @@ public class GraphStore implements DirectedGraph, DirectedSubgraph {
     // Version
     protected final GraphVersion version;
     protected final List<GraphObserverImpl> observers;
+    protected final GraphChangeDispatcher changeDispatcher;
+    protected final List<PropertiesObserverImpl> propertiesObservers;
     // Undirected
     protected final UndirectedDecorator undirectedDecorator;
     // Main Graph view
@@ -81,10 +85,15 @@ public class GraphStore implements DirectedGraph, DirectedSubgraph {
         viewStore = new GraphViewStore(this);
         version = GraphStoreConfiguration.ENABLE_OBSERVERS ? new GraphVersion(this) : null;
         observers = GraphStoreConfiguration.ENABLE_OBSERVERS ? new ArrayList<GraphObserverImpl>() : null;
+        changeDispatcher = GraphStoreConfiguration.ENABLE_OBSERVERS ? new GraphChangeDispatcher(this) : null;
+        propertiesObservers = GraphStoreConfiguration.ENABLE_OBSERVERS
+                ? new CopyOnWriteArrayList<PropertiesObserverImpl>() : null;
+        degreeIndex = GraphStoreConfiguration.ENABLE_INDEX_DEGREE && configuration.getDegreeIndex()
+                ? new DegreeIndexImpl(this, GraphStoreConfiguration.ENABLE_AUTO_LOCKING ? lock : null) : null;
         edgeStore = new EdgeStore(edgeTypeStore, GraphStoreConfiguration.ENABLE_AUTO_LOCKING ? lock : null, viewStore,
-                GraphStoreConfiguration.ENABLE_OBSERVERS ? version : null);
+                GraphStoreConfiguration.ENABLE_OBSERVERS ? version : null, degreeIndex);
         nodeStore = new NodeStore(edgeStore, GraphStoreConfiguration.ENABLE_AUTO_LOCKING ? lock : null, viewStore,
-                GraphStoreConfiguration.ENABLE_OBSERVERS ? version : null);
+                GraphStoreConfiguration.ENABLE_OBSERVERS ? version : null, degreeIndex);
         nodeTable = new TableImpl<Node>(this, Node.class, GraphStoreConfiguration.ENABLE_INDEX_NODES);
         edgeTable = new TableImpl<Edge>(this, Edge.class, GraphStoreConfiguration.ENABLE_INDEX_EDGES);
         timeStore = new TimeStore(this, GraphStoreConfiguration.ENABLE_AUTO_LOCKING ? lock : null,
@@ -102,10 +111,11 @@ public class GraphStore implements DirectedGraph, DirectedSubgraph {
         edgeTable.store.addColumn(new ColumnImpl(edgeTable, "id", configuration.getEdgeIdType(), "Id", null,
                 Origin.PROPERTY, false, true));
         if (GraphStoreConfiguration.ENABLE_ELEMENT_LABEL) {
+            boolean labelIndex = configuration.getLabelIndex();
             nodeTable.store.addColumn(new ColumnImpl(nodeTable, GraphStoreConfiguration.ELEMENT_LABEL_COLUMN_ID,
-                    String.class, "Label", null, Origin.PROPERTY, false, false));
+                    String.class, "Label", null, Origin.PROPERTY, labelIndex, false));
             edgeTable.store.addColumn(new ColumnImpl(edgeTable, GraphStoreConfiguration.ELEMENT_LABEL_COLUMN_ID,
-                    String.class, "Label", null, Origin.PROPERTY, false, false));
+                    String.class, "Label", null, Origin.PROPERTY, labelIndex, false));
         }
         if (GraphStoreConfiguration.ENABLE_ELEMENT_TIME_SET) {
             if (configuration.getTimeRepresentation().equals(TimeRepresentation.TIMESTAMP)) {
@@ -654,6 +664,9 @@ public class GraphStore implements DirectedGraph, DirectedSubgraph {
     @Override
     public void writeUnlock() {
         lock.writeUnlock();
+        if (changeDispatcher != null && !lock.isWriteLockedByCurrentThread()) {
+            changeDispatcher.flush();
+        }
     }
 
     protected void autoReadLock() {
@@ -770,6 +783,44 @@ public class GraphStore implements DirectedGraph, DirectedSubgraph {
         }
     }
 
+    protected void resetDegreeIndex() {
+        // Only called on an empty store, see GraphModelImpl.setConfiguration()
+        degreeIndex = GraphStoreConfiguration.ENABLE_INDEX_DEGREE && configuration.getDegreeIndex()
+                ? new DegreeIndexImpl(this, GraphStoreConfiguration.ENABLE_AUTO_LOCKING ? lock : null) : null;
+        nodeStore.degreeIndex = degreeIndex;
+        edgeStore.degreeIndex = degreeIndex;
+    }
+
+    protected PropertiesObserverImpl createPropertiesObserver() {
+        if (propertiesObservers != null) {
+            PropertiesObserverImpl observer = new PropertiesObserverImpl(this);
+            propertiesObservers.add(observer);
+
+            return observer;
+        }
+        return null;
+    }
+
+    protected void destroyPropertiesObserver(PropertiesObserverImpl observer) {
+        if (propertiesObservers != null) {
+            propertiesObservers.remove(observer);
+            observer.destroyObserver();
+        }
+    }
+
+    protected void propertiesChanged(ElementImpl element) {
+        if (propertiesObservers != null && !propertiesObservers.isEmpty()) {
+            int storeId = element.getStoreId();
+            if (storeId < 0) {
+                return;
+            }
+            boolean node = element instanceof NodeImpl;
+            for (PropertiesObserverImpl observer : propertiesObservers) {
+                observer.setElement(storeId, node);
+            }
+        }
+    }
+
     protected EdgeIterableWrapper getEdgeIterableWrapper(Iterator<Edge> edgeIterator) {
         return new EdgeIterableWrapper(edgeIterator);
     }
@@ -28,6 +28,7 @@ public final class GraphStoreConfiguration {
     public static final boolean ENABLE_INDEX_NODES = true;
     public static final boolean ENABLE_INDEX_EDGES = true;
     public static final boolean ENABLE_INDEX_TIMESTAMP = true;
+    public static final boolean ENABLE_INDEX_DEGREE = true;
     public static final boolean ENABLE_OBSERVERS = true;
     public static final boolean ENABLE_NODE_PROPERTIES = true;
     public static final boolean ENABLE_EDGE_PROPERTIES = true;
@@ -48,6 +49,9 @@ public final class GraphStoreConfiguration {
     public static final double VIEW_GROWING_FACTOR = 1.1;
     // Diff
     public static final double COLUMNDIFF_GROWING_FACTOR = 1.1;
+    public static final int COLUMNDIFF_DEFAULT_SIZE = 16;
+    public static final int COLUMNDIFF_BITMAP_MIN_SIZE = 64;
+    public static final int GRAPHDIFF_CHANGE_LOG_SIZE = 16384;
     // Properties
     public static final boolean ENABLE_ELEMENT_LABEL = true;
     public static final boolean ENABLE_ELEMENT_TIME_SET = true;
@@ -75,6 +79,8 @@ public final class GraphStoreConfiguration {
     public static final TimeRepresentation DEFAULT_TIME_REPRESENTATION = TimeRepresentation.TIMESTAMP;
     // Miscellaneous
     public static final double TIMESTAMP_STORE_GROWING_FACTOR = 1.1;
+    public static final int TIMESTAMP_INDEX_ENTRY_DEFAULT_SIZE = 4;
+    public static final int TIMESTAMP_INDEX_ENTRY_BITMAP_MIN_SIZE = 64;
     public static final double INTERVAL_STORE_GROWING_FACTOR = 1.1;
     public static final int NODE_DEFAULT_COLUMNS = 1 + (ENABLE_ELEMENT_LABEL ? 1 : 0) + (ENABLE_ELEMENT_TIME_SET ? 1
             : 0);
@@ -22,11 +22,42 @@ public class GraphVersion {
     protected final Graph graph;
     protected int nodeVersion = Integer.MIN_VALUE + 1;
     protected int edgeVersion = Integer.MIN_VALUE + 1;
+    // Change log, kept while at least one observer computing diffs uses it
+    protected GraphChangeLog changeLog;
+    protected int changeLogUsers;
 
     public GraphVersion(Graph graph) {
         this.graph = graph;
     }
 
+    public synchronized GraphChangeLog acquireChangeLog() {
+        if (changeLog == null) {
+            changeLog = new GraphChangeLog(GraphStoreConfiguration.GRAPHDIFF_CHANGE_LOG_SIZE);
+        }
+        changeLogUsers++;
+        return changeLog;
+    }
+
+    public synchronized void releaseChangeLog() {
+        if (--changeLogUsers == 0) {
+            changeLog = null;
+        }
+    }
+
+    public void logChange(ElementImpl element) {
+        GraphChangeLog log = changeLog;
+        if (log != null) {
+            log.add(element);
+        }
+    }
+
+    public void invalidateChangeLog() {
+        GraphChangeLog log = changeLog;
+        if (log != null) {
+            log.invalidate();
+        }
+    }
+
     public int incrementAndGetNodeVersion() {
         nodeVersion++;
         if (nodeVersion == Integer.MAX_VALUE) {
@@ -629,7 +629,7 @@ public class GraphViewDecorator implements DirectedSubgraph, UndirectedSubgraph
 
     @Override
     public void writeUnlock() {
-        graphStore.lock.writeUnlock();
+        graphStore.writeUnlock();
     }
 
     @Override
@@ -121,6 +121,7 @@ public class GraphViewImpl implements GraphView {
             nodeBitVector.set(id);
             nodeCount++;
             incrementNodeVersion();
+            logChange(nodeImpl);
 
             IndexStore<Node> indexStore = graphStore.nodeTable.store.indexStore;
             if (indexStore != null) {
@@ -221,6 +222,7 @@ public class GraphViewImpl implements GraphView {
             nodeBitVector.clear(id);
             nodeCount--;
             incrementNodeVersion();
+            logChange(nodeImpl);
 
             IndexStore<Node> indexStore = graphStore.nodeTable.store.indexStore;
             if (indexStore != null) {
@@ -310,6 +312,7 @@ public class GraphViewImpl implements GraphView {
         edgeBitVector.clear();
         nodeCount = 0;
         edgeCount = 0;
+        invalidateChangeLog();
         typeCounts = new int[GraphStoreConfiguration.VIEW_DEFAULT_TYPE_COUNT];
         mutualEdgeTypeCounts = new int[GraphStoreConfiguration.VIEW_DEFAULT_TYPE_COUNT];
         mutualEdgesCount = 0;
@@ -332,6 +335,10 @@ public class GraphViewImpl implements GraphView {
         if (edgeTimeIndexStore != null) {
             edgeTimeIndexStore.clear(this);
         }
+        DegreeIndexImpl degreeIndex = graphStore.degreeIndex;
+        if (degreeIndex != null) {
+            degreeIndex.indexView(this);
+        }
     }
 
     public void clearEdges() {
@@ -340,6 +347,7 @@ public class GraphViewImpl implements GraphView {
         }
         edgeBitVector.clear();
         edgeCount = 0;
+        invalidateChangeLog();
         typeCounts = new int[GraphStoreConfiguration.VIEW_DEFAULT_TYPE_COUNT];
         mutualEdgeTypeCounts = new int[GraphStoreConfiguration.VIEW_DEFAULT_TYPE_COUNT];
         mutualEdgesCount = 0;
@@ -352,9 +360,31 @@ public class GraphViewImpl implements GraphView {
         if (edgeTimeIndexStore != null) {
             edgeTimeIndexStore.clear(this);
         }
+        DegreeIndexImpl degreeIndex = graphStore.degreeIndex;
+        if (degreeIndex != null) {
+            degreeIndex.indexView(this);
+        }
     }
 
     public void fill() {
+        // Only the elements not yet in the view are added to attribute indexes
+        IndexStore<Node> nodeIndexStore = graphStore.nodeTable.store.indexStore;
+        if (nodeView && nodeIndexStore != null) {
+            for (Node node : graphStore.nodeStore) {
+                if (!nodeBitVector.get(node.getStoreId())) {
+                    nodeIndexStore.indexInView(node, this);
+                }
+            }
+        }
+        IndexStore<Edge> edgeIndexStore = graphStore.edgeTable.store.indexStore;
+        if (edgeIndexStore != null) {
+            for (Edge edge : graphStore.edgeStore) {
+                if (!edgeBitVector.get(edge.getStoreId())) {
+                    edgeIndexStore.indexInView(edge, this);
+                }
+            }
+        }
+
         if (nodeView) {
             if (nodeCount > 0) {
                 nodeBitVector = new BitVector(graphStore.nodeStore.maxStoreId());
@@ -366,6 +396,7 @@ public class GraphViewImpl implements GraphView {
             edgeBitVector = new BitVector(graphStore.edgeStore.maxStoreId());
         }
         edgeBitVector.not();
+        invalidateChangeLog();
 
         this.edgeCount = graphStore.edgeStore.size();
         int typeLength = graphStore.edgeStore.longDictionary.length;
@@ -385,24 +416,21 @@ public class GraphViewImpl implements GraphView {
             incrementNodeVersion();
         }
 
+        // Time indexes are copied from the main index
         if (nodeView) {
-            IndexStore<Node> nodeIndexStore = graphStore.nodeTable.store.indexStore;
-            if (nodeIndexStore != null) {
-                nodeIndexStore.indexView(directedDecorator);
-            }
             TimeIndexStore nodeTimeIndexStore = graphStore.timeStore.nodeIndexStore;
             if (nodeTimeIndexStore != null) {
                 nodeTimeIndexStore.indexView(directedDecorator);
             }
         }
-        IndexStore<Edge> edgeIndexStore = graphStore.edgeTable.store.indexStore;
-        if (edgeIndexStore != null) {
-            edgeIndexStore.indexView(directedDecorator);
-        }
         TimeIndexStore edgeTimeIndexStore = graphStore.timeStore.edgeIndexStore;
         if (edgeTimeIndexStore != null) {
             edgeTimeIndexStore.indexView(directedDecorator);
         }
+        DegreeIndexImpl degreeIndex = graphStore.degreeIndex;
+        if (degreeIndex != null) {
+            degreeIndex.indexView(this);
+        }
     }
 
     public boolean containsNode(final NodeImpl node) {
@@ -476,6 +504,7 @@ public class GraphViewImpl implements GraphView {
             this.nodeCount = graphStore.nodeStore.size() - this.nodeCount;
         }
         edgeBitVector.not();
+        invalidateChangeLog();
 
         this.edgeCount = graphStore.edgeStore.size() - this.edgeCount;
         for (int i = 0; i < typeCounts.length; i++) {
@@ -496,11 +525,14 @@ public class GraphViewImpl implements GraphView {
                 boolean t = edgeBitVector.get(e.getStoreId());
                 if (t && (!nodeBitVector.get(e.getSource().getStoreId()) || !nodeBitVector.get(e.getTarget()
                         .getStoreId()))) {
-                    removeEdge((EdgeImpl) e);
+                    // Indexes are rebuilt below
+                    clearEdge((EdgeImpl) e);
                 }
             }
         }
 
+        // Every element changes membership so attribute indexes are rebuilt
+        // and time indexes copied from the main index
         if (nodeView) {
             IndexStore<Node> nodeIndexStore = graphStore.nodeTable.store.indexStore;
             if (nodeIndexStore != null) {
@@ -509,7 +541,6 @@ public class GraphViewImpl implements GraphView {
             }
             TimeIndexStore nodeTimeIndexStore = graphStore.timeStore.nodeIndexStore;
             if (nodeTimeIndexStore != null) {
-                nodeTimeIndexStore.clear(directedDecorator.view);
                 nodeTimeIndexStore.indexView(directedDecorator);
             }
         }
@@ -520,9 +551,12 @@ public class GraphViewImpl implements GraphView {
         }
         TimeIndexStore edgeTimeIndexStore = graphStore.timeStore.edgeIndexStore;
         if (edgeTimeIndexStore != null) {
-            edgeTimeIndexStore.clear(directedDecorator.view);
             edgeTimeIndexStore.indexView(directedDecorator);
         }
+        DegreeIndexImpl degreeIndex = graphStore.degreeIndex;
+        if (degreeIndex != null) {
+            degreeIndex.indexView(this);
+        }
     }
 
     public void addEdgeInNodeView(EdgeImpl edge) {
@@ -660,6 +694,7 @@ public class GraphViewImpl implements GraphView {
 
         edgeBitVector.set(edgeImpl.storeId);
         edgeCount++;
+        logChange(edgeImpl);
 
         int type = edgeImpl.type;
         ensureTypeCountArrayCapacity(type);
@@ -679,24 +714,41 @@ public class GraphViewImpl implements GraphView {
         if (timeIndexStore != null) {
             timeIndexStore.indexInView(edgeImpl, this);
         }
+        DegreeIndexImpl degreeIndex = graphStore.degreeIndex;
+        if (degreeIndex != null) {
+            degreeIndex.addEdgeInView(this, edgeImpl);
+        }
     }
 
     private void removeEdge(EdgeImpl edgeImpl) {
+        clearEdge(edgeImpl);
+
+        IndexStore<Edge> indexStore = graphStore.edgeTable.store.indexStore;
+        if (indexStore != null) {
+            indexStore.clearInView(edgeImpl, this);
+        }
+        TimeIndexStore timeIndexStore = graphStore.timeStore.edgeIndexStore;
+        if (timeIndexStore != null) {
+            timeIndexStore.clearInView(edgeImpl, this);
+        }
+        DegreeIndexImpl degreeIndex = graphStore.degreeIndex;
+        if (degreeIndex != null) {
+            degreeIndex.removeEdgeInView(this, edgeImpl);
+        }
+    }
+
+    private void clearEdge(EdgeImpl edgeImpl) {
         incrementEdgeVersion();
 
         edgeBitVector.clear(edgeImpl.storeId);
         edgeCount--;
+        logChange(edgeImpl);
         typeCounts[edgeImpl.type]--;
 
         if (edgeImpl.isMutual() && edgeImpl.source.storeId < edgeImpl.target.storeId) {
             mutualEdgeTypeCounts[edgeImpl.type]--;
             mutualEdgesCount--;
         }
-
-        IndexStore<Edge> indexStore = graphStore.edgeTable.store.indexStore;
-        if (indexStore != null) {
-            indexStore.clearInView(edgeImpl, this);
-        }
     }
 
     private BitVector growBitVector(BitVector bitVector, int size) {
@@ -794,6 +846,18 @@ public class GraphViewImpl implements GraphView {
         return 0;
     }
 
+    private void logChange(ElementImpl element) {
+        if (version != null) {
+            version.logChange(element);
+        }
+    }
+
+    private void invalidateChangeLog() {
+        if (version != null) {
+            version.invalidateChangeLog();
+        }
+    }
+
     private void checkNodeView() {
         if (!nodeView) {
             throw new RuntimeException("This method should only be used on a view with nodes enabled");
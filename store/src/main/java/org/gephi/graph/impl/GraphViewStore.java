@@ -120,6 +120,11 @@ public class GraphViewStore {
                 edgeIndexStore.deleteViewIndex(((GraphViewImpl) view).getDirectedGraph());
             }
 
+            DegreeIndexImpl degreeIndex = graphStore.degreeIndex;
+            if (degreeIndex != null) {
+                degreeIndex.deleteViewIndex(view);
+            }
+
             removeView((GraphViewImpl) view);
         } finally {
             graphStore.autoWriteUnlock();
@@ -15,6 +15,7 @@
  */
 package org.gephi.graph.impl;
 
+import it.unimi.dsi.fastutil.Hash;
 import it.unimi.dsi.fastutil.booleans.BooleanArrays;
 import it.unimi.dsi.fastutil.bytes.Byte2ObjectAVLTreeMap;
 import it.unimi.dsi.fastutil.bytes.ByteArrays;
@@ -28,6 +29,7 @@ import it.unimi.dsi.fastutil.ints.Int2ObjectAVLTreeMap;
 import it.unimi.dsi.fastutil.ints.IntArrays;
 import it.unimi.dsi.fastutil.longs.Long2ObjectAVLTreeMap;
 import it.unimi.dsi.fastutil.longs.LongArrays;
+import it.unimi.dsi.fastutil.objects.Object2ObjectAVLTreeMap;
 import it.unimi.dsi.fastutil.objects.Object2ObjectOpenCustomHashMap;
 import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.objects.ObjectArrays;
@@ -35,8 +37,11 @@ import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet;
 import it.unimi.dsi.fastutil.shorts.Short2ObjectAVLTreeMap;
 import it.unimi.dsi.fastutil.shorts.ShortArrays;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.SortedMap;
@@ -50,10 +55,12 @@ public class IndexImpl<T extends Element> implements Index<T> {
     protected final ColumnStore<T> columnStore;
     protected AbstractIndex[] columns;
     protected int columnsCount;
+    protected final List<CompositeIndex> compositeIndexes;
 
     public IndexImpl(ColumnStore<T> columnStore) {
         this.columnStore = columnStore;
         this.columns = new AbstractIndex[0];
+        this.compositeIndexes = new ArrayList<CompositeIndex>();
         this.lock = columnStore.lock;
     }
 
@@ -133,6 +140,178 @@ public class IndexImpl<T extends Element> implements Index<T> {
         }
     }
 
+    @Override
+    public Iterable<T> getByPrefix(Column column, String prefix, boolean ignoreCase) {
+        checkNonNullColumnObject(column);
+        checkNonNullObject(prefix);
+
+        lock();
+        try {
+            AbstractIndex index = getIndex((ColumnImpl) column);
+            return index.getByPrefix(prefix, ignoreCase);
+        } finally {
+            unlock();
+        }
+    }
+
+    @Override
+    public Iterable<T> getBySubstring(Column column, String substring, boolean ignoreCase) {
+        checkNonNullColumnObject(column);
+        checkNonNullObject(substring);
+
+        lock();
+        try {
+            AbstractIndex index = getIndex((ColumnImpl) column);
+            return index.getBySubstring(substring, ignoreCase);
+        } finally {
+            unlock();
+        }
+    }
+
+    @Override
+    public int count(Column[] columns, Object[] values) {
+        checkNonNullColumnsAndValues(columns, values);
+
+        lock();
+        try {
+            CompositeIndex index = getCompositeIndex(columns);
+            return index.getCount(values);
+        } finally {
+            unlock();
+        }
+    }
+
+    @Override
+    public Iterable<T> get(Column[] columns, Object[] values) {
+        checkNonNullColumnsAndValues(columns, values);
+
+        if (lock != null) {
+            lock.lock();
+            CompositeIndex index;
+            try {
+                index = getCompositeIndex(columns);
+            } catch (RuntimeException e) {
+                lock.unlock();
+                throw e;
+            }
+            Set<T> valueSet = index.getValueSet(values);
+            if (valueSet == null) {
+                lock.unlock();
+                return null;
+            }
+            return new LockableIterable<T>(valueSet);
+        }
+        CompositeIndex index = getCompositeIndex(columns);
+        return index.getValueSet(values);
+    }
+
+    @Override
+    public Iterable<T> getContaining(Column column, Object value) {
+        checkNonNullColumnObject(column);
+
+        lock();
+        try {
+            AbstractIndex index = getIndex((ColumnImpl) column);
+            return index.getContainingAny(new Object[] { value });
+        } finally {
+            unlock();
+        }
+    }
+
+    @Override
+    public Iterable<T> getContainingAny(Column column, Object... values) {
+        checkNonNullColumnObject(column);
+        checkNonNullObject(values);
+
+        lock();
+        try {
+            AbstractIndex index = getIndex((ColumnImpl) column);
+            return index.getContainingAny(values);
+        } finally {
+            unlock();
+        }
+    }
+
+    @Override
+    public Iterable<T> getContainingAll(Column column, Object... values) {
+        checkNonNullColumnObject(column);
+        checkNonNullObject(values);
+
+        lock();
+        try {
+            AbstractIndex index = getIndex((ColumnImpl) column);
+            return index.getContainingAll(values);
+        } finally {
+            unlock();
+        }
+    }
+
+    @Override
+    public Number getSum(Column column) {
+        checkNonNullColumnObject(column);
+        lock();
+        try {
+            AbstractIndex index = getIndex((ColumnImpl) column);
+            return index.getSum();
+        } finally {
+            unlock();
+        }
+    }
+
+    @Override
+    public Double getAverage(Column column) {
+        checkNonNullColumnObject(column);
+        lock();
+        try {
+            AbstractIndex index = getIndex((ColumnImpl) column);
+            return index.getAverage();
+        } finally {
+            unlock();
+        }
+    }
+
+    @Override
+    public Double getVariance(Column column) {
+        checkNonNullColumnObject(column);
+        lock();
+        try {
+            AbstractIndex index = getIndex((ColumnImpl) column);
+            return index.getVariance();
+        } finally {
+            unlock();
+        }
+    }
+
+    @Override
+    public Number getQuantile(Column column, double quantile) {
+        checkNonNullColumnObject(column);
+        if (quantile < 0 || quantile > 1 || Double.isNaN(quantile)) {
+            throw new IllegalArgumentException("The quantile must be between 0 and 1");
+        }
+        lock();
+        try {
+            AbstractIndex index = getIndex((ColumnImpl) column);
+            return index.getQuantile(quantile);
+        } finally {
+            unlock();
+        }
+    }
+
+    @Override
+    public int[] getHistogram(Column column, int bins) {
+        checkNonNullColumnObject(column);
+        if (bins <= 0) {
+            throw new IllegalArgumentException("The number of bins must be positive");
+        }
+        lock();
+        try {
+            AbstractIndex index = getIndex((ColumnImpl) column);
+            return index.getHistogram(bins);
+        } finally {
+            unlock();
+        }
+    }
+
     public Iterable<Map.Entry<Object, Set<T>>> get(Column column) {
         checkNonNullColumnObject(column);
 
@@ -225,6 +404,68 @@ public class IndexImpl<T extends Element> implements Index<T> {
                 ai.clear();
             }
         }
+        for (CompositeIndex ci : compositeIndexes) {
+            ci.clear();
+        }
+    }
+
+    public void putComposite(T element) {
+        if (!compositeIndexes.isEmpty()) {
+            Object[] attributes = ((ElementImpl) element).attributes;
+            for (CompositeIndex ci : compositeIndexes) {
+                ci.putValues(element, ci.getValues(attributes));
+            }
+        }
+    }
+
+    public void removeComposite(T element) {
+        if (!compositeIndexes.isEmpty()) {
+            Object[] attributes = ((ElementImpl) element).attributes;
+            for (CompositeIndex ci : compositeIndexes) {
+                ci.removeValues(element, ci.getValues(attributes));
+            }
+        }
+    }
+
+    public void setComposite(Column column, Object oldValue, Object value, T element) {
+        if (!compositeIndexes.isEmpty()) {
+            Object[] attributes = ((ElementImpl) element).attributes;
+            for (CompositeIndex ci : compositeIndexes) {
+                int position = ci.indexOf(column);
+                if (position != -1) {
+                    Object[] values = ci.getValues(attributes);
+                    values[position] = oldValue;
+                    ci.removeValues(element, values);
+                    values[position] = value;
+                    ci.putValues(element, values);
+                }
+            }
+        }
+    }
+
+    protected CompositeIndex addCompositeIndex(ColumnImpl[] cols) {
+        CompositeIndex index = new CompositeIndex(cols);
+        compositeIndexes.add(index);
+        return index;
+    }
+
+    protected void removeCompositeIndex(ColumnImpl[] cols) {
+        for (Iterator<CompositeIndex> itr = compositeIndexes.iterator(); itr.hasNext();) {
+            CompositeIndex ci = itr.next();
+            if (Arrays.equals(ci.columns, cols)) {
+                ci.clear();
+                itr.remove();
+            }
+        }
+    }
+
+    protected CompositeIndex getCompositeIndex(Column[] cols) {
+        for (CompositeIndex ci : compositeIndexes) {
+            if (ci.startsWith(cols)) {
+                return ci;
+            }
+        }
+        throw new IllegalArgumentException("No composite index starts with the columns " + Arrays.toString(cols));
     }
 
     protected void addColumn(ColumnImpl col) {
@@ -248,6 +489,11 @@ public class IndexImpl<T extends Element> implements Index<T> {
     }
 
     protected void removeColumn(ColumnImpl col) {
+        for (Iterator<CompositeIndex> itr = compositeIndexes.iterator(); itr.hasNext();) {
+            if (itr.next().indexOf(col) != -1) {
+                itr.remove();
+            }
+        }
         if (col.isIndexed()) {
             AbstractIndex index = columns[col.storeId];
             index.destroy();
@@ -295,6 +541,7 @@ public class IndexImpl<T extends Element> implements Index<T> {
         }
         columns = new AbstractIndex[0];
         columnsCount = 0;
+        compositeIndexes.clear();
     }
 
     protected int size() {
@@ -328,6 +575,9 @@ public class IndexImpl<T extends Element> implements Index<T> {
             return new CharIndex(column);
         } else if (column.getTypeClass().equals(String.class)) {
             // String
+            if (columnStore.configuration.getStringIndex()) {
+                return new StringIndex(column);
+            }
             return new DefaultIndex(column);
         } else if (column.getTypeClass().equals(byte[].class)) {
             // Byte Array
@@ -398,6 +648,121 @@ public class IndexImpl<T extends Element> implements Index<T> {
         }
     }
 
+    void checkNonNullColumnsAndValues(final Column[] cols, final Object[] values) {
+        if (cols == null || values == null) {
+            throw new NullPointerException();
+        }
+        if (cols.length == 0 || cols.length != values.length) {
+            throw new IllegalArgumentException("The columns and values must have the same non-zero length");
+        }
+        for (Column col : cols) {
+            checkNonNullColumnObject(col);
+        }
+    }
+
+    protected class CompositeIndex {
+
+        // Data
+        protected final ColumnImpl[] columns;
+        // One map for each leading prefix of the columns
+        protected final Map<Object[], Set<T>>[] maps;
+
+        public CompositeIndex(ColumnImpl[] columns) {
+            this.columns = columns;
+            this.maps = new Map[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                maps[i] = new Object2ObjectOpenCustomHashMap<Object[], Set<T>>(TupleHashStrategy.INSTANCE);
+            }
+        }
+
+        public void putValues(T element, Object[] values) {
+            for (int i = 0; i < columns.length; i++) {
+                Object[] key = Arrays.copyOf(values, i + 1);
+                Set<T> set = maps[i].get(key);
+                if (set == null) {
+                    set = new ObjectOpenHashSet<T>();
+                    maps[i].put(key, set);
+                }
+                set.add(element);
+            }
+        }
+
+        public void removeValues(T element, Object[] values) {
+            for (int i = 0; i < columns.length; i++) {
+                Object[] key = Arrays.copyOf(values, i + 1);
+                Set<T> set = maps[i].get(key);
+                if (set != null) {
+                    set.remove(element);
+                    if (set.isEmpty()) {
+                        maps[i].remove(key);
+                    }
+                }
+            }
+        }
+
+        public Set<T> getValueSet(Object[] values) {
+            return maps[values.length - 1].get(values);
+        }
+
+        public int getCount(Object[] values) {
+            Set<T> set = getValueSet(values);
+            return set == null ? 0 : set.size();
+        }
+
+        public Object[] getValues(Object[] attributes) {
+            Object[] values = new Object[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                int index = columns[i].storeId;
+                if (index < attributes.length) {
+                    values[i] = attributes[index];
+                }
+            }
+            return values;
+        }
+
+        public int indexOf(Column column) {
+            for (int i = 0; i < columns.length; i++) {
+                if (columns[i] == column) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        public boolean startsWith(Column[] cols) {
+            if (cols.length > columns.length) {
+                return false;
+            }
+            for (int i = 0; i < cols.length; i++) {
+                if (columns[i] != cols[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        protected void clear() {
+            for (Map<Object[], Set<T>> map : maps) {
+                map.clear();
+            }
+        }
+    }
+
+    private static final class TupleHashStrategy implements Hash.Strategy<Object[]> {
+
+        private static final TupleHashStrategy INSTANCE = new TupleHashStrategy();
+
+        @Override
+        public int hashCode(Object[] o) {
+            return Arrays.deepHashCode(o);
+        }
+
+        @Override
+        public boolean equals(Object[] a, Object[] b) {
+            return Arrays.deepEquals(a, b);
+        }
+    }
+
     protected abstract class AbstractIndex<K> implements Iterable<Map.Entry<K, Set<T>>> {
 
         // Const
@@ -406,13 +771,21 @@ public class IndexImpl<T extends Element> implements Index<T> {
         // Data
         protected final ColumnImpl column;
         protected final Set<T> nullSet;
+        protected final boolean sortable;
         protected Map<K, Set<T>> map;
         // Variable
         protected int elements;
+        // Statistics, only maintained for sortable columns. Variance sums are
+        // shifted by the first value to avoid cancellation on large values
+        protected double sum;
+        protected double shift;
+        protected double shiftedSum;
+        protected double shiftedSumOfSquares;
 
         public AbstractIndex(ColumnImpl column) {
             this.column = column;
             this.nullSet = new ObjectOpenHashSet<T>();
+            this.sortable = Number.class.isAssignableFrom(column.getTypeClass());
         }
 
         public Object putValue(T element, Object value) {
@@ -429,6 +802,17 @@ public class IndexImpl<T extends Element> implements Index<T> {
 
                 if (set.add(element)) {
                     elements++;
+                    if (isSortable()) {
+                        double d = ((Number) value).doubleValue();
+                        if (elements - nullSet.size() == 1) {
+                            shift = d;
+                            shiftedSum = 0;
+                            shiftedSumOfSquares = 0;
+                        }
+                        sum += d;
+                        shiftedSum += d - shift;
+                        shiftedSumOfSquares += (d - shift) * (d - shift);
+                    }
                 }
             }
             return value;
@@ -443,6 +827,12 @@ public class IndexImpl<T extends Element> implements Index<T> {
                 Set<T> set = getValueSet((K) value);
                 if (set.remove(element)) {
                     elements--;
+                    if (isSortable()) {
+                        double d = ((Number) value).doubleValue();
+                        sum -= d;
+                        shiftedSum -= d - shift;
+                        shiftedSumOfSquares -= (d - shift) * (d - shift);
+                    }
                 }
                 if (set.isEmpty()) {
                     removeValue((K) value);
@@ -501,16 +891,127 @@ public class IndexImpl<T extends Element> implements Index<T> {
             }
         }
 
+        public Number getSum() {
+            checkSortable();
+            return sum;
+        }
+
+        public Double getAverage() {
+            checkSortable();
+            int count = elements - nullSet.size();
+            if (count == 0) {
+                return null;
+            }
+            return shift + shiftedSum / count;
+        }
+
+        public Double getVariance() {
+            checkSortable();
+            int count = elements - nullSet.size();
+            if (count == 0) {
+                return null;
+            }
+            double shiftedMean = shiftedSum / count;
+            // Only rounding errors can make it negative
+            return Math.max(0.0, shiftedSumOfSquares / count - shiftedMean * shiftedMean);
+        }
+
+        public Number getQuantile(double quantile) {
+            checkSortable();
+            int count = elements - nullSet.size();
+            if (count == 0) {
+                return null;
+            }
+            int rank = Math.max(1, (int) Math.ceil(quantile * count));
+            int cumulated = 0;
+            for (Map.Entry<K, Set<T>> entry : map.entrySet()) {
+                cumulated += entry.getValue().size();
+                if (cumulated >= rank) {
+                    return (Number) entry.getKey();
+                }
+            }
+            return getMaxValue();
+        }
+
+        public int[] getHistogram(int bins) {
+            checkSortable();
+            int[] histogram = new int[bins];
+            if (map.isEmpty()) {
+                return histogram;
+            }
+            double min = getMinValue().doubleValue();
+            double max = getMaxValue().doubleValue();
+            double width = (max - min) / bins;
+            for (Map.Entry<K, Set<T>> entry : map.entrySet()) {
+                int bin = width > 0 ? (int) ((((Number) entry.getKey()).doubleValue() - min) / width) : 0;
+                histogram[Math.min(bin, bins - 1)] += entry.getValue().size();
+            }
+            return histogram;
+        }
+
+        public List<T> getByPrefix(String prefix, boolean ignoreCase) {
+            checkStringColumn();
+            // Scan all distinct values, see StringIndex
+            List<T> result = new ArrayList<T>();
+            String foldedPrefix = ignoreCase ? prefix.toLowerCase(Locale.ROOT) : prefix;
+            for (Map.Entry<K, Set<T>> entry : map.entrySet()) {
+                String value = (String) entry.getKey();
+                if ((ignoreCase ? value.toLowerCase(Locale.ROOT) : value).startsWith(foldedPrefix)) {
+                    result.addAll(entry.getValue());
+                }
+            }
+            return result;
+        }
+
+        public List<T> getBySubstring(String substring, boolean ignoreCase) {
+            checkStringColumn();
+            // Scan all distinct values, see StringIndex
+            List<T> result = new ArrayList<T>();
+            String foldedSubstring = ignoreCase ? substring.toLowerCase(Locale.ROOT) : substring;
+            for (Map.Entry<K, Set<T>> entry : map.entrySet()) {
+                String value = (String) entry.getKey();
+                if ((ignoreCase ? value.toLowerCase(Locale.ROOT) : value).contains(foldedSubstring)) {
+                    result.addAll(entry.getValue());
+                }
+            }
+            return result;
+        }
+
+        private void checkStringColumn() {
+            if (!column.getTypeClass().equals(String.class)) {
+                throw new UnsupportedOperationException("'" + column.getId() + "' is not a string column (" + column
+                        .getTypeClass().getSimpleName() + ").");
+            }
+        }
+
+        public Set<T> getContainingAny(Object[] values) {
+            throw new UnsupportedOperationException("'" + column.getId() + "' is not an array column (" + column
+                    .getTypeClass().getSimpleName() + ").");
+        }
+
+        public Set<T> getContainingAll(Object[] values) {
+            throw new UnsupportedOperationException("'" + column.getId() + "' is not an array column (" + column
+                    .getTypeClass().getSimpleName() + ").");
+        }
+
         protected void destroy() {
             map = null;
             nullSet.clear();
             elements = 0;
+            sum = 0;
+            shift = 0;
+            shiftedSum = 0;
+            shiftedSumOfSquares = 0;
         }
 
         protected void clear() {
             map.clear();
             nullSet.clear();
             elements = 0;
+            sum = 0;
+            shift = 0;
+            shiftedSum = 0;
+            shiftedSumOfSquares = 0;
         }
 
         @Override
@@ -536,7 +1037,14 @@ public class IndexImpl<T extends Element> implements Index<T> {
         }
 
         protected boolean isSortable() {
-            return Number.class.isAssignableFrom(column.getTypeClass());
+            return sortable;
+        }
+
+        protected void checkSortable() {
+            if (!isSortable()) {
+                throw new UnsupportedOperationException("'" + column.getId() + "' is not a sortable column (" + column
+                        .getTypeClass().getSimpleName() + ").");
+            }
         }
 
         protected final class WithNullDecorator implements Collection<K> {
@@ -824,6 +1332,174 @@ public class IndexImpl<T extends Element> implements Index<T> {
         }
     }
 
+    protected class StringIndex extends AbstractIndex<String> {
+
+        // Const
+        public static final int GRAM_LENGTH = 3;
+        // Lower-cased value to original values, built on first use
+        protected Object2ObjectAVLTreeMap<String, Set<String>> foldedMap;
+        // Lower-cased n-gram to original values, built on first use
+        protected Object2ObjectOpenHashMap<String, Set<String>> gramMap;
+
+        public StringIndex(ColumnImpl column) {
+            super(column);
+
+            map = new Object2ObjectAVLTreeMap<String, Set<T>>();
+        }
+
+        @Override
+        public List<T> getByPrefix(String prefix, boolean ignoreCase) {
+            List<T> result = new ArrayList<T>();
+            if (ignoreCase) {
+                ensureFoldedMap();
+                String foldedPrefix = fold(prefix);
+                for (Map.Entry<String, Set<String>> entry : foldedMap.tailMap(foldedPrefix).entrySet()) {
+                    if (!entry.getKey().startsWith(foldedPrefix)) {
+                        break;
+                    }
+                    for (String value : entry.getValue()) {
+                        result.addAll(map.get(value));
+                    }
+                }
+            } else {
+                for (Map.Entry<String, Set<T>> entry : ((SortedMap<String, Set<T>>) map).tailMap(prefix).entrySet()) {
+                    if (!entry.getKey().startsWith(prefix)) {
+                        break;
+                    }
+                    result.addAll(entry.getValue());
+                }
+            }
+            return result;
+        }
+
+        @Override
+        public List<T> getBySubstring(String substring, boolean ignoreCase) {
+            List<T> result = new ArrayList<T>();
+            String foldedSubstring = fold(substring);
+            Collection<String> candidates = map.keySet();
+            if (substring.length() >= GRAM_LENGTH) {
+                ensureGramMap();
+                Set<String> smallest = null;
+                for (int i = 0; i + GRAM_LENGTH <= foldedSubstring.length(); i++) {
+                    Set<String> values = gramMap.get(foldedSubstring.substring(i, i + GRAM_LENGTH));
+                    if (values == null) {
+                        return result;
+                    }
+                    if (smallest == null || values.size() < smallest.size()) {
+                        smallest = values;
+                    }
+                }
+                candidates = smallest;
+            }
+            for (String value : candidates) {
+                boolean match = ignoreCase ? fold(value).contains(foldedSubstring) : value.contains(substring);
+                if (match) {
+                    result.addAll(map.get(value));
+                }
+            }
+            return result;
+        }
+
+        @Override
+        protected Set<T> addValue(String value) {
+            Set<T> set = super.addValue(value);
+            if (foldedMap != null) {
+                addFolded(value);
+            }
+            if (gramMap != null) {
+                addGrams(value);
+            }
+            return set;
+        }
+
+        @Override
+        protected void removeValue(String value) {
+            super.removeValue(value);
+            if (foldedMap != null) {
+                String key = fold(value);
+                Set<String> values = foldedMap.get(key);
+                if (values != null) {
+                    values.remove(value);
+                    if (values.isEmpty()) {
+                        foldedMap.remove(key);
+                    }
+                }
+            }
+            if (gramMap != null) {
+                String folded = fold(value);
+                for (int i = 0; i + GRAM_LENGTH <= folded.length(); i++) {
+                    String gram = folded.substring(i, i + GRAM_LENGTH);
+                    Set<String> values = gramMap.get(gram);
+                    if (values != null) {
+                        values.remove(value);
+                        if (values.isEmpty()) {
+                            gramMap.remove(gram);
+                        }
+                    }
+                }
+            }
+        }
+
+        @Override
+        protected void destroy() {
+            super.destroy();
+            foldedMap = null;
+            gramMap = null;
+        }
+
+        @Override
+        protected void clear() {
+            super.clear();
+            foldedMap = null;
+            gramMap = null;
+        }
+
+        private void ensureFoldedMap() {
+            if (foldedMap == null) {
+                foldedMap = new Object2ObjectAVLTreeMap<String, Set<String>>();
+                for (String value : map.keySet()) {
+                    addFolded(value);
+                }
+            }
+        }
+
+        private void ensureGramMap() {
+            if (gramMap == null) {
+                gramMap = new Object2ObjectOpenHashMap<String, Set<String>>();
+                for (String value : map.keySet()) {
+                    addGrams(value);
+                }
+            }
+        }
+
+        private void addFolded(String value) {
+            String key = fold(value);
+            Set<String> values = foldedMap.get(key);
+            if (values == null) {
+                values = new ObjectOpenHashSet<String>(1);
+                foldedMap.put(key, values);
+            }
+            values.add(value);
+        }
+
+        private void addGrams(String value) {
+            String folded = fold(value);
+            for (int i = 0; i + GRAM_LENGTH <= folded.length(); i++) {
+                String gram = folded.substring(i, i + GRAM_LENGTH);
+                Set<String> values = gramMap.get(gram);
+                if (values == null) {
+                    values = new ObjectOpenHashSet<String>();
+                    gramMap.put(gram, values);
+                }
+                values.add(value);
+            }
+        }
+
+        private String fold(String value) {
+            return value.toLowerCase(Locale.ROOT);
+        }
+    }
+
     protected class BooleanIndex extends AbstractIndex<Boolean> {
 
         public BooleanIndex(ColumnImpl column) {
@@ -896,85 +1572,272 @@ public class IndexImpl<T extends Element> implements Index<T> {
         }
     }
 
-    protected class DefaultArrayIndex extends AbstractIndex<Object[]> {
+    protected abstract class ArrayIndex<K> extends AbstractIndex<K> {
+
+        // Array item to elements, built on first use
+        protected Map<Object, Set<T>> itemMap;
+
+        public ArrayIndex(ColumnImpl column) {
+            super(column);
+        }
+
+        @Override
+        public Object putValue(T element, Object value) {
+            value = super.putValue(element, value);
+            if (itemMap != null && value != null) {
+                putItems(element, (K) value);
+            }
+            return value;
+        }
+
+        @Override
+        public void removeValue(T element, Object value) {
+            super.removeValue(element, value);
+            if (itemMap != null && value != null) {
+                for (Object item : toObjectArray((K) value)) {
+                    Set<T> set = itemMap.get(item);
+                    if (set != null) {
+                        set.remove(element);
+                        if (set.isEmpty()) {
+                            itemMap.remove(item);
+                        }
+                    }
+                }
+            }
+        }
+
+        @Override
+        public Set<T> getContainingAny(Object[] values) {
+            ensureItemMap();
+            Set<T> result = new ObjectOpenHashSet<T>();
+            for (Object value : values) {
+                Set<T> set = itemMap.get(value);
+                if (set != null) {
+                    result.addAll(set);
+                }
+            }
+            return result;
+        }
+
+        @Override
+        public Set<T> getContainingAll(Object[] values) {
+            ensureItemMap();
+            if (values.length == 0) {
+                return new ObjectOpenHashSet<T>();
+            }
+            Set<T> smallest = null;
+            for (Object value : values) {
+                Set<T> set = itemMap.get(value);
+                if (set == null) {
+                    return new ObjectOpenHashSet<T>();
+                }
+                if (smallest == null || set.size() < smallest.size()) {
+                    smallest = set;
+                }
+            }
+            Set<T> result = new ObjectOpenHashSet<T>(smallest);
+            for (Object value : values) {
+                Set<T> set = itemMap.get(value);
+                if (set != smallest) {
+                    result.retainAll(set);
+                }
+            }
+            return result;
+        }
+
+        @Override
+        protected void destroy() {
+            super.destroy();
+            itemMap = null;
+        }
+
+        @Override
+        protected void clear() {
+            super.clear();
+            itemMap = null;
+        }
+
+        private void ensureItemMap() {
+            if (itemMap == null) {
+                itemMap = new Object2ObjectOpenHashMap<Object, Set<T>>();
+                for (Map.Entry<K, Set<T>> entry : map.entrySet()) {
+                    for (T element : entry.getValue()) {
+                        putItems(element, entry.getKey());
+                    }
+                }
+            }
+        }
+
+        private void putItems(T element, K array) {
+            for (Object item : toObjectArray(array)) {
+                Set<T> set = itemMap.get(item);
+                if (set == null) {
+                    set = new ObjectOpenHashSet<T>();
+                    itemMap.put(item, set);
+                }
+                set.add(element);
+            }
+        }
+
+        protected abstract Object[] toObjectArray(K array);
+    }
+
+    protected class DefaultArrayIndex extends ArrayIndex<Object[]> {
 
         public DefaultArrayIndex(ColumnImpl column) {
             super(column);
 
             map = new Object2ObjectOpenCustomHashMap<Object[], Set<T>>(ObjectArrays.HASH_STRATEGY);
         }
+
+        @Override
+        protected Object[] toObjectArray(Object[] array) {
+            return array;
+        }
     }
 
-    protected class BooleanArrayIndex extends AbstractIndex<boolean[]> {
+    protected class BooleanArrayIndex extends ArrayIndex<boolean[]> {
 
         public BooleanArrayIndex(ColumnImpl column) {
             super(column);
 
             map = new Object2ObjectOpenCustomHashMap<boolean[], Set<T>>(BooleanArrays.HASH_STRATEGY);
         }
+
+        @Override
+        protected Object[] toObjectArray(boolean[] array) {
+            Object[] res = new Object[array.length];
+            for (int i = 0; i < array.length; i++) {
+                res[i] = array[i];
+            }
+            return res;
+        }
     }
 
-    protected class DoubleArrayIndex extends AbstractIndex<double[]> {
+    protected class DoubleArrayIndex extends ArrayIndex<double[]> {
 
         public DoubleArrayIndex(ColumnImpl column) {
             super(column);
 
             map = new Object2ObjectOpenCustomHashMap<double[], Set<T>>(DoubleArrays.HASH_STRATEGY);
         }
+
+        @Override
+        protected Object[] toObjectArray(double[] array) {
+            Object[] res = new Object[array.length];
+            for (int i = 0; i < array.length; i++) {
+                res[i] = array[i];
+            }
+            return res;
+        }
     }
 
-    protected class IntegerArrayIndex extends AbstractIndex<int[]> {
+    protected class IntegerArrayIndex extends ArrayIndex<int[]> {
 
         public IntegerArrayIndex(ColumnImpl column) {
             super(column);
 
             map = new Object2ObjectOpenCustomHashMap<int[], Set<T>>(IntArrays.HASH_STRATEGY);
         }
+
+        @Override
+        protected Object[] toObjectArray(int[] array) {
+            Object[] res = new Object[array.length];
+            for (int i = 0; i < array.length; i++) {
+                res[i] = array[i];
+            }
+            return res;
+        }
     }
 
-    protected class FloatArrayIndex extends AbstractIndex<float[]> {
+    protected class FloatArrayIndex extends ArrayIndex<float[]> {
 
         public FloatArrayIndex(ColumnImpl column) {
             super(column);
 
             map = new Object2ObjectOpenCustomHashMap<float[], Set<T>>(FloatArrays.HASH_STRATEGY);
         }
+
+        @Override
+        protected Object[] toObjectArray(float[] array) {
+            Object[] res = new Object[array.length];
+            for (int i = 0; i < array.length; i++) {
+                res[i] = array[i];
+            }
+            return res;
+        }
     }
 
-    protected class LongArrayIndex extends AbstractIndex<long[]> {
+    protected class LongArrayIndex extends ArrayIndex<long[]> {
 
         public LongArrayIndex(ColumnImpl column) {
             super(column);
 
             map = new Object2ObjectOpenCustomHashMap<long[], Set<T>>(LongArrays.HASH_STRATEGY);
         }
+
+        @Override
+        protected Object[] toObjectArray(long[] array) {
+            Object[] res = new Object[array.length];
+            for (int i = 0; i < array.length; i++) {
+                res[i] = array[i];
+            }
+            return res;
+        }
     }
 
-    protected class ShortArrayIndex extends AbstractIndex<short[]> {
+    protected class ShortArrayIndex extends ArrayIndex<short[]> {
 
         public ShortArrayIndex(ColumnImpl column) {
             super(column);
 
             map = new Object2ObjectOpenCustomHashMap<short[], Set<T>>(ShortArrays.HASH_STRATEGY);
         }
+
+        @Override
+        protected Object[] toObjectArray(short[] array) {
+            Object[] res = new Object[array.length];
+            for (int i = 0; i < array.length; i++) {
+                res[i] = array[i];
+            }
+            return res;
+        }
     }
 
-    protected class ByteArrayIndex extends AbstractIndex<byte[]> {
+    protected class ByteArrayIndex extends ArrayIndex<byte[]> {
 
         public ByteArrayIndex(ColumnImpl column) {
             super(column);
 
             map = new Object2ObjectOpenCustomHashMap<byte[], Set<T>>(ByteArrays.HASH_STRATEGY);
         }
+
+        @Override
+        protected Object[] toObjectArray(byte[] array) {
+            Object[] res = new Object[array.length];
+            for (int i = 0; i < array.length; i++) {
+                res[i] = array[i];
+            }
+            return res;
+        }
     }
 
-    protected class CharArrayIndex extends AbstractIndex<char[]> {
+    protected class CharArrayIndex extends ArrayIndex<char[]> {
 
         public CharArrayIndex(ColumnImpl column) {
             super(column);
 
             map = new Object2ObjectOpenCustomHashMap<char[], Set<T>>(CharArrays.HASH_STRATEGY);
         }
+
+        @Override
+        protected Object[] toObjectArray(char[] array) {
+            Object[] res = new Object[array.length];
+            for (int i = 0; i < array.length; i++) {
+                res[i] = array[i];
+            }
+            return res;
+        }
     }
 
     private class LockableIterable<T> implements Iterable<T> {
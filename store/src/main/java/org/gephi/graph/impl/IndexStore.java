@@ -16,7 +16,10 @@
 package org.gephi.graph.impl;
 
 import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import org.gephi.graph.api.Column;
@@ -33,11 +36,13 @@ public class IndexStore<T extends Element> {
     protected final TableLock lock;
     protected final IndexImpl<T> mainIndex;
     protected final Map<GraphView, IndexImpl<T>> viewIndexes;
+    protected final List<ColumnImpl[]> compositeIndexes;
 
     public IndexStore(ColumnStore<T> columnStore) {
         this.columnStore = columnStore;
         this.mainIndex = new IndexImpl<T>(columnStore);
         this.viewIndexes = new Object2ObjectOpenHashMap<GraphView, IndexImpl<T>>();
+        this.compositeIndexes = new ArrayList<ColumnImpl[]>();
         this.lock = columnStore.lock;
     }
 
@@ -49,6 +54,11 @@ public class IndexStore<T extends Element> {
     }
 
     protected void removeColumn(ColumnImpl col) {
+        for (Iterator<ColumnImpl[]> itr = compositeIndexes.iterator(); itr.hasNext();) {
+            if (Arrays.asList(itr.next()).contains(col)) {
+                itr.remove();
+            }
+        }
         mainIndex.removeColumn(col);
         for (IndexImpl<T> index : viewIndexes.values()) {
             index.removeColumn(col);
@@ -59,6 +69,103 @@ public class IndexStore<T extends Element> {
         return mainIndex.hasColumn(col);
     }
 
+    protected void addCompositeIndex(ColumnImpl[] cols) {
+        checkCompositeColumns(cols);
+
+        // Graph lock first, then table lock, as writers indexing elements do
+        GraphStore graphStore = columnStore.graphStore;
+        if (graphStore != null) {
+            graphStore.autoReadLock();
+        }
+        try {
+            lock();
+            try {
+                if (hasCompositeIndex(cols)) {
+                    throw new IllegalArgumentException("The composite index already exists");
+                }
+                compositeIndexes.add(cols);
+
+                IndexImpl<T>.CompositeIndex mainCompositeIndex = mainIndex.addCompositeIndex(cols);
+                if (graphStore != null) {
+                    indexComposite(mainCompositeIndex, graphStore);
+                }
+                for (Entry<GraphView, IndexImpl<T>> entry : viewIndexes.entrySet()) {
+                    IndexImpl<T>.CompositeIndex viewCompositeIndex = entry.getValue().addCompositeIndex(cols);
+                    indexComposite(viewCompositeIndex, ((GraphViewImpl) entry.getKey()).getDirectedGraph());
+                }
+            } finally {
+                unlock();
+            }
+        } finally {
+            if (graphStore != null) {
+                graphStore.autoReadUnlock();
+            }
+        }
+    }
+
+    protected void removeCompositeIndex(ColumnImpl[] cols) {
+        lock();
+        try {
+            for (Iterator<ColumnImpl[]> itr = compositeIndexes.iterator(); itr.hasNext();) {
+                if (Arrays.equals(itr.next(), cols)) {
+                    itr.remove();
+                }
+            }
+            mainIndex.removeCompositeIndex(cols);
+            for (IndexImpl<T> index : viewIndexes.values()) {
+                index.removeCompositeIndex(cols);
+            }
+        } finally {
+            unlock();
+        }
+    }
+
+    protected boolean hasCompositeIndex(ColumnImpl[] cols) {
+        for (ColumnImpl[] c : compositeIndexes) {
+            if (Arrays.equals(c, cols)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void indexComposite(IndexImpl<T>.CompositeIndex compositeIndex, Graph graph) {
+        Iterator<T> iterator = null;
+        if (columnStore.elementType.equals(Node.class)) {
+            iterator = (Iterator<T>) graph.getNodes().iterator();
+        } else if (columnStore.elementType.equals(Edge.class)) {
+            iterator = (Iterator<T>) graph.getEdges().iterator();
+        }
+        if (iterator != null) {
+            while (iterator.hasNext()) {
+                ElementImpl element = (ElementImpl) iterator.next();
+                synchronized (element) {
+                    compositeIndex.putValues((T) element, compositeIndex.getValues(element.attributes));
+                }
+            }
+        }
+    }
+
+    private void checkCompositeColumns(ColumnImpl[] cols) {
+        if (cols.length < 2) {
+            throw new IllegalArgumentException("A composite index requires at least two columns");
+        }
+        for (int i = 0; i < cols.length; i++) {
+            ColumnImpl col = cols[i];
+            if (col.storeId == ColumnStore.NULL_ID || columnStore.columns[col.storeId] != col) {
+                throw new IllegalArgumentException("The column '" + col.getId() + "' doesn't belong to this table");
+            }
+            if (!col.isIndexed() || col.isDynamic()) {
+                throw new IllegalArgumentException("The column '" + col.getId() + "' must be indexed and not dynamic");
+            }
+            for (int j = 0; j < i; j++) {
+                if (cols[j] == col) {
+                    throw new IllegalArgumentException("The column '" + col.getId() + "' is repeated");
+                }
+            }
+        }
+    }
+
     protected IndexImpl getIndex(Graph graph) {
         GraphView view = graph.getView();
         if (view.isMainView()) {
@@ -83,6 +190,9 @@ public class IndexStore<T extends Element> {
         IndexImpl viewIndex = new IndexImpl<T>(columnStore);
         ColumnImpl[] columns = columnStore.toArray();
         viewIndex.addAllColumns(columns);
+        for (ColumnImpl[] cols : compositeIndexes) {
+            viewIndex.addCompositeIndex(cols);
+        }
         viewIndexes.put(graph.getView(), viewIndex);
 
         indexView(graph);
@@ -109,6 +219,7 @@ public class IndexStore<T extends Element> {
         lock();
         try {
             value = mainIndex.set(column, oldValue, value, element);
+            mainIndex.setComposite(column, oldValue, value, element);
 
             if (!viewIndexes.isEmpty()) {
                 for (Entry<GraphView, IndexImpl<T>> entry : viewIndexes.entrySet()) {
@@ -118,6 +229,7 @@ public class IndexStore<T extends Element> {
                             .contains((Edge) element);
                     if (inView) {
                         entry.getValue().set(column, oldValue, value, element);
+                        entry.getValue().setComposite(column, oldValue, value, element);
                     }
                 }
             }
@@ -133,6 +245,17 @@ public class IndexStore<T extends Element> {
 
         lock();
         try {
+            mainIndex.removeComposite(element);
+            for (Entry<GraphView, IndexImpl<T>> entry : viewIndexes.entrySet()) {
+                GraphViewImpl graphView = (GraphViewImpl) entry.getKey();
+                DirectedSubgraph graph = graphView.getDirectedGraph();
+                boolean inView = element instanceof Node ? graph.contains((Node) element) : graph
+                        .contains((Edge) element);
+                if (inView) {
+                    entry.getValue().removeComposite(element);
+                }
+            }
+
             final int length = columnStore.length;
             final ColumnImpl[] cols = columnStore.columns;
             for (int i = 0; i < length; i++) {
@@ -172,6 +295,7 @@ public class IndexStore<T extends Element> {
                     elementImpl.attributes[c.getIndex()] = value;
                 }
             }
+            mainIndex.putComposite(element);
         } finally {
             unlock();
         }
@@ -204,6 +328,7 @@ public class IndexStore<T extends Element> {
                                     viewIndex.put(c, value, element);
                                 }
                             }
+                            viewIndex.putComposite(element);
                         }
                     }
                 }
@@ -228,6 +353,7 @@ public class IndexStore<T extends Element> {
                         index.put(c, value, element);
                     }
                 }
+                index.putComposite(element);
             }
         } finally {
             unlock();
@@ -240,6 +366,7 @@ public class IndexStore<T extends Element> {
         try {
             IndexImpl<T> index = viewIndexes.get(view);
             if (index != null) {
+                index.removeComposite(element);
                 final int length = columnStore.length;
                 final ColumnImpl[] cols = columnStore.columns;
                 for (int i = 0; i < length; i++) {
@@ -20,6 +20,7 @@ import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 import org.gephi.graph.api.Interval;
 
@@ -41,6 +42,76 @@ public final class Interval2IntTreeMap implements Map<Interval, Integer> {
         root = nil;
     }
 
+    /**
+     * Constructs a map containing the given intervals and values.
+     * <p>
+     * The intervals must be sorted first by low and then by high bounds,
+     * without duplicates.
+     *
+     * @param intervals sorted intervals
+     * @param values values, in the same order as the intervals
+     * @throws IllegalArgumentException if the intervals aren't sorted or the
+     *         arrays have different lengths
+     * @see #load(org.gephi.graph.api.Interval[], int[], int)
+     */
+    public Interval2IntTreeMap(Interval[] intervals, int[] values) {
+        this();
+        if (intervals.length != values.length) {
+            throw new IllegalArgumentException("The intervals and values arrays should have the same length");
+        }
+        load(intervals, values, intervals.length);
+    }
+
+    /**
+     * Replaces the content of this map with the first <code>length</code>
+     * intervals and values of the given arrays.
+     * <p>
+     * The intervals must be sorted first by low and then by high bounds,
+     * without duplicates. The tree is then built balanced in linear time,
+     * instead of being rebalanced after each insertion.
+     *
+     * @param intervals sorted intervals
+     * @param values values, in the same order as the intervals
+     * @param length number of entries to load
+     * @throws IllegalArgumentException if the intervals aren't sorted or
+     *         <code>length</code> exceeds the arrays' length
+     */
+    public void load(Interval[] intervals, int[] values, int length) {
+        if (length < 0 || length > intervals.length || length > values.length) {
+            throw new IllegalArgumentException("The length should be between 0 and the arrays' length");
+        }
+        for (int i = 0; i < length; i++) {
+            if (intervals[i] == null) {
+                throw new NullPointerException("Interval cannot be null.");
+            }
+            if (i > 0 && (!compareLow(intervals[i - 1], intervals[i]) || intervals[i - 1].equals(intervals[i]))) {
+                throw new IllegalArgumentException(
+                        "The intervals should be sorted and unique: " + intervals[i - 1] + " and " + intervals[i]);
+            }
+        }
+        clear();
+        // Complete levels are black and the last incomplete level red, so all
+        // paths have the same black height
+        int redDepth = 31 - Integer.numberOfLeadingZeros(length + 1);
+        root.left = build(intervals, values, 0, length - 1, root, 0, redDepth);
+        root.max = root.left == nil ? Double.NEGATIVE_INFINITY : root.left.max;
+        size = length;
+    }
+
+    private Node build(Interval[] intervals, int[] values, int from, int to, Node parent, int depth, int redDepth) {
+        if (from > to) {
+            return nil;
+        }
+        int mid = (from + to) >>> 1;
+        Node n = new Node(intervals[mid], values[mid]);
+        n.p = parent;
+        n.color = depth == redDepth ? RED : BLACK;
+        n.left = build(intervals, values, from, mid - 1, n, depth + 1, redDepth);
+        n.right = build(intervals, values, mid + 1, to, n, depth + 1, redDepth);
+        computeMax(n);
+        return n;
+    }
+
     private boolean compareLow(Interval a, Interval b) {
         if (a.getLow() == b.getLow()) {
             if (a.getHigh() <= b.getHigh()) {
@@ -207,6 +278,8 @@ public final class Interval2IntTreeMap implements Map<Interval, Integer> {
         } else {
             x = y.left;
         }
+        // Deepest node which subtree changes, from where max is recomputed
+        Node lowest = y.p == z ? y : y.p;
         x.p = y.p;
         if (root == x.p) {
             root.left = x;
@@ -234,13 +307,10 @@ public final class Interval2IntTreeMap implements Map<Interval, Integer> {
             deleteFixup(x);
         }
 
-        computeMax(y);
-        for (Node i = y.p; i != root; i = i.p) {
+        for (Node i = lowest; i != root; i = i.p) {
             computeMax(i);
-            if (i.p == root) {
-                root.max = i.max;
-            }
         }
+        root.max = root.left == nil ? Double.NEGATIVE_INFINITY : root.left.max;
         size--;
     }
 
@@ -508,6 +578,20 @@ public final class Interval2IntTreeMap implements Map<Interval, Integer> {
         return entrySet(Interval.INFINITY_INTERVAL);
     }
 
+    /**
+     * Returns an iterator over all entries, sorted first by low and then by
+     * high bounds.
+     * <p>
+     * Unlike {@link #entrySet()} the tree is walked lazily and only keeps a
+     * stack as deep as the tree. The returned entry is reused between calls to
+     * <code>next()</code>.
+     *
+     * @return sorted entry iterator
+     */
+    public Iterator<Map.Entry<Interval, Integer>> sortedIterator() {
+        return new SortedEntryIterator();
+    }
+
     /**
      * Returns an entry set of all entries, which interval keys overlap with
      * <code>point</code>.
@@ -563,6 +647,112 @@ public final class Interval2IntTreeMap implements Map<Interval, Integer> {
         return new ValueIterable(searchNodes(point));
     }
 
+    /**
+     * Passes to <code>consumer</code> the values which interval keys overlap
+     * with <code>interval</code>, ordered by interval.
+     * <p>
+     * Unlike {@link #values(org.gephi.graph.api.Interval)}, this doesn't
+     * allocate any intermediate collection.
+     *
+     * @param interval interval
+     * @param consumer value consumer
+     */
+    public void forEachOverlapping(Interval interval, IntConsumer consumer) {
+        if (interval == null) {
+            throw new NullPointerException("Interval cannot be null.");
+        }
+        forEachOverlapping(root.left, interval, consumer);
+    }
+
+    /**
+     * Passes to <code>consumer</code> the values which interval keys overlap
+     * with <code>point</code>, ordered by interval.
+     *
+     * @param point point
+     * @param consumer value consumer
+     */
+    public void forEachOverlapping(double point, IntConsumer consumer) {
+        forEachOverlapping(root.left, point, consumer);
+    }
+
+    /**
+     * Returns the number of interval keys overlapping with
+     * <code>interval</code>.
+     *
+     * @param interval interval
+     * @return number of overlapping intervals
+     */
+    public int countOverlapping(Interval interval) {
+        if (interval == null) {
+            throw new NullPointerException("Interval cannot be null.");
+        }
+        return countOverlapping(root.left, interval);
+    }
+
+    /**
+     * Returns the number of interval keys overlapping with <code>point</code>.
+     *
+     * @param point point
+     * @return number of overlapping intervals
+     */
+    public int countOverlapping(double point) {
+        return countOverlapping(root.left, point);
+    }
+
+    private void forEachOverlapping(Node n, Interval interval, IntConsumer consumer) {
+        if (n == nil || interval.getLow() > n.max) {
+            return;
+        }
+        forEachOverlapping(n.left, interval, consumer);
+        if (n.i.compareTo(interval) == 0) {
+            consumer.accept(n.v);
+        }
+        if (interval.compareTo(n.i) >= 0) {
+            forEachOverlapping(n.right, interval, consumer);
+        }
+    }
+
+    private void forEachOverlapping(Node n, double point, IntConsumer consumer) {
+        if (n == nil || point > n.max) {
+            return;
+        }
+        forEachOverlapping(n.left, point, consumer);
+        if (point >= n.i.getLow() && point <= n.i.getHigh()) {
+            consumer.accept(n.v);
+        }
+        if (point >= n.i.getLow()) {
+            forEachOverlapping(n.right, point, consumer);
+        }
+    }
+
+    private int countOverlapping(Node n, Interval interval) {
+        if (n == nil || interval.getLow() > n.max) {
+            return 0;
+        }
+        int count = countOverlapping(n.left, interval);
+        if (n.i.compareTo(interval) == 0) {
+            count++;
+        }
+        if (interval.compareTo(n.i) >= 0) {
+            count += countOverlapping(n.right, interval);
+        }
+        return count;
+    }
+
+    private int countOverlapping(Node n, double point) {
+        if (n == nil || point > n.max) {
+            return 0;
+        }
+        int count = countOverlapping(n.left, point);
+        if (point >= n.i.getLow() && point <= n.i.getHigh()) {
+            count++;
+        }
+        if (point >= n.i.getLow()) {
+            count += countOverlapping(n.right, point);
+        }
+        return count;
+    }
+
     private List<Node> searchNodes(Interval interval) {
         List<Node> result = new ArrayList<Node>();
         searchNodes(root.left, interval, result);
@@ -720,6 +910,19 @@ public final class Interval2IntTreeMap implements Map<Interval, Integer> {
         throw new UnsupportedOperationException("Not supported.");
     }
 
+    /**
+     * Receives the values of the intervals matching a query.
+     */
+    public interface IntConsumer {
+
+        /**
+         * Receives a value.
+         *
+         * @param value value
+         */
+        public void accept(int value);
+    }
+
     private static class Node {
 
         private final Interval i; // i.low is the key of this node
@@ -850,6 +1053,43 @@ public final class Interval2IntTreeMap implements Map<Interval, Integer> {
 
     }
 
+    private class SortedEntryIterator implements Iterator<Map.Entry<Interval, Integer>> {
+
+        private final List<Node> stack = new ArrayList<Node>();
+        private final Entry entry = new Entry();
+
+        public SortedEntryIterator() {
+            pushLeft(root.left);
+        }
+
+        private void pushLeft(Node n) {
+            for (; n != nil; n = n.left) {
+                stack.add(n);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !stack.isEmpty();
+        }
+
+        @Override
+        public Map.Entry<Interval, Integer> next() {
+            if (stack.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            Node n = stack.remove(stack.size() - 1);
+            pushLeft(n.right);
+            entry.set(n.i, n.v);
+            return entry;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("Not supported.");
+        }
+    }
+
     private static class Entry implements Map.Entry<Interval, Integer> {
 
         private Interval key;
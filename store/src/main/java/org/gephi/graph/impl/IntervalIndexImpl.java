@@ -15,12 +15,21 @@
  */
 package org.gephi.graph.impl;
 
-import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet;
-import it.unimi.dsi.fastutil.objects.ObjectSet;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
 import org.gephi.graph.api.Element;
 import org.gephi.graph.api.ElementIterable;
 import org.gephi.graph.api.Interval;
+import org.gephi.graph.api.TimeEvent;
+import org.gephi.graph.api.TimeEventIterable;
+import org.gephi.graph.api.TimeEventType;
 import org.gephi.graph.api.types.IntervalMap;
 import org.gephi.graph.api.types.IntervalSet;
 
@@ -91,45 +100,248 @@ public class IntervalIndexImpl<T extends Element> extends TimeIndexImpl<T, Inter
         checkDouble(timestamp);
 
         readLock();
-        ObjectSet<Element> elements = new ObjectOpenHashSet<Element>();
         Interval2IntTreeMap sortedMap = (Interval2IntTreeMap) timestampIndexStore.timeSortedMap;
-        if (!sortedMap.isEmpty()) {
-            for (Integer index : sortedMap.values(timestamp)) {
-                if (index < timestamps.length) {
-                    TimeIndexEntry ts = timestamps[index];
-                    if (ts != null) {
-                        elements.addAll(ts.elementSet);
+        EntryCollector collector = new EntryCollector();
+        sortedMap.forEachOverlapping(timestamp, collector);
+        return getElements(collector.entries);
+    }
+
+    @Override
+    public ElementIterable get(Interval interval) {
+        readLock();
+        Interval2IntTreeMap sortedMap = (Interval2IntTreeMap) timestampIndexStore.timeSortedMap;
+        EntryCollector collector = new EntryCollector();
+        sortedMap.forEachOverlapping(interval, collector);
+        return getElements(collector.entries);
+    }
+
+    @Override
+    public int count(Interval interval) {
+        readLock();
+        try {
+            Interval2IntTreeMap sortedMap = (Interval2IntTreeMap) timestampIndexStore.timeSortedMap;
+            EntryCollector collector = new EntryCollector();
+            sortedMap.forEachOverlapping(interval, collector);
+            return countElements(collector.entries);
+        } finally {
+            readUnlock();
+        }
+    }
+
+    @Override
+    public int[] histogram(double start, double end, int buckets) {
+        checkHistogram(start, end, buckets);
+
+        readLock();
+        try {
+            // Each interval adds one to a range of buckets for each of its
+            // elements, skipping the buckets the element was already counted
+            // in. Intervals come sorted by start, so the buckets an element was
+            // counted in always end at the last one recorded.
+            int[] deltas = new int[buckets + 1];
+            // One plus the last bucket each element was counted in, by store id
+            int[] lastBuckets = new int[0];
+            Object2IntOpenHashMap<Element> elementLastBuckets = null;
+
+            Interval2IntTreeMap sortedMap = (Interval2IntTreeMap) timestampIndexStore.timeSortedMap;
+            Iterator<Map.Entry<Interval, Integer>> itr = sortedMap.sortedIterator();
+            while (itr.hasNext()) {
+                Map.Entry<Interval, Integer> sortedEntry = itr.next();
+                Interval interval = sortedEntry.getKey();
+                if (interval.getLow() > end) {
+                    break;
+                }
+                int index = sortedEntry.getValue();
+                if (interval.getHigh() < start || index >= timestamps.length) {
+                    continue;
+                }
+                TimeIndexEntry entry = timestamps[index];
+                if (entry == null || entry.isEmpty()) {
+                    continue;
+                }
+                int first = getBucket(Math.max(interval.getLow(), start), start, end, buckets);
+                int last = getBucket(Math.min(interval.getHigh(), end), start, end, buckets);
+                if (entry.idSet != null) {
+                    int maxId = entry.idSet.length() - 1;
+                    if (maxId >= lastBuckets.length) {
+                        lastBuckets = Arrays.copyOf(lastBuckets, Math.max(maxId + 1, lastBuckets.length * 2));
+                    }
+                    for (int id = entry.idSet.nextSetBit(0); id >= 0; id = entry.idSet.nextSetBit(id + 1)) {
+                        addBuckets(deltas, lastBuckets, id, first, last);
+                    }
+                } else if (entry.idCount > 0) {
+                    int[] ids = entry.ids;
+                    // Ids are sorted
+                    int maxId = ids[entry.idCount - 1];
+                    if (maxId >= lastBuckets.length) {
+                        lastBuckets = Arrays.copyOf(lastBuckets, Math.max(maxId + 1, lastBuckets.length * 2));
+                    }
+                    for (int i = 0; i < entry.idCount; i++) {
+                        addBuckets(deltas, lastBuckets, ids[i], first, last);
                     }
                 }
+                if (entry.elementSet != null) {
+                    if (elementLastBuckets == null) {
+                        elementLastBuckets = new Object2IntOpenHashMap<Element>();
+                    }
+                    for (Element element : entry.elementSet) {
+                        int from = Math.max(first, elementLastBuckets.getInt(element));
+                        if (from <= last) {
+                            deltas[from]++;
+                            deltas[last + 1]--;
+                            elementLastBuckets.put(element, last + 1);
+                        }
+                    }
+                }
+            }
+
+            int[] result = new int[buckets];
+            int count = 0;
+            for (int i = 0; i < buckets; i++) {
+                count += deltas[i];
+                result[i] = count;
             }
+            return result;
+        } finally {
+            readUnlock();
         }
-        if (!elements.isEmpty()) {
-            return new ElementIterableImpl(new ElementIteratorImpl(elements.iterator()));
+    }
+
+    private static void addBuckets(int[] deltas, int[] lastBuckets, int id, int first, int last) {
+        int from = Math.max(first, lastBuckets[id]);
+        if (from <= last) {
+            deltas[from]++;
+            deltas[last + 1]--;
+            lastBuckets[id] = last + 1;
         }
-        readUnlock();
-        return ElementIterable.EMPTY;
     }
 
     @Override
-    public ElementIterable get(Interval interval) {
-
+    public TimeEventIterable<T> getEvents() {
         readLock();
-        ObjectSet<Element> elements = new ObjectOpenHashSet<Element>();
-        Interval2IntTreeMap sortedMap = (Interval2IntTreeMap) timestampIndexStore.timeSortedMap;
-        if (!sortedMap.isEmpty()) {
-            for (Integer index : sortedMap.values(interval)) {
+        return new TimeEventIterableImpl(new IntervalEventIterator());
+    }
+
+    private class EntryCollector implements Interval2IntTreeMap.IntConsumer {
+
+        private final List<TimeIndexEntry> entries = new ArrayList<TimeIndexEntry>();
+
+        @Override
+        public void accept(int index) {
+            if (index < timestamps.length) {
+                TimeIndexEntry entry = timestamps[index];
+                if (entry != null) {
+                    entries.add(entry);
+                }
+            }
+        }
+    }
+
+    private static class IntervalEntry {
+
+        private final Interval interval;
+        private final EntryIds ids;
+        // Position in the sorted map, to break ties between equal ends
+        private final int position;
+
+        public IntervalEntry(Interval interval, EntryIds ids, int position) {
+            this.interval = interval;
+            this.ids = ids;
+            this.position = position;
+        }
+    }
+
+    /**
+     * Sweeps the intervals by start and end, counting for each element the
+     * number of intervals it's currently in. Elements enter when their count
+     * becomes positive and leave when it's back to zero. Intervals starting at
+     * a given time are processed before the ones ending at the same time so
+     * touching intervals don't generate events.
+     * <p>
+     * Starts are read lazily from the sorted map and started intervals wait in
+     * a heap ordered by end, so only the intervals currently open are held.
+     */
+    private class IntervalEventIterator extends EventIteratorImpl {
+
+        private final Iterator<Map.Entry<Interval, Integer>> sortedEntries;
+        private final PriorityQueue<IntervalEntry> openEntries;
+        private final Int2IntOpenHashMap idCounts = new Int2IntOpenHashMap();
+        private final Object2IntOpenHashMap<Element> elementCounts = new Object2IntOpenHashMap<Element>();
+        private IntervalEntry nextEntry;
+        private int position;
+
+        public IntervalEventIterator() {
+            Interval2IntTreeMap sortedMap = (Interval2IntTreeMap) timestampIndexStore.timeSortedMap;
+            sortedEntries = sortedMap.sortedIterator();
+            openEntries = new PriorityQueue<IntervalEntry>(11, new Comparator<IntervalEntry>() {
+                @Override
+                public int compare(IntervalEntry o1, IntervalEntry o2) {
+                    int cmp = Double.compare(o1.interval.getHigh(), o2.interval.getHigh());
+                    return cmp != 0 ? cmp : (o1.position < o2.position ? -1 : (o1.position == o2.position ? 0 : 1));
+                }
+            });
+            nextEntry = readEntry();
+        }
+
+        private IntervalEntry readEntry() {
+            while (sortedEntries.hasNext()) {
+                Map.Entry<Interval, Integer> entry = sortedEntries.next();
+                int index = entry.getValue();
                 if (index < timestamps.length) {
-                    TimeIndexEntry ts = timestamps[index];
-                    if (ts != null) {
-                        elements.addAll(ts.elementSet);
+                    TimeIndexEntry intervalEntry = timestamps[index];
+                    if (intervalEntry != null && !intervalEntry.isEmpty()) {
+                        return new IntervalEntry(entry.getKey(), new EntryIds(intervalEntry), position++);
                     }
                 }
             }
+            return null;
         }
-        if (!elements.isEmpty()) {
-            return new ElementIterableImpl(new ElementIteratorImpl(elements.iterator()));
+
+        @Override
+        protected boolean fill() {
+            if (nextEntry != null && (openEntries.isEmpty() || nextEntry.interval.getLow() <= openEntries.peek().interval
+                    .getHigh())) {
+                IntervalEntry entry = nextEntry;
+                nextEntry = readEntry();
+                openEntries.add(entry);
+                double time = entry.interval.getLow();
+                EntryIds ids = entry.ids;
+                for (int i = 0; i < ids.length; i++) {
+                    int id = ids.ids[i];
+                    if (idCounts.addTo(id, 1) == 0) {
+                        events.add(new TimeEvent<T>(time, (T) getElement(id), TimeEventType.ENTER));
+                    }
+                }
+                if (ids.elements != null) {
+                    for (Element element : ids.elements) {
+                        if (elementCounts.addTo(element, 1) == 0) {
+                            events.add(new TimeEvent<T>(time, (T) element, TimeEventType.ENTER));
+                        }
+                    }
+                }
+                return true;
+            } else if (!openEntries.isEmpty()) {
+                IntervalEntry entry = openEntries.poll();
+                double time = entry.interval.getHigh();
+                EntryIds ids = entry.ids;
+                for (int i = 0; i < ids.length; i++) {
+                    int id = ids.ids[i];
+                    if (idCounts.addTo(id, -1) == 1) {
+                        idCounts.remove(id);
+                        events.add(new TimeEvent<T>(time, (T) getElement(id), TimeEventType.LEAVE));
+                    }
+                }
+                if (ids.elements != null) {
+                    for (Element element : ids.elements) {
+                        if (elementCounts.addTo(element, -1) == 1) {
+                            elementCounts.removeInt(element);
+                            events.add(new TimeEvent<T>(time, (T) element, TimeEventType.LEAVE));
+                        }
+                    }
+                }
+                return true;
+            }
+            return false;
         }
-        readUnlock();
-        return ElementIterable.EMPTY;
     }
 }
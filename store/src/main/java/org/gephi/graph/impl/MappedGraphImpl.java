@@ -0,0 +1,865 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import org.gephi.graph.api.DirectedSubgraph;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.EdgeIterable;
+import org.gephi.graph.api.Graph;
+import org.gephi.graph.api.GraphModel;
+import org.gephi.graph.api.GraphView;
+import org.gephi.graph.api.Interval;
+import org.gephi.graph.api.Node;
+import org.gephi.graph.api.NodeIterable;
+import org.gephi.graph.api.Subgraph;
+
+/**
+ * Read-only directed graph over a {@link MappedGraphSnapshotImpl}.
+ * <p>
+ * Queries walk the CSR arrays of the mapping and only create flyweights for the
+ * nodes and edges they return. The graph is immutable so locking is a no-op and
+ * all modifications throw an <code>UnsupportedOperationException</code>.
+ * <p>
+ * The package-private undirected queries back {@link MappedUndirectedGraphImpl}
+ * , where a mutual pair of directed edges counts as a single edge as in the
+ * graph store.
+ */
+public class MappedGraphImpl implements DirectedSubgraph {
+
+    static final int ANY = -1;
+    protected final MappedGraphSnapshotImpl snapshot;
+    protected final MappedGraphModelImpl graphModel;
+    // Edge directions, computed on first use
+    private Boolean hasDirected;
+    private Boolean hasUndirected;
+
+    public MappedGraphImpl(MappedGraphSnapshotImpl snapshot, MappedGraphModelImpl graphModel) {
+        this.snapshot = snapshot;
+        this.graphModel = graphModel;
+    }
+
+    @Override
+    public boolean addEdge(Edge edge) {
+        throw new UnsupportedOperationException("Not supported.");
+    }
+
+    @Override
+    public boolean addNode(Node node) {
+        throw new UnsupportedOperationException("Not supported.");
+    }
+
+    @Override
+    public boolean addAllEdges(Collection<? extends Edge> edges) {
+        throw new UnsupportedOperationException("Not supported.");
+    }
+
+    @Override
+    public boolean addAllNodes(Collection<? extends Node> nodes) {
+        throw new UnsupportedOperationException("Not supported.");
+    }
+
+    @Override
+    public boolean removeEdge(Edge edge) {
+        throw new UnsupportedOperationException("Not supported.");
+    }
+
+    @Override
+    public boolean removeNode(Node node) {
+        throw new UnsupportedOperationException("Not supported.");
+    }
+
+    @Override
+    public boolean removeAllEdges(Collection<? extends Edge> edges) {
+        throw new UnsupportedOperationException("Not supported.");
+    }
+
+    @Override
+    public boolean removeAllNodes(Collection<? extends Node> nodes) {
+        throw new UnsupportedOperationException("Not supported.");
+    }
+
+    @Override
+    public boolean contains(Node node) {
+        checkNonNullObject(node);
+        return snapshot.getIndex(node) != -1;
+    }
+
+    @Override
+    public boolean contains(Edge edge) {
+        checkNonNullObject(edge);
+        return snapshot.getIndex(edge) != -1;
+    }
+
+    @Override
+    public Node getNode(Object id) {
+        checkNonNullObject(id);
+        int index = snapshot.getNodeIndex(id);
+        return index != -1 ? snapshot.getNode(index) : null;
+    }
+
+    @Override
+    public boolean hasNode(Object id) {
+        checkNonNullObject(id);
+        return snapshot.getNodeIndex(id) != -1;
+    }
+
+    @Override
+    public Edge getEdge(Object id) {
+        checkNonNullObject(id);
+        int index = snapshot.getEdgeIndex(id);
+        return index != -1 ? snapshot.getEdge(index) : null;
+    }
+
+    @Override
+    public boolean hasEdge(Object id) {
+        checkNonNullObject(id);
+        return snapshot.getEdgeIndex(id) != -1;
+    }
+
+    @Override
+    public Edge getEdge(Node node1, Node node2) {
+        return getEdge(node1, node2, ANY);
+    }
+
+    @Override
+    public EdgeIterable getEdges(Node node1, Node node2) {
+        return getEdges(node1, node2, ANY);
+    }
+
+    @Override
+    public Edge getEdge(Node node1, Node node2, int type) {
+        IncidentCursor cursor = newEdgesBetween(node1, node2, type);
+        return cursor.hasNext() ? snapshot.getEdge(cursor.next()) : null;
+    }
+
+    @Override
+    public EdgeIterable getEdges(Node node1, Node node2, int type) {
+        return new EdgeIterableImpl(new EdgeIterator(newEdgesBetween(node1, node2, type)));
+    }
+
+    @Override
+    public NodeIterable getNodes() {
+        return new NodeIterableImpl(new NodeIterator());
+    }
+
+    @Override
+    public EdgeIterable getEdges() {
+        return new EdgeIterableImpl(new EdgeIterator(new RangeCursor(false, false)));
+    }
+
+    @Override
+    public EdgeIterable getSelfLoops() {
+        return new EdgeIterableImpl(new EdgeIterator(new RangeCursor(true, false)));
+    }
+
+    @Override
+    public NodeIterable getNeighbors(Node node) {
+        return getNeighbors(node, ANY);
+    }
+
+    @Override
+    public NodeIterable getNeighbors(Node node, int type) {
+        int index = checkNode(node);
+        return new NodeIterableImpl(new NeighborIterator(index, new IncidentCursor(index, type, true, true, ANY, false,
+                true)));
+    }
+
+    @Override
+    public EdgeIterable getEdges(Node node) {
+        return getEdges(node, ANY);
+    }
+
+    @Override
+    public EdgeIterable getEdges(Node node, int type) {
+        int index = checkNode(node);
+        return new EdgeIterableImpl(new EdgeIterator(new IncidentCursor(index, type, true, true, ANY, false, false)));
+    }
+
+    @Override
+    public NodeIterable getPredecessors(Node node) {
+        return getPredecessors(node, ANY);
+    }
+
+    @Override
+    public NodeIterable getPredecessors(Node node, int type) {
+        int index = checkNode(node);
+        return new NodeIterableImpl(new NeighborIterator(index, new IncidentCursor(index, type, false, true, ANY,
+                false, false)));
+    }
+
+    @Override
+    public NodeIterable getSuccessors(Node node) {
+        return getSuccessors(node, ANY);
+    }
+
+    @Override
+    public NodeIterable getSuccessors(Node node, int type) {
+        int index = checkNode(node);
+        return new NodeIterableImpl(new NeighborIterator(index, new IncidentCursor(index, type, true, false, ANY,
+                false, false)));
+    }
+
+    @Override
+    public EdgeIterable getInEdges(Node node) {
+        return getInEdges(node, ANY);
+    }
+
+    @Override
+    public EdgeIterable getInEdges(Node node, int type) {
+        int index = checkNode(node);
+        return new EdgeIterableImpl(new EdgeIterator(new IncidentCursor(index, type, false, true, ANY, false, false)));
+    }
+
+    @Override
+    public EdgeIterable getOutEdges(Node node) {
+        return getOutEdges(node, ANY);
+    }
+
+    @Override
+    public EdgeIterable getOutEdges(Node node, int type) {
+        int index = checkNode(node);
+        return new EdgeIterableImpl(new EdgeIterator(new IncidentCursor(index, type, true, false, ANY, false, false)));
+    }
+
+    @Override
+    public Edge getMutualEdge(Edge edge) {
+        int index = checkEdge(edge);
+        int source = snapshot.getSource(index);
+        IncidentCursor cursor = new IncidentCursor(snapshot.getTarget(index), snapshot.getType(index), true, false,
+                source, false, false);
+        return cursor.hasNext() ? snapshot.getEdge(cursor.next()) : null;
+    }
+
+    @Override
+    public int getNodeCount() {
+        return snapshot.getNodeCount();
+    }
+
+    @Override
+    public int getEdgeCount() {
+        return snapshot.getEdgeCount();
+    }
+
+    @Override
+    public int getEdgeCount(int type) {
+        int count = 0;
+        for (int i = 0; i < snapshot.getEdgeCount(); i++) {
+            if (snapshot.getType(i) == type) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public Node getOpposite(Node node, Edge edge) {
+        checkNode(node);
+        checkEdge(edge);
+        return edge.getSource().equals(node) ? edge.getTarget() : edge.getSource();
+    }
+
+    @Override
+    public int getDegree(Node node) {
+        int index = checkNode(node);
+        return snapshot.getInDegree(index) + snapshot.getOutDegree(index);
+    }
+
+    @Override
+    public int getInDegree(Node node) {
+        return snapshot.getInDegree(checkNode(node));
+    }
+
+    @Override
+    public int getOutDegree(Node node) {
+        return snapshot.getOutDegree(checkNode(node));
+    }
+
+    @Override
+    public boolean isSelfLoop(Edge edge) {
+        return edge.isSelfLoop();
+    }
+
+    @Override
+    public boolean isDirected(Edge edge) {
+        return edge.isDirected();
+    }
+
+    @Override
+    public boolean isAdjacent(Node node1, Node node2) {
+        return getEdge(node1, node2) != null;
+    }
+
+    @Override
+    public boolean isAdjacent(Node node1, Node node2, int type) {
+        return getEdge(node1, node2, type) != null;
+    }
+
+    @Override
+    public boolean isIncident(Edge edge1, Edge edge2) {
+        int index1 = checkEdge(edge1);
+        int index2 = checkEdge(edge2);
+        int source1 = snapshot.getSource(index1);
+        int target1 = snapshot.getTarget(index1);
+        int source2 = snapshot.getSource(index2);
+        int target2 = snapshot.getTarget(index2);
+        return source1 == source2 || target1 == target2 || source1 == target2 || target1 == source2;
+    }
+
+    @Override
+    public boolean isIncident(Node node, Edge edge) {
+        int nodeIndex = checkNode(node);
+        int edgeIndex = checkEdge(edge);
+        return snapshot.getSource(edgeIndex) == nodeIndex || snapshot.getTarget(edgeIndex) == nodeIndex;
+    }
+
+    @Override
+    public void clearEdges(Node node) {
+        throw new UnsupportedOperationException("Not supported.");
+    }
+
+    @Override
+    public void clearEdges(Node node, int type) {
+        throw new UnsupportedOperationException("Not supported.");
+    }
+
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException("Not supported.");
+    }
+
+    @Override
+    public void clearEdges() {
+        throw new UnsupportedOperationException("Not supported.");
+    }
+
+    @Override
+    public GraphView getView() {
+        return graphModel.getVisibleView();
+    }
+
+    @Override
+    public Object getAttribute(String key) {
+        return snapshot.store.getAttribute(key);
+    }
+
+    @Override
+    public Object getAttribute(String key, double timestamp) {
+        return snapshot.store.getAttribute(key, timestamp);
+    }
+
+    @Override
+    public Object getAttribute(String key, Interval interval) {
+        return snapshot.store.getAttribute(key, interval);
+    }
+
+    @Override
+    public Set<String> getAttributeKeys() {
+        return snapshot.store.getAttributeKeys();
+    }
+
+    @Override
+    public void setAttribute(String key, Object value) {
+        throw new UnsupportedOperationException("Not supported.");
+    }
+
+    @Override
+    public void setAttribute(String key, Object value, double timestamp) {
+        throw new UnsupportedOperationException("Not supported.");
+    }
+
+    @Override
+    public void setAttribute(String key, Object value, Interval interval) {
+        throw new UnsupportedOperationException("Not supported.");
+    }
+
+    @Override
+    public void removeAttribute(String key) {
+        throw new UnsupportedOperationException("Not supported.");
+    }
+
+    @Override
+    public void removeAttribute(String key, double timestamp) {
+        throw new UnsupportedOperationException("Not supported.");
+    }
+
+    @Override
+    public void removeAttribute(String key, Interval interval) {
+        throw new UnsupportedOperationException("Not supported.");
+    }
+
+    @Override
+    public GraphModel getModel() {
+        return graphModel;
+    }
+
+    @Override
+    public boolean isDirected() {
+        return !hasUndirected();
+    }
+
+    @Override
+    public boolean isUndirected() {
+        return snapshot.getEdgeCount() > 0 && !hasDirected();
+    }
+
+    @Override
+    public boolean isMixed() {
+        return hasDirected() && hasUndirected();
+    }
+
+    @Override
+    public void readLock() {
+        // Immutable
+    }
+
+    @Override
+    public void readUnlock() {
+    }
+
+    @Override
+    public void readUnlockAll() {
+    }
+
+    @Override
+    public void writeLock() {
+        throw new UnsupportedOperationException("Not supported.");
+    }
+
+    @Override
+    public void writeUnlock() {
+        throw new UnsupportedOperationException("Not supported.");
+    }
+
+    @Override
+    public void union(Subgraph subGraph) {
+        throw new UnsupportedOperationException("Not supported.");
+    }
+
+    @Override
+    public void intersection(Subgraph subGraph) {
+        throw new UnsupportedOperationException("Not supported.");
+    }
+
+    @Override
+    public void fill() {
+        throw new UnsupportedOperationException("Not supported.");
+    }
+
+    @Override
+    public void not() {
+        throw new UnsupportedOperationException("Not supported.");
+    }
+
+    @Override
+    public Graph getRootGraph() {
+        return this;
+    }
+
+    EdgeIterable getUndirectedEdges() {
+        return new EdgeIterableImpl(new EdgeIterator(new RangeCursor(false, true)));
+    }
+
+    EdgeIterable getUndirectedEdges(Node node, int type) {
+        int index = checkNode(node);
+        return new EdgeIterableImpl(new EdgeIterator(new IncidentCursor(index, type, true, true, ANY, false, true)));
+    }
+
+    Edge getUndirectedEdge(Node node1, Node node2, int type) {
+        IncidentCursor cursor = newUndirectedEdgesBetween(node1, node2, type, false);
+        return cursor.hasNext() ? snapshot.getEdge(cursor.next()) : null;
+    }
+
+    EdgeIterable getUndirectedEdges(Node node1, Node node2, int type) {
+        return new EdgeIterableImpl(new EdgeIterator(newUndirectedEdgesBetween(node1, node2, type, true)));
+    }
+
+    int getUndirectedEdgeCount(int type) {
+        int count = 0;
+        for (int i = 0; i < snapshot.getEdgeCount(); i++) {
+            if ((type == ANY || snapshot.getType(i) == type) && !isMutualToIgnore(i)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    int getUndirectedDegree(Node node) {
+        int index = checkNode(node);
+        // One edge of each mutual pair is ignored, and is incident to the node
+        int mutual = 0;
+        IncidentCursor cursor = new IncidentCursor(index, ANY, true, true, ANY, false, false);
+        while (cursor.hasNext()) {
+            if (isMutualToIgnore(cursor.next())) {
+                mutual++;
+            }
+        }
+        return snapshot.getInDegree(index) + snapshot.getOutDegree(index) - mutual;
+    }
+
+    private synchronized boolean hasDirected() {
+        if (hasDirected == null) {
+            countDirections();
+        }
+        return hasDirected;
+    }
+
+    private synchronized boolean hasUndirected() {
+        if (hasUndirected == null) {
+            countDirections();
+        }
+        return hasUndirected;
+    }
+
+    private void countDirections() {
+        boolean directed = false;
+        boolean undirected = false;
+        for (int i = 0; i < snapshot.getEdgeCount() && !(directed && undirected); i++) {
+            if (snapshot.isDirected(i)) {
+                directed = true;
+            } else {
+                undirected = true;
+            }
+        }
+        hasDirected = directed;
+        hasUndirected = undirected;
+    }
+
+    private IncidentCursor newEdgesBetween(Node node1, Node node2, int type) {
+        int index1 = checkNode(node1);
+        int index2 = checkNode(node2);
+        // Undirected edges are found from both endpoints
+        return new IncidentCursor(index1, type, true, true, index2, true, false);
+    }
+
+    private IncidentCursor newUndirectedEdgesBetween(Node node1, Node node2, int type, boolean skipMutual) {
+        int index1 = checkNode(node1);
+        int index2 = checkNode(node2);
+        // Directed edges are found from both endpoints
+        return new IncidentCursor(index1, type, true, true, index2, false, skipMutual);
+    }
+
+    private int checkNode(Node node) {
+        checkNonNullObject(node);
+        int index = snapshot.getIndex(node);
+        if (index == -1) {
+            throw new IllegalArgumentException("The node isn't part of this snapshot");
+        }
+        return index;
+    }
+
+    /**
+     * Returns true if <code>edge</code> is the first of a mutual pair, so that
+     * the pair yields a single neighbor as in the graph store.
+     */
+    private boolean isMutualToIgnore(int edge) {
+        int source = snapshot.getSource(edge);
+        int target = snapshot.getTarget(edge);
+        if (source >= target || !snapshot.isDirected(edge)) {
+            return false;
+        }
+        int type = snapshot.getType(edge);
+        for (int i = 0; i < snapshot.getOutDegree(target); i++) {
+            int reverse = snapshot.getOutEdge(target, i);
+            if (snapshot.getTarget(reverse) == source && snapshot.getType(reverse) == type && snapshot
+                    .isDirected(reverse)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int checkEdge(Edge edge) {
+        checkNonNullObject(edge);
+        int index = snapshot.getIndex(edge);
+        if (index == -1) {
+            throw new IllegalArgumentException("The edge isn't part of this snapshot");
+        }
+        return index;
+    }
+
+    private static void checkNonNullObject(Object o) {
+        if (o == null) {
+            throw new NullPointerException();
+        }
+    }
+
+    /**
+     * Iterates over all edge indexes, or only the self-loops, optionally
+     * skipping the first edge of mutual pairs.
+     */
+    private final class RangeCursor implements Cursor {
+
+        private final boolean selfLoops;
+        private final boolean skipMutual;
+        private int index = -1;
+        private int nextIndex = -1;
+
+        private RangeCursor(boolean selfLoops, boolean skipMutual) {
+            this.selfLoops = selfLoops;
+            this.skipMutual = skipMutual;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (nextIndex == -1) {
+                for (int i = index + 1; i < snapshot.getEdgeCount(); i++) {
+                    if ((!selfLoops || snapshot.getSource(i) == snapshot.getTarget(i)) && (!skipMutual || !isMutualToIgnore(i))) {
+                        nextIndex = i;
+                        break;
+                    }
+                }
+            }
+            return nextIndex != -1;
+        }
+
+        @Override
+        public int next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            index = nextIndex;
+            nextIndex = -1;
+            return index;
+        }
+    }
+
+    /**
+     * Iterates over the indexes of the out-edges then in-edges of a node,
+     * optionally only of a given type or towards a given opposite node.
+     * Self-loops are only returned once.
+     */
+    private final class IncidentCursor implements Cursor {
+
+        private final int node;
+        private final int type;
+        private final boolean out;
+        private final boolean in;
+        private final int opposite;
+        private final boolean inUndirectedOnly;
+        private final boolean skipMutual;
+        private boolean inPhase;
+        private int position = -1;
+        private int nextIndex = -1;
+
+        private IncidentCursor(int node, int type, boolean out, boolean in, int opposite, boolean inUndirectedOnly, boolean skipMutual) {
+            this.node = node;
+            this.type = type;
+            this.out = out;
+            this.in = in;
+            this.opposite = opposite;
+            this.inUndirectedOnly = inUndirectedOnly;
+            this.skipMutual = skipMutual;
+            this.inPhase = !out;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (nextIndex == -1) {
+                position++;
+                if (!inPhase) {
+                    if (position < snapshot.getOutDegree(node)) {
+                        int edge = snapshot.getOutEdge(node, position);
+                        if (accept(edge, snapshot.getTarget(edge))) {
+                            nextIndex = edge;
+                        }
+                    } else if (in) {
+                        inPhase = true;
+                        position = -1;
+                    } else {
+                        return false;
+                    }
+                } else if (position < snapshot.getInDegree(node)) {
+                    int edge = snapshot.getInEdge(node, position);
+                    int source = snapshot.getSource(edge);
+                    if ((!out || source != node) && (!inUndirectedOnly || !snapshot.isDirected(edge)) && accept(edge, source)) {
+                        nextIndex = edge;
+                    }
+                } else {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean accept(int edge, int other) {
+            return (type == ANY || snapshot.getType(edge) == type) && (opposite == ANY || other == opposite) && (!skipMutual || !isMutualToIgnore(edge));
+        }
+
+        @Override
+        public int next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            int index = nextIndex;
+            nextIndex = -1;
+            return index;
+        }
+    }
+
+    private interface Cursor {
+
+        boolean hasNext();
+
+        int next();
+    }
+
+    private final class NodeIterator implements Iterator<Node> {
+
+        private int index;
+
+        @Override
+        public boolean hasNext() {
+            return index < snapshot.getNodeCount();
+        }
+
+        @Override
+        public Node next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return snapshot.getNode(index++);
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("Not supported.");
+        }
+    }
+
+    private final class EdgeIterator implements Iterator<Edge> {
+
+        private final Cursor cursor;
+
+        private EdgeIterator(Cursor cursor) {
+            this.cursor = cursor;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return cursor.hasNext();
+        }
+
+        @Override
+        public Edge next() {
+            return snapshot.getEdge(cursor.next());
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("Not supported.");
+        }
+    }
+
+    private final class NeighborIterator implements Iterator<Node> {
+
+        private final int node;
+        private final IncidentCursor cursor;
+
+        private NeighborIterator(int node, IncidentCursor cursor) {
+            this.node = node;
+            this.cursor = cursor;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return cursor.hasNext();
+        }
+
+        @Override
+        public Node next() {
+            int edge = cursor.next();
+            int source = snapshot.getSource(edge);
+            return snapshot.getNode(source == node ? snapshot.getTarget(edge) : source);
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("Not supported.");
+        }
+    }
+
+    private static final class NodeIterableImpl implements NodeIterable {
+
+        private final Iterator<Node> iterator;
+
+        private NodeIterableImpl(Iterator<Node> iterator) {
+            this.iterator = iterator;
+        }
+
+        @Override
+        public Iterator<Node> iterator() {
+            return iterator;
+        }
+
+        @Override
+        public Node[] toArray() {
+            return toCollection().toArray(new Node[0]);
+        }
+
+        @Override
+        public Collection<Node> toCollection() {
+            List<Node> list = new ArrayList<Node>();
+            for (; iterator.hasNext();) {
+                list.add(iterator.next());
+            }
+            return list;
+        }
+
+        @Override
+        public void doBreak() {
+            // No lock to release
+        }
+    }
+
+    private static final class EdgeIterableImpl implements EdgeIterable {
+
+        private final Iterator<Edge> iterator;
+
+        private EdgeIterableImpl(Iterator<Edge> iterator) {
+            this.iterator = iterator;
+        }
+
+        @Override
+        public Iterator<Edge> iterator() {
+            return iterator;
+        }
+
+        @Override
+        public Edge[] toArray() {
+            return toCollection().toArray(new Edge[0]);
+        }
+
+        @Override
+        public Collection<Edge> toCollection() {
+            List<Edge> list = new ArrayList<Edge>();
+            for (; iterator.hasNext();) {
+                list.add(iterator.next());
+            }
+            return list;
+        }
+
+        @Override
+        public void doBreak() {
+            // No lock to release
+        }
+    }
+}
@@ -0,0 +1,422 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import java.util.concurrent.Executor;
+import org.gephi.graph.api.Configuration;
+import org.gephi.graph.api.DegreeIndex;
+import org.gephi.graph.api.DirectedGraph;
+import org.gephi.graph.api.DirectedSubgraph;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.Estimator;
+import org.gephi.graph.api.Graph;
+import org.gephi.graph.api.GraphBridge;
+import org.gephi.graph.api.GraphChangeListener;
+import org.gephi.graph.api.GraphFactory;
+import org.gephi.graph.api.GraphModel;
+import org.gephi.graph.api.GraphObserver;
+import org.gephi.graph.api.GraphSnapshot;
+import org.gephi.graph.api.GraphView;
+import org.gephi.graph.api.Index;
+import org.gephi.graph.api.Interval;
+import org.gephi.graph.api.Node;
+import org.gephi.graph.api.PropertiesObserver;
+import org.gephi.graph.api.Subgraph;
+import org.gephi.graph.api.Table;
+import org.gephi.graph.api.TimeFormat;
+import org.gephi.graph.api.TimeIndex;
+import org.gephi.graph.api.UndirectedGraph;
+import org.gephi.graph.api.UndirectedSubgraph;
+import org.joda.time.DateTimeZone;
+
+/**
+ * Read-only graph model over a {@link MappedGraphSnapshotImpl}.
+ * <p>
+ * The graph and the indexes decode the mapping on access. Only the main view
+ * exists and is accepted wherever a view is expected, other views, time
+ * indexes, observers and any modification aren't supported.
+ */
+public class MappedGraphModelImpl implements GraphModel {
+
+    protected final MappedGraphSnapshotImpl snapshot;
+    protected final GraphStore store;
+    protected final MappedGraphImpl graph;
+    protected final MappedUndirectedGraphImpl undirectedGraph;
+    protected final MappedIndexImpl<Node> nodeIndex;
+    protected final MappedIndexImpl<Edge> edgeIndex;
+    protected final MainView mainView;
+
+    public MappedGraphModelImpl(MappedGraphSnapshotImpl snapshot) {
+        this.snapshot = snapshot;
+        this.store = snapshot.store;
+        this.graph = new MappedGraphImpl(snapshot, this);
+        this.undirectedGraph = new MappedUndirectedGraphImpl(graph);
+        this.nodeIndex = new MappedIndexImpl<Node>(snapshot, Node.class);
+        this.edgeIndex = new MappedIndexImpl<Edge>(snapshot, Edge.class);
+        this.mainView = new MainView();
+    }
+
+    @Override
+    public GraphFactory factory() {
+        throw new UnsupportedOperationException("Not supported.");
+    }
+
+    @Override
+    public GraphBridge bridge() {
+        throw new UnsupportedOperationException("Not supported.");
+    }
+
+    @Override
+    public Graph getGraph() {
+        return graph;
+    }
+
+    @Override
+    public Graph getGraphVisible() {
+        return graph;
+    }
+
+    @Override
+    public Subgraph getGraph(GraphView view) {
+        checkView(view);
+        if (graph.isUndirected()) {
+            return undirectedGraph;
+        }
+        return graph;
+    }
+
+    @Override
+    public DirectedGraph getDirectedGraph() {
+        return graph;
+    }
+
+    @Override
+    public DirectedGraph getDirectedGraphVisible() {
+        return graph;
+    }
+
+    @Override
+    public UndirectedGraph getUndirectedGraph() {
+        return undirectedGraph;
+    }
+
+    @Override
+    public UndirectedGraph getUndirectedGraphVisible() {
+        return undirectedGraph;
+    }
+
+    @Override
+    public DirectedSubgraph getDirectedGraph(GraphView view) {
+        checkView(view);
+        return graph;
+    }
+
+    @Override
+    public UndirectedSubgraph getUndirectedGraph(GraphView view) {
+        checkView(view);
+        return undirectedGraph;
+    }
+
+    @Override
+    public GraphView getVisibleView() {
+        return mainView;
+    }
+
+    @Override
+    public void setVisibleView(GraphView view) {
+        throw new UnsupportedOperationException("Not supported.");
+    }
+
+    @Override
+    public int addEdgeType(Object label) {
+        throw new UnsupportedOperationException("Not supported.");
+    }
+
+    @Override
+    public int getEdgeType(Object label) {
+        return store.edgeTypeStore.getId(label);
+    }
+
+    @Override
+    public Object getEdgeTypeLabel(int id) {
+        return store.edgeTypeStore.getLabel(id);
+    }
+
+    @Override
+    public int getEdgeTypeCount() {
+        return store.edgeTypeStore.size();
+    }
+
+    @Override
+    public int[] getEdgeTypes() {
+        return store.edgeTypeStore.getIdsAsInts();
+    }
+
+    @Override
+    public Object[] getEdgeTypeLabels() {
+        return store.edgeTypeStore.getLabels();
+    }
+
+    @Override
+    public boolean isDirected() {
+        return graph.isDirected();
+    }
+
+    @Override
+    public boolean isUndirected() {
+        return graph.isUndirected();
+    }
+
+    @Override
+    public boolean isMixed() {
+        return graph.isMixed();
+    }
+
+    @Override
+    public boolean isDynamic() {
+        return !store.timeStore.isEmpty();
+    }
+
+    @Override
+    public boolean isMultiGraph() {
+        return store.edgeTypeStore.size() > 1;
+    }
+
+    @Override
+    public GraphView createView() {
+        throw new UnsupportedOperationException("Not supported.");
+    }
+
+    @Override
+    public GraphView createView(boolean node, boolean edge) {
+        throw new UnsupportedOperationException("Not supported.");
+    }
+
+    @Override
+    public GraphView copyView(GraphView view) {
+        throw new UnsupportedOperationException("Not supported.");
+    }
+
+    @Override
+    public GraphView copyView(GraphView view, boolean node, boolean edge) {
+        throw new UnsupportedOperationException("Not supported.");
+    }
+
+    @Override
+    public void destroyView(GraphView view) {
+        throw new UnsupportedOperationException("Not supported.");
+    }
+
+    @Override
+    public void setTimeInterval(GraphView view, Interval interval) {
+        throw new UnsupportedOperationException("Not supported.");
+    }
+
+    @Override
+    public Table getNodeTable() {
+        return store.nodeTable;
+    }
+
+    @Override
+    public Table getEdgeTable() {
+        return store.edgeTable;
+    }
+
+    @Override
+    public Index<Node> getNodeIndex() {
+        return nodeIndex;
+    }
+
+    @Override
+    public Index<Node> getNodeIndex(GraphView view) {
+        checkView(view);
+        return nodeIndex;
+    }
+
+    @Override
+    public Index<Edge> getEdgeIndex() {
+        return edgeIndex;
+    }
+
+    @Override
+    public Index<Edge> getEdgeIndex(GraphView view) {
+        checkView(view);
+        return edgeIndex;
+    }
+
+    @Override
+    public TimeIndex<Node> getNodeTimeIndex() {
+        throw new UnsupportedOperationException("Not supported.");
+    }
+
+    @Override
+    public TimeIndex<Node> getNodeTimeIndex(GraphView view) {
+        throw new UnsupportedOperationException("Not supported.");
+    }
+
+    @Override
+    public TimeIndex<Edge> getEdgeTimeIndex() {
+        throw new UnsupportedOperationException("Not supported.");
+    }
+
+    @Override
+    public TimeIndex<Edge> getEdgeTimeIndex(GraphView view) {
+        throw new UnsupportedOperationException("Not supported.");
+    }
+
+    @Override
+    public DegreeIndex getDegreeIndex() {
+        throw new UnsupportedOperationException("Not supported.");
+    }
+
+    @Override
+    public DegreeIndex getDegreeIndex(GraphView view) {
+        throw new UnsupportedOperationException("Not supported.");
+    }
+
+    @Override
+    public GraphSnapshot snapshotAt(double timestamp) {
+        throw new UnsupportedOperationException("Not supported.");
+    }
+
+    @Override
+    public GraphSnapshot snapshotOver(Interval interval, Estimator estimator) {
+        throw new UnsupportedOperationException("Not supported.");
+    }
+
+    @Override
+    public Interval getTimeBounds() {
+        return snapshot.getInterval();
+    }
+
+    @Override
+    public Interval getTimeBoundsVisible() {
+        return snapshot.getInterval();
+    }
+
+    @Override
+    public Interval getTimeBounds(GraphView view) {
+        checkView(view);
+        return snapshot.getInterval();
+    }
+
+    @Override
+    public GraphObserver createGraphObserver(Graph graph, boolean withGraphDiff) {
+        throw new UnsupportedOperationException("Not supported.");
+    }
+
+    @Override
+    public PropertiesObserver createPropertiesObserver() {
+        throw new UnsupportedOperationException("Not supported.");
+    }
+
+    @Override
+    public void addGraphChangeListener(Graph graph, GraphChangeListener listener) {
+        throw new UnsupportedOperationException("Not supported.");
+    }
+
+    @Override
+    public void addGraphChangeListener(Graph graph, GraphChangeListener listener, Executor executor) {
+        throw new UnsupportedOperationException("Not supported.");
+    }
+
+    @Override
+    public void removeGraphChangeListener(GraphChangeListener listener) {
+        throw new UnsupportedOperationException("Not supported.");
+    }
+
+    @Override
+    public TimeFormat getTimeFormat() {
+        return store.timeFormat;
+    }
+
+    @Override
+    public void setTimeFormat(TimeFormat timeFormat) {
+        throw new UnsupportedOperationException("Not supported.");
+    }
+
+    @Override
+    public DateTimeZone getTimeZone() {
+        return store.timeZone;
+    }
+
+    @Override
+    public void setTimeZone(DateTimeZone timeZone) {
+        throw new UnsupportedOperationException("Not supported.");
+    }
+
+    @Override
+    public Configuration getConfiguration() {
+        return store.configuration.copy();
+    }
+
+    @Override
+    public void setConfiguration(Configuration configuration) {
+        throw new UnsupportedOperationException("Not supported.");
+    }
+
+    @Override
+    public int getMaxNodeStoreId() {
+        return snapshot.getNodeCount();
+    }
+
+    @Override
+    public int getMaxEdgeStoreId() {
+        return snapshot.getEdgeCount();
+    }
+
+    private void checkView(GraphView view) {
+        if (view == null) {
+            throw new NullPointerException();
+        }
+        if (view != mainView) {
+            throw new UnsupportedOperationException("Not supported.");
+        }
+    }
+
+    protected final class MainView implements GraphView {
+
+        @Override
+        public GraphModel getGraphModel() {
+            return MappedGraphModelImpl.this;
+        }
+
+        @Override
+        public boolean isMainView() {
+            return true;
+        }
+
+        @Override
+        public boolean isNodeView() {
+            return true;
+        }
+
+        @Override
+        public boolean isEdgeView() {
+            return true;
+        }
+
+        @Override
+        public Interval getTimeInterval() {
+            return snapshot.getInterval();
+        }
+
+        @Override
+        public boolean isDestroyed() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,958 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import it.unimi.dsi.fastutil.HashCommon;
+import it.unimi.dsi.fastutil.doubles.DoubleArrays;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenCustomHashMap;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import org.gephi.graph.api.Column;
+import org.gephi.graph.api.Configuration;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.Estimator;
+import org.gephi.graph.api.GraphModel;
+import org.gephi.graph.api.GraphSnapshot;
+import org.gephi.graph.api.Interval;
+import org.gephi.graph.api.Node;
+import org.gephi.graph.api.Table;
+import org.gephi.graph.api.types.TimeKeysPool;
+import org.gephi.graph.impl.utils.DataInputOutput;
+import org.gephi.graph.impl.utils.MappedBuffer;
+
+/**
+ * Read-only graph snapshot backed by a memory-mapped file.
+ * <p>
+ * The file contains the snapshot's topology as CSR arrays, the node and edge
+ * ids with a hash table to find them and the resolved column values, primitive
+ * columns as raw arrays followed by a bitmap of the set values if some aren't.
+ * Opening it only reads the tables and the section offsets, everything else is
+ * decoded from the mapping when accessed so the file is shared through the OS
+ * page cache. Files larger than 2GB are mapped in several segments.
+ * <p>
+ * Nodes and edges are flyweights created on access, with their attributes and
+ * degrees read from the mapping. Their store id is their index in the snapshot.
+ * They shouldn't be modified.
+ * <p>
+ * The snapshot can also be read through a read-only {@link GraphModel}, see
+ * {@link #getGraphModel() }.
+ */
+public class MappedGraphSnapshotImpl implements GraphSnapshot {
+
+    final static int MAGIC = 0x47534D53;
+    // Value kinds
+    final static int OBJECT = 0;
+    final static int DOUBLE = 1;
+    final static int FLOAT = 2;
+    final static int LONG = 3;
+    final static int INTEGER = 4;
+    final static int SHORT = 5;
+    final static int BYTE = 6;
+    final static int BOOLEAN = 7;
+    final static int CHAR = 8;
+
+    protected final GraphStore store;
+    protected final Interval interval;
+    protected final Estimator estimator;
+    protected final MappedBuffer buffer;
+    protected final float version;
+    protected final int nodeCount;
+    protected final int edgeCount;
+    // Topology
+    protected final long sources;
+    protected final long targets;
+    protected final long types;
+    protected final long directed;
+    protected final long outOffsets;
+    protected final long outEdges;
+    protected final long inOffsets;
+    protected final long inEdges;
+    // Ids
+    protected final ObjectSection nodeIds;
+    protected final IdTable nodeIdTable;
+    protected final ObjectSection edgeIds;
+    protected final IdTable edgeIdTable;
+    // Columns, by column index
+    protected final ColumnSection[] nodeColumns;
+    protected final ColumnSection[] edgeColumns;
+    // Read position while opening
+    private long position;
+    // Read-only model
+    private MappedGraphModelImpl graphModel;
+
+    protected MappedGraphSnapshotImpl(MappedBuffer buffer) throws IOException, ClassNotFoundException {
+        this.buffer = buffer;
+        try {
+            if (readInt() != MAGIC) {
+                throw new IOException("Not a graph snapshot");
+            }
+            version = Float.intBitsToFloat(readInt());
+            if (version < 0.91f || version > Serialization.VERSION) {
+                throw new IOException("Unsupported version: " + version);
+            }
+
+            // Tables
+            byte[] header = new byte[checkCount(readInt())];
+            buffer.get(skip(header.length, 1), header);
+            Serialization serialization = newSerialization(version);
+            DataInputOutput is = new DataInputOutput(header);
+            Configuration config = (Configuration) serialization.deserialize(is);
+            GraphModelImpl model = new GraphModelImpl(config);
+            serialization.model = model;
+            serialization.deserializeGraphStoreHeader(is);
+            store = model.store;
+            interval = (Interval) serialization.deserialize(is);
+            estimator = (Estimator) serialization.deserialize(is);
+
+            // Topology
+            nodeCount = checkCount(readInt());
+            edgeCount = checkCount(readInt());
+            sources = skip(edgeCount, 4);
+            targets = skip(edgeCount, 4);
+            types = skip(edgeCount, 4);
+            directed = skip(edgeCount, 1);
+            outOffsets = skip(nodeCount + 1L, 4);
+            outEdges = skip(edgeCount, 4);
+            inOffsets = skip(nodeCount + 1L, 4);
+            inEdges = skip(edgeCount, 4);
+
+            // Ids and columns
+            nodeIds = readObjectSection(nodeCount);
+            nodeIdTable = readIdTable(nodeIds, nodeCount);
+            edgeIds = readObjectSection(edgeCount);
+            edgeIdTable = readIdTable(edgeIds, edgeCount);
+            nodeColumns = readColumnSections(store.nodeTable, nodeCount);
+            edgeColumns = readColumnSections(store.edgeTable, edgeCount);
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException("The snapshot is truncated");
+        }
+    }
+
+    /**
+     * Maps <code>file</code> and returns the snapshot it contains.
+     *
+     * @param file file to map
+     * @return mapped snapshot
+     * @throws IOException if an io error occurs or if the file isn't a valid
+     *         snapshot
+     * @throws ClassNotFoundException if a table can't be deserialized
+     */
+    public static MappedGraphSnapshotImpl map(File file) throws IOException, ClassNotFoundException {
+        return map(file, MappedBuffer.DEFAULT_SEGMENT_SIZE);
+    }
+
+    static MappedGraphSnapshotImpl map(File file, int segmentSize) throws IOException, ClassNotFoundException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            // The mapping remains valid once the channel is closed
+            return new MappedGraphSnapshotImpl(MappedBuffer.map(raf.getChannel(), segmentSize));
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * Writes <code>snapshot</code> in the format read by
+     * {@link #map(java.io.File) }.
+     *
+     * @param out output to write to
+     * @param snapshot snapshot to write
+     * @throws IOException if an io error occurs
+     */
+    public static void serialize(DataOutput out, GraphSnapshotImpl snapshot) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeFloat(Serialization.VERSION);
+
+        // Tables
+        GraphStore store = snapshot.store;
+        Serialization serialization = newSerialization(Serialization.VERSION);
+        serialization.model = store.graphModel;
+        serialization.writtenTimeKeys = new Object2IntOpenCustomHashMap<double[]>(DoubleArrays.HASH_STRATEGY);
+        serialization.writtenTimeKeys.defaultReturnValue(Serialization.NULL_ID);
+        DataInputOutput header = new DataInputOutput();
+        store.autoReadLock();
+        try {
+            serialization.serialize(header, store.configuration);
+            serialization.serializeGraphStoreHeader(header, store);
+        } finally {
+            store.autoReadUnlock();
+        }
+        serialization.serialize(header, snapshot.interval);
+        serialization.serialize(header, snapshot.estimator);
+        out.writeInt(header.getPos());
+        out.write(header.getBuf(), 0, header.getPos());
+
+        // Topology
+        EdgeImpl[] edges = snapshot.edges;
+        out.writeInt(snapshot.nodes.length);
+        out.writeInt(edges.length);
+        writeInts(out, snapshot.sources);
+        writeInts(out, snapshot.targets);
+        for (EdgeImpl edge : edges) {
+            out.writeInt(edge.type);
+        }
+        for (EdgeImpl edge : edges) {
+            out.writeBoolean(edge.isDirected());
+        }
+        writeInts(out, snapshot.outOffsets);
+        writeInts(out, snapshot.outEdges);
+        writeInts(out, snapshot.inOffsets);
+        writeInts(out, snapshot.inEdges);
+
+        // Ids and columns
+        Object[] ids = new Object[snapshot.nodes.length];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = snapshot.nodes[i].getId();
+        }
+        writeObjects(out, ids);
+        writeIdTable(out, ids);
+        ids = new Object[edges.length];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = edges[i].getId();
+        }
+        writeObjects(out, ids);
+        writeIdTable(out, ids);
+        writeColumns(out, snapshot.nodeColumns, snapshot.nodeValues, snapshot.nodePresence);
+        writeColumns(out, snapshot.edgeColumns, snapshot.edgeValues, snapshot.edgePresence);
+    }
+
+    /**
+     * Returns a read-only graph model over this snapshot.
+     * <p>
+     * Its graph and indexes query the mapping directly and return the same
+     * flyweights as this snapshot. Operations modifying the model, views, time
+     * indexes and observers aren't supported.
+     *
+     * @return read-only graph model
+     */
+    public synchronized GraphModel getGraphModel() {
+        if (graphModel == null) {
+            graphModel = new MappedGraphModelImpl(this);
+        }
+        return graphModel;
+    }
+
+    @Override
+    public Interval getInterval() {
+        return interval;
+    }
+
+    @Override
+    public Estimator getEstimator() {
+        return estimator;
+    }
+
+    @Override
+    public Table getNodeTable() {
+        return store.nodeTable;
+    }
+
+    @Override
+    public Table getEdgeTable() {
+        return store.edgeTable;
+    }
+
+    @Override
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    @Override
+    public int getEdgeCount() {
+        return edgeCount;
+    }
+
+    @Override
+    public Node getNode(int index) {
+        checkIndex(index, nodeCount);
+        NodeImpl node = new NodeImpl(nodeIds.get(index), store);
+        node.storeId = index;
+        node.outDegree = getOutDegree(index);
+        node.inDegree = getInDegree(index);
+        node.attributes = readAttributes(nodeColumns, index, node.attributes);
+        return node;
+    }
+
+    @Override
+    public Edge getEdge(int index) {
+        checkIndex(index, edgeCount);
+        NodeImpl source = (NodeImpl) getNode(getSource(index));
+        int targetIndex = getTarget(index);
+        NodeImpl target = targetIndex == source.storeId ? source : (NodeImpl) getNode(targetIndex);
+        EdgeImpl edge = new EdgeImpl(edgeIds.get(index), store, source, target, getType(index), getWeight(index),
+                isDirected(index));
+        edge.storeId = index;
+        edge.attributes = readAttributes(edgeColumns, index, edge.attributes);
+        return edge;
+    }
+
+    @Override
+    public int getIndex(Node node) {
+        NodeImpl nodeImpl = (NodeImpl) node;
+        if (nodeImpl.graphStore == store) {
+            // Flyweight of this snapshot
+            return nodeImpl.storeId;
+        }
+        return getNodeIndex(node.getId());
+    }
+
+    @Override
+    public int getIndex(Edge edge) {
+        EdgeImpl edgeImpl = (EdgeImpl) edge;
+        if (edgeImpl.graphStore == store) {
+            return edgeImpl.storeId;
+        }
+        return getEdgeIndex(edge.getId());
+    }
+
+    /**
+     * Returns the index of the node with the given id.
+     *
+     * @param id node id
+     * @return node index, or -1 if there's no such node
+     */
+    public int getNodeIndex(Object id) {
+        return nodeIdTable.get(id);
+    }
+
+    /**
+     * Returns the index of the edge with the given id.
+     *
+     * @param id edge id
+     * @return edge index, or -1 if there's no such edge
+     */
+    public int getEdgeIndex(Object id) {
+        return edgeIdTable.get(id);
+    }
+
+    @Override
+    public int getSource(int edgeIndex) {
+        checkIndex(edgeIndex, edgeCount);
+        return buffer.getInt(sources + edgeIndex * 4L);
+    }
+
+    @Override
+    public int getTarget(int edgeIndex) {
+        checkIndex(edgeIndex, edgeCount);
+        return buffer.getInt(targets + edgeIndex * 4L);
+    }
+
+    /**
+     * Returns the type of the given edge.
+     *
+     * @param edgeIndex edge index
+     * @return edge type
+     */
+    public int getType(int edgeIndex) {
+        checkIndex(edgeIndex, edgeCount);
+        return buffer.getInt(types + edgeIndex * 4L);
+    }
+
+    /**
+     * Returns true if the given edge is directed.
+     *
+     * @param edgeIndex edge index
+     * @return true if directed, false otherwise
+     */
+    public boolean isDirected(int edgeIndex) {
+        checkIndex(edgeIndex, edgeCount);
+        return buffer.get(directed + edgeIndex) != 0;
+    }
+
+    @Override
+    public double getWeight(int edgeIndex) {
+        checkIndex(edgeIndex, edgeCount);
+        if (GraphStoreConfiguration.EDGE_WEIGHT_INDEX < edgeColumns.length) {
+            ColumnSection weights = edgeColumns[GraphStoreConfiguration.EDGE_WEIGHT_INDEX];
+            if (weights != null && weights.kind == DOUBLE) {
+                return buffer.getDouble(weights.position + edgeIndex * 8L);
+            }
+        }
+        return GraphStoreConfiguration.DEFAULT_EDGE_WEIGHT;
+    }
+
+    @Override
+    public int getOutDegree(int nodeIndex) {
+        checkIndex(nodeIndex, nodeCount);
+        return buffer.getInt(outOffsets + (nodeIndex + 1) * 4L) - buffer.getInt(outOffsets + nodeIndex * 4L);
+    }
+
+    @Override
+    public int getInDegree(int nodeIndex) {
+        checkIndex(nodeIndex, nodeCount);
+        return buffer.getInt(inOffsets + (nodeIndex + 1) * 4L) - buffer.getInt(inOffsets + nodeIndex * 4L);
+    }
+
+    @Override
+    public int getOutEdge(int nodeIndex, int i) {
+        checkIndex(i, getOutDegree(nodeIndex));
+        return buffer.getInt(outEdges + ((long) buffer.getInt(outOffsets + nodeIndex * 4L) + i) * 4L);
+    }
+
+    @Override
+    public int getInEdge(int nodeIndex, int i) {
+        checkIndex(i, getInDegree(nodeIndex));
+        return buffer.getInt(inEdges + ((long) buffer.getInt(inOffsets + nodeIndex * 4L) + i) * 4L);
+    }
+
+    @Override
+    public Object getValues(Column column) {
+        return getColumnSection(column).getValues();
+    }
+
+    @Override
+    public Object getAttribute(Column column, int index) {
+        return getColumnSection(column).get(index);
+    }
+
+    ColumnSection getColumnSection(Column column) {
+        int index = column.getIndex();
+        if (index >= 0 && index < nodeColumns.length && nodeColumns[index] != null && nodeColumns[index].column == column) {
+            return nodeColumns[index];
+        } else if (index >= 0 && index < edgeColumns.length && edgeColumns[index] != null && edgeColumns[index].column == column) {
+            return edgeColumns[index];
+        }
+        throw new IllegalArgumentException("The column '" + column.getId() + "' isn't part of this snapshot");
+    }
+
+    private static Object[] readAttributes(ColumnSection[] sections, int index, Object[] attributes) {
+        Object[] values = Arrays.copyOf(attributes, Math.max(attributes.length, sections.length));
+        for (int i = 0; i < sections.length; i++) {
+            // The id is already decoded
+            if (sections[i] != null && i != GraphStoreConfiguration.ELEMENT_ID_INDEX) {
+                values[i] = sections[i].get(index);
+            }
+        }
+        return values;
+    }
+
+    private int readInt() {
+        return buffer.getInt(skip(1, 4));
+    }
+
+    private long skip(long count, int size) {
+        long start = position;
+        long end = start + count * size;
+        if (end > buffer.size()) {
+            throw new IndexOutOfBoundsException("Position: " + end + ", Size: " + buffer.size());
+        }
+        position = end;
+        return start;
+    }
+
+    private ObjectSection readObjectSection(int count) throws IOException {
+        long offsets = skip(count + 1L, 8);
+        long length = buffer.getLong(offsets + count * 8L);
+        if (length < 0) {
+            throw new IOException("Invalid length: " + length);
+        }
+        return new ObjectSection(offsets, skip(length, 1));
+    }
+
+    private IdTable readIdTable(ObjectSection ids, int count) throws IOException {
+        int size = checkCount(readInt());
+        if (Integer.bitCount(size) != 1 || size < count) {
+            throw new IOException("Invalid id table size: " + size);
+        }
+        return new IdTable(ids, skip(size, 4), size - 1);
+    }
+
+    private ColumnSection[] readColumnSections(TableImpl table, int count) throws IOException {
+        int columnsCount = checkCount(readInt());
+        ColumnSection[] sections = new ColumnSection[0];
+        for (int i = 0; i < columnsCount; i++) {
+            int index = checkCount(readInt());
+            int kind = buffer.get(skip(1, 1));
+            ColumnSection section;
+            if (kind == OBJECT) {
+                section = new ColumnSection(kind, readObjectSection(count), count);
+            } else {
+                long position = skip(count, getSize(kind));
+                long presence = -1;
+                if (version >= 0.92f && buffer.get(skip(1, 1)) != 0) {
+                    presence = skip((count + 7L) / 8, 1);
+                }
+                section = new ColumnSection(kind, position, presence, count);
+            }
+            Column column = getColumn(table, index);
+            if (column != null) {
+                if (index >= sections.length) {
+                    sections = Arrays.copyOf(sections, index + 1);
+                }
+                section.column = column;
+                sections[index] = section;
+            }
+        }
+        return sections;
+    }
+
+    private static Column getColumn(TableImpl table, int index) {
+        for (Column column : table.toArray()) {
+            if (column.getIndex() == index) {
+                return column;
+            }
+        }
+        return null;
+    }
+
+    private static int checkCount(int count) throws IOException {
+        if (count < 0) {
+            throw new IOException("Invalid count: " + count);
+        }
+        return count;
+    }
+
+    private static int getSize(int kind) throws IOException {
+        switch (kind) {
+            case DOUBLE:
+            case LONG:
+                return 8;
+            case FLOAT:
+            case INTEGER:
+                return 4;
+            case SHORT:
+            case CHAR:
+                return 2;
+            case BYTE:
+            case BOOLEAN:
+                return 1;
+            default:
+                throw new IOException("Unknown value kind: " + kind);
+        }
+    }
+
+    private static void writeColumns(DataOutput out, Column[] columns, Object[] values, boolean[][] presence) throws IOException {
+        int count = 0;
+        for (Column column : columns) {
+            count += column != null ? 1 : 0;
+        }
+        out.writeInt(count);
+        for (int i = 0; i < columns.length; i++) {
+            if (columns[i] == null) {
+                continue;
+            }
+            out.writeInt(i);
+            Object array = values[i];
+            if (array instanceof double[]) {
+                out.writeByte(DOUBLE);
+                for (double v : (double[]) array) {
+                    out.writeDouble(v);
+                }
+            } else if (array instanceof float[]) {
+                out.writeByte(FLOAT);
+                for (float v : (float[]) array) {
+                    out.writeFloat(v);
+                }
+            } else if (array instanceof long[]) {
+                out.writeByte(LONG);
+                for (long v : (long[]) array) {
+                    out.writeLong(v);
+                }
+            } else if (array instanceof int[]) {
+                out.writeByte(INTEGER);
+                writeInts(out, (int[]) array);
+            } else if (array instanceof short[]) {
+                out.writeByte(SHORT);
+                for (short v : (short[]) array) {
+                    out.writeShort(v);
+                }
+            } else if (array instanceof byte[]) {
+                out.writeByte(BYTE);
+                out.write((byte[]) array);
+            } else if (array instanceof boolean[]) {
+                out.writeByte(BOOLEAN);
+                for (boolean v : (boolean[]) array) {
+                    out.writeBoolean(v);
+                }
+            } else if (array instanceof char[]) {
+                out.writeByte(CHAR);
+                for (char v : (char[]) array) {
+                    out.writeChar(v);
+                }
+            } else {
+                out.writeByte(OBJECT);
+                writeObjects(out, (Object[]) array);
+            }
+            if (!(array instanceof Object[])) {
+                writePresence(out, presence[i]);
+            }
+        }
+    }
+
+    private static void writePresence(DataOutput out, boolean[] presence) throws IOException {
+        out.writeBoolean(presence != null);
+        if (presence != null) {
+            byte[] bitmap = new byte[(presence.length + 7) / 8];
+            for (int i = 0; i < presence.length; i++) {
+                if (presence[i]) {
+                    bitmap[i >> 3] |= 1 << (i & 7);
+                }
+            }
+            out.write(bitmap);
+        }
+    }
+
+    private static void writeObjects(DataOutput out, Object[] values) throws IOException {
+        // Values are self-contained so each one can be decoded on its own.
+        // They are serialized twice, to write the offsets first without
+        // holding the whole section in memory
+        Serialization serialization = new Serialization();
+        DataInputOutput buffer = new DataInputOutput();
+        long offset = 0;
+        out.writeLong(offset);
+        for (Object value : values) {
+            serialization.serialize(buffer.reset(), value);
+            offset += buffer.getPos();
+            out.writeLong(offset);
+        }
+        for (Object value : values) {
+            serialization.serialize(buffer.reset(), value);
+            out.write(buffer.getBuf(), 0, buffer.getPos());
+        }
+    }
+
+    private static void writeIdTable(DataOutput out, Object[] ids) throws IOException {
+        // Open addressing with linear probing, slots hold the index plus one
+        int[] table = new int[HashCommon.arraySize(ids.length, 0.5f)];
+        int mask = table.length - 1;
+        for (int i = 0; i < ids.length; i++) {
+            int slot = HashCommon.murmurHash3(ids[i].hashCode()) & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = i + 1;
+        }
+        out.writeInt(table.length);
+        writeInts(out, table);
+    }
+
+    private static void writeInts(DataOutput out, int[] values) throws IOException {
+        for (int v : values) {
+            out.writeInt(v);
+        }
+    }
+
+    private static Serialization newSerialization(float version) {
+        Serialization serialization = new Serialization();
+        serialization.readVersion = version;
+        serialization.readTimeKeys = new ArrayList<double[]>();
+        serialization.timeKeysPool = new TimeKeysPool();
+        return serialization;
+    }
+
+    private static void checkIndex(int index, int length) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + length);
+        }
+    }
+
+    protected final class ObjectSection {
+
+        private final long offsets;
+        private final long values;
+
+        private ObjectSection(long offsets, long values) {
+            this.offsets = offsets;
+            this.values = values;
+        }
+
+        private Object get(int index) {
+            long start = buffer.getLong(offsets + index * 8L);
+            long end = buffer.getLong(offsets + (index + 1) * 8L);
+            if (start < 0 || end < start || end - start > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Invalid value offsets: " + start + ", " + end);
+            }
+            byte[] bytes = new byte[(int) (end - start)];
+            buffer.get(values + start, bytes);
+            try {
+                Serialization serialization = new Serialization();
+                serialization.readVersion = version;
+                return serialization.deserialize(new DataInputOutput(bytes));
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            } catch (ClassNotFoundException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    /**
+     * Hash table from ids to indexes, only the ids of the probed slots are
+     * decoded. Id hash codes must be stable across processes, which is the case
+     * for the supported id types.
+     */
+    protected final class IdTable {
+
+        private final ObjectSection ids;
+        private final long table;
+        private final int mask;
+
+        private IdTable(ObjectSection ids, long table, int mask) {
+            this.ids = ids;
+            this.table = table;
+            this.mask = mask;
+        }
+
+        private int get(Object id) {
+            int slot = HashCommon.murmurHash3(id.hashCode()) & mask;
+            for (int i = 0; i <= mask; i++) {
+                int index = buffer.getInt(table + slot * 4L) - 1;
+                if (index < 0) {
+                    return -1;
+                } else if (id.equals(ids.get(index))) {
+                    return index;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+    }
+
+    protected final class ColumnSection {
+
+        private final int kind;
+        private final long position;
+        // Bitmap of the set values, -1 if all are set
+        private final long presence;
+        private final ObjectSection objects;
+        private final int count;
+        private Column column;
+        private Object values;
+
+        private ColumnSection(int kind, long position, long presence, int count) {
+            this.kind = kind;
+            this.position = position;
+            this.presence = presence;
+            this.objects = null;
+            this.count = count;
+        }
+
+        private ColumnSection(int kind, ObjectSection objects, int count) {
+            this.kind = kind;
+            this.position = -1;
+            this.presence = -1;
+            this.objects = objects;
+            this.count = count;
+        }
+
+        Column getColumn() {
+            return column;
+        }
+
+        int getCount() {
+            return count;
+        }
+
+        /**
+         * Returns true if the values are numbers stored as a primitive array.
+         */
+        boolean isNumber() {
+            return kind != OBJECT && kind != BOOLEAN && kind != CHAR;
+        }
+
+        /**
+         * Returns true if the value at <code>index</code> is set. Unset values
+         * of primitive sections are zeros in the mapping.
+         */
+        boolean isPresent(int index) {
+            checkIndex(index, count);
+            if (presence == -1) {
+                return true;
+            }
+            return (buffer.get(presence + (index >> 3)) & (1 << (index & 7))) != 0;
+        }
+
+        Object get(int index) {
+            if (!isPresent(index)) {
+                return null;
+            }
+            switch (kind) {
+                case DOUBLE:
+                    return buffer.getDouble(position + index * 8L);
+                case FLOAT:
+                    return buffer.getFloat(position + index * 4L);
+                case LONG:
+                    return buffer.getLong(position + index * 8L);
+                case INTEGER:
+                    return buffer.getInt(position + index * 4L);
+                case SHORT:
+                    return buffer.getShort(position + index * 2L);
+                case BYTE:
+                    return buffer.get(position + index);
+                case BOOLEAN:
+                    return buffer.get(position + index) != 0;
+                case CHAR:
+                    return buffer.getChar(position + index * 2L);
+                default:
+                    return objects.get(index);
+            }
+        }
+
+        /**
+         * Returns the value at <code>index</code> of a number section as a
+         * double, without boxing it.
+         */
+        double getDouble(int index) {
+            checkIndex(index, count);
+            switch (kind) {
+                case DOUBLE:
+                    return buffer.getDouble(position + index * 8L);
+                case FLOAT:
+                    return buffer.getFloat(position + index * 4L);
+                case LONG:
+                    return buffer.getLong(position + index * 8L);
+                case INTEGER:
+                    return buffer.getInt(position + index * 4L);
+                case SHORT:
+                    return buffer.getShort(position + index * 2L);
+                case BYTE:
+                    return buffer.get(position + index);
+                default:
+                    throw new UnsupportedOperationException("'" + column.getId() + "' is not a number column");
+            }
+        }
+
+        /**
+         * Compares the values at <code>index1</code> and <code>index2</code> of
+         * a number section.
+         */
+        int compare(int index1, int index2) {
+            if (kind == LONG) {
+                checkIndex(index1, count);
+                checkIndex(index2, count);
+                long v1 = buffer.getLong(position + index1 * 8L);
+                long v2 = buffer.getLong(position + index2 * 8L);
+                return v1 < v2 ? -1 : (v1 == v2 ? 0 : 1);
+            }
+            return Double.compare(getDouble(index1), getDouble(index2));
+        }
+
+        /**
+         * Returns true if the value at <code>index</code> equals
+         * <code>value</code>, primitive values being compared without boxing.
+         */
+        boolean matches(int index, Object value) {
+            if (!isPresent(index)) {
+                return value == null;
+            }
+            switch (kind) {
+                case DOUBLE:
+                    return value instanceof Double && Double.doubleToLongBits(buffer.getDouble(position + index * 8L)) == Double
+                            .doubleToLongBits((Double) value);
+                case FLOAT:
+                    return value instanceof Float && Float.floatToIntBits(buffer.getFloat(position + index * 4L)) == Float
+                            .floatToIntBits((Float) value);
+                case LONG:
+                    return value instanceof Long && buffer.getLong(position + index * 8L) == (Long) value;
+                case INTEGER:
+                    return value instanceof Integer && buffer.getInt(position + index * 4L) == (Integer) value;
+                case SHORT:
+                    return value instanceof Short && buffer.getShort(position + index * 2L) == (Short) value;
+                case BYTE:
+                    return value instanceof Byte && buffer.get(position + index) == (Byte) value;
+                case BOOLEAN:
+                    return value instanceof Boolean && (buffer.get(position + index) != 0) == (Boolean) value;
+                case CHAR:
+                    return value instanceof Character && buffer.getChar(position + index * 2L) == (Character) value;
+                default: {
+                    Object v = objects.get(index);
+                    return v == null ? value == null : v.equals(value);
+                }
+            }
+        }
+
+        synchronized Object getValues() {
+            if (values == null) {
+                switch (kind) {
+                    case DOUBLE: {
+                        double[] array = new double[count];
+                        for (int i = 0; i < count; i++) {
+                            array[i] = buffer.getDouble(position + i * 8L);
+                        }
+                        values = array;
+                        break;
+                    }
+                    case FLOAT: {
+                        float[] array = new float[count];
+                        for (int i = 0; i < count; i++) {
+                            array[i] = buffer.getFloat(position + i * 4L);
+                        }
+                        values = array;
+                        break;
+                    }
+                    case LONG: {
+                        long[] array = new long[count];
+                        for (int i = 0; i < count; i++) {
+                            array[i] = buffer.getLong(position + i * 8L);
+                        }
+                        values = array;
+                        break;
+                    }
+                    case INTEGER: {
+                        int[] array = new int[count];
+                        for (int i = 0; i < count; i++) {
+                            array[i] = buffer.getInt(position + i * 4L);
+                        }
+                        values = array;
+                        break;
+                    }
+                    case SHORT: {
+                        short[] array = new short[count];
+                        for (int i = 0; i < count; i++) {
+                            array[i] = buffer.getShort(position + i * 2L);
+                        }
+                        values = array;
+                        break;
+                    }
+                    case BYTE: {
+                        byte[] array = new byte[count];
+                        buffer.get(position, array);
+                        values = array;
+                        break;
+                    }
+                    case BOOLEAN: {
+                        boolean[] array = new boolean[count];
+                        for (int i = 0; i < count; i++) {
+                            array[i] = buffer.get(position + i) != 0;
+                        }
+                        values = array;
+                        break;
+                    }
+                    case CHAR: {
+                        char[] array = new char[count];
+                        for (int i = 0; i < count; i++) {
+                            array[i] = buffer.getChar(position + i * 2L);
+                        }
+                        values = array;
+                        break;
+                    }
+                    default: {
+                        Object[] array = new Object[count];
+                        for (int i = 0; i < count; i++) {
+                            array[i] = objects.get(i);
+                        }
+                        values = array;
+                    }
+                }
+            }
+            return values;
+        }
+    }
+}
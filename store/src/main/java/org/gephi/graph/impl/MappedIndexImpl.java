@@ -0,0 +1,425 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import it.unimi.dsi.fastutil.ints.AbstractIntComparator;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet;
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import org.gephi.graph.api.AttributeUtils;
+import org.gephi.graph.api.Column;
+import org.gephi.graph.api.Element;
+import org.gephi.graph.api.Index;
+import org.gephi.graph.api.Node;
+import org.gephi.graph.api.Table;
+import org.gephi.graph.api.types.IntervalStringMap;
+import org.gephi.graph.api.types.TimestampStringMap;
+import org.gephi.graph.impl.MappedGraphSnapshotImpl.ColumnSection;
+
+/**
+ * Read-only index over the columns of a {@link MappedGraphSnapshotImpl}.
+ * <p>
+ * Nothing is kept in memory, queries scan the column values in the mapping.
+ * Primitive columns are compared and aggregated without boxing and only the
+ * matching elements are created. As with {@link IndexImpl}, elements without
+ * value are counted but excluded from the aggregates.
+ *
+ * @param <T> Element class
+ */
+public class MappedIndexImpl<T extends Element> implements Index<T> {
+
+    protected final MappedGraphSnapshotImpl snapshot;
+    protected final Class<T> elementType;
+    protected final Table table;
+
+    public MappedIndexImpl(MappedGraphSnapshotImpl snapshot, Class<T> elementType) {
+        this.snapshot = snapshot;
+        this.elementType = elementType;
+        this.table = elementType.equals(Node.class) ? snapshot.getNodeTable() : snapshot.getEdgeTable();
+    }
+
+    @Override
+    public Class<T> getIndexClass() {
+        return elementType;
+    }
+
+    @Override
+    public String getIndexName() {
+        return "index_" + elementType.getCanonicalName();
+    }
+
+    @Override
+    public int count(Column column, Object value) {
+        ColumnSection section = getSection(column);
+        int count = 0;
+        for (int i = 0; i < section.getCount(); i++) {
+            if (section.matches(i, value)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public Iterable<T> get(Column column, Object value) {
+        ColumnSection section = getSection(column);
+        List<T> result = new ArrayList<T>();
+        for (int i = 0; i < section.getCount(); i++) {
+            if (section.matches(i, value)) {
+                result.add(getElement(i));
+            }
+        }
+        return result.isEmpty() ? null : result;
+    }
+
+    @Override
+    public int count(Column[] columns, Object[] values) {
+        ColumnSection[] sections = getSections(columns, values);
+        int count = 0;
+        for (int i = 0; i < getElementCount(); i++) {
+            if (matches(sections, i, values)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public Iterable<T> get(Column[] columns, Object[] values) {
+        ColumnSection[] sections = getSections(columns, values);
+        List<T> result = new ArrayList<T>();
+        for (int i = 0; i < getElementCount(); i++) {
+            if (matches(sections, i, values)) {
+                result.add(getElement(i));
+            }
+        }
+        return result.isEmpty() ? null : result;
+    }
+
+    @Override
+    public Iterable<T> getByPrefix(Column column, String prefix, boolean ignoreCase) {
+        checkNonNullObject(prefix);
+        ColumnSection section = getStringSection(column);
+        String foldedPrefix = ignoreCase ? prefix.toLowerCase(Locale.ROOT) : prefix;
+        List<T> result = new ArrayList<T>();
+        for (int i = 0; i < section.getCount(); i++) {
+            String value = (String) section.get(i);
+            if (value != null && (ignoreCase ? value.toLowerCase(Locale.ROOT) : value).startsWith(foldedPrefix)) {
+                result.add(getElement(i));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Iterable<T> getBySubstring(Column column, String substring, boolean ignoreCase) {
+        checkNonNullObject(substring);
+        ColumnSection section = getStringSection(column);
+        String foldedSubstring = ignoreCase ? substring.toLowerCase(Locale.ROOT) : substring;
+        List<T> result = new ArrayList<T>();
+        for (int i = 0; i < section.getCount(); i++) {
+            String value = (String) section.get(i);
+            if (value != null && (ignoreCase ? value.toLowerCase(Locale.ROOT) : value).contains(foldedSubstring)) {
+                result.add(getElement(i));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Iterable<T> getContaining(Column column, Object value) {
+        return getContainingAny(column, value);
+    }
+
+    @Override
+    public Iterable<T> getContainingAny(Column column, Object... values) {
+        checkNonNullObject(values);
+        ColumnSection section = getArraySection(column);
+        Set<T> result = new ObjectOpenHashSet<T>();
+        for (int i = 0; i < section.getCount(); i++) {
+            Object items = section.get(i);
+            for (Object value : values) {
+                if (contains(items, value)) {
+                    result.add(getElement(i));
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Iterable<T> getContainingAll(Column column, Object... values) {
+        checkNonNullObject(values);
+        ColumnSection section = getArraySection(column);
+        Set<T> result = new ObjectOpenHashSet<T>();
+        if (values.length == 0) {
+            return result;
+        }
+        for (int i = 0; i < section.getCount(); i++) {
+            Object items = section.get(i);
+            boolean all = true;
+            for (Object value : values) {
+                if (!contains(items, value)) {
+                    all = false;
+                    break;
+                }
+            }
+            if (all) {
+                result.add(getElement(i));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Collection values(Column column) {
+        ColumnSection section = getSection(column);
+        Set<Object> values = new ObjectOpenHashSet<Object>();
+        for (int i = 0; i < section.getCount(); i++) {
+            values.add(section.get(i));
+        }
+        return new ArrayList<Object>(values);
+    }
+
+    @Override
+    public int countValues(Column column) {
+        return values(column).size();
+    }
+
+    @Override
+    public int countElements(Column column) {
+        return getSection(column).getCount();
+    }
+
+    @Override
+    public Number getMinValue(Column column) {
+        ColumnSection section = getNumberSection(column);
+        int min = -1;
+        for (int i = 0; i < section.getCount(); i++) {
+            if (section.isPresent(i) && (min == -1 || section.compare(i, min) < 0)) {
+                min = i;
+            }
+        }
+        return min == -1 ? null : (Number) section.get(min);
+    }
+
+    @Override
+    public Number getMaxValue(Column column) {
+        ColumnSection section = getNumberSection(column);
+        int max = -1;
+        for (int i = 0; i < section.getCount(); i++) {
+            if (section.isPresent(i) && (max == -1 || section.compare(i, max) > 0)) {
+                max = i;
+            }
+        }
+        return max == -1 ? null : (Number) section.get(max);
+    }
+
+    @Override
+    public Number getSum(Column column) {
+        ColumnSection section = getNumberSection(column);
+        double sum = 0;
+        for (int i = 0; i < section.getCount(); i++) {
+            if (section.isPresent(i)) {
+                sum += section.getDouble(i);
+            }
+        }
+        return sum;
+    }
+
+    @Override
+    public Double getAverage(Column column) {
+        ColumnSection section = getNumberSection(column);
+        int count = countPresent(section);
+        if (count == 0) {
+            return null;
+        }
+        return getSum(column).doubleValue() / count;
+    }
+
+    @Override
+    public Double getVariance(Column column) {
+        ColumnSection section = getNumberSection(column);
+        int count = countPresent(section);
+        if (count == 0) {
+            return null;
+        }
+        double mean = getAverage(column);
+        double sumOfSquares = 0;
+        for (int i = 0; i < section.getCount(); i++) {
+            if (section.isPresent(i)) {
+                double delta = section.getDouble(i) - mean;
+                sumOfSquares += delta * delta;
+            }
+        }
+        return sumOfSquares / count;
+    }
+
+    @Override
+    public Number getQuantile(Column column, double quantile) {
+        final ColumnSection section = getNumberSection(column);
+        if (quantile < 0 || quantile > 1 || Double.isNaN(quantile)) {
+            throw new IllegalArgumentException("The quantile must be between 0 and 1");
+        }
+        int count = countPresent(section);
+        if (count == 0) {
+            return null;
+        }
+        int[] indexes = new int[count];
+        for (int i = 0, j = 0; i < section.getCount(); i++) {
+            if (section.isPresent(i)) {
+                indexes[j++] = i;
+            }
+        }
+        IntArrays.quickSort(indexes, new AbstractIntComparator() {
+            @Override
+            public int compare(int k1, int k2) {
+                return section.compare(k1, k2);
+            }
+        });
+        int rank = Math.max(1, (int) Math.ceil(quantile * count));
+        return (Number) section.get(indexes[rank - 1]);
+    }
+
+    @Override
+    public int[] getHistogram(Column column, int bins) {
+        ColumnSection section = getNumberSection(column);
+        if (bins <= 0) {
+            throw new IllegalArgumentException("The number of bins must be positive");
+        }
+        int[] histogram = new int[bins];
+        if (countPresent(section) == 0) {
+            return histogram;
+        }
+        double min = getMinValue(column).doubleValue();
+        double max = getMaxValue(column).doubleValue();
+        double width = (max - min) / bins;
+        for (int i = 0; i < section.getCount(); i++) {
+            if (section.isPresent(i)) {
+                int bin = width > 0 ? (int) ((section.getDouble(i) - min) / width) : 0;
+                histogram[Math.min(bin, bins - 1)]++;
+            }
+        }
+        return histogram;
+    }
+
+    private static int countPresent(ColumnSection section) {
+        int count = 0;
+        for (int i = 0; i < section.getCount(); i++) {
+            if (section.isPresent(i)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private T getElement(int index) {
+        if (elementType.equals(Node.class)) {
+            return (T) snapshot.getNode(index);
+        }
+        return (T) snapshot.getEdge(index);
+    }
+
+    private int getElementCount() {
+        return elementType.equals(Node.class) ? snapshot.getNodeCount() : snapshot.getEdgeCount();
+    }
+
+    private boolean matches(ColumnSection[] sections, int index, Object[] values) {
+        for (int i = 0; i < sections.length; i++) {
+            if (!sections[i].matches(index, values[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean contains(Object items, Object value) {
+        if (items instanceof Collection) {
+            return ((Collection) items).contains(value);
+        } else if (items != null && items.getClass().isArray()) {
+            for (int i = 0; i < Array.getLength(items); i++) {
+                Object item = Array.get(items, i);
+                if (item == null ? value == null : item.equals(value)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private ColumnSection getSection(Column column) {
+        checkNonNullObject(column);
+        if (column.getTable() != table) {
+            throw new IllegalArgumentException("The column '" + column.getId() + "' doesn't belong to this index");
+        }
+        return snapshot.getColumnSection(column);
+    }
+
+    private ColumnSection[] getSections(Column[] columns, Object[] values) {
+        checkNonNullObject(columns);
+        checkNonNullObject(values);
+        if (columns.length != values.length) {
+            throw new IllegalArgumentException("The number of columns and values must be equal");
+        }
+        ColumnSection[] sections = new ColumnSection[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            sections[i] = getSection(columns[i]);
+        }
+        return sections;
+    }
+
+    private ColumnSection getStringSection(Column column) {
+        ColumnSection section = getSection(column);
+        Class type = column.getTypeClass();
+        if (!type.equals(String.class) && !type.equals(TimestampStringMap.class) && !type
+                .equals(IntervalStringMap.class)) {
+            throw new UnsupportedOperationException(
+                    "'" + column.getId() + "' is not a string column (" + type.getSimpleName() + ").");
+        }
+        return section;
+    }
+
+    private ColumnSection getArraySection(Column column) {
+        ColumnSection section = getSection(column);
+        Class type = column.getTypeClass();
+        if (!AttributeUtils.isArrayType(type) && !AttributeUtils.isCollectionType(type)) {
+            throw new UnsupportedOperationException(
+                    "'" + column.getId() + "' is not an array column (" + type.getSimpleName() + ").");
+        }
+        return section;
+    }
+
+    private ColumnSection getNumberSection(Column column) {
+        ColumnSection section = getSection(column);
+        if (!section.isNumber()) {
+            throw new UnsupportedOperationException("'" + column.getId() + "' is not a sortable column (" + column
+                    .getTypeClass().getSimpleName() + ").");
+        }
+        return section;
+    }
+
+    private static void checkNonNullObject(Object o) {
+        if (o == null) {
+            throw new NullPointerException();
+        }
+    }
+}
@@ -0,0 +1,368 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import java.util.Collection;
+import java.util.Set;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.EdgeIterable;
+import org.gephi.graph.api.Graph;
+import org.gephi.graph.api.GraphModel;
+import org.gephi.graph.api.GraphView;
+import org.gephi.graph.api.Interval;
+import org.gephi.graph.api.Node;
+import org.gephi.graph.api.NodeIterable;
+import org.gephi.graph.api.Subgraph;
+import org.gephi.graph.api.UndirectedGraph;
+import org.gephi.graph.api.UndirectedSubgraph;
+
+/**
+ * Read-only undirected decorator of a {@link MappedGraphImpl}.
+ * <p>
+ * As with {@link UndirectedDecorator}, a mutual pair of directed edges is
+ * returned and counted as a single edge.
+ */
+public class MappedUndirectedGraphImpl implements UndirectedGraph, UndirectedSubgraph {
+
+    protected final MappedGraphImpl graph;
+
+    public MappedUndirectedGraphImpl(MappedGraphImpl graph) {
+        this.graph = graph;
+    }
+
+    @Override
+    public boolean addEdge(Edge edge) {
+        throw new UnsupportedOperationException("Not supported.");
+    }
+
+    @Override
+    public boolean addNode(Node node) {
+        throw new UnsupportedOperationException("Not supported.");
+    }
+
+    @Override
+    public boolean addAllEdges(Collection<? extends Edge> edges) {
+        throw new UnsupportedOperationException("Not supported.");
+    }
+
+    @Override
+    public boolean addAllNodes(Collection<? extends Node> nodes) {
+        throw new UnsupportedOperationException("Not supported.");
+    }
+
+    @Override
+    public boolean removeEdge(Edge edge) {
+        throw new UnsupportedOperationException("Not supported.");
+    }
+
+    @Override
+    public boolean removeNode(Node node) {
+        throw new UnsupportedOperationException("Not supported.");
+    }
+
+    @Override
+    public boolean removeAllEdges(Collection<? extends Edge> edges) {
+        throw new UnsupportedOperationException("Not supported.");
+    }
+
+    @Override
+    public boolean removeAllNodes(Collection<? extends Node> nodes) {
+        throw new UnsupportedOperationException("Not supported.");
+    }
+
+    @Override
+    public boolean contains(Node node) {
+        return graph.contains(node);
+    }
+
+    @Override
+    public boolean contains(Edge edge) {
+        return graph.contains(edge);
+    }
+
+    @Override
+    public Node getNode(Object id) {
+        return graph.getNode(id);
+    }
+
+    @Override
+    public boolean hasNode(Object id) {
+        return graph.hasNode(id);
+    }
+
+    @Override
+    public Edge getEdge(Object id) {
+        return graph.getEdge(id);
+    }
+
+    @Override
+    public boolean hasEdge(Object id) {
+        return graph.hasEdge(id);
+    }
+
+    @Override
+    public Edge getEdge(Node node1, Node node2) {
+        return graph.getUndirectedEdge(node1, node2, MappedGraphImpl.ANY);
+    }
+
+    @Override
+    public EdgeIterable getEdges(Node node1, Node node2) {
+        return graph.getUndirectedEdges(node1, node2, MappedGraphImpl.ANY);
+    }
+
+    @Override
+    public Edge getEdge(Node node1, Node node2, int type) {
+        return graph.getUndirectedEdge(node1, node2, type);
+    }
+
+    @Override
+    public EdgeIterable getEdges(Node node1, Node node2, int type) {
+        return graph.getUndirectedEdges(node1, node2, type);
+    }
+
+    @Override
+    public NodeIterable getNodes() {
+        return graph.getNodes();
+    }
+
+    @Override
+    public EdgeIterable getEdges() {
+        return graph.getUndirectedEdges();
+    }
+
+    @Override
+    public EdgeIterable getSelfLoops() {
+        return graph.getSelfLoops();
+    }
+
+    @Override
+    public NodeIterable getNeighbors(Node node) {
+        return graph.getNeighbors(node);
+    }
+
+    @Override
+    public NodeIterable getNeighbors(Node node, int type) {
+        return graph.getNeighbors(node, type);
+    }
+
+    @Override
+    public EdgeIterable getEdges(Node node) {
+        return graph.getUndirectedEdges(node, MappedGraphImpl.ANY);
+    }
+
+    @Override
+    public EdgeIterable getEdges(Node node, int type) {
+        return graph.getUndirectedEdges(node, type);
+    }
+
+    @Override
+    public int getNodeCount() {
+        return graph.getNodeCount();
+    }
+
+    @Override
+    public int getEdgeCount() {
+        return graph.getUndirectedEdgeCount(MappedGraphImpl.ANY);
+    }
+
+    @Override
+    public int getEdgeCount(int type) {
+        return graph.getUndirectedEdgeCount(type);
+    }
+
+    @Override
+    public Node getOpposite(Node node, Edge edge) {
+        return graph.getOpposite(node, edge);
+    }
+
+    @Override
+    public int getDegree(Node node) {
+        return graph.getUndirectedDegree(node);
+    }
+
+    @Override
+    public boolean isSelfLoop(Edge edge) {
+        return graph.isSelfLoop(edge);
+    }
+
+    @Override
+    public boolean isDirected(Edge edge) {
+        return false;
+    }
+
+    @Override
+    public boolean isAdjacent(Node node1, Node node2) {
+        return graph.isAdjacent(node1, node2);
+    }
+
+    @Override
+    public boolean isAdjacent(Node node1, Node node2, int type) {
+        return graph.isAdjacent(node1, node2, type);
+    }
+
+    @Override
+    public boolean isIncident(Edge edge1, Edge edge2) {
+        return graph.isIncident(edge1, edge2);
+    }
+
+    @Override
+    public boolean isIncident(Node node, Edge edge) {
+        return graph.isIncident(node, edge);
+    }
+
+    @Override
+    public void clearEdges(Node node) {
+        throw new UnsupportedOperationException("Not supported.");
+    }
+
+    @Override
+    public void clearEdges(Node node, int type) {
+        throw new UnsupportedOperationException("Not supported.");
+    }
+
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException("Not supported.");
+    }
+
+    @Override
+    public void clearEdges() {
+        throw new UnsupportedOperationException("Not supported.");
+    }
+
+    @Override
+    public Object getAttribute(String key) {
+        return graph.getAttribute(key);
+    }
+
+    @Override
+    public Object getAttribute(String key, double timestamp) {
+        return graph.getAttribute(key, timestamp);
+    }
+
+    @Override
+    public Object getAttribute(String key, Interval interval) {
+        return graph.getAttribute(key, interval);
+    }
+
+    @Override
+    public Set<String> getAttributeKeys() {
+        return graph.getAttributeKeys();
+    }
+
+    @Override
+    public void setAttribute(String key, Object value) {
+        throw new UnsupportedOperationException("Not supported.");
+    }
+
+    @Override
+    public void setAttribute(String key, Object value, double timestamp) {
+        throw new UnsupportedOperationException("Not supported.");
+    }
+
+    @Override
+    public void setAttribute(String key, Object value, Interval interval) {
+        throw new UnsupportedOperationException("Not supported.");
+    }
+
+    @Override
+    public void removeAttribute(String key) {
+        throw new UnsupportedOperationException("Not supported.");
+    }
+
+    @Override
+    public void removeAttribute(String key, Interval interval) {
+        throw new UnsupportedOperationException("Not supported.");
+    }
+
+    @Override
+    public void removeAttribute(String key, double timestamp) {
+        throw new UnsupportedOperationException("Not supported.");
+    }
+
+    @Override
+    public GraphView getView() {
+        return graph.getView();
+    }
+
+    @Override
+    public void readLock() {
+        // Immutable
+    }
+
+    @Override
+    public void readUnlock() {
+    }
+
+    @Override
+    public void readUnlockAll() {
+    }
+
+    @Override
+    public void writeLock() {
+        throw new UnsupportedOperationException("Not supported.");
+    }
+
+    @Override
+    public void writeUnlock() {
+        throw new UnsupportedOperationException("Not supported.");
+    }
+
+    @Override
+    public GraphModel getModel() {
+        return graph.getModel();
+    }
+
+    @Override
+    public boolean isDirected() {
+        return false;
+    }
+
+    @Override
+    public boolean isMixed() {
+        return false;
+    }
+
+    @Override
+    public boolean isUndirected() {
+        return true;
+    }
+
+    @Override
+    public void union(Subgraph subGraph) {
+        throw new UnsupportedOperationException("Not supported.");
+    }
+
+    @Override
+    public void intersection(Subgraph subGraph) {
+        throw new UnsupportedOperationException("Not supported.");
+    }
+
+    @Override
+    public void fill() {
+        throw new UnsupportedOperationException("Not supported.");
+    }
+
+    @Override
+    public void not() {
+        throw new UnsupportedOperationException("Not supported.");
+    }
+
+    @Override
+    public Graph getRootGraph() {
+        return this;
+    }
+}
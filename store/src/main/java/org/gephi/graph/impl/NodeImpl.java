@@ -36,7 +36,7 @@ public class NodeImpl extends ElementImpl implements Node {
     public NodeImpl(Object id, GraphStore graphStore) {
         super(id, graphStore);
         checkIdType(id);
-        this.properties = GraphStoreConfiguration.ENABLE_NODE_PROPERTIES ? new NodePropertiesImpl() : null;
+        this.properties = GraphStoreConfiguration.ENABLE_NODE_PROPERTIES ? new NodePropertiesImpl(this) : null;
         this.attributes = new Object[GraphStoreConfiguration.ELEMENT_ID_INDEX + 1];
         this.attributes[GraphStoreConfiguration.ELEMENT_ID_INDEX] = id;
     }
@@ -251,6 +251,7 @@ public class NodeImpl extends ElementImpl implements Node {
 
     protected static class NodePropertiesImpl implements NodeProperties {
 
+        protected final NodeImpl node;
         protected final TextPropertiesImpl textProperties;
         protected float x;
         protected float y;
@@ -261,7 +262,12 @@ public class NodeImpl extends ElementImpl implements Node {
         protected LayoutData layoutData;
 
         public NodePropertiesImpl() {
-            this.textProperties = new TextPropertiesImpl();
+            this(null);
+        }
+
+        public NodePropertiesImpl(NodeImpl node) {
+            this.node = node;
+            this.textProperties = new TextPropertiesImpl(node);
             this.rgba = 255 << 24; // Alpha set to 1
         }
 
@@ -340,22 +346,26 @@ public class NodeImpl extends ElementImpl implements Node {
         @Override
         public void setX(float x) {
             this.x = x;
+            propertiesChanged();
         }
 
         @Override
         public void setY(float y) {
             this.y = y;
+            propertiesChanged();
         }
 
         @Override
         public void setZ(float z) {
             this.z = z;
+            propertiesChanged();
         }
 
         @Override
         public void setPosition(float x, float y) {
             this.x = x;
             this.y = y;
+            propertiesChanged();
         }
 
         @Override
@@ -363,36 +373,43 @@ public class NodeImpl extends ElementImpl implements Node {
             this.x = x;
             this.y = y;
             this.z = z;
+            propertiesChanged();
         }
 
         @Override
         public void setR(float r) {
             rgba = (rgba & 0xFF00FFFF) | (((int) (r * 255f)) << 16);
+            propertiesChanged();
         }
 
         @Override
         public void setG(float g) {
             rgba = (rgba & 0xFFFF00FF) | ((int) (g * 255f)) << 8;
+            propertiesChanged();
         }
 
         @Override
         public void setB(float b) {
             rgba = (rgba & 0xFFFFFF00) | ((int) (b * 255f));
+            propertiesChanged();
         }
 
         @Override
         public void setAlpha(float a) {
             rgba = (rgba & 0xFFFFFF) | ((int) (a * 255f)) << 24;
+            propertiesChanged();
         }
 
         @Override
         public void setColor(Color color) {
             this.rgba = (color.getAlpha() << 24) | color.getRGB();
+            propertiesChanged();
         }
 
         @Override
         public void setSize(float size) {
             this.size = size;
+            propertiesChanged();
         }
 
         @Override
@@ -405,6 +422,12 @@ public class NodeImpl extends ElementImpl implements Node {
             this.layoutData = layoutData;
         }
 
+        private void propertiesChanged() {
+            if (node != null && node.graphStore != null) {
+                node.graphStore.propertiesChanged(node);
+            }
+        }
+
         public int deepHashCode() {
             int hash = 3;
             hash = 53 * hash + Float.floatToIntBits(this.x);
@@ -19,6 +19,7 @@ import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
 import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet;
 import it.unimi.dsi.fastutil.objects.ObjectSet;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
@@ -45,6 +46,8 @@ public class NodeStore implements Collection<Node>, NodeIterable {
     protected Object2IntOpenHashMap dictionary;
     // View store
     protected final GraphViewStore viewStore;
+    // Degree index (optional)
+    protected DegreeIndexImpl degreeIndex;
 
     public NodeStore() {
         initStore();
@@ -52,14 +55,16 @@ public class NodeStore implements Collection<Node>, NodeIterable {
         this.edgeStore = null;
         this.viewStore = null;
         this.version = null;
+        this.degreeIndex = null;
     }
 
-    public NodeStore(final EdgeStore edgeStore, final GraphLock lock, final GraphViewStore viewStore, final GraphVersion graphVersion) {
+    public NodeStore(final EdgeStore edgeStore, final GraphLock lock, final GraphViewStore viewStore, final GraphVersion graphVersion, final DegreeIndexImpl degreeIndex) {
         initStore();
         this.lock = lock;
         this.edgeStore = edgeStore;
         this.viewStore = viewStore;
         this.version = graphVersion;
+        this.degreeIndex = degreeIndex;
     }
 
     private void initStore() {
@@ -113,6 +118,72 @@ public class NodeStore implements Collection<Node>, NodeIterable {
         dictionary.trim(Math.max(GraphStoreConfiguration.NODESTORE_BLOCK_SIZE, size * 2));
     }
 
+    /**
+     * Prepares this empty store to have <code>count</code> blocks restored with
+     * {@link #restoreBlock(int, NodeImpl[], int[]) restoreBlock}.
+     * <p>
+     * Restoring bypasses the checks, views and indexing done when nodes are
+     * added, it's only meant for a store known to be consistent, like a
+     * serialized one. The indexes must be rebuilt with
+     * {@link #restoreIndexes()} once the edges are restored too.
+     *
+     * @param count number of blocks
+     */
+    protected void restoreBlocks(int count) {
+        if (size > 0 || garbageSize > 0 || currentBlock.nodeLength > 0) {
+            throw new IllegalStateException("The store is not empty");
+        }
+        if (count > blocks.length) {
+            blocks = Arrays.copyOf(blocks, count);
+        }
+        for (int i = 0; i < count; i++) {
+            if (blocks[i] == null) {
+                blocks[i] = new NodeBlock(i);
+            }
+        }
+        blocksCount = Math.max(1, count);
+        currentBlockIndex = blocksCount - 1;
+        currentBlock = blocks[currentBlockIndex];
+    }
+
+    /**
+     * Restores the nodes of the block at <code>index</code>, at the positions
+     * they have in <code>nodes</code>.
+     *
+     * @param index block index
+     * @param nodes block nodes, with null at the garbage positions
+     * @param garbage garbage positions, in the order they'll be reused
+     */
+    protected void restoreBlock(int index, NodeImpl[] nodes, int[] garbage) {
+        NodeBlock block = blocks[index];
+        for (int i = 0; i < nodes.length; i++) {
+            NodeImpl node = nodes[i];
+            if (node != null) {
+                block.backingArray[i] = node;
+                node.setStoreId(block.offset + i);
+                dictionary.put(node.getId(), node.storeId);
+                size++;
+            }
+        }
+        block.nodeLength = nodes.length;
+        for (int i = 0; i < garbage.length; i++) {
+            block.garbageArray[i] = (short) (garbage[i] + Short.MIN_VALUE);
+        }
+        block.garbageLength = garbage.length;
+        garbageSize += garbage.length;
+    }
+
+    /**
+     * Indexes the attributes of all restored nodes.
+     */
+    protected void restoreIndexes() {
+        for (NodeStoreIterator itr = new NodeStoreIterator(); itr.hasNext();) {
+            NodeImpl node = itr.next();
+            node.restoreRangeAggregates();
+            node.indexAttributes();
+        }
+    }
+
     public NodeImpl get(final int id) {
         checkValidId(id);
 
@@ -132,11 +203,17 @@ public class NodeStore implements Collection<Node>, NodeIterable {
         if (!isEmpty()) {
             incrementVersion();
         }
+        if (version != null) {
+            version.invalidateChangeLog();
+        }
 
         for (NodeStoreIterator itr = new NodeStoreIterator(); itr.hasNext();) {
             NodeImpl node = itr.next();
             node.setStoreId(NodeStore.NULL_ID);
         }
+        if (degreeIndex != null) {
+            degreeIndex.clear();
+        }
         initStore();
     }
 
@@ -255,6 +332,10 @@ public class NodeStore implements Collection<Node>, NodeIterable {
 
             size++;
 
+            if (version != null) {
+                version.logChange(node);
+            }
+
             return true;
         } else if (isValidIndex(node.storeId) && get(node.storeId) == node) {
             return false;
@@ -277,8 +358,14 @@ public class NodeStore implements Collection<Node>, NodeIterable {
             }
 
             node.clearAttributes();
+            if (degreeIndex != null) {
+                degreeIndex.removeNode(node);
+            }
 
             incrementVersion();
+            if (version != null) {
+                version.logChange(node);
+            }
 
             int storeIndex = id / GraphStoreConfiguration.NODESTORE_BLOCK_SIZE;
             NodeBlock block = blocks[storeIndex];
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import org.gephi.graph.api.PropertiesObserver;
+
+public class PropertiesObserverImpl implements PropertiesObserver {
+
+    private static final int[] EMPTY = new int[0];
+    // Store
+    protected final GraphStore graphStore;
+    // Touched store ids
+    protected final DirtyIdSet nodeIds = new DirtyIdSet();
+    protected final DirtyIdSet edgeIds = new DirtyIdSet();
+    protected volatile boolean destroyed;
+    // Cache
+    protected int[] changedNodes = EMPTY;
+    protected int[] changedEdges = EMPTY;
+
+    public PropertiesObserverImpl(GraphStore graphStore) {
+        this.graphStore = graphStore;
+    }
+
+    @Override
+    public boolean hasPropertiesChanged() {
+        if (destroyed) {
+            return false;
+        }
+        changedNodes = nodeIds.drain();
+        changedEdges = edgeIds.drain();
+        return changedNodes.length > 0 || changedEdges.length > 0;
+    }
+
+    @Override
+    public int[] getChangedNodes() {
+        return changedNodes;
+    }
+
+    @Override
+    public int[] getChangedEdges() {
+        return changedEdges;
+    }
+
+    @Override
+    public void destroy() {
+        graphStore.destroyPropertiesObserver(this);
+    }
+
+    @Override
+    public boolean isDestroyed() {
+        return destroyed;
+    }
+
+    protected void destroyObserver() {
+        destroyed = true;
+        nodeIds.clear();
+        edgeIds.clear();
+        changedNodes = EMPTY;
+        changedEdges = EMPTY;
+    }
+
+    protected void setElement(int storeId, boolean node) {
+        if (node) {
+            nodeIds.add(storeId);
+        } else {
+            edgeIds.add(storeId);
+        }
+    }
+}
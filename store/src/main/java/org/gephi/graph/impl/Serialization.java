@@ -27,6 +27,7 @@ import it.unimi.dsi.fastutil.chars.CharOpenHashSet;
 import it.unimi.dsi.fastutil.doubles.Double2IntMap;
 import it.unimi.dsi.fastutil.doubles.Double2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.doubles.DoubleArrayList;
+import it.unimi.dsi.fastutil.doubles.DoubleArrays;
 import it.unimi.dsi.fastutil.doubles.DoubleOpenHashSet;
 import it.unimi.dsi.fastutil.floats.Float2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.floats.FloatArrayList;
@@ -39,6 +40,7 @@ import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
 import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.longs.LongArrayList;
 import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenCustomHashMap;
 import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.objects.ObjectArrayList;
 import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet;
@@ -49,14 +51,23 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.EOFException;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.lang.reflect.Array;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import org.gephi.graph.api.Configuration;
 import org.gephi.graph.api.Origin;
 import org.gephi.graph.api.Estimator;
@@ -84,6 +95,7 @@ import org.gephi.graph.api.types.IntervalFloatMap;
 import org.gephi.graph.api.types.IntervalIntegerMap;
 import org.gephi.graph.api.types.IntervalLongMap;
 import org.gephi.graph.api.types.IntervalMap;
+import org.gephi.graph.api.types.TimeKeysPool;
 import org.gephi.graph.api.types.IntervalSet;
 import org.gephi.graph.api.types.IntervalShortMap;
 import org.gephi.graph.api.types.IntervalStringMap;
@@ -96,7 +108,7 @@ import org.joda.time.DateTimeZone;
 // Greatly inspired from JDBM https://github.com/jankotek/JDBM3
 public class Serialization {
 
-    final static float VERSION = 0.5f;
+    final static float VERSION = 0.92f;
     final static int NULL_ID = -1;
     final static int NULL = 0;
     final static int NORMAL = 1;
@@ -214,12 +226,27 @@ public class Serialization {
     final static int LIST = 229;
     final static int SET = 230;
     final static int MAP = 231;
+    // Time keys encodings
+    final static int TIME_KEYS_RAW = 0;
+    final static int TIME_KEYS_REFERENCE = 1;
+    final static int TIME_KEYS_REGULAR = 2;
+    final static int TIME_KEYS_DELTA = 3;
     // Store
     protected final Int2IntMap idMap;
     protected GraphModelImpl model;
     protected float readVersion = VERSION;
     // Deserialized configuration
     protected GraphStoreConfigurationVersion graphStoreConfigurationVersion;
+    // Time keys already written or read, only while (de)serializing a model
+    protected Object2IntOpenCustomHashMap<double[]> writtenTimeKeys;
+    protected List<double[]> readTimeKeys;
+    protected TimeKeysPool timeKeysPool;
+    // True if the time keys above belong to the model serialization and are
+    // only looked up, as blocks are (de)serialized in parallel
+    protected boolean sharedTimeKeys;
+    // Time maps read from a block, compacted with the model's pool once the
+    // block is restored
+    protected List<Object> readTimeMaps;
 
     public Serialization() {
         this(null);
@@ -233,20 +260,47 @@ public class Serialization {
 
     public void serializeGraphModel(DataOutput out, GraphModelImpl model) throws IOException {
         this.model = model;
-        serialize(out, VERSION);
-        serialize(out, model.configuration);
-        serialize(out, model.store);
+        writtenTimeKeys = new Object2IntOpenCustomHashMap<double[]>(DoubleArrays.HASH_STRATEGY);
+        writtenTimeKeys.defaultReturnValue(NULL_ID);
+        try {
+            serialize(out, VERSION);
+            serialize(out, model.configuration);
+            serialize(out, model.store);
+        } finally {
+            writtenTimeKeys = null;
+        }
     }
 
     public GraphModelImpl deserializeGraphModel(DataInput is) throws IOException, ClassNotFoundException {
-        readVersion = (Float) deserialize(is);
-        Configuration config = (Configuration) deserialize(is);
-        model = new GraphModelImpl(config);
-        deserialize(is);
-        return model;
+        readTimeKeys = new ArrayList<double[]>();
+        timeKeysPool = new TimeKeysPool();
+        try {
+            readVersion = (Float) deserialize(is);
+            Configuration config = (Configuration) deserialize(is);
+            model = new GraphModelImpl(config);
+            deserialize(is);
+            return model;
+        } finally {
+            readTimeKeys = null;
+            timeKeysPool = null;
+        }
     }
 
     public void serializeGraphStore(DataOutput out, GraphStore store) throws IOException {
+        serializeGraphStoreHeader(out, store);
+
+        // Time keys shared by several maps
+        serializeSharedTimeKeys(out, store);
+
+        // Nodes + Edges
+        serializeNodeBlocks(out, store.nodeStore);
+        serializeEdgeBlocks(out, store.edgeStore);
+
+        // Views
+        serialize(out, store.viewStore);
+    }
+
+    protected void serializeGraphStoreHeader(DataOutput out, GraphStore store) throws IOException {
         // Configuration
         serializeGraphStoreConfiguration(out);
 
@@ -275,23 +329,32 @@ public class Serialization {
 
         // Time zone
         serialize(out, store.timeZone);
+    }
 
-        // Nodes + Edges
-        int nodesAndEdges = store.nodeStore.size() + store.edgeStore.size();
-        serialize(out, nodesAndEdges);
+    public GraphStore deserializeGraphStore(DataInput is) throws IOException, ClassNotFoundException {
+        deserializeGraphStoreHeader(is);
 
-        for (Node node : store.nodeStore) {
-            serialize(out, node);
-        }
-        for (Edge edge : store.edgeStore) {
-            serialize(out, edge);
+        // Nodes and edges
+        if (readVersion < 0.8f) {
+            int nodesAndEdges = (Integer) deserialize(is);
+            for (int i = 0; i < nodesAndEdges; i++) {
+                deserialize(is);
+            }
+        } else {
+            if (readVersion >= 0.91f) {
+                deserializeSharedTimeKeys(is);
+            }
+            deserializeNodeBlocks(is);
+            deserializeEdgeBlocks(is);
         }
 
-        // Views
-        serialize(out, store.viewStore);
+        // ViewStore
+        deserialize(is);
+
+        return model.store;
     }
 
-    public GraphStore deserializeGraphStore(DataInput is) throws IOException, ClassNotFoundException {
+    protected void deserializeGraphStoreHeader(DataInput is) throws IOException, ClassNotFoundException {
         if (!model.store.nodeStore.isEmpty()) { // TODO test other stores
             throw new IOException("The store is not empty");
         }
@@ -326,17 +389,6 @@ public class Serialization {
 
         // Time zone
         deserialize(is);
-
-        // Nodes and edges
-        int nodesAndEdges = (Integer) deserialize(is);
-        for (int i = 0; i < nodesAndEdges; i++) {
-            deserialize(is);
-        }
-
-        // ViewStore
-        deserialize(is);
-
-        return model.store;
     }
 
     private void serializeNode(DataOutput out, NodeImpl node) throws IOException {
@@ -392,7 +444,7 @@ public class Serialization {
         int sourceNewId = idMap.get(sourceId);
         int targetNewId = idMap.get(targetId);
 
-        if (sourceId == NULL_ID || targetId == NULL_ID) {
+        if (sourceNewId == NULL_ID || targetNewId == NULL_ID) {
             throw new IOException("The edge source of target can't be found");
         }
 
@@ -410,6 +462,403 @@ public class Serialization {
         return edge;
     }
 
+    // Node and edge blocks are encoded into independent length-prefixed
+    // segments, which only reference the time keys written before them, so
+    // they can be encoded and decoded in parallel. A segment keeps the
+    // positions and the
+    // garbage of its block so elements are restored directly at their store
+    // ids, only the dictionaries, adjacency and indexes are rebuilt
+    // sequentially.
+    /**
+     * Writes the time keys used by more than one time map of the store, so that
+     * blocks reference them instead of repeating them in every segment.
+     */
+    private void serializeSharedTimeKeys(DataOutput out, GraphStore store) throws IOException {
+        List<double[]> sharedKeys = new ArrayList<double[]>();
+        if (writtenTimeKeys != null) {
+            Object2IntOpenCustomHashMap<double[]> counts = new Object2IntOpenCustomHashMap<double[]>(
+                    DoubleArrays.HASH_STRATEGY);
+            for (Node node : store.nodeStore) {
+                countTimeKeys(((NodeImpl) node).attributes, counts, sharedKeys);
+            }
+            for (Edge edge : store.edgeStore) {
+                countTimeKeys(((EdgeImpl) edge).attributes, counts, sharedKeys);
+            }
+        }
+        LongPacker.packInt(out, sharedKeys.size());
+        for (double[] keys : sharedKeys) {
+            serializeTimeKeys(out, keys);
+        }
+    }
+
+    private void countTimeKeys(Object[] attributes, Object2IntOpenCustomHashMap<double[]> counts, List<double[]> sharedKeys) {
+        for (Object value : attributes) {
+            double[] keys;
+            if (value instanceof TimestampMap) {
+                keys = ((TimestampMap) value).getTimestamps();
+            } else if (value instanceof IntervalMap) {
+                keys = ((IntervalMap) value).getIntervals();
+            } else {
+                continue;
+            }
+            if (writtenTimeKeys.containsKey(keys)) {
+                continue;
+            }
+            if (counts.addTo(keys, 1) == 1) {
+                sharedKeys.add(keys);
+            }
+        }
+    }
+
+    private void deserializeSharedTimeKeys(DataInput is) throws IOException, ClassNotFoundException {
+        int count = LongPacker.unpackInt(is);
+        for (int i = 0; i < count; i++) {
+            deserializeTimeKeys(is);
+        }
+    }
+
+    private void serializeNodeBlocks(DataOutput out, NodeStore nodeStore) throws IOException {
+        int blocksCount = nodeStore.blocksCount;
+        serialize(out, blocksCount);
+
+        List<Callable<DataInputOutput>> tasks = new ArrayList<Callable<DataInputOutput>>(blocksCount);
+        for (int i = 0; i < blocksCount; i++) {
+            final NodeStore.NodeBlock block = nodeStore.blocks[i];
+            tasks.add(new Callable<DataInputOutput>() {
+                @Override
+                public DataInputOutput call() throws IOException {
+                    DataInputOutput buffer = new DataInputOutput();
+                    newBlockSerialization().serializeNodeBlock(buffer, block);
+                    return buffer;
+                }
+            });
+        }
+        writeSegments(out, tasks);
+    }
+
+    private void serializeEdgeBlocks(DataOutput out, EdgeStore edgeStore) throws IOException {
+        int blocksCount = edgeStore.blocksCount;
+        serialize(out, blocksCount);
+
+        List<Callable<DataInputOutput>> tasks = new ArrayList<Callable<DataInputOutput>>(blocksCount);
+        for (int i = 0; i < blocksCount; i++) {
+            final EdgeStore.EdgeBlock block = edgeStore.blocks[i];
+            tasks.add(new Callable<DataInputOutput>() {
+                @Override
+                public DataInputOutput call() throws IOException {
+                    DataInputOutput buffer = new DataInputOutput();
+                    newBlockSerialization().serializeEdgeBlock(buffer, block);
+                    return buffer;
+                }
+            });
+        }
+        writeSegments(out, tasks);
+    }
+
+    private void serializeNodeBlock(DataOutput out, NodeStore.NodeBlock block) throws IOException {
+        serialize(out, block.nodeLength);
+        serialize(out, getGarbage(block.garbageArray, block.garbageLength));
+        for (int i = 0; i < block.nodeLength; i++) {
+            NodeImpl node = block.backingArray[i];
+            if (node != null) {
+                serializeNode(out, node);
+            }
+        }
+    }
+
+    private void serializeEdgeBlock(DataOutput out, EdgeStore.EdgeBlock block) throws IOException {
+        serialize(out, block.nodeLength);
+        serialize(out, getGarbage(block.garbageArray, block.garbageLength));
+        for (int i = 0; i < block.nodeLength; i++) {
+            EdgeImpl edge = block.backingArray[i];
+            if (edge != null) {
+                serializeEdge(out, edge);
+            }
+        }
+    }
+
+    private void deserializeNodeBlocks(DataInput is) throws IOException, ClassNotFoundException {
+        NodeStore nodeStore = model.store.nodeStore;
+        int blocksCount = (Integer) deserialize(is);
+        nodeStore.restoreBlocks(blocksCount);
+
+        ExecutorService executor = newExecutor(blocksCount);
+        int window = getWindow(executor);
+        LinkedList<Future<NodeBlockRecord>> pending = new LinkedList<Future<NodeBlockRecord>>();
+        try {
+            for (int i = 0; i < blocksCount; i++) {
+                final DataInputOutput segment = readSegment(is);
+                pending.add(submit(executor, new Callable<NodeBlockRecord>() {
+                    @Override
+                    public NodeBlockRecord call() throws IOException, ClassNotFoundException {
+                        Serialization serialization = newBlockSerialization();
+                        NodeBlockRecord record = serialization.deserializeNodeBlock(segment);
+                        record.timeMaps = serialization.readTimeMaps;
+                        return record;
+                    }
+                }));
+                if (pending.size() >= window) {
+                    restoreNodeBlock(nodeStore, i + 1 - pending.size(), getResult(pending.removeFirst()));
+                }
+            }
+            while (!pending.isEmpty()) {
+                restoreNodeBlock(nodeStore, blocksCount - pending.size(), getResult(pending.removeFirst()));
+            }
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    private void deserializeEdgeBlocks(DataInput is) throws IOException, ClassNotFoundException {
+        EdgeStore edgeStore = model.store.edgeStore;
+        int blocksCount = (Integer) deserialize(is);
+        edgeStore.restoreBlocks(blocksCount);
+
+        ExecutorService executor = newExecutor(blocksCount);
+        int window = getWindow(executor);
+        LinkedList<Future<EdgeBlockRecord>> pending = new LinkedList<Future<EdgeBlockRecord>>();
+        try {
+            for (int i = 0; i < blocksCount; i++) {
+                final DataInputOutput segment = readSegment(is);
+                pending.add(submit(executor, new Callable<EdgeBlockRecord>() {
+                    @Override
+                    public EdgeBlockRecord call() throws IOException, ClassNotFoundException {
+                        Serialization serialization = newBlockSerialization();
+                        EdgeBlockRecord record = serialization.deserializeEdgeBlock(segment);
+                        record.timeMaps = serialization.readTimeMaps;
+                        return record;
+                    }
+                }));
+                if (pending.size() >= window) {
+                    restoreEdgeBlock(edgeStore, i + 1 - pending.size(), getResult(pending.removeFirst()));
+                }
+            }
+            while (!pending.isEmpty()) {
+                restoreEdgeBlock(edgeStore, blocksCount - pending.size(), getResult(pending.removeFirst()));
+            }
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+
+        edgeStore.restoreAdjacency();
+        model.store.nodeStore.restoreIndexes();
+        edgeStore.restoreIndexes();
+    }
+
+    private NodeBlockRecord deserializeNodeBlock(DataInput is) throws IOException, ClassNotFoundException {
+        NodeBlockRecord record = new NodeBlockRecord();
+        record.nodes = new NodeImpl[(Integer) deserialize(is)];
+        record.garbage = (int[]) deserialize(is);
+
+        boolean[] isGarbage = getGarbagePositions(record.nodes.length, record.garbage);
+        for (int i = 0; i < record.nodes.length; i++) {
+            if (isGarbage[i]) {
+                continue;
+            }
+            Object id = deserialize(is);
+            deserialize(is); // Store id, same as the position
+            Object[] attributes = (Object[]) deserialize(is);
+            NodePropertiesImpl properties = (NodePropertiesImpl) deserialize(is);
+
+            NodeImpl node = new NodeImpl(id, model.store);
+            node.attributes = attributes;
+            if (node.properties != null) {
+                node.setNodeProperties(properties);
+            }
+            record.nodes[i] = node;
+        }
+        return record;
+    }
+
+    private EdgeBlockRecord deserializeEdgeBlock(DataInput is) throws IOException, ClassNotFoundException {
+        NodeStore nodeStore = model.store.nodeStore;
+        EdgeBlockRecord record = new EdgeBlockRecord();
+        record.edges = new EdgeImpl[(Integer) deserialize(is)];
+        record.garbage = (int[]) deserialize(is);
+
+        boolean[] isGarbage = getGarbagePositions(record.edges.length, record.garbage);
+        for (int i = 0; i < record.edges.length; i++) {
+            if (isGarbage[i]) {
+                continue;
+            }
+            Object id = deserialize(is);
+            int sourceId = (Integer) deserialize(is);
+            int targetId = (Integer) deserialize(is);
+            int type = (Integer) deserialize(is);
+            double weight = (Double) deserialize(is);
+            boolean directed = (Boolean) deserialize(is);
+            Object[] attributes = (Object[]) deserialize(is);
+            EdgePropertiesImpl properties = (EdgePropertiesImpl) deserialize(is);
+
+            if (!nodeStore.isValidIndex(sourceId) || !nodeStore.isValidIndex(targetId)) {
+                throw new IOException("The edge source of target can't be found");
+            }
+            NodeImpl source = nodeStore.get(sourceId);
+            NodeImpl target = nodeStore.get(targetId);
+            if (source == null || target == null) {
+                throw new IOException("The edge source of target can't be found");
+            }
+
+            EdgeImpl edge = new EdgeImpl(id, model.store, source, target, type, weight, directed);
+            edge.attributes = attributes;
+            if (edge.properties != null) {
+                edge.setEdgeProperties(properties);
+            }
+            record.edges[i] = edge;
+        }
+        return record;
+    }
+
+    private void restoreNodeBlock(NodeStore nodeStore, int index, NodeBlockRecord record) {
+        nodeStore.restoreBlock(index, record.nodes, record.garbage);
+        compactTimeMaps(record.timeMaps);
+    }
+
+    private void restoreEdgeBlock(EdgeStore edgeStore, int index, EdgeBlockRecord record) {
+        edgeStore.restoreBlock(index, record.edges, record.garbage);
+        compactTimeMaps(record.timeMaps);
+    }
+
+    private void compactTimeMaps(List<Object> timeMaps) {
+        if (timeKeysPool != null && timeMaps != null) {
+            for (Object timeMap : timeMaps) {
+                if (timeMap instanceof TimestampMap) {
+                    ((TimestampMap) timeMap).compact(timeKeysPool);
+                } else {
+                    ((IntervalMap) timeMap).compact(timeKeysPool);
+                }
+            }
+        }
+    }
+
+    private static int[] getGarbage(short[] garbageArray, int garbageLength) {
+        int[] garbage = new int[garbageLength];
+        for (int i = 0; i < garbageLength; i++) {
+            garbage[i] = garbageArray[i] - Short.MIN_VALUE;
+        }
+        return garbage;
+    }
+
+    private static boolean[] getGarbagePositions(int length, int[] garbage) throws IOException {
+        boolean[] res = new boolean[length];
+        for (int position : garbage) {
+            if (position < 0 || position >= length || res[position]) {
+                throw new IOException("Invalid garbage position: " + position);
+            }
+            res[position] = true;
+        }
+        return res;
+    }
+
+    private Serialization newBlockSerialization() {
+        Serialization serialization = new Serialization(model);
+        serialization.readVersion = readVersion;
+        serialization.writtenTimeKeys = writtenTimeKeys;
+        serialization.readTimeKeys = readTimeKeys;
+        serialization.sharedTimeKeys = true;
+        if (timeKeysPool != null) {
+            serialization.readTimeMaps = new ArrayList<Object>();
+        }
+        return serialization;
+    }
+
+    private void writeSegments(DataOutput out, List<Callable<DataInputOutput>> tasks) throws IOException {
+        ExecutorService executor = newExecutor(tasks.size());
+        int window = getWindow(executor);
+        LinkedList<Future<DataInputOutput>> pending = new LinkedList<Future<DataInputOutput>>();
+        try {
+            int submitted = 0;
+            while (submitted < tasks.size() || !pending.isEmpty()) {
+                while (submitted < tasks.size() && pending.size() < window) {
+                    pending.add(submit(executor, tasks.get(submitted++)));
+                }
+                DataInputOutput segment;
+                try {
+                    segment = getResult(pending.removeFirst());
+                } catch (ClassNotFoundException e) {
+                    throw new IOException(e);
+                }
+                out.writeInt(segment.getPos());
+                out.write(segment.getBuf(), 0, segment.getPos());
+            }
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    private static DataInputOutput readSegment(DataInput is) throws IOException {
+        int length = is.readInt();
+        if (length < 0) {
+            throw new IOException("Invalid segment length: " + length);
+        }
+        byte[] segment = new byte[length];
+        is.readFully(segment);
+        return new DataInputOutput(segment);
+    }
+
+    private static ExecutorService newExecutor(int tasks) {
+        int threads = Math.min(tasks, Runtime.getRuntime().availableProcessors());
+        if (threads <= 1) {
+            return null;
+        }
+        return Executors.newFixedThreadPool(threads);
+    }
+
+    private static int getWindow(ExecutorService executor) {
+        // Segments decoded or encoded ahead, bounds the memory held at once
+        return executor == null ? 1 : Runtime.getRuntime().availableProcessors() * 2;
+    }
+
+    private static <T> Future<T> submit(ExecutorService executor, Callable<T> task) {
+        if (executor == null) {
+            FutureTask<T> future = new FutureTask<T>(task);
+            future.run();
+            return future;
+        }
+        return executor.submit(task);
+    }
+
+    private static <T> T getResult(Future<T> future) throws IOException, ClassNotFoundException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof ClassNotFoundException) {
+                throw (ClassNotFoundException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private static final class NodeBlockRecord {
+
+        private NodeImpl[] nodes;
+        private int[] garbage;
+        private List<Object> timeMaps;
+    }
+
+    private static final class EdgeBlockRecord {
+
+        private EdgeImpl[] edges;
+        private int[] garbage;
+        private List<Object> timeMaps;
+    }
+
     private void serializeEdgeTypeStore(final DataOutput out) throws IOException {
         EdgeTypeStore edgeTypeStore = model.store.edgeTypeStore;
         int length = edgeTypeStore.length;
@@ -476,6 +925,17 @@ public class Serialization {
         }
 
         serialize(out, columnStore.garbageQueue.toShortArray());
+
+        List<ColumnImpl[]> compositeIndexes = columnStore.indexStore != null ? columnStore.indexStore.compositeIndexes
+                : new ArrayList<ColumnImpl[]>();
+        serialize(out, compositeIndexes.size());
+        for (ColumnImpl[] cols : compositeIndexes) {
+            String[] ids = new String[cols.length];
+            for (int i = 0; i < cols.length; i++) {
+                ids[i] = cols[i].id;
+            }
+            serialize(out, ids);
+        }
     }
 
     private ColumnStore deserializeColumnStore(final DataInput is, final TableImpl table) throws IOException, ClassNotFoundException {
@@ -498,6 +958,18 @@ public class Serialization {
         for (int i = 0; i < garbage.length; i++) {
             columnStore.garbageQueue.add(garbage[i]);
         }
+
+        if (readVersion >= 0.6) {
+            int compositeIndexes = (Integer) deserialize(is);
+            for (int i = 0; i < compositeIndexes; i++) {
+                String[] ids = (String[]) deserialize(is);
+                ColumnImpl[] cols = new ColumnImpl[ids.length];
+                for (int j = 0; j < ids.length; j++) {
+                    cols[j] = (ColumnImpl) columnStore.getColumn(ids[j]);
+                }
+                columnStore.indexStore.addCompositeIndex(cols);
+            }
+        }
         return columnStore;
     }
 
@@ -782,7 +1254,7 @@ public class Serialization {
     }
 
     private void serializeTimestampMap(final DataOutput out, final TimestampMap timestampMap) throws IOException {
-        serialize(out, timestampMap.getTimestamps());
+        serializeTimeKeys(out, timestampMap.getTimestamps());
         Class mapClass = timestampMap.getClass();
         if (mapClass.equals(TimestampBooleanMap.class)) {
             serialize(out, ((TimestampBooleanMap) timestampMap).toBooleanArray());
@@ -808,7 +1280,7 @@ public class Serialization {
     }
 
     private TimestampMap deserializeTimestampMap(final DataInput is) throws IOException, ClassNotFoundException {
-        double[] timeStamps = (double[]) deserialize(is);
+        double[] timeStamps = deserializeTimeKeys(is);
         Object values = deserialize(is);
 
         Class mapClass = values.getClass();
@@ -834,11 +1306,16 @@ public class Serialization {
         } else {
             throw new RuntimeException("Unrecognized timestamp map class");
         }
+        if (readTimeMaps != null) {
+            readTimeMaps.add(valueSet);
+        } else if (timeKeysPool != null) {
+            valueSet.compact(timeKeysPool);
+        }
         return valueSet;
     }
 
     private void serializeIntervalMap(final DataOutput out, final IntervalMap intervalMap) throws IOException {
-        serialize(out, intervalMap.getIntervals());
+        serializeTimeKeys(out, intervalMap.getIntervals());
         Class mapClass = intervalMap.getClass();
         if (mapClass.equals(IntervalBooleanMap.class)) {
             serialize(out, ((IntervalBooleanMap) intervalMap).toBooleanArray());
@@ -864,7 +1341,7 @@ public class Serialization {
     }
 
     private IntervalMap deserializeIntervalMap(final DataInput is) throws IOException, ClassNotFoundException {
-        double[] intervals = (double[]) deserialize(is);
+        double[] intervals = deserializeTimeKeys(is);
         Object values = deserialize(is);
 
         Class mapClass = values.getClass();
@@ -890,9 +1367,133 @@ public class Serialization {
         } else {
             throw new RuntimeException("Unrecognized timestamp map class");
         }
+        if (readTimeMaps != null) {
+            readTimeMaps.add(valueSet);
+        } else if (timeKeysPool != null) {
+            valueSet.compact(timeKeysPool);
+        }
         return valueSet;
     }
 
+    /**
+     * Writes the sorted timestamps or interval bounds of a time map.
+     * <p>
+     * Keys identical to keys already written in the same model are written as a
+     * reference, regularly sampled keys as their start and step, and integer
+     * keys as variable-length deltas. Block segments only reference keys
+     * written before them and never register new ones.
+     */
+    private void serializeTimeKeys(final DataOutput out, final double[] keys) throws IOException {
+        if (writtenTimeKeys != null) {
+            int reference = writtenTimeKeys.getInt(keys);
+            if (reference != NULL_ID) {
+                out.write(TIME_KEYS_REFERENCE);
+                LongPacker.packInt(out, reference);
+                return;
+            }
+            if (!sharedTimeKeys) {
+                writtenTimeKeys.put(keys, writtenTimeKeys.size());
+            }
+        }
+
+        if (isRegular(keys)) {
+            out.write(TIME_KEYS_REGULAR);
+            LongPacker.packInt(out, keys.length);
+            out.writeDouble(keys[0]);
+            out.writeDouble(keys[1] - keys[0]);
+        } else if (isIntegerSorted(keys)) {
+            out.write(TIME_KEYS_DELTA);
+            LongPacker.packInt(out, keys.length);
+            long first = (long) keys[0];
+            out.writeLong(first);
+            long previous = first;
+            for (int i = 1; i < keys.length; i++) {
+                long key = (long) keys[i];
+                LongPacker.packLong(out, key - previous);
+                previous = key;
+            }
+        } else {
+            out.write(TIME_KEYS_RAW);
+            LongPacker.packInt(out, keys.length);
+            for (double key : keys) {
+                out.writeDouble(key);
+            }
+        }
+    }
+
+    private double[] deserializeTimeKeys(final DataInput is) throws IOException, ClassNotFoundException {
+        if (readVersion < 0.7f) {
+            return (double[]) deserialize(is);
+        }
+        int type = is.readUnsignedByte();
+        if (type == TIME_KEYS_REFERENCE) {
+            int reference = LongPacker.unpackInt(is);
+            if (readTimeKeys == null || reference >= readTimeKeys.size()) {
+                throw new RuntimeException("Unknown time keys reference " + reference);
+            }
+            return readTimeKeys.get(reference);
+        }
+
+        double[] keys = new double[LongPacker.unpackInt(is)];
+        if (type == TIME_KEYS_REGULAR) {
+            double start = is.readDouble();
+            double step = is.readDouble();
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = start + i * step;
+            }
+        } else if (type == TIME_KEYS_DELTA) {
+            long key = is.readLong();
+            for (int i = 0; i < keys.length; i++) {
+                if (i > 0) {
+                    key += LongPacker.unpackLong(is);
+                }
+                keys[i] = key;
+            }
+        } else if (type == TIME_KEYS_RAW) {
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = is.readDouble();
+            }
+        } else {
+            throw new RuntimeException("Unrecognized time keys type " + type);
+        }
+        if (readTimeKeys != null && !sharedTimeKeys) {
+            readTimeKeys.add(keys);
+        }
+        return keys;
+    }
+
+    private static boolean isRegular(double[] keys) {
+        if (keys.length < 3) {
+            return false;
+        }
+        double start = keys[0];
+        double step = keys[1] - keys[0];
+        if (Double.isInfinite(step) || Double.isNaN(step)) {
+            return false;
+        }
+        for (int i = 2; i < keys.length; i++) {
+            if (keys[i] != start + i * step) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isIntegerSorted(double[] keys) {
+        if (keys.length == 0) {
+            return false;
+        }
+        // Bounded so deltas can't overflow and integers are exact doubles
+        double limit = 1L << 52;
+        for (int i = 0; i < keys.length; i++) {
+            double key = keys[i];
+            if (key != Math.rint(key) || Math.abs(key) >= limit || (i > 0 && key < keys[i - 1])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private void serializeTimestampIndexStore(final DataOutput out, final TimestampIndexStore timestampIndexStore) throws IOException {
         serialize(out, timestampIndexStore.elementType);
 
@@ -957,12 +1558,14 @@ public class Serialization {
         int length = (Integer) deserialize(is);
         int mapSize = (Integer) deserialize(is);
 
-        Interval2IntTreeMap map = intervalIndexStore.getMap();
+        // Entries are serialized in order so the tree can be built at once
+        Interval[] keys = new Interval[mapSize];
+        int[] values = new int[mapSize];
         for (int i = 0; i < mapSize; i++) {
-            Interval key = (Interval) deserialize(is);
-            Integer value = (Integer) deserialize(is);
-            map.put(key, value);
+            keys[i] = (Interval) deserialize(is);
+            values[i] = (Integer) deserialize(is);
         }
+        intervalIndexStore.getMap().load(keys, values, mapSize);
         int[] garbage = (int[]) deserialize(is);
         int[] counts = (int[]) deserialize(is);
 
@@ -1055,6 +1658,10 @@ public class Serialization {
         serialize(out, config.getEdgeWeightType());
         serialize(out, config.getTimeRepresentation());
         serialize(out, config.getEdgeWeightColumn());
+        serialize(out, config.getLabelIndex());
+        serialize(out, config.getStringIndex());
+        serialize(out, config.getDegreeIndex());
+        serialize(out, config.getRangeAggregates());
     }
 
     private Configuration deserializeConfiguration(final DataInput is) throws IOException, ClassNotFoundException {
@@ -1075,6 +1682,20 @@ public class Serialization {
             Boolean edgeColumn = (Boolean) deserialize(is);
             config.setEdgeWeightColumn(edgeColumn);
         }
+        if (readVersion >= 0.6) {
+            Boolean labelIndex = (Boolean) deserialize(is);
+            config.setLabelIndex(labelIndex);
+        }
+        if (readVersion >= 0.9f) {
+            Boolean stringIndex = (Boolean) deserialize(is);
+            config.setStringIndex(stringIndex);
+            Boolean degreeIndex = (Boolean) deserialize(is);
+            config.setDegreeIndex(degreeIndex);
+        }
+        if (readVersion >= 0.92f) {
+            Boolean rangeAggregates = (Boolean) deserialize(is);
+            config.setRangeAggregates(rangeAggregates);
+        }
 
         return config;
     }
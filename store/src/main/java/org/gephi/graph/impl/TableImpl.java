@@ -80,6 +80,27 @@ public class TableImpl<T extends Element> implements Table {
         return column;
     }
 
+    @Override
+    public void addIndex(Column... columns) {
+        store.indexStore.addCompositeIndex(checkCompositeIndexColumns(columns));
+    }
+
+    @Override
+    public void removeIndex(Column... columns) {
+        store.indexStore.removeCompositeIndex(checkCompositeIndexColumns(columns));
+    }
+
+    @Override
+    public boolean hasIndex(Column... columns) {
+        ColumnImpl[] cols = checkCompositeIndexColumns(columns);
+        store.lock();
+        try {
+            return store.indexStore.hasCompositeIndex(cols);
+        } finally {
+            store.unlock();
+        }
+    }
+
     @Override
     public int countColumns() {
         return store.size();
@@ -190,6 +211,21 @@ public class TableImpl<T extends Element> implements Table {
         }
     }
 
+    private ColumnImpl[] checkCompositeIndexColumns(Column[] columns) {
+        if (columns == null) {
+            throw new NullPointerException();
+        }
+        if (store.indexStore == null) {
+            throw new UnsupportedOperationException("The table isn't indexed");
+        }
+        ColumnImpl[] cols = new ColumnImpl[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            store.checkNonNullColumnObject(columns[i]);
+            cols[i] = (ColumnImpl) columns[i];
+        }
+        return cols;
+    }
+
     private void checkableTableObserver(TableObserver observer) {
         if (observer == null) {
             throw new NullPointerException();
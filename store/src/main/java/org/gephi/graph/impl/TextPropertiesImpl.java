@@ -20,6 +20,7 @@ import org.gephi.graph.api.TextProperties;
 
 public class TextPropertiesImpl implements TextProperties {
 
+    protected final ElementImpl element;
     protected boolean visible;
     protected int rgba;
     protected float size;
@@ -28,6 +29,11 @@ public class TextPropertiesImpl implements TextProperties {
     protected float height;
 
     public TextPropertiesImpl() {
+        this(null);
+    }
+
+    public TextPropertiesImpl(ElementImpl element) {
+        this.element = element;
         this.rgba = 255 << 24; // Alpha set to 1
         this.size = 1f;
         this.visible = true;
@@ -91,41 +97,49 @@ public class TextPropertiesImpl implements TextProperties {
     @Override
     public void setR(float r) {
         rgba = (rgba & 0xFF00FFFF) | (((int) (r * 255f)) << 16);
+        propertiesChanged();
     }
 
     @Override
     public void setG(float g) {
         rgba = (rgba & 0xFFFF00FF) | ((int) (g * 255f)) << 8;
+        propertiesChanged();
     }
 
     @Override
     public void setB(float b) {
         rgba = (rgba & 0xFFFFFF00) | ((int) (b * 255f));
+        propertiesChanged();
     }
 
     @Override
     public void setAlpha(float a) {
         rgba = (rgba & 0xFFFFFF) | ((int) (a * 255f)) << 24;
+        propertiesChanged();
     }
 
     @Override
     public void setColor(Color color) {
         this.rgba = (color.getAlpha() << 24) | color.getRGB();
+        propertiesChanged();
     }
 
     @Override
     public void setSize(float size) {
         this.size = size;
+        propertiesChanged();
     }
 
     @Override
     public void setVisible(boolean visible) {
         this.visible = visible;
+        propertiesChanged();
     }
 
     @Override
     public void setText(String text) {
         this.text = text;
+        propertiesChanged();
     }
 
     @Override
@@ -134,6 +148,12 @@ public class TextPropertiesImpl implements TextProperties {
         this.height = height;
     }
 
+    private void propertiesChanged() {
+        if (element != null && element.graphStore != null) {
+            element.graphStore.propertiesChanged(element);
+        }
+    }
+
     public int deepHashCode() {
         int hash = 7;
         hash = 97 * hash + (this.visible ? 1 : 0);
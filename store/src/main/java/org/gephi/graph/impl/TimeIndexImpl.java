@@ -15,15 +15,25 @@
  */
 package org.gephi.graph.impl;
 
+import cern.colt.bitvector.BitVector;
 import it.unimi.dsi.fastutil.objects.ObjectIterator;
 import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet;
 import it.unimi.dsi.fastutil.objects.ObjectSet;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Queue;
 import org.gephi.graph.api.Element;
 import org.gephi.graph.api.ElementIterable;
+import org.gephi.graph.api.Node;
+import org.gephi.graph.api.TimeEvent;
+import org.gephi.graph.api.TimeEventIterable;
+import org.gephi.graph.api.TimeEventType;
 import org.gephi.graph.api.TimeIndex;
 import org.gephi.graph.api.types.TimeMap;
 import org.gephi.graph.api.types.TimeSet;
@@ -36,6 +46,10 @@ public abstract class TimeIndexImpl<T extends Element, K, S extends TimeSet<K>,
     protected final boolean mainIndex;
     protected TimeIndexEntry[] timestamps;
     protected int elementCount;
+    // Store the indexed store ids belong to
+    protected GraphStore graphStore;
+    // Cached set used to deduplicate elements
+    private ElementSeenSet cachedSeenSet;
 
     protected TimeIndexImpl(TimeIndexStore<T, K, S, M> store, boolean main) {
         timestampIndexStore = store;
@@ -51,6 +65,7 @@ public abstract class TimeIndexImpl<T extends Element, K, S extends TimeSet<K>,
     public void clear() {
         timestamps = new TimeIndexEntry[0];
         elementCount = 0;
+        graphStore = null;
     }
 
     protected void add(int timestampIndex, Element element) {
@@ -59,14 +74,16 @@ public abstract class TimeIndexImpl<T extends Element, K, S extends TimeSet<K>,
         if (entry == null) {
             entry = addTimestamp(timestampIndex);
         }
-        if (entry.add(element)) {
+        int storeId = getIndexedStoreId(element);
+        if (storeId != -1 ? entry.addId(storeId) : entry.addElement(element)) {
             elementCount++;
         }
     }
 
     protected void remove(int timestampIndex, Element element) {
         TimeIndexEntry entry = timestamps[timestampIndex];
-        if (entry.remove(element)) {
+        int storeId = getIndexedStoreId(element);
+        if (storeId != -1 ? entry.removeId(storeId) : entry.removeElement(element)) {
             elementCount--;
             if (entry.isEmpty()) {
                 clearEntry(timestampIndex);
@@ -74,6 +91,150 @@ public abstract class TimeIndexImpl<T extends Element, K, S extends TimeSet<K>,
         }
     }
 
+    /**
+     * Replaces the content of this index with the elements of
+     * <code>source</code> whose store id is set in <code>filter</code>.
+     * <p>
+     * Entries are copied id by id, so the time sets of the elements don't have
+     * to be read again. Elements that aren't indexed by store id can't belong
+     * to a view and are skipped.
+     *
+     * @param source index to copy, usually the main index
+     * @param filter store ids to keep, or null to keep all of them
+     */
+    protected void filter(TimeIndexImpl source, BitVector filter) {
+        TimeIndexEntry[] sourceTimestamps = source.timestamps;
+        timestamps = new TimeIndexEntry[sourceTimestamps.length];
+        elementCount = 0;
+        graphStore = source.graphStore;
+
+        int filterSize = filter != null ? filter.size() : 0;
+        for (int i = 0; i < sourceTimestamps.length; i++) {
+            TimeIndexEntry sourceEntry = sourceTimestamps[i];
+            if (sourceEntry != null && sourceEntry.idCount > 0) {
+                TimeIndexEntry entry = new TimeIndexEntry();
+                if (sourceEntry.idSet != null) {
+                    BitSet idSet = sourceEntry.idSet;
+                    for (int id = idSet.nextSetBit(0); id >= 0; id = idSet.nextSetBit(id + 1)) {
+                        if (filter == null || (id < filterSize && filter.getQuick(id))) {
+                            entry.addId(id);
+                        }
+                    }
+                } else {
+                    int[] ids = sourceEntry.ids;
+                    for (int j = 0; j < sourceEntry.idCount; j++) {
+                        int id = ids[j];
+                        if (filter == null || (id < filterSize && filter.getQuick(id))) {
+                            entry.addId(id);
+                        }
+                    }
+                }
+                if (entry.idCount > 0) {
+                    timestamps[i] = entry;
+                    elementCount += entry.idCount;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the store id the element is indexed with, or -1 if the element is
+     * kept as an object because its store id can't be resolved back.
+     *
+     * @param element element
+     * @return store id or -1
+     */
+    private int getIndexedStoreId(Element element) {
+        if (element instanceof ElementImpl) {
+            ElementImpl elementImpl = (ElementImpl) element;
+            int storeId = elementImpl.getStoreId();
+            if (storeId >= 0 && elementImpl.graphStore != null) {
+                if (graphStore == null) {
+                    graphStore = elementImpl.graphStore;
+                }
+                if (graphStore == elementImpl.graphStore) {
+                    return storeId;
+                }
+            }
+        }
+        return -1;
+    }
+
+    protected Element getElement(int storeId) {
+        if (timestampIndexStore.elementType.equals(Node.class)) {
+            return graphStore.nodeStore.get(storeId);
+        }
+        return graphStore.edgeStore.get(storeId);
+    }
+
+    /**
+     * Returns an iterable over the elements of the given entries, without
+     * duplicates.
+     * <p>
+     * Must be called with the read lock held. The lock is released when the
+     * iteration completes, or immediately if there is no elements.
+     *
+     * @param entries entries
+     * @return element iterable
+     */
+    protected ElementIterable getElements(List<TimeIndexEntry> entries) {
+        if (entries.isEmpty()) {
+            readUnlock();
+            return ElementIterable.EMPTY;
+        }
+        EntryIteratorImpl itr = new EntryIteratorImpl(entries);
+        return new ElementIterableImpl(itr);
+    }
+
+    /**
+     * Returns the number of distinct elements in the given entries.
+     *
+     * @param entries entries
+     * @return element count
+     */
+    protected int countElements(List<TimeIndexEntry> entries) {
+        if (entries.isEmpty()) {
+            return 0;
+        } else if (entries.size() == 1) {
+            return entries.get(0).size();
+        }
+        ElementSeenSet seenSet = acquireSeenSet();
+        try {
+            int count = 0;
+            for (TimeIndexEntry entry : entries) {
+                if (entry.idSet != null) {
+                    seenSet.storeIds.or(entry.idSet);
+                } else {
+                    int[] ids = entry.ids;
+                    for (int i = 0; i < entry.idCount; i++) {
+                        seenSet.storeIds.set(ids[i]);
+                    }
+                }
+                if (entry.elementSet != null) {
+                    for (Element element : entry.elementSet) {
+                        if (seenSet.add(element)) {
+                            count++;
+                        }
+                    }
+                }
+            }
+            return count + seenSet.storeIds.cardinality();
+        } finally {
+            releaseSeenSet(seenSet);
+        }
+    }
+
+    private synchronized ElementSeenSet acquireSeenSet() {
+        ElementSeenSet seenSet = cachedSeenSet;
+        cachedSeenSet = null;
+        return seenSet != null ? seenSet : new ElementSeenSet();
+    }
+
+    private synchronized void releaseSeenSet(ElementSeenSet seenSet) {
+        seenSet.clear();
+        cachedSeenSet = seenSet;
+    }
+
     protected TimeIndexEntry addTimestamp(final int index) {
         ensureArraySize(index);
         TimeIndexEntry entry = new TimeIndexEntry();
@@ -99,6 +260,70 @@ public abstract class TimeIndexImpl<T extends Element, K, S extends TimeSet<K>,
         }
     }
 
+    @Override
+    public int[] cumulativeHistogram(double start, double end, int buckets) {
+        checkHistogram(start, end, buckets);
+
+        int[] result = new int[buckets];
+        int bucket = 0;
+        double bucketEnd = getBucketEnd(0, start, end, buckets);
+        int alive = 0;
+        TimeEventIterable<T> events = getEvents();
+        for (TimeEvent<T> event : events) {
+            // Elements are still alive at their leave time
+            boolean enter = event.getType().equals(TimeEventType.ENTER);
+            while (bucket < buckets && (enter ? event.getTime() > bucketEnd : event.getTime() >= bucketEnd)) {
+                result[bucket++] = alive;
+                bucketEnd = getBucketEnd(bucket, start, end, buckets);
+            }
+            if (bucket == buckets) {
+                events.doBreak();
+                break;
+            }
+            alive += enter ? 1 : -1;
+        }
+        while (bucket < buckets) {
+            result[bucket++] = alive;
+        }
+        return result;
+    }
+
+    protected void checkHistogram(double start, double end, int buckets) {
+        checkDouble(start);
+        checkDouble(end);
+        if (start > end) {
+            throw new IllegalArgumentException("The start can't be greater than the end");
+        }
+        if (buckets <= 0) {
+            throw new IllegalArgumentException("The number of buckets should be positive");
+        }
+    }
+
+    /**
+     * Returns the bucket <code>time</code> falls into, clamped to the first and
+     * last buckets.
+     *
+     * @param time time
+     * @param start start of the first bucket
+     * @param end end of the last bucket
+     * @param buckets number of buckets
+     * @return bucket index
+     */
+    protected static int getBucket(double time, double start, double end, int buckets) {
+        if (time >= end) {
+            return buckets - 1;
+        }
+        int bucket = (int) ((time - start) / (end - start) * buckets);
+        return Math.max(0, Math.min(buckets - 1, bucket));
+    }
+
+    protected static double getBucketEnd(int bucket, double start, double end, int buckets) {
+        if (bucket >= buckets - 1) {
+            return end;
+        }
+        return start + (end - start) * (bucket + 1) / buckets;
+    }
+
     protected void readLock() {
         if (lock != null) {
             lock.readLock();
@@ -125,58 +350,221 @@ public abstract class TimeIndexImpl<T extends Element, K, S extends TimeSet<K>,
 
     protected static class TimeIndexEntry {
 
-        protected final ObjectSet<Element> elementSet;
+        // Sorted store ids, until a bitmap gets smaller
+        protected int[] ids;
+        protected int idCount;
+        // Store ids as a bitmap, once the entry is dense
+        protected BitSet idSet;
+        // Elements that can't be indexed by store id (optional)
+        protected ObjectSet<Element> elementSet;
 
         public TimeIndexEntry() {
-            elementSet = new ObjectOpenHashSet<Element>();
+            ids = new int[GraphStoreConfiguration.TIMESTAMP_INDEX_ENTRY_DEFAULT_SIZE];
         }
 
-        public boolean add(Element element) {
+        public boolean addId(int id) {
+            if (idSet != null) {
+                if (idSet.get(id)) {
+                    return false;
+                }
+                idSet.set(id);
+                idCount++;
+                return true;
+            }
+            int pos;
+            if (idCount == 0 || ids[idCount - 1] < id) {
+                // Fast path, ids are mostly added in increasing order
+                pos = idCount;
+            } else {
+                pos = Arrays.binarySearch(ids, 0, idCount, id);
+                if (pos >= 0) {
+                    return false;
+                }
+                pos = -pos - 1;
+            }
+            if (idCount == ids.length) {
+                ids = Arrays.copyOf(ids, Math.max(idCount + 1, (int) (idCount * 1.5)));
+            }
+            System.arraycopy(ids, pos, ids, pos + 1, idCount - pos);
+            ids[pos] = id;
+            idCount++;
+
+            // Switch to a bitmap when it takes less space than the array
+            if (idCount >= GraphStoreConfiguration.TIMESTAMP_INDEX_ENTRY_BITMAP_MIN_SIZE && ids[idCount - 1] < idCount * 32) {
+                idSet = new BitSet(ids[idCount - 1] + 1);
+                for (int i = 0; i < idCount; i++) {
+                    idSet.set(ids[i]);
+                }
+                ids = null;
+            }
+            return true;
+        }
+
+        public boolean removeId(int id) {
+            if (idSet != null) {
+                if (!idSet.get(id)) {
+                    return false;
+                }
+                idSet.clear(id);
+                idCount--;
+                return true;
+            }
+            int pos = Arrays.binarySearch(ids, 0, idCount, id);
+            if (pos < 0) {
+                return false;
+            }
+            System.arraycopy(ids, pos + 1, ids, pos, idCount - pos - 1);
+            idCount--;
+            return true;
+        }
+
+        public boolean addElement(Element element) {
+            if (elementSet == null) {
+                elementSet = new ObjectOpenHashSet<Element>();
+            }
             return elementSet.add(element);
         }
 
-        public boolean remove(Element element) {
-            return elementSet.remove(element);
+        public boolean removeElement(Element element) {
+            if (elementSet != null && elementSet.remove(element)) {
+                if (elementSet.isEmpty()) {
+                    elementSet = null;
+                }
+                return true;
+            }
+            return false;
+        }
+
+        public int size() {
+            return idCount + (elementSet != null ? elementSet.size() : 0);
         }
 
         public boolean isEmpty() {
-            return elementSet.isEmpty();
+            return size() == 0;
         }
     }
 
-    protected class ElementIteratorImpl implements Iterator<Element> {
+    protected class EntryIteratorImpl implements Iterator<Element> {
 
-        private final ObjectIterator<Element> itr;
+        private final Iterator<TimeIndexEntry> entryIterator;
+        // Only needed when iterating over several entries
+        private ElementSeenSet seenSet;
+        private boolean locked = true;
+        private TimeIndexEntry entry;
+        private int idPosition;
+        private ObjectIterator<Element> elementIterator;
+        private Element pointer;
 
-        public ElementIteratorImpl(ObjectIterator<Element> itr) {
-            this.itr = itr;
+        public EntryIteratorImpl(List<TimeIndexEntry> entries) {
+            this.entryIterator = entries.iterator();
+            this.seenSet = entries.size() > 1 ? acquireSeenSet() : null;
         }
 
         @Override
         public boolean hasNext() {
-            final boolean hasNext = itr.hasNext();
-            if (!hasNext) {
-                readUnlock();
+            if (pointer != null) {
+                return true;
             }
-            return hasNext;
+            while (locked) {
+                if (entry != null) {
+                    int id;
+                    while ((id = nextId()) != -1) {
+                        if (seenSet == null || seenSet.add(id)) {
+                            pointer = getElement(id);
+                            return true;
+                        }
+                    }
+                    if (elementIterator == null && entry.elementSet != null) {
+                        elementIterator = entry.elementSet.iterator();
+                    }
+                    while (elementIterator != null && elementIterator.hasNext()) {
+                        Element element = elementIterator.next();
+                        if (seenSet == null || seenSet.add(element)) {
+                            pointer = element;
+                            return true;
+                        }
+                    }
+                }
+                if (entryIterator.hasNext()) {
+                    entry = entryIterator.next();
+                    idPosition = 0;
+                    elementIterator = null;
+                } else {
+                    release();
+                    readUnlock();
+                }
+            }
+            return false;
+        }
+
+        private int nextId() {
+            if (entry.idSet != null) {
+                int id = entry.idSet.nextSetBit(idPosition);
+                if (id != -1) {
+                    idPosition = id + 1;
+                }
+                return id;
+            }
+            return idPosition < entry.idCount ? entry.ids[idPosition++] : -1;
         }
 
         @Override
         public Element next() {
-            return itr.next();
+            Element element = pointer;
+            pointer = null;
+            return element;
         }
 
         @Override
         public void remove() {
             throw new UnsupportedOperationException("Not supported.");
         }
+
+        protected void release() {
+            locked = false;
+            if (seenSet != null) {
+                releaseSeenSet(seenSet);
+                seenSet = null;
+            }
+        }
+    }
+
+    protected static class ElementSeenSet {
+
+        protected final BitSet storeIds;
+        // Elements not indexed by store id, should be rare
+        protected ObjectSet<Element> others;
+
+        public ElementSeenSet() {
+            storeIds = new BitSet();
+        }
+
+        public boolean add(int storeId) {
+            if (storeIds.get(storeId)) {
+                return false;
+            }
+            storeIds.set(storeId);
+            return true;
+        }
+
+        public boolean add(Element element) {
+            if (others == null) {
+                others = new ObjectOpenHashSet<Element>();
+            }
+            return others.add(element);
+        }
+
+        public void clear() {
+            storeIds.clear();
+            others = null;
+        }
     }
 
     protected class ElementIterableImpl implements ElementIterable {
 
-        protected final Iterator<Element> iterator;
+        protected final EntryIteratorImpl iterator;
 
-        public ElementIterableImpl(Iterator<Element> iterator) {
+        public ElementIterableImpl(EntryIteratorImpl iterator) {
             this.iterator = iterator;
         }
 
@@ -205,7 +593,139 @@ public abstract class TimeIndexImpl<T extends Element, K, S extends TimeSet<K>,
 
         @Override
         public void doBreak() {
-            readUnlock();
+            if (iterator.locked) {
+                iterator.release();
+                readUnlock();
+            }
+        }
+    }
+
+    /**
+     * Sorted store ids and elements of an entry.
+     * <p>
+     * Refers to the entry arrays when possible so it's only valid while the
+     * read lock is held.
+     */
+    protected static class EntryIds {
+
+        protected final int[] ids;
+        protected final int length;
+        protected final ObjectSet<Element> elements;
+
+        public EntryIds(TimeIndexEntry entry) {
+            if (entry.idSet != null) {
+                ids = new int[entry.idCount];
+                int j = 0;
+                for (int id = entry.idSet.nextSetBit(0); id >= 0; id = entry.idSet.nextSetBit(id + 1)) {
+                    ids[j++] = id;
+                }
+                length = j;
+            } else {
+                ids = entry.ids;
+                length = entry.idCount;
+            }
+            elements = entry.elementSet;
+        }
+    }
+
+    /**
+     * Iterator over time events, filled one time step at a time.
+     * <p>
+     * Must be created with the read lock held. The lock is released when the
+     * iteration completes.
+     */
+    protected abstract class EventIteratorImpl implements Iterator<TimeEvent<T>> {
+
+        protected final Queue<TimeEvent<T>> events = new ArrayDeque<TimeEvent<T>>();
+        private boolean locked = true;
+
+        @Override
+        public boolean hasNext() {
+            while (events.isEmpty() && locked) {
+                if (!fill()) {
+                    release();
+                }
+            }
+            return !events.isEmpty();
+        }
+
+        @Override
+        public TimeEvent<T> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return events.poll();
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("Not supported.");
+        }
+
+        /**
+         * Adds the events of the next time step to the queue.
+         *
+         * @return false if there is no more time steps
+         */
+        protected abstract boolean fill();
+
+        /**
+         * Adds events for the elements of <code>ids</code> not in
+         * <code>excluded</code>.
+         *
+         * @param time event time
+         * @param ids elements
+         * @param excluded elements to skip, or null
+         * @param type event type
+         */
+        protected void addDifference(double time, EntryIds ids, EntryIds excluded, TimeEventType type) {
+            int j = 0;
+            for (int i = 0; i < ids.length; i++) {
+                int id = ids.ids[i];
+                if (excluded != null) {
+                    while (j < excluded.length && excluded.ids[j] < id) {
+                        j++;
+                    }
+                    if (j < excluded.length && excluded.ids[j] == id) {
+                        continue;
+                    }
+                }
+                events.add(new TimeEvent<T>(time, (T) getElement(id), type));
+            }
+            if (ids.elements != null) {
+                for (Element element : ids.elements) {
+                    if (excluded == null || excluded.elements == null || !excluded.elements.contains(element)) {
+                        events.add(new TimeEvent<T>(time, (T) element, type));
+                    }
+                }
+            }
+        }
+
+        protected void release() {
+            if (locked) {
+                locked = false;
+                events.clear();
+                readUnlock();
+            }
+        }
+    }
+
+    protected class TimeEventIterableImpl implements TimeEventIterable<T> {
+
+        protected final EventIteratorImpl iterator;
+
+        public TimeEventIterableImpl(EventIteratorImpl iterator) {
+            this.iterator = iterator;
+        }
+
+        @Override
+        public Iterator<TimeEvent<T>> iterator() {
+            return iterator;
+        }
+
+        @Override
+        public void doBreak() {
+            iterator.release();
         }
     }
 }
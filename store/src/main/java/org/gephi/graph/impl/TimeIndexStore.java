@@ -15,10 +15,10 @@
  */
 package org.gephi.graph.impl;
 
+import cern.colt.bitvector.BitVector;
 import it.unimi.dsi.fastutil.ints.IntRBTreeSet;
 import it.unimi.dsi.fastutil.ints.IntSortedSet;
 import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
-import java.util.Iterator;
 import java.util.Map;
 import java.util.Map.Entry;
 import org.gephi.graph.api.DirectedSubgraph;
@@ -302,28 +302,14 @@ public abstract class TimeIndexStore<T extends Element, K, S extends TimeSet<K>,
         if (viewIndex != null) {
             graph.readLock();
             try {
-                Iterator<T> iterator = null;
-
+                GraphViewImpl view = (GraphViewImpl) graph.getView();
+                BitVector filter;
                 if (elementType.equals(Node.class)) {
-                    iterator = (Iterator<T>) graph.getNodes().iterator();
-                } else if (elementType.equals(Edge.class)) {
-                    iterator = (Iterator<T>) graph.getEdges().iterator();
-                }
-
-                if (iterator != null) {
-                    while (iterator.hasNext()) {
-                        Element element = iterator.next();
-                        S set = getTimeSet(element);
-                        if (set != null) {
-                            K[] ts = set.toArray();
-                            int tsLength = ts.length;
-                            for (int i = 0; i < tsLength; i++) {
-                                int timestamp = timeSortedMap.get(ts[i]);
-                                viewIndex.add(timestamp, element);
-                            }
-                        }
-                    }
+                    filter = view.nodeView ? view.nodeBitVector : null;
+                } else {
+                    filter = view.edgeBitVector;
                 }
+                viewIndex.filter(mainIndex, filter);
             } finally {
                 graph.readUnlock();
             }
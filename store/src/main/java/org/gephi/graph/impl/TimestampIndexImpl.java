@@ -18,11 +18,14 @@ package org.gephi.graph.impl;
 import it.unimi.dsi.fastutil.doubles.Double2IntMap;
 import it.unimi.dsi.fastutil.doubles.Double2IntSortedMap;
 import it.unimi.dsi.fastutil.objects.ObjectBidirectionalIterator;
-import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet;
-import it.unimi.dsi.fastutil.objects.ObjectSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import org.gephi.graph.api.Element;
 import org.gephi.graph.api.ElementIterable;
 import org.gephi.graph.api.Interval;
+import org.gephi.graph.api.TimeEventIterable;
+import org.gephi.graph.api.TimeEventType;
 import org.gephi.graph.api.types.TimestampMap;
 import org.gephi.graph.api.types.TimestampSet;
 
@@ -96,7 +99,7 @@ public class TimestampIndexImpl<T extends Element> extends TimeIndexImpl<T, Doub
         if (index != null && index < timestamps.length) {
             TimeIndexEntry ts = timestamps[index];
             if (ts != null) {
-                return new ElementIterableImpl(new ElementIteratorImpl(ts.elementSet.iterator()));
+                return getElements(Collections.singletonList(ts));
             }
         }
         readUnlock();
@@ -109,7 +112,68 @@ public class TimestampIndexImpl<T extends Element> extends TimeIndexImpl<T, Doub
         checkDouble(interval.getHigh());
 
         readLock();
-        ObjectSet<Element> elements = new ObjectOpenHashSet<Element>();
+        return getElements(getEntries(interval));
+    }
+
+    @Override
+    public int count(Interval interval) {
+        checkDouble(interval.getLow());
+        checkDouble(interval.getHigh());
+
+        readLock();
+        try {
+            return countElements(getEntries(interval));
+        } finally {
+            readUnlock();
+        }
+    }
+
+    @Override
+    public int[] histogram(double start, double end, int buckets) {
+        checkHistogram(start, end, buckets);
+
+        int[] result = new int[buckets];
+        readLock();
+        try {
+            // Entries are grouped by bucket, which counts distinct elements
+            List<TimeIndexEntry> entries = new ArrayList<TimeIndexEntry>();
+            int bucket = -1;
+            Double2IntSortedMap sortedMap = (Double2IntSortedMap) timestampIndexStore.timeSortedMap;
+            for (Double2IntMap.Entry entry : sortedMap.tailMap(start).double2IntEntrySet()) {
+                double timestamp = entry.getDoubleKey();
+                if (timestamp > end) {
+                    break;
+                }
+                int index = entry.getIntValue();
+                if (index < timestamps.length && timestamps[index] != null) {
+                    int b = getBucket(timestamp, start, end, buckets);
+                    if (b != bucket) {
+                        if (bucket >= 0) {
+                            result[bucket] = countElements(entries);
+                            entries.clear();
+                        }
+                        bucket = b;
+                    }
+                    entries.add(timestamps[index]);
+                }
+            }
+            if (bucket >= 0) {
+                result[bucket] = countElements(entries);
+            }
+        } finally {
+            readUnlock();
+        }
+        return result;
+    }
+
+    @Override
+    public TimeEventIterable<T> getEvents() {
+        readLock();
+        return new TimeEventIterableImpl(new TimestampEventIterator());
+    }
+
+    private List<TimeIndexEntry> getEntries(Interval interval) {
+        List<TimeIndexEntry> entries = new ArrayList<TimeIndexEntry>();
         Double2IntSortedMap sortedMap = (Double2IntSortedMap) timestampIndexStore.timeSortedMap;
         if (!sortedMap.isEmpty()) {
             for (Double2IntMap.Entry entry : sortedMap.tailMap(interval.getLow()).double2IntEntrySet()) {
@@ -119,7 +183,7 @@ public class TimestampIndexImpl<T extends Element> extends TimeIndexImpl<T, Doub
                     if (index < timestamps.length) {
                         TimeIndexEntry ts = timestamps[index];
                         if (ts != null) {
-                            elements.addAll(ts.elementSet);
+                            entries.add(ts);
                         }
                     }
                 } else {
@@ -127,10 +191,60 @@ public class TimestampIndexImpl<T extends Element> extends TimeIndexImpl<T, Doub
                 }
             }
         }
-        if (!elements.isEmpty()) {
-            return new ElementIterableImpl(new ElementIteratorImpl(elements.iterator()));
+        return entries;
+    }
+
+    /**
+     * Emits, at each timestamp, the elements not present at the previous
+     * timestamp as entering and the elements not present at the next timestamp
+     * as leaving.
+     */
+    private class TimestampEventIterator extends EventIteratorImpl {
+
+        private final ObjectBidirectionalIterator<Double2IntMap.Entry> entryIterator;
+        private EntryIds previous;
+        private EntryIds current;
+        private double currentTimestamp;
+        private EntryIds next;
+        private double nextTimestamp;
+
+        public TimestampEventIterator() {
+            Double2IntSortedMap sortedMap = (Double2IntSortedMap) timestampIndexStore.timeSortedMap;
+            entryIterator = sortedMap.double2IntEntrySet().iterator();
+            advance();
+            current = next;
+            currentTimestamp = nextTimestamp;
+            advance();
+        }
+
+        @Override
+        protected boolean fill() {
+            if (current == null) {
+                return false;
+            }
+            addDifference(currentTimestamp, current, previous, TimeEventType.ENTER);
+            addDifference(currentTimestamp, current, next, TimeEventType.LEAVE);
+            previous = current;
+            current = next;
+            currentTimestamp = nextTimestamp;
+            advance();
+            return true;
+        }
+
+        private void advance() {
+            next = null;
+            while (entryIterator.hasNext()) {
+                Double2IntMap.Entry entry = entryIterator.next();
+                int index = entry.getIntValue();
+                if (index < timestamps.length) {
+                    TimeIndexEntry ts = timestamps[index];
+                    if (ts != null && !ts.isEmpty()) {
+                        next = new EntryIds(ts);
+                        nextTimestamp = entry.getDoubleKey();
+                        return;
+                    }
+                }
+            }
         }
-        readUnlock();
-        return ElementIterable.EMPTY;
     }
 }
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl.utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Read-only memory mapping of a whole file, whatever its size.
+ * <p>
+ * A mapped buffer can't exceed 2GB so the file is mapped in segments and values
+ * are read at absolute <code>long</code> positions. Values spanning two
+ * segments are assembled byte by byte. Values are read big-endian, as
+ * <code>DataOutput</code> writes them.
+ */
+public final class MappedBuffer {
+
+    public static final int DEFAULT_SEGMENT_SIZE = 1 << 30;
+    private final ByteBuffer[] segments;
+    private final int segmentShift;
+    private final long segmentMask;
+    private final long size;
+
+    private MappedBuffer(ByteBuffer[] segments, int segmentSize, long size) {
+        this.segments = segments;
+        this.segmentShift = Integer.numberOfTrailingZeros(segmentSize);
+        this.segmentMask = segmentSize - 1;
+        this.size = size;
+    }
+
+    /**
+     * Maps the whole content of <code>channel</code> in segments of
+     * {@link #DEFAULT_SEGMENT_SIZE} bytes.
+     *
+     * @param channel file channel, which can be closed once mapped
+     * @return mapped buffer
+     * @throws IOException if an io error occurs
+     */
+    public static MappedBuffer map(FileChannel channel) throws IOException {
+        return map(channel, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Maps the whole content of <code>channel</code> in segments of
+     * <code>segmentSize</code> bytes.
+     *
+     * @param channel file channel, which can be closed once mapped
+     * @param segmentSize segment size, a power of two
+     * @return mapped buffer
+     * @throws IOException if an io error occurs
+     */
+    public static MappedBuffer map(FileChannel channel, int segmentSize) throws IOException {
+        if (segmentSize <= 0 || Integer.bitCount(segmentSize) != 1) {
+            throw new IllegalArgumentException("The segment size should be a power of two");
+        }
+        long size = channel.size();
+        long count = (size + segmentSize - 1) / segmentSize;
+        if (count > Integer.MAX_VALUE) {
+            throw new IOException("The file is too large to be mapped");
+        }
+        ByteBuffer[] segments = new ByteBuffer[(int) count];
+        for (int i = 0; i < segments.length; i++) {
+            long position = (long) i * segmentSize;
+            segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(segmentSize, size - position));
+        }
+        return new MappedBuffer(segments, segmentSize, size);
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public byte get(long position) {
+        checkPosition(position, 1);
+        return segments[(int) (position >>> segmentShift)].get((int) (position & segmentMask));
+    }
+
+    public void get(long position, byte[] dst) {
+        checkPosition(position, dst.length);
+        int offset = 0;
+        while (offset < dst.length) {
+            ByteBuffer segment = segments[(int) (position >>> segmentShift)].duplicate();
+            segment.position((int) (position & segmentMask));
+            int length = Math.min(dst.length - offset, segment.remaining());
+            segment.get(dst, offset, length);
+            offset += length;
+            position += length;
+        }
+    }
+
+    public short getShort(long position) {
+        ByteBuffer segment = getSegment(position, 2);
+        if (segment != null) {
+            return segment.getShort((int) (position & segmentMask));
+        }
+        return (short) getSpanning(position, 2);
+    }
+
+    public char getChar(long position) {
+        ByteBuffer segment = getSegment(position, 2);
+        if (segment != null) {
+            return segment.getChar((int) (position & segmentMask));
+        }
+        return (char) getSpanning(position, 2);
+    }
+
+    public int getInt(long position) {
+        ByteBuffer segment = getSegment(position, 4);
+        if (segment != null) {
+            return segment.getInt((int) (position & segmentMask));
+        }
+        return (int) getSpanning(position, 4);
+    }
+
+    public long getLong(long position) {
+        ByteBuffer segment = getSegment(position, 8);
+        if (segment != null) {
+            return segment.getLong((int) (position & segmentMask));
+        }
+        return getSpanning(position, 8);
+    }
+
+    public float getFloat(long position) {
+        return Float.intBitsToFloat(getInt(position));
+    }
+
+    public double getDouble(long position) {
+        return Double.longBitsToDouble(getLong(position));
+    }
+
+    /**
+     * Returns the segment containing the <code>length</code> bytes at
+     * <code>position</code>, or null if they span two segments.
+     */
+    private ByteBuffer getSegment(long position, int length) {
+        checkPosition(position, length);
+        ByteBuffer segment = segments[(int) (position >>> segmentShift)];
+        if ((position & segmentMask) + length <= segment.limit()) {
+            return segment;
+        }
+        return null;
+    }
+
+    private long getSpanning(long position, int length) {
+        long value = 0;
+        for (int i = 0; i < length; i++) {
+            value = (value << 8) | (get(position + i) & 0xFF);
+        }
+        return value;
+    }
+
+    private void checkPosition(long position, int length) {
+        if (position < 0 || position > size - length) {
+            throw new IndexOutOfBoundsException("Position: " + position + ", Length: " + length + ", Size: " + size);
+        }
+    }
+}
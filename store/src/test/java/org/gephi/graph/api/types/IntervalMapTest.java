@@ -404,6 +404,120 @@ public class IntervalMapTest {
         Assert.assertEquals(set.getAverage(new Interval(0, 5)), (double) ((2.0 * (short) 2 + 3.0 * (short) 4) / 5.0));
     }
 
+    @Test
+    public void testAggregatedEstimators() {
+        IntervalDoubleMap scanned = new IntervalDoubleMap();
+        IntervalDoubleMap aggregated = new IntervalDoubleMap();
+        aggregated.setRangeAggregatesEnabled(true);
+        for (int i = 0; i < 100; i++) {
+            double value = (i * 37) % 23 - 11.5;
+            Interval interval = new Interval(i * 2.0, i * 2.0 + (i % 3 == 0 ? 0.0 : 1.5));
+            scanned.put(interval, value);
+            aggregated.put(interval, value);
+        }
+        for (double low = -3; low < 205; low += 6.5) {
+            for (double high = low; high < 205; high += 10.25) {
+                Interval interval = new Interval(low, high);
+                for (Estimator e : Estimator.values()) {
+                    if (!scanned.isSupported(e)) {
+                        continue;
+                    }
+                    try {
+                        Object expected = scanned.get(interval, e);
+                        Assert.assertEquals(aggregated.get(interval, e), expected, e + " " + interval);
+                    } catch (ArithmeticException ex) {
+                        // Zero total weight
+                        try {
+                            aggregated.get(interval, e);
+                            Assert.fail();
+                        } catch (ArithmeticException ex2) {
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testAggregatedEstimatorsLargeValues() {
+        IntervalLongMap scanned = new IntervalLongMap();
+        IntervalLongMap aggregated = new IntervalLongMap();
+        aggregated.setRangeAggregatesEnabled(true);
+        for (int i = 0; i < 64; i++) {
+            long value = i % 2 == 0 ? Long.MAX_VALUE / (i + 1) : i;
+            Interval interval = new Interval(i * 0.1, i * 0.1 + 0.05);
+            scanned.put(interval, value);
+            aggregated.put(interval, value);
+        }
+        for (int low = 0; low < 64; low += 3) {
+            for (int high = low; high < 64; high += 5) {
+                Interval interval = new Interval(low * 0.1, high * 0.1 + 0.05);
+                for (Estimator e : Estimator.values()) {
+                    if (scanned.isSupported(e)) {
+                        // Query twice, results must not depend on history
+                        Assert.assertEquals(aggregated.get(interval, e), scanned.get(interval, e), e + " " + interval);
+                        Assert.assertEquals(aggregated.get(interval, e), scanned.get(interval, e), e + " " + interval);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testAggregatedAverageDouble() {
+        IntervalByteMap scanned = new IntervalByteMap();
+        IntervalByteMap aggregated = new IntervalByteMap();
+        aggregated.setRangeAggregatesEnabled(true);
+        for (int i = 0; i < 100; i++) {
+            byte value = (byte) ((i * 37) % 23 - 11);
+            Interval interval = new Interval(i * 2.0, i * 2.0 + 1.5);
+            scanned.put(interval, value);
+            aggregated.put(interval, value);
+        }
+        for (double low = -3; low < 205; low += 6.5) {
+            for (double high = low + 1; high < 205; high += 10.25) {
+                Interval interval = new Interval(low, high);
+                Double expected = (Double) scanned.get(interval, Estimator.AVERAGE);
+                Double actual = (Double) aggregated.get(interval, Estimator.AVERAGE);
+                if (expected == null) {
+                    Assert.assertNull(actual, interval.toString());
+                } else {
+                    Assert.assertEquals(actual, expected, 1e-9, interval.toString());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testAggregatesInvalidated() {
+        IntervalIntegerMap map = new IntervalIntegerMap();
+        map.setRangeAggregatesEnabled(true);
+        for (int i = 0; i < 50; i++) {
+            map.put(new Interval(i, i + 0.5), i);
+        }
+        Interval interval = new Interval(10.0, 20.0);
+        Assert.assertEquals(map.get(interval, Estimator.MAX), 20);
+        Assert.assertEquals(map.get(interval, Estimator.MAX), 20);
+        map.put(new Interval(15.0, 15.5), 100);
+        Assert.assertEquals(map.get(interval, Estimator.MAX), 100);
+        Assert.assertEquals(map.get(interval, Estimator.MAX), 100);
+        map.remove(new Interval(15.0, 15.5));
+        Assert.assertEquals(map.get(interval, Estimator.MAX), 20);
+        map.putAll(new double[] { 10.6, 10.7 }, new int[] { -5 });
+        Assert.assertEquals(map.get(interval, Estimator.MIN), -5);
+        map.clear();
+        Assert.assertNull(map.get(interval, Estimator.MIN));
+    }
+
+    @Test
+    public void testAverageWithOffsetIntervals() {
+        IntervalDoubleMap map = new IntervalDoubleMap();
+        map.put(new Interval(1.0, 2.0), 10.0);
+        map.put(new Interval(5.0, 7.0), 20.0);
+        map.put(new Interval(8.0, 9.0), 40.0);
+        Assert.assertEquals(map.get(new Interval(6.0, 10.0), Estimator.AVERAGE), 30.0);
+    }
+
     @Test
     public void testEquals() {
         Interval[] indices = new Interval[] { new Interval(1.0, 2.0), new Interval(3.0, 4.0), new Interval(2.0, 2.0), new Interval(
@@ -481,6 +595,49 @@ public class IntervalMapTest {
         Assert.assertTrue(set1.hashCode() == set2.hashCode());
     }
 
+    @Test
+    public void testManyPuts() {
+        IntervalDoubleMap map = new IntervalDoubleMap();
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertTrue(map.put(new Interval(i, i + 0.5), i * 2.0));
+        }
+        Assert.assertEquals(map.size(), 1000);
+        Assert.assertEquals(map.getIntervals().length, 2000);
+        Assert.assertEquals(map.toDoubleArray().length, 1000);
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertEquals(map.getDouble(new Interval(i, i + 0.5)), i * 2.0);
+        }
+    }
+
+    @Test
+    public void testPutAllAppend() {
+        IntervalDoubleMap map = new IntervalDoubleMap();
+        map.put(new Interval(1.0, 2.0), 10.0);
+        map.putAll(new double[] { 3.0, 4.0, 5.0, 6.0 }, new double[] { 30.0, 50.0 });
+        testValues(map, new Interval[] { new Interval(1.0, 2.0), new Interval(3.0, 4.0), new Interval(5.0, 6.0) }, new Object[] { 10.0, 30.0, 50.0 });
+    }
+
+    @Test
+    public void testPutAllUnsorted() {
+        IntervalIntegerMap map = new IntervalIntegerMap();
+        map.put(new Interval(3.0, 4.0), 3);
+        map.putAll(new double[] { 5.0, 6.0, 1.0, 2.0 }, new int[] { 5, 1 });
+        testValues(map, new Interval[] { new Interval(1.0, 2.0), new Interval(3.0, 4.0), new Interval(5.0, 6.0) }, new Object[] { 1, 3, 5 });
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testPutAllDifferentLength() {
+        IntervalDoubleMap map = new IntervalDoubleMap();
+        map.putAll(new double[] { 1.0, 2.0 }, new double[] { 1.0, 2.0 });
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testPutAllOverlap() {
+        IntervalDoubleMap map = new IntervalDoubleMap();
+        map.put(new Interval(1.0, 5.0), 1.0);
+        map.putAll(new double[] { 2.0, 3.0 }, new double[] { 2.0 });
+    }
+
     @Test
     public void testCopyConstructor() {
         IntervalStringMap map1 = new IntervalStringMap();
@@ -567,6 +724,43 @@ public class IntervalMapTest {
         Assert.assertEquals(mapInf.toString(TimeFormat.DATETIME), "<[-Infinity, Infinity, value]>");
     }
 
+    @Test
+    public void testCompact() {
+        for (IntervalMap set : getAllInstances(10)) {
+            Object[] defaultValues = getTestValues(set);
+            set.put(new Interval(1.0, 2.0), defaultValues[0]);
+            set.put(new Interval(3.0, 4.0), defaultValues[1]);
+            set.compact(null);
+
+            testValues(set, new Interval[] { new Interval(1.0, 2.0), new Interval(3.0, 4.0) }, defaultValues);
+            Assert.assertEquals(set.getIntervals().length, 4);
+        }
+    }
+
+    @Test
+    public void testCompactSharedIntervals() {
+        TimeKeysPool pool = new TimeKeysPool();
+        IntervalDoubleMap m1 = new IntervalDoubleMap();
+        IntervalDoubleMap m2 = new IntervalDoubleMap();
+        m1.putAll(new double[] { 1.0, 2.0, 3.0, 4.0 }, new double[] { 10.0, 20.0 });
+        m2.putAll(new double[] { 1.0, 2.0, 3.0, 4.0 }, new double[] { 11.0, 21.0 });
+        m1.compact(pool);
+        m2.compact(pool);
+
+        Assert.assertEquals(pool.size(), 1);
+        Assert.assertSame(m1.getIntervals(), m2.getIntervals());
+        Assert.assertEquals(m2.getDouble(new Interval(3.0, 4.0)), 21.0);
+
+        m1.remove(new Interval(1.0, 2.0));
+        Assert.assertEquals(m1.getIntervals(), new double[] { 3.0, 4.0 });
+        Assert.assertEquals(m2.getIntervals(), new double[] { 1.0, 2.0, 3.0, 4.0 });
+
+        m2.remove(new Interval(3.0, 4.0));
+        m2.put(new Interval(5.0, 6.0), 31.0);
+        Assert.assertEquals(m2.getIntervals(), new double[] { 1.0, 2.0, 5.0, 6.0 });
+        Assert.assertEquals(pool.size(), 1);
+    }
+
     // UTILITY
     private void testDoubleArrayEquals(double[] a, double[] b) {
         Assert.assertEquals(a.length, b.length);
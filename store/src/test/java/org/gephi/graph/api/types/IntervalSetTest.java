@@ -386,4 +386,17 @@ public class IntervalSetTest {
         setInf.add(new Interval(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY));
         Assert.assertEquals(setInf.toString(TimeFormat.DATETIME), "<[-Infinity, Infinity]>");
     }
+
+    @Test
+    public void testOverlaps() {
+        IntervalSet set = new IntervalSet(new double[] { 1.0, 2.0, 5.0, 6.0 });
+        Assert.assertTrue(set.overlaps(new Interval(1.5, 1.5)));
+        Assert.assertTrue(set.overlaps(new Interval(0.0, 1.0)));
+        Assert.assertTrue(set.overlaps(new Interval(2.0, 3.0)));
+        Assert.assertTrue(set.overlaps(new Interval(3.0, 7.0)));
+        Assert.assertFalse(set.overlaps(new Interval(3.0, 4.0)));
+        Assert.assertFalse(set.overlaps(new Interval(0.0, 0.5)));
+        Assert.assertFalse(set.overlaps(new Interval(7.0, 8.0)));
+        Assert.assertFalse(new IntervalSet().overlaps(new Interval(0.0, 1.0)));
+    }
 }
@@ -502,6 +502,106 @@ public class TimestampMapTest {
         Assert.assertTrue(Math.abs((Double) avg - expected) < 0.00001);
     }
 
+    @Test
+    public void testAggregatedEstimators() {
+        TimestampDoubleMap scanned = new TimestampDoubleMap();
+        TimestampDoubleMap aggregated = new TimestampDoubleMap();
+        aggregated.setRangeAggregatesEnabled(true);
+        for (int i = 0; i < 100; i++) {
+            double value = (i * 37) % 23 - 11.5;
+            scanned.put(i * 2.0, value);
+            aggregated.put(i * 2.0, value);
+        }
+        for (int low = -3; low < 205; low += 7) {
+            for (int high = low; high < 205; high += 11) {
+                Interval interval = new Interval(low, high);
+                for (Estimator e : Estimator.values()) {
+                    if (!scanned.isSupported(e)) {
+                        continue;
+                    }
+                    Assert.assertEquals(aggregated.get(interval, e), scanned.get(interval, e), e + " " + interval);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testAggregatedEstimatorsLargeValues() {
+        TimestampLongMap scanned = new TimestampLongMap();
+        TimestampLongMap aggregated = new TimestampLongMap();
+        aggregated.setRangeAggregatesEnabled(true);
+        for (int i = 0; i < 64; i++) {
+            long value = i % 2 == 0 ? Long.MAX_VALUE / (i + 1) : i;
+            scanned.put(i * 0.1, value);
+            aggregated.put(i * 0.1, value);
+        }
+        for (int low = 0; low < 64; low += 3) {
+            for (int high = low; high < 64; high += 5) {
+                Interval interval = new Interval(low * 0.1, high * 0.1);
+                for (Estimator e : Estimator.values()) {
+                    if (scanned.isSupported(e)) {
+                        // Query twice, results must not depend on history
+                        Assert.assertEquals(aggregated.get(interval, e), scanned.get(interval, e), e + " " + interval);
+                        Assert.assertEquals(aggregated.get(interval, e), scanned.get(interval, e), e + " " + interval);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testAggregatedAverageDouble() {
+        TimestampByteMap scanned = new TimestampByteMap();
+        TimestampByteMap aggregated = new TimestampByteMap();
+        aggregated.setRangeAggregatesEnabled(true);
+        for (int i = 0; i < 100; i++) {
+            byte value = (byte) ((i * 37) % 23 - 11);
+            scanned.put(i * 1.5, value);
+            aggregated.put(i * 1.5, value);
+        }
+        for (int low = -3; low < 155; low += 7) {
+            for (int high = low; high < 155; high += 11) {
+                Interval interval = new Interval(low, high);
+                Double expected = (Double) scanned.get(interval, Estimator.AVERAGE);
+                Double actual = (Double) aggregated.get(interval, Estimator.AVERAGE);
+                if (expected == null) {
+                    Assert.assertNull(actual, interval.toString());
+                } else {
+                    Assert.assertEquals(actual, expected, 1e-9, interval.toString());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testRangeAggregatesDisabledByDefault() {
+        TimestampDoubleMap map = new TimestampDoubleMap();
+        Assert.assertFalse(map.isRangeAggregatesEnabled());
+        map.setRangeAggregatesEnabled(true);
+        Assert.assertTrue(map.isRangeAggregatesEnabled());
+    }
+
+    @Test
+    public void testAggregatesInvalidated() {
+        TimestampIntegerMap map = new TimestampIntegerMap();
+        map.setRangeAggregatesEnabled(true);
+        for (int i = 0; i < 50; i++) {
+            map.put((double) i, i);
+        }
+        Interval interval = new Interval(10.0, 20.0);
+        Assert.assertEquals(map.get(interval, Estimator.MAX), 20);
+        Assert.assertEquals(map.get(interval, Estimator.MAX), 20);
+        map.put(15.0, 100);
+        Assert.assertEquals(map.get(interval, Estimator.MAX), 100);
+        Assert.assertEquals(map.get(interval, Estimator.MAX), 100);
+        map.remove(15.0);
+        Assert.assertEquals(map.get(interval, Estimator.MAX), 20);
+        map.putAll(new double[] { 10.5 }, new int[] { -5 });
+        Assert.assertEquals(map.get(interval, Estimator.MIN), -5);
+        map.clear();
+        Assert.assertNull(map.get(interval, Estimator.MIN));
+    }
+
     @Test
     public void testStringEstimators() {
         TimestampStringMap set = new TimestampStringMap();
@@ -600,6 +700,56 @@ public class TimestampMapTest {
         Assert.assertTrue(set1.hashCode() == set2.hashCode());
     }
 
+    @Test
+    public void testManyPuts() {
+        TimestampDoubleMap map = new TimestampDoubleMap();
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertTrue(map.put((double) i, i * 2.0));
+        }
+        Assert.assertEquals(map.size(), 1000);
+        Assert.assertEquals(map.getTimestamps().length, 1000);
+        Assert.assertEquals(map.toDoubleArray().length, 1000);
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertEquals(map.getDouble(i), i * 2.0);
+        }
+    }
+
+    @Test
+    public void testPutAllAppend() {
+        TimestampDoubleMap map = new TimestampDoubleMap();
+        map.put(1.0, 10.0);
+        map.putAll(new double[] { 2.0, 3.0, 4.0 }, new double[] { 20.0, 30.0, 40.0 });
+        testValues(map, new double[] { 1.0, 2.0, 3.0, 4.0 }, new Object[] { 10.0, 20.0, 30.0, 40.0 });
+        Assert.assertEquals(map.toDoubleArray(), new double[] { 10.0, 20.0, 30.0, 40.0 });
+    }
+
+    @Test
+    public void testPutAllUnsorted() {
+        TimestampIntegerMap map = new TimestampIntegerMap();
+        map.put(2.0, 2);
+        map.putAll(new double[] { 3.0, 1.0, 2.0 }, new int[] { 3, 1, 20 });
+        testValues(map, new double[] { 1.0, 2.0, 3.0 }, new Object[] { 1, 20, 3 });
+    }
+
+    @Test
+    public void testPutAllString() {
+        TimestampStringMap map = new TimestampStringMap();
+        map.putAll(new double[] { 1.0, 2.0 }, new String[] { "foo", "bar" });
+        testValues(map, new double[] { 1.0, 2.0 }, new Object[] { "foo", "bar" });
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testPutAllDifferentLength() {
+        TimestampDoubleMap map = new TimestampDoubleMap();
+        map.putAll(new double[] { 1.0, 2.0 }, new double[] { 1.0 });
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testPutAllNull() {
+        TimestampStringMap map = new TimestampStringMap();
+        map.putAll(new double[] { 1.0 }, new String[] { null });
+    }
+
     @Test
     public void testCopyConstructor() {
         TimestampStringMap set1 = new TimestampStringMap();
@@ -685,7 +835,74 @@ public class TimestampMapTest {
         Assert.assertEquals(mapInf.toString(TimeFormat.DATETIME), "<[-Infinity, value]; [Infinity, value]>");
     }
 
+    @Test
+    public void testCompact() {
+        for (TimestampMap set : getAllInstances(10)) {
+            Object[] defaultValues = getTestValues(set);
+            set.put(1.0, defaultValues[0]);
+            set.put(2.0, defaultValues[1]);
+            set.compact(null);
+
+            testValues(set, new double[] { 1.0, 2.0 }, defaultValues);
+            Assert.assertEquals(set.getTimestamps().length, 2);
+        }
+    }
+
+    @Test
+    public void testCompactSharedTimestamps() {
+        TimeKeysPool pool = new TimeKeysPool();
+        TimestampDoubleMap m1 = new TimestampDoubleMap();
+        TimestampDoubleMap m2 = new TimestampDoubleMap(5);
+        TimestampDoubleMap m3 = new TimestampDoubleMap();
+        m1.putAll(new double[] { 1.0, 2.0, 3.0 }, new double[] { 10.0, 20.0, 30.0 });
+        m2.putAll(new double[] { 1.0, 2.0, 3.0 }, new double[] { 11.0, 21.0, 31.0 });
+        m3.putAll(new double[] { 1.0, 2.0 }, new double[] { 12.0, 22.0 });
+        m1.compact(pool);
+        m2.compact(pool);
+        m3.compact(pool);
+
+        Assert.assertEquals(pool.size(), 2);
+        Assert.assertSame(m1.getTimestamps(), m2.getTimestamps());
+        Assert.assertNotSame(m1.getTimestamps(), m3.getTimestamps());
+        Assert.assertEquals(m2.getDouble(2.0), 21.0);
+        Assert.assertEquals(m2.getMaxDouble(new Interval(1.0, 3.0)), 31.0);
+    }
+
+    @Test
+    public void testCompactCopyOnWrite() {
+        TimeKeysPool pool = new TimeKeysPool();
+        TimestampDoubleMap m1 = new TimestampDoubleMap();
+        TimestampDoubleMap m2 = new TimestampDoubleMap();
+        m1.putAll(new double[] { 1.0, 2.0, 3.0 }, new double[] { 10.0, 20.0, 30.0 });
+        m2.putAll(new double[] { 1.0, 2.0, 3.0 }, new double[] { 11.0, 21.0, 31.0 });
+        m1.compact(pool);
+        m2.compact(pool);
+
+        m1.put(2.0, 25.0);
+        Assert.assertSame(m1.getTimestamps(), m2.getTimestamps());
+
+        m1.remove(2.0);
+        testDoubleArrayEquals(new double[] { 1.0, 3.0 }, m1.getTimestamps());
+        testDoubleArrayEquals(new double[] { 1.0, 2.0, 3.0 }, m2.getTimestamps());
+
+        // Removing the last timestamp keeps the array, which must be copied
+        // before inserting
+        m2.remove(3.0);
+        m2.put(2.5, 26.0);
+        testDoubleArrayEquals(new double[] { 1.0, 2.0, 2.5 }, m2.getTimestamps());
+        testDoubleArrayEquals(new double[] { 1.0, 2.0, 3.0 }, getPooled(pool));
+        Assert.assertEquals(m2.getDouble(2.5), 26.0);
+        Assert.assertEquals(m1.getDouble(3.0), 30.0);
+    }
+
     // UTILITY
+    private double[] getPooled(TimeKeysPool pool) {
+        TimestampDoubleMap m = new TimestampDoubleMap();
+        m.putAll(new double[] { 1.0, 2.0, 3.0 }, new double[] { 0.0, 0.0, 0.0 });
+        m.compact(pool);
+        return m.getTimestamps();
+    }
+
     private void testDoubleArrayEquals(double[] a, double[] b) {
         Assert.assertEquals(a.length, b.length);
         for (int i = 0; i < a.length; i++) {
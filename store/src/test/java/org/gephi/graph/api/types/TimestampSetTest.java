@@ -19,6 +19,7 @@ import it.unimi.dsi.fastutil.doubles.DoubleOpenHashSet;
 import it.unimi.dsi.fastutil.doubles.DoubleSet;
 import java.util.Random;
 import org.gephi.graph.api.AttributeUtils;
+import org.gephi.graph.api.Interval;
 import org.gephi.graph.api.TimeFormat;
 import org.gephi.graph.impl.NumberGenerator;
 import org.joda.time.DateTimeZone;
@@ -345,4 +346,15 @@ public class TimestampSetTest {
             Assert.assertEquals(a[i], b[i]);
         }
     }
+
+    @Test
+    public void testOverlaps() {
+        TimestampSet set = new TimestampSet(new double[] { 1.0, 5.0 });
+        Assert.assertTrue(set.overlaps(new Interval(1.0, 1.0)));
+        Assert.assertTrue(set.overlaps(new Interval(0.0, 1.0)));
+        Assert.assertTrue(set.overlaps(new Interval(2.0, 6.0)));
+        Assert.assertFalse(set.overlaps(new Interval(2.0, 4.0)));
+        Assert.assertFalse(set.overlaps(new Interval(6.0, 7.0)));
+        Assert.assertFalse(new TimestampSet().overlaps(new Interval(0.0, 1.0)));
+    }
 }
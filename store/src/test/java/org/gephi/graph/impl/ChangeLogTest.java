@@ -0,0 +1,557 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import org.gephi.graph.api.ChangeLogReader;
+import org.gephi.graph.api.ChangeLogWriter;
+import org.gephi.graph.api.Column;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.Graph;
+import org.gephi.graph.api.GraphModel;
+import org.gephi.graph.api.GraphView;
+import org.gephi.graph.api.Node;
+import org.gephi.graph.api.Subgraph;
+import org.gephi.graph.api.Table;
+import org.gephi.graph.api.types.TimestampIntegerMap;
+import org.gephi.graph.impl.utils.DataInputOutput;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class ChangeLogTest {
+
+    @Test
+    public void testReplayContent() throws IOException {
+        GraphModelImpl graphModel = GraphGenerator.generateSmallGraphStore().graphModel;
+        graphModel.getNodeTable().addColumn("age", Integer.class);
+        graphModel.getEdgeTable().addColumn("name", String.class);
+        Graph graph = graphModel.getGraph();
+        int i = 0;
+        for (Node node : graph.getNodes().toArray()) {
+            node.setAttribute("age", i++);
+            node.setLabel("Node " + i);
+        }
+        for (Edge edge : graph.getEdges().toArray()) {
+            edge.setAttribute("name", "Edge " + i++);
+            edge.setWeight(i);
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        GraphModel.Serialization.newChangeLogWriter(graphModel, new DataOutputStream(bytes));
+
+        GraphModelImpl replica = new GraphModelImpl();
+        Assert.assertEquals(newReader(replica, bytes).replay(), 1);
+        assertSameGraph(graphModel, replica);
+    }
+
+    @Test
+    public void testReplayChanges() throws IOException {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        GraphModel.Serialization.newChangeLogWriter(graphModel, new DataOutputStream(bytes));
+
+        Column column = graphModel.getNodeTable().addColumn("age", Integer.class);
+        Graph graph = graphModel.getGraph();
+        Node n1 = graphModel.factory().newNode("1");
+        Node n2 = graphModel.factory().newNode("2");
+        Node n3 = graphModel.factory().newNode("3");
+        n1.setAttribute(column, 1);
+        graph.addNode(n1);
+        graph.addNode(n2);
+        graph.addNode(n3);
+        int type = graphModel.addEdgeType("knows");
+        graph.addEdge(graphModel.factory().newEdge("e1", n1, n2, type, 2.0, true));
+        graph.addEdge(graphModel.factory().newEdge("e2", n2, n3, 0, 1.0, true));
+        n2.setAttribute(column, 2);
+        graph.removeNode(n3);
+
+        GraphModelImpl replica = new GraphModelImpl();
+        newReader(replica, bytes).replay();
+        assertSameGraph(graphModel, replica);
+        Assert.assertEquals(replica.getGraph().getEdge("e1").getTypeLabel(), "knows");
+        Assert.assertEquals(replica.getGraph().getEdge("e1").getWeight(), 2.0);
+    }
+
+    @Test
+    public void testReplayBatch() throws IOException {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        GraphModel.Serialization.newChangeLogWriter(graphModel, new DataOutputStream(bytes));
+
+        Graph graph = graphModel.getGraph();
+        graph.writeLock();
+        try {
+            Node n1 = graphModel.factory().newNode("1");
+            Node n2 = graphModel.factory().newNode("2");
+            graph.addNode(n1);
+            graph.addNode(n2);
+            graph.addEdge(graphModel.factory().newEdge(n1, n2));
+            n1.setLabel("foo");
+        } finally {
+            graph.writeUnlock();
+        }
+
+        GraphModelImpl replica = new GraphModelImpl();
+        Assert.assertEquals(newReader(replica, bytes).replay(), 2);
+        assertSameGraph(graphModel, replica);
+        Assert.assertEquals(replica.getGraph().getNode("1").getLabel(), "foo");
+    }
+
+    @Test
+    public void testReplayIncremental() throws IOException {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        LogFile log = new LogFile();
+        GraphModel.Serialization.newChangeLogWriter(graphModel, log.output);
+
+        GraphModelImpl replica = new GraphModelImpl();
+        ChangeLogReader reader = GraphModel.Serialization.newChangeLogReader(replica, log.input);
+        Assert.assertEquals(reader.replay(), 1);
+        Assert.assertEquals(reader.replay(), 0);
+
+        Node node = graphModel.factory().newNode("1");
+        graphModel.getGraph().addNode(node);
+        Assert.assertEquals(reader.replay(), 1);
+        Assert.assertNotNull(replica.getGraph().getNode("1"));
+
+        node.setLabel("foo");
+        Assert.assertEquals(reader.replay(), 1);
+        Assert.assertEquals(replica.getGraph().getNode("1").getLabel(), "foo");
+
+        node.setLabel(null);
+        Assert.assertEquals(reader.replay(), 1);
+        Assert.assertNull(replica.getGraph().getNode("1").getLabel());
+
+        graphModel.getGraph().removeNode(node);
+        Assert.assertEquals(reader.replay(), 1);
+        Assert.assertEquals(replica.getGraph().getNodeCount(), 0);
+        log.close();
+    }
+
+    @Test
+    public void testReplayOnSnapshot() throws IOException, ClassNotFoundException {
+        GraphModelImpl graphModel = GraphGenerator.generateSmallGraphStore().graphModel;
+        DataInputOutput snapshot = new DataInputOutput();
+        GraphModel.Serialization.write(snapshot, graphModel);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        GraphModel.Serialization.newChangeLogWriter(graphModel, new DataOutputStream(bytes));
+
+        Graph graph = graphModel.getGraph();
+        Node node = graphModel.factory().newNode("new");
+        graph.addNode(node);
+        graph.addEdge(graphModel.factory().newEdge("new", node, graph.getNodes().toArray()[0], 0, 1.0, true));
+
+        snapshot.resetForReading();
+        GraphModelImpl replica = (GraphModelImpl) GraphModel.Serialization.read(snapshot);
+        newReader(replica, bytes).replay();
+        assertSameGraph(graphModel, replica);
+    }
+
+    @Test
+    public void testReplayRemoveColumn() throws IOException {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        graphModel.getNodeTable().addColumn("age", Integer.class);
+        graphModel.getGraph().addNode(graphModel.factory().newNode("1"));
+        LogFile log = new LogFile();
+        GraphModel.Serialization.newChangeLogWriter(graphModel, log.output);
+
+        GraphModelImpl replica = new GraphModelImpl();
+        ChangeLogReader reader = GraphModel.Serialization.newChangeLogReader(replica, log.input);
+        reader.replay();
+        Assert.assertTrue(replica.getNodeTable().hasColumn("age"));
+
+        graphModel.getNodeTable().removeColumn("age");
+        graphModel.getNodeTable().addColumn("name", String.class);
+        graphModel.getGraph().getNode("1").setAttribute("name", "foo");
+        reader.replay();
+        Assert.assertFalse(replica.getNodeTable().hasColumn("age"));
+        Assert.assertEquals(replica.getGraph().getNode("1").getAttribute("name"), "foo");
+        log.close();
+    }
+
+    @Test
+    public void testReplayDynamicAttribute() throws IOException {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        Column column = graphModel.getNodeTable().addColumn("score", TimestampIntegerMap.class);
+        Node node = graphModel.factory().newNode("1");
+        graphModel.getGraph().addNode(node);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        GraphModel.Serialization.newChangeLogWriter(graphModel, new DataOutputStream(bytes));
+
+        node.setAttribute(column, 1, 1.0);
+        node.setAttribute(column, 2, 2.0);
+        node.addTimestamp(1.0);
+
+        GraphModelImpl replica = new GraphModelImpl();
+        newReader(replica, bytes).replay();
+        Node replicaNode = replica.getGraph().getNode("1");
+        Assert.assertEquals(replicaNode.getAttribute("score"), node.getAttribute(column));
+        Assert.assertEquals(replicaNode.getAttribute("score", 2.0), 2);
+        Assert.assertEquals(replicaNode.getTimestamps(), new double[] { 1.0 });
+    }
+
+    @Test
+    public void testRecordView() throws IOException {
+        GraphModelImpl graphModel = GraphGenerator.generateSmallGraphStore().graphModel;
+        Node[] nodes = graphModel.getGraph().getNodes().toArray();
+        GraphView view = graphModel.createView();
+        Subgraph subgraph = graphModel.getGraph(view);
+        subgraph.addNode(nodes[0]);
+        LogFile log = new LogFile();
+        ChangeLogWriter writer = GraphModel.Serialization.newChangeLogWriter(graphModel, log.output);
+        int index = writer.recordView(view);
+
+        GraphModelImpl replica = new GraphModelImpl();
+        ChangeLogReader reader = GraphModel.Serialization.newChangeLogReader(replica, log.input);
+        reader.replay();
+        GraphView replicaView = reader.getView(index);
+        Assert.assertNotNull(replicaView);
+        Subgraph replicaSubgraph = replica.getGraph(replicaView);
+        Assert.assertEquals(replicaSubgraph.getNodeCount(), 1);
+        Assert.assertTrue(replicaSubgraph.contains(replica.getGraph().getNode(nodes[0].getId())));
+
+        subgraph.addNode(nodes[1]);
+        Edge edge = graphModel.getGraph().getEdge(nodes[0], nodes[1]);
+        if (edge != null) {
+            subgraph.addEdge(edge);
+        }
+        subgraph.removeNode(nodes[0]);
+        reader.replay();
+        Assert.assertEquals(replicaSubgraph.getNodeCount(), 1);
+        Assert.assertTrue(replicaSubgraph.contains(replica.getGraph().getNode(nodes[1].getId())));
+        Assert.assertEquals(replicaSubgraph.getEdgeCount(), subgraph.getEdgeCount());
+        log.close();
+    }
+
+    @Test
+    public void testClose() throws IOException {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ChangeLogWriter writer = GraphModel.Serialization.newChangeLogWriter(graphModel, new DataOutputStream(bytes));
+        Assert.assertFalse(writer.isClosed());
+        writer.close();
+        Assert.assertTrue(writer.isClosed());
+        Assert.assertFalse(graphModel.store.changeDispatcher.hasListeners());
+
+        int size = bytes.size();
+        graphModel.getGraph().addNode(graphModel.factory().newNode("1"));
+        Assert.assertEquals(bytes.size(), size);
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testRecordViewClosed() throws IOException {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        ChangeLogWriter writer = GraphModel.Serialization.newChangeLogWriter(graphModel, new DataInputOutput());
+        writer.close();
+        writer.recordView(graphModel.createView());
+    }
+
+    @Test
+    public void testTruncatedSegment() throws IOException {
+        GraphModelImpl graphModel = GraphGenerator.generateSmallGraphStore().graphModel;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        GraphModel.Serialization.newChangeLogWriter(graphModel, new DataOutputStream(bytes));
+
+        byte[] log = bytes.toByteArray();
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(Arrays.copyOf(log, log.length - 1)));
+        GraphModelImpl replica = new GraphModelImpl();
+        Assert.assertEquals(GraphModel.Serialization.newChangeLogReader(replica, input).replay(), 0);
+        Assert.assertEquals(replica.getGraph().getNodeCount(), 0);
+    }
+
+    @Test
+    public void testSegmentAppendedInHalves() throws IOException {
+        GraphModelImpl graphModel = GraphGenerator.generateSmallGraphStore().graphModel;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        GraphModel.Serialization.newChangeLogWriter(graphModel, new DataOutputStream(bytes));
+        int firstSegment = bytes.size();
+        graphModel.getGraph().addNode(graphModel.factory().newNode("new"));
+        byte[] data = bytes.toByteArray();
+        int half = firstSegment + (data.length - firstSegment) / 2;
+
+        LogFile log = new LogFile();
+        try {
+            GraphModelImpl replica = new GraphModelImpl();
+            ChangeLogReader reader = GraphModel.Serialization.newChangeLogReader(replica, log.input);
+
+            // Partial length
+            log.output.write(data, 0, 2);
+            log.output.flush();
+            Assert.assertEquals(reader.replay(), 0);
+
+            log.output.write(data, 2, half - 2);
+            log.output.flush();
+            Assert.assertEquals(reader.replay(), 1);
+            Assert.assertNull(replica.getGraph().getNode("new"));
+            Assert.assertEquals(reader.replay(), 0);
+
+            log.output.write(data, half, data.length - half);
+            log.output.flush();
+            Assert.assertEquals(reader.replay(), 1);
+            assertSameGraph(graphModel, replica);
+        } finally {
+            log.close();
+        }
+    }
+
+    @Test
+    public void testSegmentAppendedInHalvesBuffer() throws IOException {
+        GraphModelImpl graphModel = GraphGenerator.generateSmallGraphStore().graphModel;
+        DataInputOutput bytes = new DataInputOutput();
+        GraphModel.Serialization.newChangeLogWriter(graphModel, bytes);
+        byte[] data = bytes.toByteArray();
+        int half = data.length / 2;
+
+        DataInputOutput input = new DataInputOutput(Arrays.copyOf(data, half));
+        GraphModelImpl replica = new GraphModelImpl();
+        ChangeLogReader reader = GraphModel.Serialization.newChangeLogReader(replica, input);
+        Assert.assertEquals(reader.replay(), 0);
+        Assert.assertEquals(replica.getGraph().getNodeCount(), 0);
+    }
+
+    @Test
+    public void testExecutor() throws Exception {
+        GraphModelImpl graphModel = GraphGenerator.generateSmallGraphStore().graphModel;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final List<Thread> threads = new ArrayList<Thread>();
+        ExecutorService executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r);
+                threads.add(thread);
+                return thread;
+            }
+        });
+        ChangeLogWriter writer = GraphModel.Serialization
+                .newChangeLogWriter(graphModel, new DataOutputStream(bytes), executor);
+        int size = bytes.size();
+
+        graphModel.getGraph().addNode(graphModel.factory().newNode("new"));
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        Assert.assertTrue(bytes.size() > size);
+        Assert.assertEquals(threads.size(), 1);
+        writer.close();
+
+        GraphModelImpl replica = new GraphModelImpl();
+        Assert.assertEquals(newReader(replica, bytes).replay(), 2);
+        assertSameGraph(graphModel, replica);
+    }
+
+    @Test
+    public void testRecordViewExecutor() throws IOException {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        GraphView view = graphModel.createView();
+        Subgraph subgraph = graphModel.getGraph(view);
+        final List<Runnable> tasks = new ArrayList<Runnable>();
+        Executor executor = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                tasks.add(command);
+            }
+        };
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ChangeLogWriter writer = GraphModel.Serialization
+                .newChangeLogWriter(graphModel, new DataOutputStream(bytes), executor);
+        int index = writer.recordView(view);
+
+        Graph graph = graphModel.getGraph();
+        graph.writeLock();
+        try {
+            Node n1 = graphModel.factory().newNode("1");
+            Node n2 = graphModel.factory().newNode("2");
+            graph.addNode(n1);
+            graph.addNode(n2);
+            Edge edge = graphModel.factory().newEdge(n1, n2);
+            graph.addEdge(edge);
+            subgraph.addNode(n1);
+            subgraph.addNode(n2);
+            subgraph.addEdge(edge);
+        } finally {
+            graph.writeUnlock();
+        }
+        for (int i = tasks.size() - 1; i >= 0; i--) {
+            tasks.get(i).run();
+        }
+
+        GraphModelImpl replica = new GraphModelImpl();
+        ChangeLogReader reader = newReader(replica, bytes);
+        reader.replay();
+        assertSameGraph(graphModel, replica);
+        Subgraph replicaSubgraph = replica.getGraph(reader.getView(index));
+        Assert.assertEquals(replicaSubgraph.getNodeCount(), 2);
+        Assert.assertEquals(replicaSubgraph.getEdgeCount(), 1);
+        writer.close();
+    }
+
+    @Test
+    public void testCloseDrains() throws Exception {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        final CountDownLatch latch = new CountDownLatch(1);
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            ChangeLogWriter writer = GraphModel.Serialization
+                    .newChangeLogWriter(graphModel, new DataOutputStream(bytes), executor);
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        latch.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+            graphModel.getGraph().addNode(graphModel.factory().newNode("1"));
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        Thread.sleep(50);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    latch.countDown();
+                }
+            }).start();
+            writer.close();
+
+            GraphModelImpl replica = new GraphModelImpl();
+            newReader(replica, bytes).replay();
+            Assert.assertNotNull(replica.getGraph().getNode("1"));
+        } finally {
+            latch.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testCloseDrainsPending() throws IOException {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ChangeLogWriter writer = GraphModel.Serialization.newChangeLogWriter(graphModel, new DataOutputStream(bytes));
+        Graph graph = graphModel.getGraph();
+        graph.writeLock();
+        try {
+            graph.addNode(graphModel.factory().newNode("1"));
+            writer.close();
+        } finally {
+            graph.writeUnlock();
+        }
+
+        GraphModelImpl replica = new GraphModelImpl();
+        newReader(replica, bytes).replay();
+        Assert.assertNotNull(replica.getGraph().getNode("1"));
+    }
+
+    @Test
+    public void testFile() throws IOException {
+        GraphModelImpl graphModel = GraphGenerator.generateSmallGraphStore().graphModel;
+        LogFile log = new LogFile();
+        try {
+            ChangeLogWriter writer = GraphModel.Serialization.newChangeLogWriter(graphModel, log.output);
+            GraphModelImpl replica = new GraphModelImpl();
+            ChangeLogReader reader = GraphModel.Serialization.newChangeLogReader(replica, log.input);
+            Assert.assertEquals(reader.replay(), 1);
+            assertSameGraph(graphModel, replica);
+
+            graphModel.getGraph().addNode(graphModel.factory().newNode("new"));
+            Assert.assertEquals(reader.replay(), 1);
+            assertSameGraph(graphModel, replica);
+            writer.close();
+        } finally {
+            log.close();
+        }
+    }
+
+    private ChangeLogReader newReader(GraphModel replica, ByteArrayOutputStream bytes) {
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        return GraphModel.Serialization.newChangeLogReader(replica, input);
+    }
+
+    private void assertSameGraph(GraphModel expected, GraphModel actual) {
+        assertSameColumns(expected.getNodeTable(), actual.getNodeTable());
+        assertSameColumns(expected.getEdgeTable(), actual.getEdgeTable());
+
+        Graph expectedGraph = expected.getGraph();
+        Graph actualGraph = actual.getGraph();
+        Assert.assertEquals(actualGraph.getNodeCount(), expectedGraph.getNodeCount());
+        Assert.assertEquals(actualGraph.getEdgeCount(), expectedGraph.getEdgeCount());
+        for (Node node : expectedGraph.getNodes()) {
+            Node actualNode = actual.getGraph().getNode(node.getId());
+            Assert.assertNotNull(actualNode);
+            for (Column column : expected.getNodeTable()) {
+                Assert.assertEquals(actualNode.getAttribute(column.getId()), node.getAttribute(column));
+            }
+        }
+        for (Edge edge : expectedGraph.getEdges()) {
+            Edge actualEdge = actual.getGraph().getEdge(edge.getId());
+            Assert.assertNotNull(actualEdge);
+            Assert.assertEquals(actualEdge.getSource().getId(), edge.getSource().getId());
+            Assert.assertEquals(actualEdge.getTarget().getId(), edge.getTarget().getId());
+            Assert.assertEquals(actualEdge.getTypeLabel(), edge.getTypeLabel());
+            Assert.assertEquals(actualEdge.isDirected(), edge.isDirected());
+            for (Column column : expected.getEdgeTable()) {
+                Assert.assertEquals(actualEdge.getAttribute(column.getId()), edge.getAttribute(column));
+            }
+        }
+    }
+
+    private void assertSameColumns(Table expected, Table actual) {
+        Assert.assertEquals(actual.countColumns(), expected.countColumns());
+        for (Column column : expected) {
+            Column actualColumn = actual.getColumn(column.getId());
+            Assert.assertNotNull(actualColumn);
+            Assert.assertEquals(actualColumn.getTypeClass(), column.getTypeClass());
+            Assert.assertEquals(actualColumn.getTitle(), column.getTitle());
+            Assert.assertEquals(actualColumn.isIndexed(), column.isIndexed());
+        }
+    }
+
+    private static class LogFile {
+
+        private final DataOutputStream output;
+        private final DataInputStream input;
+
+        public LogFile() throws IOException {
+            File file = File.createTempFile("changelog", ".bin");
+            file.deleteOnExit();
+            output = new DataOutputStream(new FileOutputStream(file));
+            input = new DataInputStream(new FileInputStream(file));
+        }
+
+        public void close() throws IOException {
+            output.close();
+            input.close();
+        }
+    }
+}
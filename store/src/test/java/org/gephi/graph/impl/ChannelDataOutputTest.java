@@ -0,0 +1,124 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import org.gephi.graph.impl.utils.ChannelDataInput;
+import org.gephi.graph.impl.utils.ChannelDataOutput;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class ChannelDataOutputTest {
+
+    private static final String TEXT = "abc\u00e9\u4e2d\u0000";
+
+    @Test
+    public void testSameBytesAsDataOutputStream() throws IOException {
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        writeAll(new DataOutputStream(expected));
+
+        for (int bufferSize : new int[] { 8, 13, 1024 }) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            ChannelDataOutput output = new ChannelDataOutput(Channels.newChannel(bytes), bufferSize);
+            writeAll(output);
+            output.flush();
+            Assert.assertEquals(bytes.toByteArray(), expected.toByteArray());
+        }
+    }
+
+    @Test
+    public void testRead() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        writeAll(new DataOutputStream(bytes));
+
+        for (int bufferSize : new int[] { 8, 13, 1024 }) {
+            ChannelDataInput input = new ChannelDataInput(Channels.newChannel(new ByteArrayInputStream(bytes
+                    .toByteArray())), bufferSize);
+            readAll(input);
+        }
+    }
+
+    @Test(expectedExceptions = EOFException.class)
+    public void testReadEOF() throws IOException {
+        ChannelDataInput input = new ChannelDataInput(Channels.newChannel(new ByteArrayInputStream(
+                new byte[] { 1, 2, 3 })), 8);
+        input.readInt();
+    }
+
+    @Test
+    public void testSkipBytes() throws IOException {
+        ChannelDataInput input = new ChannelDataInput(Channels.newChannel(new ByteArrayInputStream(new byte[20])), 8);
+        Assert.assertEquals(input.skipBytes(15), 15);
+        Assert.assertEquals(input.skipBytes(15), 5);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testTooSmallBuffer() {
+        new ChannelDataOutput(Channels.newChannel(new ByteArrayOutputStream()), 4);
+    }
+
+    private void writeAll(DataOutput out) throws IOException {
+        out.write(200);
+        out.writeBoolean(true);
+        out.writeByte(-3);
+        out.writeShort(-1234);
+        out.writeChar('\u4e2d');
+        out.writeInt(Integer.MIN_VALUE);
+        out.writeLong(Long.MAX_VALUE - 7);
+        out.writeFloat(1.5f);
+        out.writeDouble(-2.25);
+        byte[] array = new byte[50];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = (byte) i;
+        }
+        out.write(array);
+        out.write(array, 10, 20);
+        out.writeBytes(TEXT);
+        out.writeChars(TEXT);
+        out.writeUTF(TEXT);
+    }
+
+    private void readAll(DataInput in) throws IOException {
+        Assert.assertEquals(in.readUnsignedByte(), 200);
+        Assert.assertTrue(in.readBoolean());
+        Assert.assertEquals(in.readByte(), -3);
+        Assert.assertEquals(in.readShort(), -1234);
+        Assert.assertEquals(in.readChar(), '\u4e2d');
+        Assert.assertEquals(in.readInt(), Integer.MIN_VALUE);
+        Assert.assertEquals(in.readLong(), Long.MAX_VALUE - 7);
+        Assert.assertEquals(in.readFloat(), 1.5f);
+        Assert.assertEquals(in.readDouble(), -2.25);
+        byte[] array = new byte[50];
+        in.readFully(array);
+        Assert.assertEquals(array[49], 49);
+        byte[] sub = new byte[20];
+        in.readFully(sub);
+        Assert.assertEquals(sub[0], 10);
+        Assert.assertEquals(sub[19], 29);
+        Assert.assertEquals(in.skipBytes(TEXT.length()), TEXT.length());
+        for (int i = 0; i < TEXT.length(); i++) {
+            Assert.assertEquals(in.readChar(), TEXT.charAt(i));
+        }
+        Assert.assertEquals(in.readUTF(), TEXT);
+    }
+}
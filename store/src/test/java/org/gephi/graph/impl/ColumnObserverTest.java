@@ -281,4 +281,72 @@ public class ColumnObserverTest {
         Assert.assertNotNull(diff);
         Assert.assertTrue(diff.getTouchedElements().toCollection().isEmpty());
     }
+
+    @Test
+    public void testDiffRepeatedChanges() {
+        GraphStore store = new GraphStore();
+        TableImpl table = store.nodeTable;
+        Column column = table.addColumn("0", Integer.class);
+
+        Node node = store.factory.newNode();
+        store.addNode(node);
+
+        ColumnObserver observer = column.createColumnObserver(true);
+        for (int i = 0; i < 200; i++) {
+            node.setAttribute(column, i);
+        }
+
+        Assert.assertTrue(observer.hasColumnChanged());
+        Assert.assertEquals(observer.getDiff().getTouchedElements().toArray(), new Element[] { node });
+    }
+
+    @Test
+    public void testDiffSparseChanges() {
+        GraphStore store = new GraphStore();
+        TableImpl table = store.nodeTable;
+        Column column = table.addColumn("0", Integer.class);
+
+        Node[] nodes = new Node[1000];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = store.factory.newNode();
+            store.addNode(nodes[i]);
+        }
+
+        ColumnObserver observer = column.createColumnObserver(true);
+        nodes[900].setAttribute(column, 1);
+        nodes[3].setAttribute(column, 2);
+        nodes[900].setAttribute(column, 3);
+
+        Assert.assertTrue(observer.hasColumnChanged());
+        Assert.assertEquals(observer.getDiff().getTouchedElements().toArray(), new Element[] { nodes[3], nodes[900] });
+    }
+
+    @Test
+    public void testDiffDenseChanges() {
+        GraphStore store = new GraphStore();
+        TableImpl table = store.nodeTable;
+        Column column = table.addColumn("0", Integer.class);
+
+        Node[] nodes = new Node[1000];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = store.factory.newNode();
+            store.addNode(nodes[i]);
+        }
+
+        ColumnObserver observer = column.createColumnObserver(true);
+        for (int i = nodes.length - 1; i >= 0; i -= 2) {
+            nodes[i].setAttribute(column, i);
+        }
+
+        Assert.assertTrue(observer.hasColumnChanged());
+        Element[] touched = observer.getDiff().getTouchedElements().toArray();
+        Assert.assertEquals(touched.length, nodes.length / 2);
+        for (int i = 0; i < touched.length; i++) {
+            Assert.assertSame(touched[i], nodes[i * 2 + 1]);
+        }
+
+        nodes[0].setAttribute(column, 0);
+        Assert.assertTrue(observer.hasColumnChanged());
+        Assert.assertEquals(observer.getDiff().getTouchedElements().toArray(), new Element[] { nodes[0] });
+    }
 }
@@ -0,0 +1,230 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import java.util.Arrays;
+import org.gephi.graph.api.Column;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.GraphModel;
+import org.gephi.graph.api.Node;
+import org.gephi.graph.api.Subgraph;
+import org.gephi.graph.api.types.TimestampDoubleMap;
+import org.gephi.graph.impl.utils.DataInputOutput;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class ColumnarSerializationTest {
+
+    @Test
+    public void testEmpty() throws Exception {
+        GraphModelImpl gm = new GraphModelImpl();
+        GraphModelImpl read = readWrite(gm);
+        Assert.assertTrue(read.deepEquals(gm));
+        Assert.assertEquals(read.getStore().getNodeCount(), 0);
+    }
+
+    @Test
+    public void testSmallGraphModel() throws Exception {
+        GraphModelImpl gm = GraphGenerator.generateSmallGraphStore().graphModel;
+        GraphModelImpl read = readWrite(gm);
+        Assert.assertTrue(read.deepEquals(gm));
+    }
+
+    @Test
+    public void testSmallUndirectedGraphModel() throws Exception {
+        GraphModelImpl gm = GraphGenerator.generateSmallUndirectedGraphStore().graphModel;
+        GraphModelImpl read = readWrite(gm);
+        Assert.assertTrue(read.deepEquals(gm));
+    }
+
+    @Test
+    public void testMultipleBlocks() throws Exception {
+        GraphStore graphStore = generateGraphStore();
+        GraphModelImpl gm = graphStore.graphModel;
+
+        GraphModelImpl read = readWrite(gm);
+        GraphStore readStore = read.store;
+        Assert.assertEquals(readStore.getNodeCount(), graphStore.getNodeCount());
+        Assert.assertEquals(readStore.getEdgeCount(), graphStore.getEdgeCount());
+        Assert.assertEquals(readStore.edgeStore.mutualEdgesSize, graphStore.edgeStore.mutualEdgesSize);
+        for (Node node : graphStore.getNodes()) {
+            NodeImpl readNode = readStore.getNode(node.getId());
+            Assert.assertEquals(readNode.getStoreId(), node.getStoreId());
+            Assert.assertEquals(readNode.getDegree(), ((NodeImpl) node).getDegree());
+        }
+        for (Edge edge : graphStore.getEdges()) {
+            EdgeImpl readEdge = readStore.getEdge(edge.getId());
+            Assert.assertEquals(readEdge.getStoreId(), edge.getStoreId());
+            Assert.assertSame(readStore.getEdge(readEdge.getSource(), readEdge.getTarget(), readEdge.getType()), readEdge);
+        }
+
+        NodeImpl added = (NodeImpl) gm.factory().newNode("added");
+        graphStore.addNode(added);
+        NodeImpl readAdded = (NodeImpl) read.factory().newNode("added");
+        readStore.addNode(readAdded);
+        Assert.assertEquals(readAdded.getStoreId(), added.getStoreId());
+        Assert.assertTrue(read.deepEquals(gm));
+    }
+
+    @Test
+    public void testProperties() throws Exception {
+        GraphStore graphStore = GraphGenerator.generateSmallGraphStore();
+        int i = 0;
+        for (Node node : graphStore.getNodes()) {
+            node.setX(i * 1.5f);
+            node.setY(-i);
+            node.setSize(i % 3);
+            node.setFixed(i % 2 == 0);
+            node.setLabel(i % 2 == 0 ? "even" : null);
+            node.getTextProperties().setText("n" + i);
+            i++;
+        }
+        for (Edge edge : graphStore.getEdges()) {
+            edge.setR(0.5f);
+            edge.getTextProperties().setVisible(false);
+        }
+
+        GraphModelImpl read = readWrite(graphStore.graphModel);
+        Assert.assertTrue(read.deepEquals(graphStore.graphModel));
+    }
+
+    @Test
+    public void testViews() throws Exception {
+        GraphStore graphStore = GraphGenerator.generateSmallGraphStore();
+        GraphModelImpl gm = graphStore.graphModel;
+        GraphViewImpl view = (GraphViewImpl) gm.createView();
+        NodeImpl[] nodes = graphStore.nodeStore.toArray();
+        Subgraph subgraph = gm.getGraph(view);
+        subgraph.addNode(nodes[0]);
+        subgraph.addNode(nodes[1]);
+
+        GraphModelImpl read = readWrite(gm);
+        Subgraph readSubgraph = read.getGraph(read.store.viewStore.views[view.storeId]);
+        Assert.assertEquals(readSubgraph.getNodeCount(), 2);
+        Assert.assertTrue(readSubgraph.contains(read.store.getNode(nodes[0].getId())));
+        Assert.assertTrue(read.deepEquals(gm));
+    }
+
+    @Test
+    public void testLongExtremeValues() throws Exception {
+        GraphModelImpl gm = new GraphModelImpl();
+        Column column = gm.getNodeTable().addColumn("value", Long.class);
+        long[] values = new long[] { Long.MIN_VALUE, Long.MAX_VALUE, 0L, Long.MIN_VALUE, -1L, Long.MAX_VALUE };
+        for (int i = 0; i < values.length; i++) {
+            Node node = gm.factory().newNode(String.valueOf(i));
+            node.setAttribute(column, values[i]);
+            gm.getStore().addNode(node);
+        }
+        gm.getStore().addNode(gm.factory().newNode("empty"));
+
+        GraphModelImpl read = readWrite(gm);
+        Column readColumn = read.getNodeTable().getColumn("value");
+        for (int i = 0; i < values.length; i++) {
+            Assert.assertEquals(read.getStore().getNode(String.valueOf(i)).getAttribute(readColumn), values[i]);
+        }
+        Assert.assertNull(read.getStore().getNode("empty").getAttribute(readColumn));
+        Assert.assertTrue(read.deepEquals(gm));
+    }
+
+    @Test
+    public void testSmallerThanRowFormat() throws Exception {
+        GraphModelImpl gm = generateGraphStore().graphModel;
+
+        DataInputOutput row = new DataInputOutput();
+        new Serialization(gm).serializeGraphModel(row, gm);
+        DataInputOutput columnar = new DataInputOutput();
+        new ColumnarSerialization().serializeGraphModel(columnar, gm);
+        Assert.assertTrue(columnar.getPos() < row.getPos());
+    }
+
+    @Test
+    public void testReadColumn() throws Exception {
+        GraphStore graphStore = generateGraphStore();
+        GraphModelImpl gm = graphStore.graphModel;
+        DataInputOutput dio = new DataInputOutput();
+        new ColumnarSerialization().serializeGraphModel(dio, gm);
+        byte[] bytes = dio.toByteArray();
+
+        Object[] ids = GraphModel.Serialization.readColumn(dio.reset(bytes), Node.class, "id");
+        NodeImpl[] nodes = graphStore.nodeStore.toArray();
+        Assert.assertEquals(ids.length, nodes.length);
+        for (int i = 0; i < nodes.length; i++) {
+            Assert.assertEquals(ids[i], nodes[i].getId());
+        }
+
+        Object[] scores = GraphModel.Serialization.readColumn(dio.reset(bytes), Node.class, "score");
+        Column score = graphStore.nodeTable.getColumn("score");
+        for (int i = 0; i < nodes.length; i++) {
+            Assert.assertEquals(scores[i], nodes[i].getAttribute(score));
+        }
+
+        Object[] weights = GraphModel.Serialization.readColumn(dio.reset(bytes), Edge.class, "weight");
+        EdgeImpl[] edges = graphStore.edgeStore.toArray();
+        Assert.assertEquals(weights.length, edges.length);
+        for (int i = 0; i < edges.length; i++) {
+            Assert.assertEquals(weights[i], edges[i].getWeight());
+        }
+    }
+
+    @Test(expectedExceptions = java.io.IOException.class)
+    public void testReadColumnMissing() throws Exception {
+        GraphModelImpl gm = GraphGenerator.generateSmallGraphStore().graphModel;
+        DataInputOutput dio = new DataInputOutput();
+        new ColumnarSerialization().serializeGraphModel(dio, gm);
+        GraphModel.Serialization.readColumn(dio.reset(dio.toByteArray()), Node.class, "foo");
+    }
+
+    @Test(expectedExceptions = java.io.IOException.class)
+    public void testReadRowFormat() throws Exception {
+        GraphModelImpl gm = GraphGenerator.generateSmallGraphStore().graphModel;
+        DataInputOutput dio = new DataInputOutput();
+        new Serialization(gm).serializeGraphModel(dio, gm);
+        GraphModel.Serialization.readColumnar(dio.reset(dio.toByteArray()));
+    }
+
+    // Utility
+    private GraphModelImpl readWrite(GraphModelImpl gm) throws Exception {
+        DataInputOutput dio = new DataInputOutput();
+        GraphModel.Serialization.writeColumnar(dio, gm);
+        return (GraphModelImpl) GraphModel.Serialization.readColumnar(dio.reset(dio.toByteArray()));
+    }
+
+    private GraphStore generateGraphStore() {
+        GraphStore graphStore = new GraphModelImpl().store;
+        int nodeCount = GraphStoreConfiguration.NODESTORE_BLOCK_SIZE * 2 + 100;
+        NodeImpl[] nodes = GraphGenerator.generateNodeList(nodeCount, graphStore);
+        graphStore.addAllNodes(Arrays.asList(nodes));
+        EdgeImpl[] edges = GraphGenerator
+                .generateEdgeList(graphStore.nodeStore, GraphStoreConfiguration.EDGESTORE_BLOCK_SIZE * 3, 0, true, true, false);
+        graphStore.addAllEdges(Arrays.asList(edges));
+
+        for (int i = 0; i < nodeCount; i += 5) {
+            graphStore.removeNode(nodes[i]);
+        }
+        Column group = graphStore.nodeTable.addColumn("group", String.class);
+        Column score = graphStore.nodeTable.addColumn("score", TimestampDoubleMap.class);
+        for (int i = 1; i < nodeCount; i++) {
+            if (i % 5 != 0) {
+                nodes[i].setAttribute(group, "group" + (i % 7));
+            }
+        }
+        for (int i = 1; i < nodeCount; i += 97) {
+            nodes[i].setAttribute(score, (double) i, 1000.0);
+            nodes[i].setAttribute(score, (double) -i, 2000.0);
+        }
+        return graphStore;
+    }
+}
@@ -79,6 +79,30 @@ public class ConfigurationTest {
         Assert.assertEquals(c.getEdgeWeightColumn(), Boolean.FALSE);
     }
 
+    @Test
+    public void testSetLabelIndex() {
+        Configuration c = new Configuration();
+        Assert.assertEquals(c.getLabelIndex(), Boolean.FALSE);
+        c.setLabelIndex(Boolean.TRUE);
+        Assert.assertEquals(c.getLabelIndex(), Boolean.TRUE);
+    }
+
+    @Test
+    public void testSetStringIndex() {
+        Configuration c = new Configuration();
+        Assert.assertEquals(c.getStringIndex(), Boolean.FALSE);
+        c.setStringIndex(Boolean.TRUE);
+        Assert.assertEquals(c.getStringIndex(), Boolean.TRUE);
+    }
+
+    @Test
+    public void testSetDegreeIndex() {
+        Configuration c = new Configuration();
+        Assert.assertEquals(c.getDegreeIndex(), Boolean.FALSE);
+        c.setDegreeIndex(Boolean.TRUE);
+        Assert.assertEquals(c.getDegreeIndex(), Boolean.TRUE);
+    }
+
     @Test(expectedExceptions = IllegalArgumentException.class)
     public void testSetNodeIdTypeUnsupported() {
         Configuration c = new Configuration();
@@ -0,0 +1,476 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.gephi.graph.api.Configuration;
+import org.gephi.graph.api.DegreeIndex;
+import org.gephi.graph.api.DegreeType;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.Node;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class DegreeIndexImplTest {
+
+    @Test
+    public void testEmpty() {
+        GraphStore graphStore = new GraphModelImpl(getConfiguration()).store;
+        DegreeIndex index = graphStore.degreeIndex;
+        for (DegreeType type : DegreeType.values()) {
+            Assert.assertEquals(index.getMinDegree(type), 0);
+            Assert.assertEquals(index.getMaxDegree(type), 0);
+            Assert.assertEquals(index.getDegreeHistogram(type).length, 0);
+            Assert.assertEquals(index.getTopKByDegree(5, type).length, 0);
+            Assert.assertEquals(index.count(0, type), 0);
+        }
+    }
+
+    @Test
+    public void testAddNode() {
+        GraphStore graphStore = new GraphModelImpl(getConfiguration()).store;
+        Node n1 = graphStore.factory.newNode("1");
+        graphStore.addNode(n1);
+        DegreeIndex index = graphStore.degreeIndex;
+        for (DegreeType type : DegreeType.values()) {
+            Assert.assertEquals(index.count(0, type), 1);
+            Assert.assertEquals(index.getDegreeHistogram(type), new int[] { 1 });
+            Assert.assertEquals(index.get(0, type).toArray(), new Node[] { n1 });
+        }
+    }
+
+    @Test
+    public void testStar() {
+        GraphStore graphStore = new GraphModelImpl(getConfiguration()).store;
+        Node hub = graphStore.factory.newNode("hub");
+        graphStore.addNode(hub);
+        for (int i = 0; i < 5; i++) {
+            Node n = graphStore.factory.newNode(String.valueOf(i));
+            graphStore.addNode(n);
+            graphStore.addEdge(graphStore.factory.newEdge(hub, n));
+        }
+        DegreeIndex index = graphStore.degreeIndex;
+        Assert.assertEquals(index.getMaxDegree(DegreeType.DEGREE), 5);
+        Assert.assertEquals(index.getMinDegree(DegreeType.DEGREE), 1);
+        Assert.assertEquals(index.getMaxDegree(DegreeType.OUT_DEGREE), 5);
+        Assert.assertEquals(index.getMinDegree(DegreeType.OUT_DEGREE), 0);
+        Assert.assertEquals(index.getMaxDegree(DegreeType.IN_DEGREE), 1);
+        Assert.assertEquals(index.getMinDegree(DegreeType.IN_DEGREE), 0);
+        Assert.assertEquals(index.getTopKByDegree(1, DegreeType.DEGREE), new Node[] { hub });
+        Assert.assertEquals(index.getDegreeHistogram(DegreeType.DEGREE), new int[] { 0, 5, 0, 0, 0, 1 });
+        Assert.assertEquals(index.getDegreeHistogram(DegreeType.IN_DEGREE), new int[] { 1, 5 });
+        Assert.assertEquals(index.getTopKByDegree(10, DegreeType.DEGREE).length, 6);
+        Assert.assertSame(index.getTopKByDegree(10, DegreeType.DEGREE)[0], hub);
+    }
+
+    @Test
+    public void testRemoveEdge() {
+        GraphStore graphStore = GraphGenerator.generateTinyGraphStore(getConfiguration());
+        DegreeIndex index = graphStore.degreeIndex;
+        Assert.assertEquals(index.count(1, DegreeType.DEGREE), 2);
+
+        graphStore.removeEdge(graphStore.getEdge("0"));
+        Assert.assertEquals(index.count(1, DegreeType.DEGREE), 0);
+        Assert.assertEquals(index.count(0, DegreeType.DEGREE), 2);
+        Assert.assertEquals(index.getMaxDegree(DegreeType.DEGREE), 0);
+    }
+
+    @Test
+    public void testRemoveNode() {
+        GraphStore graphStore = GraphGenerator.generateTinyGraphStore(getConfiguration());
+        DegreeIndex index = graphStore.degreeIndex;
+        graphStore.removeNode(graphStore.getNode("1"));
+        for (DegreeType type : DegreeType.values()) {
+            Assert.assertEquals(index.getDegreeHistogram(type), new int[] { 1 });
+        }
+    }
+
+    @Test
+    public void testMutual() {
+        GraphStore graphStore = GraphGenerator.generateTinyGraphStore(getConfiguration());
+        Node n1 = graphStore.getNode("1");
+        Node n2 = graphStore.getNode("2");
+        Edge e = graphStore.factory.newEdge("1", n2, n1, EdgeTypeStore.NULL_LABEL, 1.0, true);
+        graphStore.addEdge(e);
+
+        DegreeIndex index = graphStore.degreeIndex;
+        Assert.assertEquals(index.count(2, DegreeType.DEGREE), 2);
+        Assert.assertEquals(index.count(1, DegreeType.UNDIRECTED_DEGREE), 2);
+
+        graphStore.removeEdge(e);
+        Assert.assertEquals(index.count(1, DegreeType.DEGREE), 2);
+        Assert.assertEquals(index.count(1, DegreeType.UNDIRECTED_DEGREE), 2);
+    }
+
+    @Test
+    public void testSelfLoop() {
+        GraphStore graphStore = new GraphModelImpl(getConfiguration()).store;
+        Node n1 = graphStore.factory.newNode("1");
+        graphStore.addNode(n1);
+        Edge e = graphStore.factory.newEdge(n1, n1);
+        graphStore.addEdge(e);
+
+        DegreeIndex index = graphStore.degreeIndex;
+        Assert.assertEquals(index.getDegreeHistogram(DegreeType.DEGREE), new int[] { 0, 0, 1 });
+        Assert.assertEquals(index.getDegreeHistogram(DegreeType.IN_DEGREE), new int[] { 0, 1 });
+
+        graphStore.removeEdge(e);
+        Assert.assertEquals(index.getDegreeHistogram(DegreeType.DEGREE), new int[] { 1 });
+    }
+
+    @Test
+    public void testClear() {
+        GraphStore graphStore = GraphGenerator.generateSmallGraphStore(getConfiguration());
+        graphStore.clear();
+        for (DegreeType type : DegreeType.values()) {
+            Assert.assertEquals(graphStore.degreeIndex.getDegreeHistogram(type).length, 0);
+        }
+    }
+
+    @Test
+    public void testTopKOrder() {
+        GraphStore graphStore = GraphGenerator.generateSmallMixedGraphStore(getConfiguration());
+        DegreeIndex index = graphStore.degreeIndex;
+        for (DegreeType type : DegreeType.values()) {
+            Node[] top = index.getTopKByDegree(10, type);
+            Assert.assertEquals(top.length, 10);
+            for (int i = 1; i < top.length; i++) {
+                Assert.assertTrue(getDegree(top[i - 1], type) >= getDegree(top[i], type));
+            }
+            Assert.assertEquals(getDegree(top[0], type), index.getMaxDegree(type));
+        }
+    }
+
+    @Test
+    public void testConsistency() {
+        GraphStore graphStore = GraphGenerator.generateSmallMixedGraphStore(getConfiguration());
+        List<Edge> edges = new ArrayList<Edge>(graphStore.getEdges().toCollection());
+        graphStore.removeAllEdges(edges.subList(0, edges.size() / 2));
+        graphStore.removeNode(graphStore.getNodes().toArray()[0]);
+
+        DegreeIndex index = graphStore.degreeIndex;
+        for (DegreeType type : DegreeType.values()) {
+            int max = 0;
+            int min = Integer.MAX_VALUE;
+            for (Node n : graphStore.getNodes()) {
+                max = Math.max(max, getDegree(n, type));
+                min = Math.min(min, getDegree(n, type));
+            }
+            int[] histogram = new int[max + 1];
+            for (Node n : graphStore.getNodes()) {
+                histogram[getDegree(n, type)]++;
+            }
+            Assert.assertEquals(index.getMaxDegree(type), max);
+            Assert.assertEquals(index.getMinDegree(type), min);
+            Assert.assertEquals(index.getDegreeHistogram(type), histogram);
+            Assert.assertEquals(Arrays.asList(index.getTopKByDegree(graphStore.getNodeCount(), type)).size(), graphStore
+                    .getNodeCount());
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testTopKNegative() {
+        GraphStore graphStore = new GraphModelImpl(getConfiguration()).store;
+        graphStore.degreeIndex.getTopKByDegree(-1, DegreeType.DEGREE);
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testNullType() {
+        GraphStore graphStore = new GraphModelImpl(getConfiguration()).store;
+        graphStore.degreeIndex.getMaxDegree(null);
+    }
+
+    @Test
+    public void testGraphModel() {
+        GraphModelImpl graphModel = new GraphModelImpl(getConfiguration());
+        Assert.assertNotNull(graphModel.getDegreeIndex());
+        Assert.assertSame(graphModel.getDegreeIndex(), graphModel.store.degreeIndex);
+    }
+
+    @Test
+    public void testDisabledByDefault() {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        Assert.assertNull(graphModel.getDegreeIndex());
+        Node n1 = graphModel.factory().newNode("1");
+        Node n2 = graphModel.factory().newNode("2");
+        graphModel.getStore().addNode(n1);
+        graphModel.getStore().addNode(n2);
+        graphModel.getStore().addEdge(graphModel.factory().newEdge(n1, n2));
+        Assert.assertEquals(graphModel.getStore().getDegree(n1), 1);
+    }
+
+    @Test
+    public void testSetConfiguration() {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        graphModel.setConfiguration(getConfiguration());
+        DegreeIndex index = graphModel.getDegreeIndex();
+        Assert.assertNotNull(index);
+        Assert.assertSame(graphModel.store.nodeStore.degreeIndex, index);
+        Assert.assertSame(graphModel.store.edgeStore.degreeIndex, index);
+
+        Node n1 = graphModel.factory().newNode("1");
+        graphModel.getStore().addNode(n1);
+        Assert.assertEquals(index.count(0, DegreeType.DEGREE), 1);
+
+        graphModel.getStore().clear();
+        graphModel.setConfiguration(new Configuration());
+        Assert.assertNull(graphModel.getDegreeIndex());
+        Assert.assertNull(graphModel.store.nodeStore.degreeIndex);
+        Assert.assertNull(graphModel.store.edgeStore.degreeIndex);
+    }
+
+    @Test
+    public void testEdgeType() {
+        GraphStore graphStore = new GraphModelImpl(getConfiguration()).store;
+        Node n1 = graphStore.factory.newNode("1");
+        Node n2 = graphStore.factory.newNode("2");
+        Node n3 = graphStore.factory.newNode("3");
+        graphStore.addAllNodes(Arrays.asList(n1, n2, n3));
+        graphStore.addEdge(graphStore.factory.newEdge(n1, n2, 0, true));
+        graphStore.addEdge(graphStore.factory.newEdge(n1, n3, 1, true));
+        graphStore.addEdge(graphStore.factory.newEdge(n2, n1, 1, true));
+        graphStore.addEdge(graphStore.factory.newEdge(n1, n2, 1, true));
+
+        DegreeIndex index = graphStore.degreeIndex;
+        Assert.assertEquals(index.getMaxDegree(DegreeType.OUT_DEGREE), 3);
+        Assert.assertEquals(index.getMaxDegree(DegreeType.OUT_DEGREE, 0), 1);
+        Assert.assertEquals(index.getMaxDegree(DegreeType.OUT_DEGREE, 1), 2);
+        Assert.assertEquals(index.getMaxDegree(DegreeType.UNDIRECTED_DEGREE, 1), 2);
+        Assert.assertEquals(index.count(0, DegreeType.DEGREE, 0), 1);
+        Assert.assertEquals(index.get(0, DegreeType.DEGREE, 0).toArray(), new Node[] { n3 });
+        Assert.assertEquals(index.getTopKByDegree(1, DegreeType.IN_DEGREE, 0), new Node[] { n2 });
+        Assert.assertEquals(index.getDegreeHistogram(DegreeType.DEGREE, 1), new int[] { 0, 1, 1, 1 });
+
+        // Unknown types have zero degrees
+        Assert.assertEquals(index.getMaxDegree(DegreeType.DEGREE, 5), 0);
+        Assert.assertEquals(index.count(0, DegreeType.DEGREE, 5), 3);
+        Assert.assertEquals(index.getDegreeHistogram(DegreeType.DEGREE, 5), new int[] { 3 });
+        Assert.assertEquals(index.getTopKByDegree(2, DegreeType.DEGREE, 5).length, 2);
+    }
+
+    @Test
+    public void testEdgeTypeConsistency() {
+        GraphStore graphStore = GraphGenerator.generateSmallMultiTypeGraphStore(getConfiguration());
+        List<Edge> edges = new ArrayList<Edge>(graphStore.getEdges().toCollection());
+        graphStore.removeAllEdges(edges.subList(0, edges.size() / 3));
+        graphStore.removeNode(graphStore.getNodes().toArray()[0]);
+
+        for (int edgeType = -1; edgeType < 3; edgeType++) {
+            assertIndex(graphStore, graphStore.degreeIndex, null, edgeType);
+        }
+    }
+
+    @Test
+    public void testMainView() {
+        GraphModelImpl graphModel = new GraphModelImpl(getConfiguration());
+        Assert.assertSame(graphModel.getDegreeIndex(graphModel.getGraph().getView()), graphModel.getDegreeIndex());
+        Assert.assertNull(new GraphModelImpl().getDegreeIndex(graphModel.getGraph().getView()));
+    }
+
+    @Test
+    public void testView() {
+        GraphModelImpl graphModel = new GraphModelImpl(getConfiguration());
+        GraphStore graphStore = graphModel.store;
+        NodeImpl[] nodes = GraphGenerator.generateNodeList(20, graphStore);
+        graphStore.addAllNodes(Arrays.asList(nodes));
+        graphStore.addAllEdges(Arrays.asList(GraphGenerator
+                .generateMultiTypeEdgeList(graphStore.nodeStore, 80, 2, true, true)));
+
+        GraphViewImpl view = (GraphViewImpl) graphModel.createView();
+        for (int i = 0; i < 15; i++) {
+            view.addNode(nodes[i]);
+        }
+        int i = 0;
+        for (Edge edge : graphStore.getEdges().toArray()) {
+            if (i++ % 4 != 0 && view.containsNode((NodeImpl) edge.getSource()) && view.containsNode((NodeImpl) edge
+                    .getTarget())) {
+                view.addEdge(edge);
+            }
+        }
+        DegreeIndex index = graphModel.getDegreeIndex(view);
+        Assert.assertNotSame(index, graphModel.getDegreeIndex());
+        Assert.assertSame(graphModel.getDegreeIndex(view), index);
+        assertView(graphStore, index, view);
+
+        // Incremental changes
+        for (Edge edge : graphStore.getEdges().toArray()) {
+            if (view.containsEdge((EdgeImpl) edge)) {
+                view.removeEdge(edge);
+                break;
+            }
+        }
+        view.removeNode(nodes[0]);
+        for (Edge edge : graphStore.getEdges().toArray()) {
+            if (!view.containsEdge((EdgeImpl) edge) && view.containsNode((NodeImpl) edge.getSource()) && view
+                    .containsNode((NodeImpl) edge.getTarget())) {
+                view.addEdge(edge);
+            }
+        }
+        graphStore.removeNode(nodes[1]);
+        graphStore.removeAllEdges(new ArrayList<Edge>(graphStore.getEdges().toCollection()).subList(0, 10));
+        assertView(graphStore, index, view);
+
+        // Bulk changes
+        view.not();
+        assertView(graphStore, index, view);
+        view.fill();
+        assertView(graphStore, index, view);
+        view.clearEdges();
+        assertView(graphStore, index, view);
+        view.clear();
+        assertView(graphStore, index, view);
+
+        graphModel.destroyView(view);
+        Assert.assertTrue(graphStore.degreeIndex.viewIndexes.isEmpty());
+    }
+
+    @Test
+    public void testNodeViewMutual() {
+        GraphModelImpl graphModel = new GraphModelImpl(getConfiguration());
+        GraphStore graphStore = graphModel.store;
+        Node n1 = graphStore.factory.newNode("1");
+        Node n2 = graphStore.factory.newNode("2");
+        graphStore.addAllNodes(Arrays.asList(n1, n2));
+        graphStore.addEdge(graphStore.factory.newEdge(n1, n2));
+
+        GraphViewImpl view = (GraphViewImpl) graphModel.createView(true, false);
+        view.addNode(n1);
+        view.addNode(n2);
+        DegreeIndex index = graphModel.getDegreeIndex(view);
+        Assert.assertEquals(index.getMaxDegree(DegreeType.UNDIRECTED_DEGREE), 1);
+
+        // Added to the node view by the store, before it's flagged as mutual
+        Edge e2 = graphStore.factory.newEdge(n2, n1);
+        graphStore.addEdge(e2);
+        Assert.assertTrue(view.containsEdge((EdgeImpl) e2));
+        Assert.assertEquals(index.getMaxDegree(DegreeType.DEGREE), 2);
+        Assert.assertEquals(index.getMaxDegree(DegreeType.UNDIRECTED_DEGREE), 1);
+        assertView(graphStore, index, view);
+
+        view.removeNode(n2);
+        assertView(graphStore, index, view);
+    }
+
+    // Utility
+    private Configuration getConfiguration() {
+        Configuration config = new Configuration();
+        config.setDegreeIndex(true);
+        return config;
+    }
+
+    private int getDegree(Node node, DegreeType type) {
+        NodeImpl n = (NodeImpl) node;
+        switch (type) {
+            case IN_DEGREE:
+                return n.getInDegree();
+            case OUT_DEGREE:
+                return n.getOutDegree();
+            case UNDIRECTED_DEGREE:
+                return n.getUndirectedDegree();
+            default:
+                return n.getDegree();
+        }
+    }
+
+    private void assertView(GraphStore graphStore, DegreeIndex index, GraphViewImpl view) {
+        for (int edgeType = -1; edgeType < 3; edgeType++) {
+            assertIndex(graphStore, index, view, edgeType);
+        }
+    }
+
+    private void assertIndex(GraphStore graphStore, DegreeIndex index, GraphViewImpl view, int edgeType) {
+        List<Node> nodes = new ArrayList<Node>();
+        for (Node n : graphStore.getNodes()) {
+            if (view == null || view.containsNode((NodeImpl) n)) {
+                nodes.add(n);
+            }
+        }
+        for (DegreeType type : DegreeType.values()) {
+            int max = 0;
+            int min = nodes.isEmpty() ? 0 : Integer.MAX_VALUE;
+            for (Node n : nodes) {
+                int degree = getDegree(graphStore, view, n, type, edgeType);
+                if (view != null && edgeType < 0) {
+                    Assert.assertEquals(degree, getDegree(view, n, type));
+                }
+                max = Math.max(max, degree);
+                min = Math.min(min, degree);
+            }
+            int[] histogram = new int[nodes.isEmpty() ? 0 : max + 1];
+            for (Node n : nodes) {
+                histogram[getDegree(graphStore, view, n, type, edgeType)]++;
+            }
+            if (edgeType < 0) {
+                Assert.assertEquals(index.getMaxDegree(type), max);
+                Assert.assertEquals(index.getMinDegree(type), min);
+                Assert.assertEquals(index.getDegreeHistogram(type), histogram);
+                Assert.assertEquals(index.getTopKByDegree(nodes.size() + 1, type).length, nodes.size());
+            } else {
+                Assert.assertEquals(index.getMaxDegree(type, edgeType), max);
+                Assert.assertEquals(index.getMinDegree(type, edgeType), min);
+                Assert.assertEquals(index.getDegreeHistogram(type, edgeType), histogram);
+                Assert.assertEquals(index.count(0, type, edgeType), histogram.length > 0 ? histogram[0] : 0);
+                Node[] topK = index.getTopKByDegree(nodes.size() + 1, type, edgeType);
+                Assert.assertEquals(topK.length, nodes.size());
+                for (int i = 1; i < topK.length; i++) {
+                    Assert.assertTrue(getDegree(graphStore, view, topK[i - 1], type, edgeType) >= getDegree(graphStore, view, topK[i], type, edgeType));
+                }
+            }
+        }
+    }
+
+    private int getDegree(GraphViewImpl view, Node node, DegreeType type) {
+        switch (type) {
+            case IN_DEGREE:
+                return view.getDirectedGraph().getInDegree(node);
+            case OUT_DEGREE:
+                return view.getDirectedGraph().getOutDegree(node);
+            case UNDIRECTED_DEGREE:
+                return view.getUndirectedGraph().getDegree(node);
+            default:
+                return view.getDirectedGraph().getDegree(node);
+        }
+    }
+
+    private int getDegree(GraphStore graphStore, GraphViewImpl view, Node node, DegreeType type, int edgeType) {
+        int count = 0;
+        EdgeStore.EdgeInOutIterator itr = graphStore.edgeStore.edgeIterator(node);
+        while (itr.hasNext()) {
+            EdgeImpl edge = itr.next();
+            if ((view != null && !view.containsEdge(edge)) || (edgeType >= 0 && edge.type != edgeType)) {
+                continue;
+            }
+            switch (type) {
+                case IN_DEGREE:
+                    count += edge.target == node ? 1 : 0;
+                    break;
+                case OUT_DEGREE:
+                    count += edge.source == node ? 1 : 0;
+                    break;
+                case UNDIRECTED_DEGREE:
+                    boolean ignore = view != null ? ((GraphViewDecorator) view.getUndirectedGraph())
+                            .isUndirectedToIgnore(edge) : graphStore.edgeStore.isUndirectedToIgnore(edge);
+                    count += ignore ? 0 : edge.isSelfLoop() ? 2 : 1;
+                    break;
+                default:
+                    count += edge.isSelfLoop() ? 2 : 1;
+            }
+        }
+        return count;
+    }
+}
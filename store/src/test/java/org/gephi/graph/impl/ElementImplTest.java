@@ -281,6 +281,37 @@ public class ElementImplTest {
         Assert.assertEquals(node.getAttribute(column, 1.0), 2);
     }
 
+    @Test
+    public void testSetAttributeRangeAggregates() {
+        Configuration config = new Configuration();
+        config.setRangeAggregates(Boolean.TRUE);
+        GraphStore store = new GraphModelImpl(config).store;
+        Column column = generateTimestampColumn(store);
+
+        NodeImpl node = new NodeImpl("0", store);
+        node.setAttribute(column, 1, 2.0);
+        Assert.assertTrue(((TimestampIntegerMap) node.attributes[getFirstNonPropertyIndex()])
+                .isRangeAggregatesEnabled());
+
+        GraphStore defaultStore = new GraphStore();
+        Column defaultColumn = generateTimestampColumn(defaultStore);
+        NodeImpl defaultNode = new NodeImpl("0", defaultStore);
+        defaultNode.setAttribute(defaultColumn, 1, 2.0);
+        Assert.assertFalse(((TimestampIntegerMap) defaultNode.attributes[getFirstNonPropertyIndex()])
+                .isRangeAggregatesEnabled());
+    }
+
+    @Test
+    public void testSetAttributeIntervalRangeAggregates() {
+        GraphStore store = getIntervalGraphStore();
+        store.configuration.setRangeAggregates(Boolean.TRUE);
+        Column column = generateIntervalColumn(store);
+
+        NodeImpl node = new NodeImpl("0", store);
+        node.setAttribute(column, 1, new Interval(3.0, 4.0));
+        Assert.assertTrue(((IntervalIntegerMap) node.attributes[getFirstNonPropertyIndex()]).isRangeAggregatesEnabled());
+    }
+
     @Test
     public void testSetAttributeIntervalColumn() {
         GraphStore store = getIntervalGraphStore();
@@ -0,0 +1,274 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+import org.gephi.graph.api.Column;
+import org.gephi.graph.api.Graph;
+import org.gephi.graph.api.GraphChangeEvent;
+import org.gephi.graph.api.GraphChangeListener;
+import org.gephi.graph.api.GraphView;
+import org.gephi.graph.api.Node;
+import org.gephi.graph.api.Subgraph;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class GraphChangeDispatcherTest {
+
+    @Test
+    public void testAddNode() {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        Graph graph = graphModel.getGraph();
+        EventCollector collector = new EventCollector();
+        graphModel.addGraphChangeListener(graph, collector);
+
+        Node node = graphModel.factory().newNode("1");
+        graph.addNode(node);
+
+        Assert.assertEquals(collector.events.size(), 1);
+        GraphChangeEvent event = collector.events.get(0);
+        Assert.assertSame(event.getGraph(), graph);
+        Assert.assertTrue(Arrays.deepEquals(event.getAddedNodes().toArray(), new Node[] { node }));
+        Assert.assertEquals(event.getRemovedNodes().toArray().length, 0);
+        Assert.assertEquals(event.getChangedColumns().length, 0);
+    }
+
+    @Test
+    public void testNoEventBeforeRegistration() {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        Graph graph = graphModel.getGraph();
+        graph.addNode(graphModel.factory().newNode("1"));
+        EventCollector collector = new EventCollector();
+        graphModel.addGraphChangeListener(graph, collector);
+
+        Node node = graphModel.factory().newNode("2");
+        graph.addNode(node);
+
+        Assert.assertEquals(collector.events.size(), 1);
+        Assert.assertTrue(Arrays.deepEquals(collector.events.get(0).getAddedNodes().toArray(), new Node[] { node }));
+    }
+
+    @Test
+    public void testBatchedInWriteLock() {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        Graph graph = graphModel.getGraph();
+        EventCollector collector = new EventCollector();
+        graphModel.addGraphChangeListener(graph, collector);
+
+        Node n1 = graphModel.factory().newNode("1");
+        Node n2 = graphModel.factory().newNode("2");
+        graph.writeLock();
+        try {
+            graph.addNode(n1);
+            graph.addNode(n2);
+            Assert.assertTrue(collector.events.isEmpty());
+        } finally {
+            graph.writeUnlock();
+        }
+
+        Assert.assertEquals(collector.events.size(), 1);
+        Assert.assertTrue(Arrays.deepEquals(collector.events.get(0).getAddedNodes().toArray(), new Node[] { n1, n2 }));
+    }
+
+    @Test
+    public void testAttributeChange() {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        Graph graph = graphModel.getGraph();
+        Column column = graphModel.getNodeTable().addColumn("foo", String.class);
+        Node node = graphModel.factory().newNode("1");
+        graph.addNode(node);
+        EventCollector collector = new EventCollector();
+        graphModel.addGraphChangeListener(graph, collector);
+
+        node.setAttribute(column, "bar");
+
+        Assert.assertEquals(collector.events.size(), 1);
+        GraphChangeEvent event = collector.events.get(0);
+        Assert.assertEquals(event.getChangedColumns(), new Column[] { column });
+        Assert.assertTrue(Arrays
+                .deepEquals(event.getColumnDiff(column).getTouchedElements().toArray(), new Node[] { node }));
+        Assert.assertEquals(event.getAddedNodes().toArray().length, 0);
+    }
+
+    @Test
+    public void testAttributeChangeCoalesced() {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        Graph graph = graphModel.getGraph();
+        Column column = graphModel.getNodeTable().addColumn("foo", String.class);
+        Node node = graphModel.factory().newNode("1");
+        graph.addNode(node);
+        EventCollector collector = new EventCollector();
+        graphModel.addGraphChangeListener(graph, collector);
+
+        graph.writeLock();
+        try {
+            node.setAttribute(column, "bar");
+            node.setAttribute(column, "foo");
+        } finally {
+            graph.writeUnlock();
+        }
+
+        Assert.assertEquals(collector.events.size(), 1);
+        Assert.assertEquals(collector.events.get(0).getColumnDiff(column).getTouchedElements().toArray().length, 1);
+    }
+
+    @Test
+    public void testAttributeChangeRemovedNode() {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        Graph graph = graphModel.getGraph();
+        Column column = graphModel.getNodeTable().addColumn("foo", String.class);
+        Node node = graphModel.factory().newNode("1");
+        graph.addNode(node);
+        EventCollector collector = new EventCollector();
+        graphModel.addGraphChangeListener(graph, collector);
+
+        graph.writeLock();
+        try {
+            node.setAttribute(column, "bar");
+            graph.removeNode(node);
+        } finally {
+            graph.writeUnlock();
+        }
+
+        Assert.assertEquals(collector.events.size(), 1);
+        GraphChangeEvent event = collector.events.get(0);
+        Assert.assertNull(event.getColumnDiff(column));
+        Assert.assertTrue(Arrays.deepEquals(event.getRemovedNodes().toArray(), new Node[] { node }));
+    }
+
+    @Test
+    public void testRemoveListener() {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        Graph graph = graphModel.getGraph();
+        EventCollector collector = new EventCollector();
+        graphModel.addGraphChangeListener(graph, collector);
+        graphModel.removeGraphChangeListener(collector);
+
+        graph.addNode(graphModel.factory().newNode("1"));
+
+        Assert.assertTrue(collector.events.isEmpty());
+        Assert.assertFalse(graphModel.store.changeDispatcher.hasListeners());
+        Assert.assertTrue(graphModel.store.observers.isEmpty());
+    }
+
+    @Test
+    public void testViewListener() {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        Node n1 = graphModel.factory().newNode("1");
+        Node n2 = graphModel.factory().newNode("2");
+        graphModel.getGraph().addNode(n1);
+        GraphView view = graphModel.createView();
+        Subgraph subgraph = graphModel.getGraph(view);
+        EventCollector collector = new EventCollector();
+        graphModel.addGraphChangeListener(subgraph, collector);
+
+        graphModel.getGraph().addNode(n2);
+        Assert.assertTrue(collector.events.isEmpty());
+
+        subgraph.addNode(n1);
+        Assert.assertEquals(collector.events.size(), 1);
+        Assert.assertTrue(Arrays.deepEquals(collector.events.get(0).getAddedNodes().toArray(), new Node[] { n1 }));
+    }
+
+    @Test
+    public void testExecutor() {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        Graph graph = graphModel.getGraph();
+        EventCollector collector = new EventCollector();
+        QueueExecutor executor = new QueueExecutor();
+        graphModel.addGraphChangeListener(graph, collector, executor);
+
+        Node n1 = graphModel.factory().newNode("1");
+        Node n2 = graphModel.factory().newNode("2");
+        graph.addNode(n1);
+        graph.addNode(n2);
+
+        // Only one batch is submitted at a time
+        Assert.assertEquals(executor.tasks.size(), 1);
+        Assert.assertTrue(collector.events.isEmpty());
+
+        executor.runAll();
+        Assert.assertEquals(collector.events.size(), 1);
+        Assert.assertTrue(Arrays.deepEquals(collector.events.get(0).getAddedNodes().toArray(), new Node[] { n1, n2 }));
+
+        graph.removeNode(n1);
+        Assert.assertEquals(executor.tasks.size(), 1);
+        executor.runAll();
+        Assert.assertEquals(collector.events.size(), 2);
+        Assert.assertTrue(Arrays.deepEquals(collector.events.get(1).getRemovedNodes().toArray(), new Node[] { n1 }));
+    }
+
+    @Test
+    public void testListenerModifyingGraph() {
+        final GraphModelImpl graphModel = new GraphModelImpl();
+        final Graph graph = graphModel.getGraph();
+        final Node n2 = graphModel.factory().newNode("2");
+        EventCollector collector = new EventCollector() {
+            @Override
+            public void graphChanged(GraphChangeEvent event) {
+                super.graphChanged(event);
+                if (events.size() == 1) {
+                    graph.addNode(n2);
+                }
+            }
+        };
+        graphModel.addGraphChangeListener(graph, collector);
+
+        Node n1 = graphModel.factory().newNode("1");
+        graph.addNode(n1);
+
+        Assert.assertEquals(collector.events.size(), 2);
+        Assert.assertTrue(Arrays.deepEquals(collector.events.get(1).getAddedNodes().toArray(), new Node[] { n2 }));
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testAddNullListener() {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        graphModel.addGraphChangeListener(graphModel.getGraph(), null);
+    }
+
+    // UTILITY
+    private static class EventCollector implements GraphChangeListener {
+
+        protected final List<GraphChangeEvent> events = new ArrayList<GraphChangeEvent>();
+
+        @Override
+        public void graphChanged(GraphChangeEvent event) {
+            events.add(event);
+        }
+    }
+
+    private static class QueueExecutor implements Executor {
+
+        private final List<Runnable> tasks = new ArrayList<Runnable>();
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        public void runAll() {
+            List<Runnable> toRun = new ArrayList<Runnable>(tasks);
+            tasks.clear();
+            for (Runnable task : toRun) {
+                task.run();
+            }
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class GraphChangeLogTest {
+
+    @Test
+    public void testEmpty() {
+        GraphChangeLog log = new GraphChangeLog(4);
+        Assert.assertEquals(log.getPosition(), 0);
+        Assert.assertTrue(log.canReplay(0));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testSizeNotPowerOfTwo() {
+        new GraphChangeLog(3);
+    }
+
+    @Test
+    public void testAdd() {
+        GraphStore store = GraphGenerator.generateTinyGraphStore();
+        NodeImpl n1 = store.getNode("1");
+        EdgeImpl e1 = store.getEdge("0");
+
+        GraphChangeLog log = new GraphChangeLog(4);
+        log.add(n1);
+        log.add(e1);
+
+        Assert.assertEquals(log.getPosition(), 2);
+        Assert.assertEquals(log.getStoreId(0), n1.getStoreId());
+        Assert.assertTrue(log.isNode(0));
+        Assert.assertEquals(log.getStoreId(1), e1.getStoreId());
+        Assert.assertFalse(log.isNode(1));
+    }
+
+    @Test
+    public void testWrap() {
+        GraphStore store = GraphGenerator.generateTinyGraphStore();
+        NodeImpl n1 = store.getNode("1");
+        NodeImpl n2 = store.getNode("2");
+
+        GraphChangeLog log = new GraphChangeLog(4);
+        for (int i = 0; i < 4; i++) {
+            log.add(n1);
+        }
+        Assert.assertTrue(log.canReplay(0));
+
+        log.add(n2);
+        Assert.assertFalse(log.canReplay(0));
+        Assert.assertTrue(log.canReplay(1));
+        Assert.assertEquals(log.getStoreId(4), n2.getStoreId());
+    }
+
+    @Test
+    public void testInvalidate() {
+        GraphChangeLog log = new GraphChangeLog(4);
+        log.invalidate();
+
+        Assert.assertFalse(log.canReplay(0));
+        Assert.assertTrue(log.canReplay(log.getPosition()));
+    }
+}
@@ -426,8 +426,12 @@ public class GraphGenerator {
     }
 
     public static GraphStore generateSmallGraphStore() {
+        return generateSmallGraphStore(new Configuration());
+    }
+
+    public static GraphStore generateSmallGraphStore(Configuration configuration) {
         int edgeCount = 100;
-        GraphStore graphStore = new GraphModelImpl().store;
+        GraphStore graphStore = new GraphModelImpl(configuration).store;
         NodeImpl[] nodes = generateNodeList(Math.max((int) Math.ceil(Math.sqrt(edgeCount * 2)), (int) (edgeCount / 10.0)), graphStore);
         graphStore.addAllNodes(Arrays.asList(nodes));
         EdgeImpl[] edges = generateEdgeList(graphStore.nodeStore, edgeCount, 0, true, true, false);
@@ -436,8 +440,12 @@ public class GraphGenerator {
     }
 
     public static GraphStore generateSmallMixedGraphStore() {
+        return generateSmallMixedGraphStore(new Configuration());
+    }
+
+    public static GraphStore generateSmallMixedGraphStore(Configuration configuration) {
         int edgeCount = 100;
-        GraphStore graphStore = new GraphModelImpl().store;
+        GraphStore graphStore = new GraphModelImpl(configuration).store;
         NodeImpl[] nodes = generateNodeList(Math.max((int) Math.ceil(Math.sqrt(edgeCount * 2)), (int) (edgeCount / 10.0)), graphStore);
         graphStore.addAllNodes(Arrays.asList(nodes));
         EdgeImpl[] edges = generateMixedEdgeList(graphStore.nodeStore, edgeCount, 0, true);
@@ -446,8 +454,12 @@ public class GraphGenerator {
     }
 
     public static GraphStore generateSmallMultiTypeGraphStore() {
+        return generateSmallMultiTypeGraphStore(new Configuration());
+    }
+
+    public static GraphStore generateSmallMultiTypeGraphStore(Configuration configuration) {
         int edgeCount = 100;
-        GraphStore graphStore = new GraphModelImpl().store;
+        GraphStore graphStore = new GraphModelImpl(configuration).store;
         NodeImpl[] nodes = generateNodeList(Math.max((int) Math.ceil(Math.sqrt(edgeCount * 2)), (int) (edgeCount / 10.0)), graphStore);
         graphStore.addAllNodes(Arrays.asList(nodes));
         EdgeImpl[] edges = generateMultiTypeEdgeList(graphStore.nodeStore, edgeCount, 3, true, true);
@@ -586,6 +586,81 @@ public class GraphModelTest {
         Assert.assertEquals(graphModelImpl.store.edgeTable.getColumn("weight").getIndex(), GraphStoreConfiguration.EDGE_WEIGHT_INDEX);
     }
 
+    @Test
+    public void testSetConfigurationLabelIndex() {
+        GraphModelImpl graphModelImpl = new GraphModelImpl();
+        Assert.assertFalse(graphModelImpl.store.nodeTable.getColumn("label").isIndexed());
+
+        Configuration config = new Configuration();
+        config.setLabelIndex(Boolean.TRUE);
+        graphModelImpl.setConfiguration(config);
+        Assert.assertTrue(graphModelImpl.store.nodeTable.getColumn("label").isIndexed());
+        Assert.assertTrue(graphModelImpl.store.edgeTable.getColumn("label").isIndexed());
+        Assert.assertEquals(graphModelImpl.store.nodeTable.getColumn("label").getIndex(), GraphStoreConfiguration.ELEMENT_LABEL_INDEX);
+    }
+
+    @Test
+    public void testSetConfigurationStringIndex() {
+        GraphModelImpl graphModelImpl = new GraphModelImpl();
+        Configuration config = new Configuration();
+        config.setLabelIndex(Boolean.TRUE);
+        graphModelImpl.setConfiguration(config);
+        Column col = graphModelImpl.store.nodeTable.getColumn("label");
+        Assert.assertTrue(graphModelImpl.store.nodeTable.store.indexStore.mainIndex.getIndex((ColumnImpl) col) instanceof IndexImpl.DefaultIndex);
+
+        config.setStringIndex(Boolean.TRUE);
+        graphModelImpl.setConfiguration(config);
+        col = graphModelImpl.store.nodeTable.getColumn("label");
+        Assert.assertTrue(col.isIndexed());
+        Assert.assertTrue(graphModelImpl.store.nodeTable.store.indexStore.mainIndex.getIndex((ColumnImpl) col) instanceof IndexImpl.StringIndex);
+        Assert.assertEquals(graphModelImpl.getConfiguration().getStringIndex(), Boolean.TRUE);
+    }
+
+    @Test
+    public void testGetNodeIndexByLabel() {
+        Configuration config = new Configuration();
+        config.setLabelIndex(Boolean.TRUE);
+        GraphModelImpl graphModel = new GraphModelImpl(config);
+        Column col = graphModel.getNodeTable().getColumn("label");
+
+        Node n1 = graphModel.factory().newNode("1");
+        n1.setLabel("Alpha");
+        Node n2 = graphModel.factory().newNode("2");
+        graphModel.getStore().addNode(n1);
+        graphModel.getStore().addNode(n2);
+        n2.setLabel("alphabet");
+
+        Index index = graphModel.getNodeIndex();
+        Assert.assertEquals(index.count(col, "Alpha"), 1);
+        Assert.assertEquals(index.count(col, "alphabet"), 1);
+        Assert.assertEquals(countIterable(index.getByPrefix(col, "alpha", true)), 2);
+        Assert.assertEquals(countIterable(index.getBySubstring(col, "bet", false)), 1);
+
+        n2.setLabel("beta");
+        Assert.assertEquals(countIterable(index.getByPrefix(col, "alpha", true)), 1);
+        Assert.assertEquals(index.count(col, "beta"), 1);
+    }
+
+    @Test
+    public void testGetNodeIndexByLabelInView() {
+        Configuration config = new Configuration();
+        config.setLabelIndex(Boolean.TRUE);
+        GraphModelImpl graphModel = new GraphModelImpl(config);
+        Column col = graphModel.getNodeTable().getColumn("label");
+        GraphView view = graphModel.createView();
+
+        Node n1 = graphModel.factory().newNode("1");
+        n1.setLabel("Alpha");
+        Node n2 = graphModel.factory().newNode("2");
+        n2.setLabel("Alphabet");
+        graphModel.getStore().addNode(n1);
+        graphModel.getStore().addNode(n2);
+        graphModel.getGraph(view).addNode(n1);
+
+        Index index = graphModel.getNodeIndex(view);
+        Assert.assertEquals(countIterable(index.getByPrefix(col, "alpha", true)), 1);
+    }
+
     @Test
     public void testNodeAttributesAddAndRemoveColumns1() {
         GraphModelImpl graphModel = new GraphModelImpl();
@@ -651,4 +726,13 @@ public class GraphModelTest {
 
         Assert.assertNull(n1.getAttribute(col2));
     }
+
+    // UTILITY
+    private int countIterable(Iterable itr) {
+        int count = 0;
+        for (Object o : itr) {
+            count++;
+        }
+        return count;
+    }
 }
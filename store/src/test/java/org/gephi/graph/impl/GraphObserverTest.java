@@ -16,6 +16,7 @@
 package org.gephi.graph.impl;
 
 import java.util.Arrays;
+import org.gephi.graph.api.DirectedSubgraph;
 import org.gephi.graph.api.Edge;
 import org.gephi.graph.api.EdgeIterable;
 import org.gephi.graph.api.GraphDiff;
@@ -409,6 +410,150 @@ public class GraphObserverTest {
         Assert.assertTrue(Arrays.deepEquals(removedNodes, new Node[] { node }));
     }
 
+    @Test
+    public void testDiffAddAndRemoveNode() {
+        GraphStore store = GraphGenerator.generateSmallGraphStore();
+        GraphObserverImpl graphObserver = store.createGraphObserver(store, true);
+        graphObserver.hasGraphChanged();
+        Node node = store.factory.newNode("r1");
+        store.addNode(node);
+        store.removeNode(node);
+
+        boolean a = graphObserver.hasGraphChanged();
+        GraphDiff diff = graphObserver.getDiff();
+
+        Assert.assertTrue(a);
+        Assert.assertSame(diff.getAddedNodes(), NodeIterable.EMPTY);
+        Assert.assertSame(diff.getRemovedNodes(), NodeIterable.EMPTY);
+    }
+
+    @Test
+    public void testDiffRemoveAndReAddNode() {
+        GraphStore store = GraphGenerator.generateSmallGraphStore();
+        GraphObserverImpl graphObserver = store.createGraphObserver(store, true);
+        graphObserver.hasGraphChanged();
+        Node node = store.getNode("1");
+        Node other = store.getNode("2");
+        store.removeNode(node);
+        store.removeNode(other);
+        store.addNode(node);
+
+        graphObserver.hasGraphChanged();
+        GraphDiff diff = graphObserver.getDiff();
+
+        Assert.assertTrue(Arrays.deepEquals(diff.getRemovedNodes().toArray(), new Node[] { other }));
+        Assert.assertSame(diff.getAddedNodes(), NodeIterable.EMPTY);
+    }
+
+    @Test
+    public void testChangeLogReleasedOnDestroy() {
+        GraphStore store = GraphGenerator.generateTinyGraphStore();
+        GraphObserverImpl o1 = store.createGraphObserver(store, true);
+        GraphObserverImpl o2 = store.createGraphObserver(store, true);
+        Assert.assertNotNull(store.version.changeLog);
+
+        o1.destroy();
+        Assert.assertNull(o1.changeLog);
+        Assert.assertNotNull(store.version.changeLog);
+
+        o2.destroy();
+        Assert.assertNull(store.version.changeLog);
+
+        GraphObserverImpl o3 = store.createGraphObserver(store, true);
+        Assert.assertNotNull(store.version.changeLog);
+        o3.hasGraphChanged();
+        Node node = store.factory.newNode("new");
+        store.addNode(node);
+        Assert.assertTrue(o3.hasGraphChanged());
+        Assert.assertTrue(Arrays.deepEquals(o3.getDiff().getAddedNodes().toArray(), new Node[] { node }));
+    }
+
+    @Test
+    public void testDiffChangeLogWrapped() {
+        GraphStore store = new GraphStore();
+        GraphObserverImpl graphObserver = store.createGraphObserver(store, true);
+        graphObserver.hasGraphChanged();
+        int count = GraphStoreConfiguration.GRAPHDIFF_CHANGE_LOG_SIZE + 1;
+        for (int i = 0; i < count; i++) {
+            store.addNode(store.factory.newNode(String.valueOf(i)));
+        }
+        Assert.assertFalse(graphObserver.changeLog.canReplay(graphObserver.changeLogPosition));
+
+        graphObserver.hasGraphChanged();
+        GraphDiff diff = graphObserver.getDiff();
+
+        Assert.assertEquals(diff.getAddedNodes().toArray().length, count);
+
+        Node node = store.getNode("0");
+        store.removeNode(node);
+
+        graphObserver.hasGraphChanged();
+        diff = graphObserver.getDiff();
+
+        Assert.assertTrue(Arrays.deepEquals(diff.getRemovedNodes().toArray(), new Node[] { node }));
+        Assert.assertSame(diff.getAddedNodes(), NodeIterable.EMPTY);
+    }
+
+    @Test
+    public void testDiffView() {
+        GraphStore store = GraphGenerator.generateTinyGraphStore();
+        GraphViewStore viewStore = store.viewStore;
+        GraphViewImpl view = viewStore.createView();
+        DirectedSubgraph graph = viewStore.getDirectedGraph(view);
+        GraphObserverImpl graphObserver = viewStore.createGraphObserver(graph, true);
+        graphObserver.hasGraphChanged();
+        Node n1 = store.getNode("1");
+        Node n2 = store.getNode("2");
+        Edge edge = store.getEdge("0");
+        graph.addNode(n1);
+        graph.addNode(n2);
+        graph.addEdge(edge);
+
+        graphObserver.hasGraphChanged();
+        GraphDiff diff = graphObserver.getDiff();
+
+        Assert.assertTrue(Arrays.deepEquals(diff.getAddedNodes().toArray(), new Node[] { n1, n2 }));
+        Assert.assertTrue(Arrays.deepEquals(diff.getAddedEdges().toArray(), new Edge[] { edge }));
+
+        graph.removeNode(n2);
+
+        graphObserver.hasGraphChanged();
+        diff = graphObserver.getDiff();
+
+        Assert.assertTrue(Arrays.deepEquals(diff.getRemovedNodes().toArray(), new Node[] { n2 }));
+        Assert.assertTrue(Arrays.deepEquals(diff.getRemovedEdges().toArray(), new Edge[] { edge }));
+        Assert.assertSame(diff.getAddedNodes(), NodeIterable.EMPTY);
+        Assert.assertSame(diff.getAddedEdges(), EdgeIterable.EMPTY);
+    }
+
+    @Test
+    public void testDiffViewNot() {
+        GraphStore store = GraphGenerator.generateTinyGraphStore();
+        GraphViewStore viewStore = store.viewStore;
+        GraphViewImpl view = viewStore.createView();
+        DirectedSubgraph graph = viewStore.getDirectedGraph(view);
+        Node n1 = store.getNode("1");
+        graph.addNode(n1);
+        GraphObserverImpl graphObserver = viewStore.createGraphObserver(graph, true);
+        graphObserver.hasGraphChanged();
+        view.not();
+
+        graphObserver.hasGraphChanged();
+        GraphDiff diff = graphObserver.getDiff();
+
+        Assert.assertTrue(Arrays.deepEquals(diff.getRemovedNodes().toArray(), new Node[] { n1 }));
+        Assert.assertTrue(Arrays.deepEquals(diff.getAddedNodes().toArray(), new Node[] { store.getNode("2") }));
+    }
+
+    @Test
+    public void testUndirectedObserverWithoutChangeLog() {
+        GraphStore store = GraphGenerator.generateTinyGraphStore();
+        GraphObserverImpl graphObserver = store.createGraphObserver(store.undirectedDecorator, true);
+
+        Assert.assertNull(graphObserver.changeLog);
+        Assert.assertNotNull(store.createGraphObserver(store, true).changeLog);
+    }
+
     @Test
     public void testResetNodeVersion() {
         GraphStore store = GraphGenerator.generateSmallGraphStore();
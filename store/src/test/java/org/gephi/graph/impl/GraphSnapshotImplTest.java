@@ -0,0 +1,295 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import org.gephi.graph.api.Column;
+import org.gephi.graph.api.Configuration;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.Estimator;
+import org.gephi.graph.api.GraphSnapshot;
+import org.gephi.graph.api.Interval;
+import org.gephi.graph.api.Node;
+import org.gephi.graph.api.TimeRepresentation;
+import org.gephi.graph.api.types.IntervalDoubleMap;
+import org.gephi.graph.api.types.IntervalIntegerMap;
+import org.gephi.graph.api.types.TimestampDoubleMap;
+import org.gephi.graph.api.types.TimestampIntegerMap;
+import org.gephi.graph.api.types.TimestampStringMap;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class GraphSnapshotImplTest {
+
+    @Test
+    public void testEmpty() {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        GraphSnapshot snapshot = graphModel.snapshotAt(1.0);
+        Assert.assertEquals(snapshot.getNodeCount(), 0);
+        Assert.assertEquals(snapshot.getEdgeCount(), 0);
+        Assert.assertEquals(snapshot.getInterval(), new Interval(1.0, 1.0));
+        Assert.assertEquals(snapshot.getEstimator(), Estimator.FIRST);
+    }
+
+    @Test
+    public void testStaticGraph() {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        Node n1 = graphModel.factory().newNode("1");
+        Node n2 = graphModel.factory().newNode("2");
+        graphModel.getStore().addNode(n1);
+        graphModel.getStore().addNode(n2);
+        Edge e = graphModel.factory().newEdge(n1, n2, 0, 2.5, true);
+        graphModel.getStore().addEdge(e);
+
+        GraphSnapshot snapshot = graphModel.snapshotAt(1.0);
+        Assert.assertEquals(snapshot.getNodeCount(), 2);
+        Assert.assertEquals(snapshot.getEdgeCount(), 1);
+        Assert.assertSame(snapshot.getNode(snapshot.getIndex(n1)), n1);
+        Assert.assertSame(snapshot.getEdge(0), e);
+        Assert.assertEquals(snapshot.getSource(0), snapshot.getIndex(n1));
+        Assert.assertEquals(snapshot.getTarget(0), snapshot.getIndex(n2));
+        Assert.assertEquals(snapshot.getWeight(0), 2.5);
+        Assert.assertEquals(snapshot.getValues(graphModel.getEdgeTable().getColumn("weight")), new double[] { 2.5 });
+        Assert.assertEquals(snapshot.getAttribute(graphModel.getNodeTable().getColumn("id"), snapshot.getIndex(n2)), "2");
+    }
+
+    @Test
+    public void testTimestampElements() {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        Node n1 = graphModel.factory().newNode("1");
+        n1.addTimestamp(1.0);
+        n1.addTimestamp(5.0);
+        Node n2 = graphModel.factory().newNode("2");
+        n2.addTimestamp(2.0);
+        Node n3 = graphModel.factory().newNode("3");
+        graphModel.getStore().addNode(n1);
+        graphModel.getStore().addNode(n2);
+        graphModel.getStore().addNode(n3);
+        Edge e1 = graphModel.factory().newEdge(n1, n3);
+        Edge e2 = graphModel.factory().newEdge(n2, n3);
+        e1.addTimestamp(5.0);
+        graphModel.getStore().addEdge(e1);
+        graphModel.getStore().addEdge(e2);
+
+        GraphSnapshot snapshot = graphModel.snapshotAt(1.0);
+        Assert.assertEquals(snapshot.getNodeCount(), 2);
+        Assert.assertEquals(snapshot.getIndex(n2), -1);
+        Assert.assertEquals(snapshot.getEdgeCount(), 0);
+
+        snapshot = graphModel.snapshotAt(5.0);
+        Assert.assertEquals(snapshot.getNodeCount(), 2);
+        Assert.assertEquals(snapshot.getEdgeCount(), 1);
+        Assert.assertEquals(snapshot.getIndex(e1), 0);
+        Assert.assertEquals(snapshot.getIndex(e2), -1);
+
+        snapshot = graphModel.snapshotOver(new Interval(2.0, 5.0), null);
+        Assert.assertEquals(snapshot.getNodeCount(), 3);
+        Assert.assertEquals(snapshot.getEdgeCount(), 2);
+    }
+
+    @Test
+    public void testIntervalElements() {
+        Configuration config = new Configuration();
+        config.setTimeRepresentation(TimeRepresentation.INTERVAL);
+        GraphModelImpl graphModel = new GraphModelImpl(config);
+        Node n1 = graphModel.factory().newNode("1");
+        n1.addInterval(new Interval(1.0, 2.0));
+        n1.addInterval(new Interval(4.0, 6.0));
+        graphModel.getStore().addNode(n1);
+
+        Assert.assertEquals(graphModel.snapshotAt(1.5).getNodeCount(), 1);
+        Assert.assertEquals(graphModel.snapshotAt(3.0).getNodeCount(), 0);
+        Assert.assertEquals(graphModel.snapshotAt(6.0).getNodeCount(), 1);
+        Assert.assertEquals(graphModel.snapshotOver(new Interval(2.5, 3.5), null).getNodeCount(), 0);
+        Assert.assertEquals(graphModel.snapshotOver(new Interval(2.5, 4.0), null).getNodeCount(), 1);
+    }
+
+    @Test
+    public void testTimestampAttributes() {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        Column age = graphModel.getNodeTable().addColumn("age", TimestampIntegerMap.class);
+        Column name = graphModel.getNodeTable().addColumn("name", TimestampStringMap.class);
+        Node n1 = graphModel.factory().newNode("1");
+        Node n2 = graphModel.factory().newNode("2");
+        graphModel.getStore().addNode(n1);
+        graphModel.getStore().addNode(n2);
+        n1.setAttribute(age, 10, 1.0);
+        n1.setAttribute(age, 20, 3.0);
+        n1.setAttribute(name, "foo", 1.0);
+        n2.setAttribute(age, 5, 3.0);
+
+        GraphSnapshot snapshot = graphModel.snapshotAt(1.0);
+        int i1 = snapshot.getIndex(n1);
+        int i2 = snapshot.getIndex(n2);
+        int[] ages = (int[]) snapshot.getValues(age);
+        Assert.assertEquals(ages[i1], 10);
+        Assert.assertEquals(ages[i2], 0);
+        Assert.assertEquals(snapshot.getAttribute(age, i1), 10);
+        Assert.assertNull(snapshot.getAttribute(age, i2));
+        Assert.assertEquals(snapshot.getAttribute(name, i1), "foo");
+        Assert.assertNull(snapshot.getAttribute(name, i2));
+
+        snapshot = graphModel.snapshotOver(new Interval(1.0, 3.0), Estimator.MAX);
+        Assert.assertEquals(((int[]) snapshot.getValues(age))[i1], 20);
+        Assert.assertEquals(snapshot.getAttribute(name, i1), "foo");
+
+        snapshot = graphModel.snapshotOver(new Interval(1.0, 3.0), Estimator.AVERAGE);
+        double[] averages = (double[]) snapshot.getValues(age);
+        Assert.assertEquals(averages[i1], 15.0);
+        Assert.assertEquals(averages[i2], 5.0);
+    }
+
+    @Test
+    public void testTimestampAttributesColumnEstimator() {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        Column age = graphModel.getNodeTable().addColumn("age", TimestampIntegerMap.class);
+        age.setEstimator(Estimator.AVERAGE);
+        Node n1 = graphModel.factory().newNode("1");
+        graphModel.getStore().addNode(n1);
+        n1.setAttribute(age, 10, 1.0);
+        n1.setAttribute(age, 15, 3.0);
+
+        // Median isn't supported by integer maps so the column estimator is
+        // used
+        GraphSnapshot snapshot = graphModel.snapshotOver(new Interval(1.0, 3.0), Estimator.MEDIAN);
+        Assert.assertEquals(((double[]) snapshot.getValues(age))[0], 12.5);
+        Assert.assertEquals(snapshot.getAttribute(age, 0), 12.5);
+
+        snapshot = graphModel.snapshotOver(new Interval(1.0, 3.0), null);
+        Assert.assertEquals(((double[]) snapshot.getValues(age))[0], 12.5);
+    }
+
+    @Test
+    public void testIntervalAttributes() {
+        Configuration config = new Configuration();
+        config.setTimeRepresentation(TimeRepresentation.INTERVAL);
+        GraphModelImpl graphModel = new GraphModelImpl(config);
+        Column age = graphModel.getNodeTable().addColumn("age", IntervalIntegerMap.class);
+        Node n1 = graphModel.factory().newNode("1");
+        graphModel.getStore().addNode(n1);
+        n1.setAttribute(age, 10, new Interval(1.0, 2.0));
+        n1.setAttribute(age, 20, new Interval(3.0, 4.0));
+
+        Assert.assertEquals(graphModel.snapshotAt(1.5).getAttribute(age, 0), 10);
+        Assert.assertEquals(graphModel.snapshotAt(3.5).getAttribute(age, 0), 20);
+        Assert.assertEquals(graphModel.snapshotOver(new Interval(1.0, 4.0), Estimator.LAST).getAttribute(age, 0), 20);
+    }
+
+    @Test
+    public void testDynamicWeight() {
+        Configuration config = new Configuration();
+        config.setEdgeWeightType(TimestampDoubleMap.class);
+        GraphModelImpl graphModel = new GraphModelImpl(config);
+        Node n1 = graphModel.factory().newNode("1");
+        Node n2 = graphModel.factory().newNode("2");
+        graphModel.getStore().addNode(n1);
+        graphModel.getStore().addNode(n2);
+        Edge e = graphModel.factory().newEdge(n1, n2);
+        graphModel.getStore().addEdge(e);
+        e.setWeight(3.0, 1.0);
+        e.setWeight(5.0, 2.0);
+
+        Assert.assertEquals(graphModel.snapshotAt(1.0).getWeight(0), 3.0);
+        Assert.assertEquals(graphModel.snapshotAt(2.0).getWeight(0), 5.0);
+        Assert.assertEquals(graphModel.snapshotAt(3.0).getWeight(0), 1.0);
+        Assert.assertEquals(graphModel.snapshotOver(new Interval(1.0, 2.0), Estimator.AVERAGE).getWeight(0), 4.0);
+    }
+
+    @Test
+    public void testDynamicIntervalWeight() {
+        Configuration config = new Configuration();
+        config.setTimeRepresentation(TimeRepresentation.INTERVAL);
+        config.setEdgeWeightType(IntervalDoubleMap.class);
+        GraphModelImpl graphModel = new GraphModelImpl(config);
+        Node n1 = graphModel.factory().newNode("1");
+        graphModel.getStore().addNode(n1);
+        Edge e = graphModel.factory().newEdge(n1, n1);
+        graphModel.getStore().addEdge(e);
+        e.setWeight(3.0, new Interval(1.0, 2.0));
+
+        GraphSnapshot snapshot = graphModel.snapshotAt(1.5);
+        Assert.assertEquals(snapshot.getWeight(0), 3.0);
+        Assert.assertEquals(snapshot.getOutDegree(0), 1);
+        Assert.assertEquals(snapshot.getInDegree(0), 1);
+    }
+
+    @Test
+    public void testAdjacency() {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        Node hub = graphModel.factory().newNode("hub");
+        graphModel.getStore().addNode(hub);
+        for (int i = 0; i < 5; i++) {
+            Node n = graphModel.factory().newNode(String.valueOf(i));
+            graphModel.getStore().addNode(n);
+            graphModel.getStore().addEdge(graphModel.factory().newEdge(hub, n));
+        }
+
+        GraphSnapshot snapshot = graphModel.snapshotAt(0.0);
+        int hubIndex = snapshot.getIndex(hub);
+        Assert.assertEquals(snapshot.getOutDegree(hubIndex), 5);
+        Assert.assertEquals(snapshot.getInDegree(hubIndex), 0);
+        for (int i = 0; i < 5; i++) {
+            int edge = snapshot.getOutEdge(hubIndex, i);
+            Assert.assertEquals(snapshot.getSource(edge), hubIndex);
+            int target = snapshot.getTarget(edge);
+            Assert.assertEquals(snapshot.getInDegree(target), 1);
+            Assert.assertEquals(snapshot.getInEdge(target, 0), edge);
+        }
+    }
+
+    @Test(expectedExceptions = IndexOutOfBoundsException.class)
+    public void testOutEdgeOutOfBounds() {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        Node n1 = graphModel.factory().newNode("1");
+        graphModel.getStore().addNode(n1);
+        graphModel.snapshotAt(0.0).getOutEdge(0, 0);
+    }
+
+    @Test
+    public void testLargeGraph() {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        Column value = graphModel.getNodeTable().addColumn("value", TimestampDoubleMap.class);
+        NodeImpl[] nodes = GraphGenerator
+                .generateNodeList(GraphStoreConfiguration.NODESTORE_BLOCK_SIZE * 3, graphModel.store);
+        for (NodeImpl node : nodes) {
+            graphModel.getStore().addNode(node);
+        }
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i].addTimestamp(i % 2);
+            nodes[i].setAttribute(value, (double) i, i % 2);
+        }
+
+        GraphSnapshot snapshot = graphModel.snapshotAt(1.0);
+        Assert.assertEquals(snapshot.getNodeCount(), nodes.length / 2);
+        double[] values = (double[]) snapshot.getValues(value);
+        for (int i = 0; i < snapshot.getNodeCount(); i++) {
+            NodeImpl node = (NodeImpl) snapshot.getNode(i);
+            Assert.assertEquals(values[i], node.getAttribute(value, 1.0));
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testUnknownColumn() {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        GraphSnapshot snapshot = graphModel.snapshotAt(1.0);
+        Column column = graphModel.getNodeTable().addColumn("foo", Integer.class);
+        snapshot.getValues(column);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInfiniteTimestamp() {
+        new GraphModelImpl().snapshotAt(Double.POSITIVE_INFINITY);
+    }
+}
@@ -24,6 +24,7 @@ import java.lang.reflect.Array;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -32,6 +33,7 @@ import java.util.Map.Entry;
 import java.util.Random;
 import java.util.Set;
 import org.gephi.graph.api.Column;
+import org.gephi.graph.api.Configuration;
 import org.gephi.graph.api.Origin;
 import org.gephi.graph.api.Node;
 import org.testng.Assert;
@@ -222,6 +224,127 @@ public class IndexImplTest {
         Assert.assertEquals(index.getMaxValue(ageCol), max);
     }
 
+    @Test
+    public void testStatistics() {
+        IndexImpl<Node> index = generateEmptyIndex();
+        NodeImpl[] nodes = generateNodesWithUniqueAttributes(index, true);
+
+        Column ageCol = index.columnStore.getColumn("age");
+
+        Assert.assertEquals(index.getSum(ageCol).doubleValue(), 0.0);
+        Assert.assertNull(index.getAverage(ageCol));
+        Assert.assertNull(index.getVariance(ageCol));
+        Assert.assertNull(index.getQuantile(ageCol, 0.5));
+
+        putAll(nodes, index);
+
+        double sum = 0;
+        int count = 0;
+        List<Integer> values = new ArrayList<Integer>();
+        for (NodeImpl n : nodes) {
+            Integer v = (Integer) n.getAttribute(ageCol);
+            if (v != null) {
+                sum += v;
+                count++;
+                values.add(v);
+            }
+        }
+        double mean = sum / count;
+        double variance = 0;
+        for (Integer v : values) {
+            variance += (v - mean) * (v - mean);
+        }
+        variance /= count;
+        Collections.sort(values);
+
+        Assert.assertEquals(index.getSum(ageCol).doubleValue(), sum);
+        Assert.assertEquals(index.getAverage(ageCol), mean, 0.000001);
+        Assert.assertEquals(index.getVariance(ageCol), variance, 0.000001);
+        Assert.assertEquals(index.getQuantile(ageCol, 0.0), values.get(0));
+        Assert.assertEquals(index.getQuantile(ageCol, 1.0), values.get(count - 1));
+        Assert.assertEquals(index.getQuantile(ageCol, 0.5), values.get((int) Math.ceil(0.5 * count) - 1));
+
+        int[] histogram = index.getHistogram(ageCol, 10);
+        int total = 0;
+        for (int h : histogram) {
+            total += h;
+        }
+        Assert.assertEquals(total, count);
+    }
+
+    @Test
+    public void testVarianceLargeOffset() {
+        IndexImpl<Node> index = generateEmptyIndex();
+        Column ageCol = index.columnStore.getColumn("age");
+        NodeImpl n1 = new NodeImpl(1);
+        NodeImpl n2 = new NodeImpl(2);
+        NodeImpl n3 = new NodeImpl(3);
+        index.put(ageCol, 1000000001, n1);
+        index.put(ageCol, 1000000002, n2);
+        index.put(ageCol, 1000000003, n3);
+
+        Assert.assertEquals(index.getAverage(ageCol), 1000000002.0);
+        Assert.assertEquals(index.getVariance(ageCol), 2.0 / 3.0, 1e-9);
+
+        index.remove(ageCol, 1000000001, n1);
+        Assert.assertEquals(index.getVariance(ageCol), 0.25, 1e-9);
+
+        index.remove(ageCol, 1000000002, n2);
+        index.remove(ageCol, 1000000003, n3);
+        index.put(ageCol, -5, n1);
+        index.put(ageCol, 5, n2);
+        Assert.assertEquals(index.getAverage(ageCol), 0.0);
+        Assert.assertEquals(index.getVariance(ageCol), 25.0, 1e-9);
+    }
+
+    @Test
+    public void testVarianceLargeOffsetDouble() {
+        ColumnStore<Node> columnStore = generateEmptyNodeStore();
+        columnStore.addColumn(new ColumnImpl("score", Double.class, "Score", null, Origin.DATA, true, false));
+        IndexImpl<Node> index = columnStore.indexStore.mainIndex;
+        Column column = columnStore.getColumn("score");
+        index.put(column, 1e9 + 1, new NodeImpl(1));
+        index.put(column, 1e9 + 2, new NodeImpl(2));
+        index.put(column, 1e9 + 3, new NodeImpl(3));
+
+        Assert.assertEquals(index.getVariance(column), 2.0 / 3.0, 1e-9);
+    }
+
+    @Test
+    public void testStatisticsAfterSet() {
+        IndexImpl<Node> index = generateEmptyIndex();
+        Column ageCol = index.columnStore.getColumn("age");
+        NodeImpl n1 = new NodeImpl(1);
+        NodeImpl n2 = new NodeImpl(2);
+        index.put(ageCol, 10, n1);
+        index.put(ageCol, 20, n2);
+
+        Assert.assertEquals(index.getAverage(ageCol), 15.0);
+        Assert.assertEquals(index.getVariance(ageCol), 25.0);
+        Assert.assertEquals(index.getHistogram(ageCol, 2), new int[] { 1, 1 });
+
+        index.set(ageCol, 20, 10, n2);
+        Assert.assertEquals(index.getSum(ageCol).doubleValue(), 20.0);
+        Assert.assertEquals(index.getVariance(ageCol), 0.0);
+        Assert.assertEquals(index.getHistogram(ageCol, 2), new int[] { 2, 0 });
+
+        index.remove(ageCol, 10, n1);
+        Assert.assertEquals(index.getAverage(ageCol), 10.0);
+        Assert.assertEquals(index.getQuantile(ageCol, 0.9), 10);
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testAverageNoNumber() {
+        IndexImpl<Node> index = generateEmptyIndex();
+        index.getAverage(index.columnStore.getColumn("foo"));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testQuantileOutOfRange() {
+        IndexImpl<Node> index = generateEmptyIndex();
+        index.getQuantile(index.columnStore.getColumn("age"), 1.5);
+    }
+
     @Test(expectedExceptions = UnsupportedOperationException.class)
     public void testMinValueNoNumber() {
         IndexImpl<Node> index = generateEmptyIndex();
@@ -620,6 +743,156 @@ public class IndexImplTest {
         }
     }
 
+    @Test
+    public void testGetByPrefix() {
+        checkGetByPrefix(generateEmptyIndex());
+        checkGetByPrefix(generateEmptyIndex(true));
+    }
+
+    private void checkGetByPrefix(IndexImpl<Node> index) {
+        Column column = index.columnStore.getColumn("foo");
+        NodeImpl n1 = new NodeImpl(1);
+        NodeImpl n2 = new NodeImpl(2);
+        NodeImpl n3 = new NodeImpl(3);
+        index.put(column, "Paris", n1);
+        index.put(column, "paradise", n2);
+        index.put(column, "London", n3);
+
+        Assert.assertEquals(new ObjectOpenHashSet(getIterable(index.getByPrefix(column, "Par", false))), new ObjectOpenHashSet(
+                new Node[] { n1 }));
+        Assert.assertEquals(new ObjectOpenHashSet(getIterable(index.getByPrefix(column, "Par", true))), new ObjectOpenHashSet(
+                new Node[] { n1, n2 }));
+        Assert.assertEquals(getIterable(index.getByPrefix(column, "x", true)).length, 0);
+        Assert.assertEquals(getIterable(index.getByPrefix(column, "", false)).length, 3);
+    }
+
+    @Test
+    public void testGetBySubstring() {
+        checkGetBySubstring(generateEmptyIndex());
+        checkGetBySubstring(generateEmptyIndex(true));
+    }
+
+    private void checkGetBySubstring(IndexImpl<Node> index) {
+        Column column = index.columnStore.getColumn("foo");
+        NodeImpl n1 = new NodeImpl(1);
+        NodeImpl n2 = new NodeImpl(2);
+        NodeImpl n3 = new NodeImpl(3);
+        index.put(column, "Paris", n1);
+        index.put(column, "paradise", n2);
+        index.put(column, "London", n3);
+
+        Assert.assertEquals(new ObjectOpenHashSet(getIterable(index.getBySubstring(column, "ARI", true))), new ObjectOpenHashSet(
+                new Node[] { n1 }));
+        Assert.assertEquals(getIterable(index.getBySubstring(column, "ARI", false)).length, 0);
+        Assert.assertEquals(new ObjectOpenHashSet(getIterable(index.getBySubstring(column, "ar", false))), new ObjectOpenHashSet(
+                new Node[] { n1, n2 }));
+        Assert.assertEquals(new ObjectOpenHashSet(getIterable(index.getBySubstring(column, "don", false))), new ObjectOpenHashSet(
+                new Node[] { n3 }));
+        Assert.assertEquals(getIterable(index.getBySubstring(column, "xyz", true)).length, 0);
+    }
+
+    @Test
+    public void testTextSearchAfterSet() {
+        checkTextSearchAfterSet(generateEmptyIndex());
+        checkTextSearchAfterSet(generateEmptyIndex(true));
+    }
+
+    private void checkTextSearchAfterSet(IndexImpl<Node> index) {
+        Column column = index.columnStore.getColumn("foo");
+        NodeImpl n1 = new NodeImpl(1);
+        NodeImpl n2 = new NodeImpl(2);
+        index.put(column, "Paris", n1);
+        index.put(column, "Berlin", n2);
+
+        Assert.assertEquals(getIterable(index.getByPrefix(column, "par", true)).length, 1);
+        Assert.assertEquals(getIterable(index.getBySubstring(column, "lin", true)).length, 1);
+
+        index.set(column, "Paris", "Lisbon", n1);
+        index.set(column, "Berlin", "Parma", n2);
+
+        Assert.assertSame(getIterable(index.getByPrefix(column, "par", true))[0], n2);
+        Assert.assertEquals(getIterable(index.getByPrefix(column, "PAR", true)).length, 1);
+        Assert.assertEquals(getIterable(index.getBySubstring(column, "lin", true)).length, 0);
+        Assert.assertSame(getIterable(index.getBySubstring(column, "sbo", true))[0], n1);
+
+        index.remove(column, "Parma", n2);
+        Assert.assertEquals(getIterable(index.getByPrefix(column, "par", true)).length, 0);
+        Assert.assertEquals(getIterable(index.getBySubstring(column, "arm", true)).length, 0);
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testGetByPrefixNoString() {
+        IndexImpl<Node> index = generateEmptyIndex();
+        index.getByPrefix(index.columnStore.getColumn("age"), "1", false);
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testGetBySubstringNoString() {
+        IndexImpl<Node> index = generateEmptyIndex();
+        index.getBySubstring(index.columnStore.getColumn("age"), "1", false);
+    }
+
+    @Test
+    public void testGetContaining() {
+        ColumnStore<Node> columnStore = generateEmptyNodeStore();
+        columnStore.addColumn(new ColumnImpl("tags", String[].class, "Tags", null, Origin.DATA, true, false));
+        columnStore.addColumn(new ColumnImpl("codes", int[].class, "Codes", null, Origin.DATA, true, false));
+        IndexImpl<Node> index = columnStore.indexStore.mainIndex;
+        Column tags = columnStore.getColumn("tags");
+        Column codes = columnStore.getColumn("codes");
+
+        NodeImpl n1 = new NodeImpl(1);
+        NodeImpl n2 = new NodeImpl(2);
+        NodeImpl n3 = new NodeImpl(3);
+        index.put(tags, new String[] { "fraud", "bank" }, n1);
+        index.put(tags, new String[] { "bank" }, n2);
+        index.put(tags, null, n3);
+        index.put(codes, new int[] { 1, 2, 3 }, n1);
+        index.put(codes, new int[] { 3, 4 }, n2);
+
+        Assert.assertEquals(new ObjectOpenHashSet(getIterable(index.getContaining(tags, "fraud"))), new ObjectOpenHashSet(
+                new Node[] { n1 }));
+        Assert.assertEquals(new ObjectOpenHashSet(getIterable(index.getContaining(tags, "bank"))), new ObjectOpenHashSet(
+                new Node[] { n1, n2 }));
+        Assert.assertEquals(getIterable(index.getContaining(tags, "foo")).length, 0);
+        Assert.assertEquals(new ObjectOpenHashSet(getIterable(index.getContainingAny(codes, 1, 4))), new ObjectOpenHashSet(
+                new Node[] { n1, n2 }));
+        Assert.assertEquals(new ObjectOpenHashSet(getIterable(index.getContainingAll(codes, 3, 4))), new ObjectOpenHashSet(
+                new Node[] { n2 }));
+        Assert.assertEquals(getIterable(index.getContainingAll(codes, 1, 4)).length, 0);
+        Assert.assertEquals(getIterable(index.getContainingAll(codes, 5)).length, 0);
+    }
+
+    @Test
+    public void testGetContainingAfterSet() {
+        ColumnStore<Node> columnStore = generateEmptyNodeStore();
+        columnStore.addColumn(new ColumnImpl("tags", String[].class, "Tags", null, Origin.DATA, true, false));
+        IndexImpl<Node> index = columnStore.indexStore.mainIndex;
+        Column tags = columnStore.getColumn("tags");
+
+        NodeImpl n1 = new NodeImpl(1);
+        NodeImpl n2 = new NodeImpl(2);
+        index.put(tags, new String[] { "fraud", "bank" }, n1);
+        index.put(tags, new String[] { "bank" }, n2);
+        Assert.assertEquals(getIterable(index.getContaining(tags, "bank")).length, 2);
+
+        index.set(tags, new String[] { "fraud", "bank" }, new String[] { "fraud" }, n1);
+        index.set(tags, new String[] { "bank" }, new String[] { "fraud", "shop" }, n2);
+        Assert.assertEquals(getIterable(index.getContaining(tags, "bank")).length, 0);
+        Assert.assertEquals(getIterable(index.getContaining(tags, "fraud")).length, 2);
+        Assert.assertSame(getIterable(index.getContaining(tags, "shop"))[0], n2);
+
+        index.remove(tags, new String[] { "fraud", "shop" }, n2);
+        Assert.assertSame(getIterable(index.getContaining(tags, "fraud"))[0], n1);
+        Assert.assertEquals(getIterable(index.getContaining(tags, "shop")).length, 0);
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testGetContainingNoArray() {
+        IndexImpl<Node> index = generateEmptyIndex();
+        index.getContaining(index.columnStore.getColumn("age"), 1);
+    }
+
     // UTILITIES
     private NodeImpl[] generateNodesWithUniqueAttributes(IndexImpl<Node> index, boolean withNulls) {
         int count = 100;
@@ -656,7 +929,14 @@ public class IndexImplTest {
     }
 
     private IndexImpl<Node> generateEmptyIndex() {
-        ColumnStore<Node> columnStore = generateEmptyNodeStore();
+        return generateEmptyIndex(false);
+    }
+
+    private IndexImpl<Node> generateEmptyIndex(boolean stringIndex) {
+        Configuration config = new Configuration();
+        config.setStringIndex(stringIndex);
+        ColumnStore<Node> columnStore = new GraphModelImpl(config).store.nodeTable.store;
+        Assert.assertEquals(columnStore.configuration.getStringIndex().booleanValue(), stringIndex);
         columnStore.addColumn(new ColumnImpl("foo", String.class, "foo", null, Origin.DATA, true, false));
         columnStore.addColumn(new ColumnImpl("age", Integer.class, "Age", null, Origin.DATA, true, false));
         return columnStore.indexStore.mainIndex;
@@ -367,6 +367,34 @@ public class IndexStoreTest {
         Assert.assertEquals(index.count(column, null), 0);
     }
 
+    @Test
+    public void testFillWithView() {
+        GraphStore graphStore = GraphGenerator.generateTinyGraphStore();
+        NodeImpl n1 = graphStore.getNode("1");
+        NodeImpl n2 = graphStore.getNode("2");
+
+        ColumnImpl column = new ColumnImpl("foo", String.class, "Foo", null, Origin.DATA, true, false);
+        graphStore.nodeTable.store.addColumn(column);
+        n1.setAttribute(column, "bar");
+        n2.setAttribute(column, "bar");
+
+        IndexStore<Node> indexStore = graphStore.nodeTable.store.indexStore;
+
+        GraphViewImpl view = graphStore.viewStore.createView();
+        Graph graph = graphStore.viewStore.getGraph(view);
+        graph.addNode(n1);
+        IndexImpl index = indexStore.createViewIndex(graph);
+        view.fill();
+
+        Assert.assertEquals(index.countElements(column), 2);
+        Assert.assertEquals(index.count(column, "bar"), 2);
+
+        view.not();
+
+        Assert.assertEquals(index.countElements(column), 0);
+        Assert.assertEquals(index.count(column, "bar"), 0);
+    }
+
     @Test
     public void testSetWithView() {
         GraphStore graphStore = GraphGenerator.generateTinyGraphStore();
@@ -461,6 +489,178 @@ public class IndexStoreTest {
         Assert.assertEquals(index.count(column, "bar"), 0);
     }
 
+    @Test
+    public void testCompositeIndex() {
+        GraphStore graphStore = generateBasicGraphStoreWithColumns();
+        ColumnImpl foo = (ColumnImpl) graphStore.nodeTable.store.getColumn("foo");
+        ColumnImpl age = (ColumnImpl) graphStore.nodeTable.store.getColumn("age");
+
+        Node n1 = graphStore.factory.newNode("1");
+        n1.setAttribute(foo, "bar");
+        n1.setAttribute(age, 10);
+        graphStore.addNode(n1);
+
+        IndexStore<Node> indexStore = graphStore.nodeTable.store.indexStore;
+        indexStore.addCompositeIndex(new ColumnImpl[] { foo, age });
+
+        Node n2 = graphStore.factory.newNode("2");
+        n2.setAttribute(foo, "bar");
+        n2.setAttribute(age, 20);
+        graphStore.addNode(n2);
+
+        IndexImpl<Node> index = indexStore.mainIndex;
+        Column[] cols = new Column[] { foo, age };
+        Assert.assertEquals(index.count(cols, new Object[] { "bar", 10 }), 1);
+        Assert.assertSame(getIterable(index.get(cols, new Object[] { "bar", 20 }))[0], n2);
+        Assert.assertEquals(index.count(new Column[] { foo }, new Object[] { "bar" }), 2);
+        Assert.assertNull(index.get(cols, new Object[] { "bar", 30 }));
+
+        n2.setAttribute(age, 10);
+        Assert.assertEquals(index.count(cols, new Object[] { "bar", 10 }), 2);
+        Assert.assertEquals(index.count(cols, new Object[] { "bar", 20 }), 0);
+
+        graphStore.removeNode(n1);
+        Assert.assertEquals(index.count(cols, new Object[] { "bar", 10 }), 1);
+        Assert.assertEquals(index.count(new Column[] { foo }, new Object[] { "bar" }), 1);
+    }
+
+    @Test
+    public void testCompositeIndexWithView() {
+        GraphStore graphStore = generateBasicGraphStoreWithColumns();
+        ColumnImpl foo = (ColumnImpl) graphStore.nodeTable.store.getColumn("foo");
+        ColumnImpl age = (ColumnImpl) graphStore.nodeTable.store.getColumn("age");
+        GraphView view = graphStore.viewStore.createView();
+        Graph graph = graphStore.viewStore.getGraph(view);
+
+        Node n1 = graphStore.factory.newNode("1");
+        n1.setAttribute(foo, "bar");
+        n1.setAttribute(age, 10);
+        Node n2 = graphStore.factory.newNode("2");
+        n2.setAttribute(foo, "bar");
+        n2.setAttribute(age, 10);
+        graphStore.addNode(n1);
+        graphStore.addNode(n2);
+        graph.addNode(n1);
+
+        IndexStore<Node> indexStore = graphStore.nodeTable.store.indexStore;
+        IndexImpl<Node> index = indexStore.createViewIndex(graph);
+        indexStore.addCompositeIndex(new ColumnImpl[] { foo, age });
+
+        Column[] cols = new Column[] { foo, age };
+        Assert.assertEquals(index.count(cols, new Object[] { "bar", 10 }), 1);
+        Assert.assertEquals(indexStore.mainIndex.count(cols, new Object[] { "bar", 10 }), 2);
+
+        graph.addNode(n2);
+        Assert.assertEquals(index.count(cols, new Object[] { "bar", 10 }), 2);
+
+        graph.removeNode(n1);
+        n2.setAttribute(age, 20);
+        Assert.assertEquals(index.count(cols, new Object[] { "bar", 10 }), 0);
+        Assert.assertEquals(index.count(cols, new Object[] { "bar", 20 }), 1);
+    }
+
+    @Test
+    public void testRemoveCompositeIndex() {
+        GraphStore graphStore = generateBasicGraphStoreWithColumns();
+        ColumnImpl foo = (ColumnImpl) graphStore.nodeTable.store.getColumn("foo");
+        ColumnImpl age = (ColumnImpl) graphStore.nodeTable.store.getColumn("age");
+        IndexStore<Node> indexStore = graphStore.nodeTable.store.indexStore;
+
+        indexStore.addCompositeIndex(new ColumnImpl[] { foo, age });
+        Assert.assertTrue(indexStore.hasCompositeIndex(new ColumnImpl[] { foo, age }));
+        Assert.assertFalse(indexStore.hasCompositeIndex(new ColumnImpl[] { age, foo }));
+
+        indexStore.removeCompositeIndex(new ColumnImpl[] { foo, age });
+        Assert.assertFalse(indexStore.hasCompositeIndex(new ColumnImpl[] { foo, age }));
+
+        indexStore.addCompositeIndex(new ColumnImpl[] { foo, age });
+        graphStore.nodeTable.store.removeColumn(age);
+        Assert.assertTrue(indexStore.compositeIndexes.isEmpty());
+        Assert.assertTrue(indexStore.mainIndex.compositeIndexes.isEmpty());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testCompositeIndexUnknownColumns() {
+        GraphStore graphStore = generateBasicGraphStoreWithColumns();
+        ColumnImpl foo = (ColumnImpl) graphStore.nodeTable.store.getColumn("foo");
+        IndexStore<Node> indexStore = graphStore.nodeTable.store.indexStore;
+        indexStore.mainIndex.count(new Column[] { foo }, new Object[] { "bar" });
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testCompositeIndexNotIndexedColumn() {
+        GraphStore graphStore = generateBasicGraphStoreWithColumns();
+        ColumnImpl foo = (ColumnImpl) graphStore.nodeTable.store.getColumn("foo");
+        ColumnImpl bar = new ColumnImpl("bar", String.class, "Bar", null, Origin.DATA, false, false);
+        graphStore.nodeTable.store.addColumn(bar);
+        graphStore.nodeTable.store.indexStore.addCompositeIndex(new ColumnImpl[] { foo, bar });
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testCompositeIndexTwice() {
+        GraphStore graphStore = generateBasicGraphStoreWithColumns();
+        ColumnImpl foo = (ColumnImpl) graphStore.nodeTable.store.getColumn("foo");
+        ColumnImpl age = (ColumnImpl) graphStore.nodeTable.store.getColumn("age");
+        IndexStore<Node> indexStore = graphStore.nodeTable.store.indexStore;
+        indexStore.addCompositeIndex(new ColumnImpl[] { foo, age });
+        indexStore.addCompositeIndex(new ColumnImpl[] { foo, age });
+    }
+
+    @Test
+    public void testCompositeIndexConcurrentWrites() throws InterruptedException {
+        final GraphStore graphStore = generateBasicGraphStoreWithColumns();
+        final ColumnImpl foo = (ColumnImpl) graphStore.nodeTable.store.getColumn("foo");
+        final ColumnImpl age = (ColumnImpl) graphStore.nodeTable.store.getColumn("age");
+        final IndexStore<Node> indexStore = graphStore.nodeTable.store.indexStore;
+        final int nodeCount = 5000;
+        final List<Throwable> errors = new ArrayList<Throwable>();
+
+        Thread writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    for (int i = 0; i < nodeCount; i++) {
+                        Node n = graphStore.factory.newNode(String.valueOf(i));
+                        n.setAttribute(foo, "bar");
+                        n.setAttribute(age, i % 10);
+                        graphStore.addNode(n);
+                    }
+                } catch (Throwable t) {
+                    synchronized (errors) {
+                        errors.add(t);
+                    }
+                }
+            }
+        });
+        Thread indexer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    for (int i = 0; i < 200; i++) {
+                        indexStore.addCompositeIndex(new ColumnImpl[] { foo, age });
+                        indexStore.removeCompositeIndex(new ColumnImpl[] { foo, age });
+                    }
+                } catch (Throwable t) {
+                    synchronized (errors) {
+                        errors.add(t);
+                    }
+                }
+            }
+        });
+        writer.setDaemon(true);
+        indexer.setDaemon(true);
+        writer.start();
+        indexer.start();
+        writer.join(60000);
+        indexer.join(60000);
+        Assert.assertFalse(writer.isAlive(), "Deadlock");
+        Assert.assertFalse(indexer.isAlive(), "Deadlock");
+        Assert.assertTrue(errors.isEmpty(), errors.toString());
+
+        indexStore.addCompositeIndex(new ColumnImpl[] { foo, age });
+        Assert.assertEquals(indexStore.mainIndex.count(new Column[] { foo, age }, new Object[] { "bar", 0 }), nodeCount / 10);
+    }
+
     // UTILITY
     private NodeImpl[] generateNodesWithUniqueAttributes(ColumnStore<Node> columnStore) {
         int count = 100;
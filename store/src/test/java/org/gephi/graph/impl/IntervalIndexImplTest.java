@@ -18,11 +18,16 @@ package org.gephi.graph.impl;
 import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet;
 import it.unimi.dsi.fastutil.objects.ObjectSet;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 import org.gephi.graph.api.Configuration;
 import org.gephi.graph.api.Graph;
 import org.gephi.graph.api.Interval;
 import org.gephi.graph.api.Node;
+import org.gephi.graph.api.TimeEvent;
+import org.gephi.graph.api.TimeEventIterable;
+import org.gephi.graph.api.TimeIndex;
 import org.gephi.graph.api.TimeRepresentation;
 import org.testng.Assert;
 import org.testng.annotations.Test;
@@ -168,6 +173,66 @@ public class IntervalIndexImplTest {
         Assert.assertEquals(r5.size(), 4);
     }
 
+    @Test
+    public void testGetElementsNoDuplicates() {
+        Configuration config = new Configuration();
+        config.setTimeRepresentation(TimeRepresentation.INTERVAL);
+        GraphModelImpl graphModel = new GraphModelImpl(config);
+        TimeStore timeStore = graphModel.store.timeStore;
+        IntervalIndexStore store = (IntervalIndexStore) timeStore.nodeIndexStore;
+        Interval i1 = new Interval(1.0, 5.0);
+        Interval i2 = new Interval(4.0, 8.0);
+
+        store.add(i1);
+        store.add(i2);
+
+        NodeImpl n0 = new NodeImpl(0);
+        n0.setStoreId(0);
+        NodeImpl n1 = new NodeImpl(1);
+        n1.setStoreId(1);
+
+        store.add(i1, n0);
+        store.add(i2, n0);
+        store.add(i2, n1);
+
+        Object[] r1 = getArrayFromIterable(store.mainIndex.get(4.5));
+        Assert.assertEquals(r1.length, 2);
+        Assert.assertEquals(new ObjectOpenHashSet(r1).size(), 2);
+
+        Object[] r2 = getArrayFromIterable(store.mainIndex.get(new Interval(0.0, 10.0)));
+        Assert.assertEquals(r2.length, 2);
+    }
+
+    @Test
+    public void testCount() {
+        Configuration config = new Configuration();
+        config.setTimeRepresentation(TimeRepresentation.INTERVAL);
+        GraphModelImpl graphModel = new GraphModelImpl(config);
+        TimeStore timeStore = graphModel.store.timeStore;
+        IntervalIndexStore store = (IntervalIndexStore) timeStore.nodeIndexStore;
+        Assert.assertEquals(store.mainIndex.count(new Interval(0.0, 10.0)), 0);
+
+        Interval i1 = new Interval(1.0, 5.0);
+        Interval i2 = new Interval(4.0, 8.0);
+
+        store.add(i1);
+        store.add(i2);
+
+        NodeImpl n0 = new NodeImpl(0);
+        n0.setStoreId(0);
+        NodeImpl n1 = new NodeImpl(1);
+        n1.setStoreId(1);
+
+        store.add(i1, n0);
+        store.add(i2, n0);
+        store.add(i2, n1);
+
+        Assert.assertEquals(store.mainIndex.count(new Interval(0.0, 2.0)), 1);
+        Assert.assertEquals(store.mainIndex.count(new Interval(0.0, 10.0)), 2);
+        Assert.assertEquals(store.mainIndex.count(new Interval(7.0, 10.0)), 2);
+        Assert.assertEquals(store.mainIndex.count(new Interval(9.0, 10.0)), 0);
+    }
+
     @Test
     public void testHasNodesEdgesEmpty() {
         Configuration config = new Configuration();
@@ -218,7 +283,198 @@ public class IntervalIndexImplTest {
         Assert.assertFalse(store.mainIndex.hasElements());
     }
 
+    @Test
+    public void testGetEventsEmpty() {
+        Configuration config = new Configuration();
+        config.setTimeRepresentation(TimeRepresentation.INTERVAL);
+        GraphModelImpl graphModel = new GraphModelImpl(config);
+        Assert.assertFalse(graphModel.getNodeTimeIndex().getEvents().iterator().hasNext());
+    }
+
+    @Test
+    public void testGetEvents() {
+        Configuration config = new Configuration();
+        config.setTimeRepresentation(TimeRepresentation.INTERVAL);
+        GraphModelImpl graphModel = new GraphModelImpl(config);
+        GraphStore graphStore = graphModel.store;
+        Node n0 = graphStore.factory.newNode("0");
+        Node n1 = graphStore.factory.newNode("1");
+        Node n2 = graphStore.factory.newNode("2");
+        graphStore.addAllNodes(Arrays.asList(n0, n1, n2));
+        n0.addInterval(new Interval(1.0, 4.0));
+        n1.addInterval(new Interval(2.0, 3.0));
+        n1.addInterval(new Interval(5.0, 6.0));
+        n2.addInterval(new Interval(4.0, 5.0));
+
+        Assert.assertEquals(getEventStrings(graphModel.getNodeTimeIndex().getEvents()), Arrays
+                .asList("ENTER 0 at 1.0", "ENTER 1 at 2.0", "LEAVE 1 at 3.0", "ENTER 2 at 4.0", "LEAVE 0 at 4.0", "ENTER 1 at 5.0", "LEAVE 2 at 5.0", "LEAVE 1 at 6.0"));
+    }
+
+    @Test
+    public void testGetEventsNestedIntervals() {
+        Configuration config = new Configuration();
+        config.setTimeRepresentation(TimeRepresentation.INTERVAL);
+        GraphModelImpl graphModel = new GraphModelImpl(config);
+        GraphStore graphStore = graphModel.store;
+        Node n0 = graphStore.factory.newNode("0");
+        Node n1 = graphStore.factory.newNode("1");
+        Node n2 = graphStore.factory.newNode("2");
+        graphStore.addAllNodes(Arrays.asList(n0, n1, n2));
+        n0.addInterval(new Interval(1.0, 10.0));
+        n1.addInterval(new Interval(2.0, 8.0));
+        n2.addInterval(new Interval(3.0, 4.0));
+        n2.addInterval(new Interval(5.0, 6.0));
+
+        Assert.assertEquals(getEventStrings(graphModel.getNodeTimeIndex().getEvents()), Arrays
+                .asList("ENTER 0 at 1.0", "ENTER 1 at 2.0", "ENTER 2 at 3.0", "LEAVE 2 at 4.0", "ENTER 2 at 5.0", "LEAVE 2 at 6.0", "LEAVE 1 at 8.0", "LEAVE 0 at 10.0"));
+    }
+
+    @Test
+    public void testGetEventsTouchingIntervals() {
+        Configuration config = new Configuration();
+        config.setTimeRepresentation(TimeRepresentation.INTERVAL);
+        GraphModelImpl graphModel = new GraphModelImpl(config);
+        IntervalIndexStore store = (IntervalIndexStore) graphModel.store.timeStore.nodeIndexStore;
+        Interval i1 = new Interval(1.0, 2.0);
+        Interval i2 = new Interval(2.0, 3.0);
+        Interval i3 = new Interval(1.5, 2.5);
+        store.add(i1);
+        store.add(i2);
+        store.add(i3);
+
+        NodeImpl n0 = new NodeImpl(0);
+        store.add(i1, n0);
+        store.add(i2, n0);
+        store.add(i3, n0);
+
+        Assert.assertEquals(getEventStrings(store.mainIndex.getEvents()), Arrays
+                .asList("ENTER 0 at 1.0", "LEAVE 0 at 3.0"));
+    }
+
+    @Test
+    public void testGetEventsDoBreak() {
+        Configuration config = new Configuration();
+        config.setTimeRepresentation(TimeRepresentation.INTERVAL);
+        GraphModelImpl graphModel = new GraphModelImpl(config);
+        GraphStore graphStore = graphModel.store;
+        Node n0 = graphStore.factory.newNode("0");
+        graphStore.addNode(n0);
+        n0.addInterval(new Interval(1.0, 2.0));
+
+        TimeEventIterable<Node> iterable = graphModel.getNodeTimeIndex().getEvents();
+        Assert.assertTrue(iterable.iterator().hasNext());
+        iterable.doBreak();
+        Assert.assertFalse(iterable.iterator().hasNext());
+
+        // Would fail if the read lock was still held
+        graphStore.addNode(graphStore.factory.newNode("1"));
+    }
+
+    @Test
+    public void testHistogram() {
+        Configuration config = new Configuration();
+        config.setTimeRepresentation(TimeRepresentation.INTERVAL);
+        GraphModelImpl graphModel = new GraphModelImpl(config);
+        GraphStore graphStore = graphModel.store;
+        Random random = new Random(125l);
+        for (int i = 0; i < 50; i++) {
+            Node n = graphStore.factory.newNode(String.valueOf(i));
+            graphStore.addNode(n);
+            int low = random.nextInt(5);
+            for (int j = 0; j < 3; j++) {
+                int high = low + random.nextInt(4);
+                n.addInterval(new Interval(low, high));
+                low = high + 1 + random.nextInt(3);
+            }
+        }
+        Node infinite = graphStore.factory.newNode("infinite");
+        graphStore.addNode(infinite);
+        infinite.addInterval(new Interval(12.0, Double.POSITIVE_INFINITY));
+        TimeIndex<Node> index = graphModel.getNodeTimeIndex();
+
+        int[] histogram = index.histogram(-0.5, 19.5, 20);
+        int[] cumulative = index.cumulativeHistogram(-0.5, 19.5, 20);
+        for (int i = 0; i < 20; i++) {
+            Assert.assertEquals(histogram[i], index.count(new Interval(-0.5 + i, 0.5 + i)));
+            Assert.assertEquals(cumulative[i], index.count(new Interval(0.5 + i, 0.5 + i)));
+        }
+
+        histogram = index.histogram(-0.5, 19.5, 4);
+        for (int i = 0; i < 4; i++) {
+            Assert.assertEquals(histogram[i], index.count(new Interval(-0.5 + i * 5, 4.5 + i * 5)));
+        }
+    }
+
+    @Test
+    public void testHistogramOverlappingIntervals() {
+        Configuration config = new Configuration();
+        config.setTimeRepresentation(TimeRepresentation.INTERVAL);
+        GraphModelImpl graphModel = new GraphModelImpl(config);
+        IntervalIndexStore store = (IntervalIndexStore) graphModel.store.timeStore.nodeIndexStore;
+        Random random = new Random(7l);
+        for (int i = 0; i < 30; i++) {
+            NodeImpl n = new NodeImpl(i);
+            for (int j = 0; j < 4; j++) {
+                int low = random.nextInt(20);
+                Interval interval = new Interval(low, low + random.nextInt(6));
+                store.add(interval);
+                store.add(interval, n);
+            }
+        }
+        TimeIndexImpl index = store.mainIndex;
+
+        int[] histogram = index.histogram(-0.5, 24.5, 25);
+        for (int i = 0; i < 25; i++) {
+            Assert.assertEquals(histogram[i], index.count(new Interval(-0.5 + i, 0.5 + i)));
+        }
+        histogram = index.histogram(-0.5, 24.5, 5);
+        for (int i = 0; i < 5; i++) {
+            Assert.assertEquals(histogram[i], index.count(new Interval(-0.5 + i * 5, 4.5 + i * 5)));
+        }
+    }
+
+    @Test
+    public void testHistogramBounds() {
+        Configuration config = new Configuration();
+        config.setTimeRepresentation(TimeRepresentation.INTERVAL);
+        GraphModelImpl graphModel = new GraphModelImpl(config);
+        IntervalIndexStore store = (IntervalIndexStore) graphModel.store.timeStore.nodeIndexStore;
+        Interval i1 = new Interval(1.0, 2.0);
+        Interval i2 = new Interval(2.5, 3.0);
+        Interval i3 = new Interval(0.0, 4.0);
+        store.add(i1);
+        store.add(i2);
+        store.add(i3);
+
+        NodeImpl n0 = new NodeImpl(0);
+        NodeImpl n1 = new NodeImpl(1);
+        store.add(i1, n0);
+        store.add(i2, n0);
+        store.add(i3, n1);
+
+        Assert.assertEquals(store.mainIndex.histogram(0.0, 4.0, 4), new int[] { 1, 2, 2, 2 });
+        Assert.assertEquals(store.mainIndex.histogram(0.0, 4.0, 1), new int[] { 2 });
+        Assert.assertEquals(store.mainIndex.histogram(5.0, 6.0, 2), new int[] { 0, 0 });
+        Assert.assertEquals(store.mainIndex.cumulativeHistogram(0.0, 4.0, 8), new int[] { 1, 2, 2, 2, 2, 2, 1, 1 });
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testHistogramInvalidBuckets() {
+        Configuration config = new Configuration();
+        config.setTimeRepresentation(TimeRepresentation.INTERVAL);
+        GraphModelImpl graphModel = new GraphModelImpl(config);
+        graphModel.getNodeTimeIndex().histogram(1.0, 2.0, -1);
+    }
+
     // UTILITY
+    private List<String> getEventStrings(TimeEventIterable<?> iterable) {
+        List<String> list = new ArrayList<String>();
+        for (TimeEvent<?> event : iterable) {
+            list.add(event.toString());
+        }
+        return list;
+    }
+
     private <T> Object[] getArrayFromIterable(Iterable<T> iterable) {
         List<T> list = new ArrayList<T>();
         for (T t : iterable) {
@@ -15,9 +15,11 @@
  */
 package org.gephi.graph.impl;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Random;
@@ -304,6 +306,44 @@ public class IntervalTreeMapTest {
 
     }
 
+    @Test
+    public void testSortedIterator() {
+        Interval2IntTreeMap m = new Interval2IntTreeMap();
+        Assert.assertFalse(m.sortedIterator().hasNext());
+
+        Interval i1 = new Interval(1.0, 8.0);
+        Interval i2 = new Interval(-1.0, 3.0);
+        Interval i3 = new Interval(4.0, 14.0);
+        Interval i4 = new Interval(4.0, 9.0);
+
+        m.put(i1, 1);
+        m.put(i2, 2);
+        m.put(i3, 3);
+        m.put(i4, 4);
+
+        testEntrySetIterator(m.sortedIterator(), new Interval[] { i2, i1, i4, i3 }, new int[] { 2, 1, 4, 3 });
+    }
+
+    @Test
+    public void testSortedIteratorRandom() {
+        Random random = new Random(42l);
+        Interval2IntTreeMap m = new Interval2IntTreeMap();
+        for (int i = 0; i < 500; i++) {
+            int start = random.nextInt(100);
+            m.put(new Interval(start, start + random.nextInt(50)), i);
+        }
+        Iterator<Map.Entry<Interval, Integer>> expected = m.entrySet().iterator();
+        Iterator<Map.Entry<Interval, Integer>> itr = m.sortedIterator();
+        while (expected.hasNext()) {
+            Map.Entry<Interval, Integer> e = expected.next();
+            Assert.assertTrue(itr.hasNext());
+            Map.Entry<Interval, Integer> s = itr.next();
+            Assert.assertEquals(s.getKey(), e.getKey());
+            Assert.assertEquals(s.getValue(), e.getValue());
+        }
+        Assert.assertFalse(itr.hasNext());
+    }
+
     @Test
     public void testEntrySetSubSet() {
         Interval2IntTreeMap m = new Interval2IntTreeMap();
@@ -400,4 +440,178 @@ public class IntervalTreeMapTest {
         }
         Assert.assertFalse(itr.hasNext());
     }
+
+    @Test
+    public void testLoad() {
+        Interval[] intervals = new Interval[] { new Interval(1.0, 2.0), new Interval(1.0, 3.0), new Interval(2.0, 5.0), new Interval(
+                4.0, 4.5) };
+        int[] values = new int[] { 10, 11, 12, 13 };
+        Interval2IntTreeMap m = new Interval2IntTreeMap(intervals, values);
+
+        Interval2IntTreeMap expected = new Interval2IntTreeMap();
+        for (int i = 0; i < intervals.length; i++) {
+            expected.put(intervals[i], values[i]);
+        }
+        Assert.assertEquals(m, expected);
+        Assert.assertEquals(m.size(), 4);
+        Assert.assertEquals(m.getLow(), 1.0);
+        Assert.assertEquals(m.getHigh(), 5.0);
+        Assert.assertEquals(m.get(new Interval(2.0, 5.0)), (Integer) 12);
+        Assert.assertEquals(m.getIntervals(), Arrays.asList(intervals));
+    }
+
+    @Test
+    public void testLoadEmpty() {
+        Interval2IntTreeMap m = new Interval2IntTreeMap(new Interval[0], new int[0]);
+        Assert.assertTrue(m.isEmpty());
+        Assert.assertEquals(m.countOverlapping(Interval.INFINITY_INTERVAL), 0);
+    }
+
+    @Test
+    public void testLoadReplaces() {
+        Interval2IntTreeMap m = new Interval2IntTreeMap();
+        m.put(new Interval(8.0, 9.0), 1);
+        m.load(new Interval[] { new Interval(1.0, 2.0), null }, new int[] { 42, 0 }, 1);
+        Assert.assertEquals(m.size(), 1);
+        Assert.assertNull(m.get(new Interval(8.0, 9.0)));
+        Assert.assertEquals(m.get(new Interval(1.0, 2.0)), (Integer) 42);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testLoadUnsorted() {
+        new Interval2IntTreeMap(new Interval[] { new Interval(2.0, 3.0), new Interval(1.0, 3.0) }, new int[] { 0, 1 });
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testLoadDuplicate() {
+        new Interval2IntTreeMap(new Interval[] { new Interval(1.0, 3.0), new Interval(1.0, 3.0) }, new int[] { 0, 1 });
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testLoadLengthMismatch() {
+        new Interval2IntTreeMap(new Interval[] { new Interval(1.0, 3.0) }, new int[] { 0, 1 });
+    }
+
+    @Test
+    public void testLoadThenModify() {
+        Random random = new Random(606l);
+        for (int size = 0; size < 70; size++) {
+            Set<Interval> set = new HashSet<Interval>();
+            while (set.size() < size) {
+                int start = random.nextInt(100);
+                set.add(new Interval(start, start + random.nextInt(20)));
+            }
+            Interval2IntTreeMap putMap = new Interval2IntTreeMap();
+            for (Interval interval : set) {
+                putMap.put(interval, (int) interval.getLow());
+            }
+            List<Interval> sorted = putMap.getIntervals();
+            Interval[] intervals = sorted.toArray(new Interval[0]);
+            int[] values = new int[intervals.length];
+            for (int i = 0; i < intervals.length; i++) {
+                values[i] = (int) intervals[i].getLow();
+            }
+            Interval2IntTreeMap loadMap = new Interval2IntTreeMap(intervals, values);
+            Assert.assertEquals(loadMap, putMap);
+
+            // The loaded tree should stay valid through further modifications
+            for (int i = 0; i < 30; i++) {
+                int start = random.nextInt(100);
+                Interval interval = new Interval(start, start + random.nextInt(20));
+                if (random.nextBoolean()) {
+                    putMap.put(interval, start);
+                    loadMap.put(interval, start);
+                } else if (!sorted.isEmpty()) {
+                    Interval removed = sorted.get(random.nextInt(sorted.size()));
+                    Assert.assertEquals(loadMap.remove(removed), putMap.remove(removed));
+                }
+            }
+            Assert.assertEquals(loadMap, putMap);
+            Assert.assertEquals(loadMap.getIntervals(), putMap.getIntervals());
+            if (!putMap.isEmpty()) {
+                double high = Double.NEGATIVE_INFINITY;
+                for (Interval interval : putMap.getIntervals()) {
+                    high = Math.max(high, interval.getHigh());
+                }
+                Assert.assertEquals(putMap.maximum().getHigh(), high, "put");
+                Assert.assertEquals(loadMap.maximum().getHigh(), high, "load");
+            }
+        }
+    }
+
+    @Test
+    public void testForEachOverlapping() {
+        Interval2IntTreeMap m = new Interval2IntTreeMap();
+        m.put(new Interval(1.0, 2.0), 1);
+        m.put(new Interval(2.0, 4.0), 2);
+        m.put(new Interval(5.0, 6.0), 3);
+        m.put(new Interval(0.0, 10.0), 4);
+
+        Assert.assertEquals(collect(m, new Interval(2.0, 2.0)), Arrays.asList(4, 1, 2));
+        Assert.assertEquals(collect(m, new Interval(4.5, 4.8)), Arrays.asList(4));
+        Assert.assertEquals(collect(m, new Interval(11.0, 12.0)), Arrays.asList());
+        Assert.assertEquals(collect(m, 2.0), Arrays.asList(4, 1, 2));
+        Assert.assertEquals(collect(m, 6.0), Arrays.asList(4, 3));
+        Assert.assertEquals(collect(m, -1.0), Arrays.asList());
+
+        Assert.assertEquals(m.countOverlapping(new Interval(2.0, 2.0)), 3);
+        Assert.assertEquals(m.countOverlapping(new Interval(3.0, 5.0)), 3);
+        Assert.assertEquals(m.countOverlapping(6.0), 2);
+        Assert.assertEquals(m.countOverlapping(11.0), 0);
+    }
+
+    @Test
+    public void testForEachOverlappingRandom() {
+        Random random = new Random(909l);
+        Interval2IntTreeMap m = new Interval2IntTreeMap();
+        for (int i = 0; i < 500; i++) {
+            int start = random.nextInt(1000);
+            m.put(new Interval(start, start + random.nextInt(50)), i);
+        }
+        for (int i = 0; i < 200; i++) {
+            int start = random.nextInt(1100) - 50;
+            Interval query = new Interval(start, start + random.nextInt(30));
+            List<Integer> expected = new ArrayList<Integer>();
+            for (Integer v : m.values(query)) {
+                expected.add(v);
+            }
+            Assert.assertEquals(collect(m, query), expected);
+            Assert.assertEquals(m.countOverlapping(query), expected.size());
+
+            List<Integer> expectedPoint = new ArrayList<Integer>();
+            for (Integer v : m.values((double) start)) {
+                expectedPoint.add(v);
+            }
+            Assert.assertEquals(collect(m, (double) start), expectedPoint);
+            Assert.assertEquals(m.countOverlapping((double) start), expectedPoint.size());
+        }
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testForEachOverlappingNull() {
+        new Interval2IntTreeMap().forEachOverlapping(null, new ValueCollector());
+    }
+
+    // UTILITY
+    private List<Integer> collect(Interval2IntTreeMap m, Interval interval) {
+        ValueCollector collector = new ValueCollector();
+        m.forEachOverlapping(interval, collector);
+        return collector.values;
+    }
+
+    private List<Integer> collect(Interval2IntTreeMap m, double point) {
+        ValueCollector collector = new ValueCollector();
+        m.forEachOverlapping(point, collector);
+        return collector.values;
+    }
+
+    private static class ValueCollector implements Interval2IntTreeMap.IntConsumer {
+
+        private final List<Integer> values = new ArrayList<Integer>();
+
+        @Override
+        public void accept(int value) {
+            values.add(value);
+        }
+    }
 }
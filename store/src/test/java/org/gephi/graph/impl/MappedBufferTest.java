@@ -0,0 +1,92 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import org.gephi.graph.impl.utils.MappedBuffer;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class MappedBufferTest {
+
+    @Test
+    public void testSpanningSegments() throws IOException {
+        File file = File.createTempFile("buffer", ".bin");
+        file.deleteOnExit();
+        DataOutputStream out = new DataOutputStream(new FileOutputStream(file));
+        try {
+            out.writeByte(7);
+            out.writeLong(Long.MIN_VALUE + 12345L);
+            out.writeInt(-42);
+            out.writeDouble(Math.PI);
+            out.writeShort(-3);
+            out.writeChar('\u4e2d');
+            out.writeFloat(1.5f);
+        } finally {
+            out.close();
+        }
+
+        for (int segmentSize : new int[] { 1, 2, 4, 8, 1024 }) {
+            MappedBuffer buffer = map(file, segmentSize);
+            Assert.assertEquals(buffer.size(), 29);
+            Assert.assertEquals(buffer.get(0), 7);
+            Assert.assertEquals(buffer.getLong(1), Long.MIN_VALUE + 12345L);
+            Assert.assertEquals(buffer.getInt(9), -42);
+            Assert.assertEquals(buffer.getDouble(13), Math.PI);
+            Assert.assertEquals(buffer.getShort(21), -3);
+            Assert.assertEquals(buffer.getChar(23), '\u4e2d');
+            Assert.assertEquals(buffer.getFloat(25), 1.5f);
+
+            byte[] bytes = new byte[4];
+            buffer.get(9, bytes);
+            Assert.assertEquals(bytes, new byte[] { -1, -1, -1, -42 });
+        }
+    }
+
+    @Test(expectedExceptions = IndexOutOfBoundsException.class)
+    public void testOutOfBounds() throws IOException {
+        File file = File.createTempFile("buffer", ".bin");
+        file.deleteOnExit();
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.setLength(6);
+        } finally {
+            raf.close();
+        }
+        map(file, 4).getInt(3);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidSegmentSize() throws IOException {
+        File file = File.createTempFile("buffer", ".bin");
+        file.deleteOnExit();
+        map(file, 3);
+    }
+
+    // Utility
+    private MappedBuffer map(File file, int segmentSize) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            return MappedBuffer.map(raf.getChannel(), segmentSize);
+        } finally {
+            raf.close();
+        }
+    }
+}
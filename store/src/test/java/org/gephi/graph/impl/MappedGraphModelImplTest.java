@@ -0,0 +1,265 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.gephi.graph.api.Column;
+import org.gephi.graph.api.DirectedGraph;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.Element;
+import org.gephi.graph.api.Graph;
+import org.gephi.graph.api.GraphModel;
+import org.gephi.graph.api.GraphView;
+import org.gephi.graph.api.Index;
+import org.gephi.graph.api.Node;
+import org.gephi.graph.api.UndirectedGraph;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class MappedGraphModelImplTest {
+
+    @Test
+    public void testDirectedGraph() throws IOException {
+        GraphStore graphStore = GraphGenerator.generateSmallGraphStore();
+        GraphModel graphModel = map(graphStore);
+        assertSameGraph(graphModel.getDirectedGraph(), graphStore);
+        Assert.assertTrue(graphModel.isDirected());
+        Assert.assertFalse(graphModel.isMixed());
+    }
+
+    @Test
+    public void testMixedGraph() throws IOException {
+        GraphStore graphStore = GraphGenerator.generateSmallMixedGraphStore();
+        GraphModel graphModel = map(graphStore);
+        assertSameGraph(graphModel.getDirectedGraph(), graphStore);
+        Assert.assertTrue(graphModel.isMixed());
+    }
+
+    @Test
+    public void testSelfLoop() throws IOException {
+        GraphModelImpl graphModelImpl = new GraphModelImpl();
+        Node n1 = graphModelImpl.factory().newNode("1");
+        graphModelImpl.getStore().addNode(n1);
+        graphModelImpl.getStore().addEdge(graphModelImpl.factory().newEdge(n1, n1, 0, 1.0, true));
+
+        DirectedGraph graph = map(graphModelImpl.getStore()).getDirectedGraph();
+        Node node = graph.getNode("1");
+        Assert.assertEquals(graph.getSelfLoops().toCollection().size(), 1);
+        Assert.assertEquals(graph.getEdges(node).toCollection().size(), 1);
+        Assert.assertEquals(graph.getDegree(node), 2);
+        Assert.assertTrue(graph.isSelfLoop(graph.getEdge(node, node)));
+    }
+
+    @Test
+    public void testUndirectedGraph() throws IOException {
+        GraphModelImpl graphModelImpl = new GraphModelImpl();
+        GraphStore graphStore = graphModelImpl.getStore();
+        Node n1 = graphModelImpl.factory().newNode("1");
+        Node n2 = graphModelImpl.factory().newNode("2");
+        Node n3 = graphModelImpl.factory().newNode("3");
+        graphStore.addAllNodes(list(n1, n2, n3));
+        graphStore.addEdge(graphModelImpl.factory().newEdge("a", n1, n2, 0, 1.0, true));
+        graphStore.addEdge(graphModelImpl.factory().newEdge("b", n2, n1, 0, 1.0, true));
+        graphStore.addEdge(graphModelImpl.factory().newEdge("c", n2, n3, 0, 1.0, true));
+        graphStore.addEdge(graphModelImpl.factory().newEdge("d", n3, n3, 0, 1.0, true));
+
+        UndirectedGraph expected = graphModelImpl.getUndirectedGraph();
+        UndirectedGraph graph = map(graphStore).getUndirectedGraph();
+        Assert.assertEquals(graph.getEdgeCount(), expected.getEdgeCount());
+        Assert.assertEquals(graph.getEdgeCount(0), expected.getEdgeCount(0));
+        Assert.assertEquals(getIds(graph.getEdges()), getIds(expected.getEdges()));
+        for (Node n : expected.getNodes()) {
+            Node node = graph.getNode(n.getId());
+            Assert.assertEquals(graph.getDegree(node), expected.getDegree(n));
+            Assert.assertEquals(getIds(graph.getEdges(node)), getIds(expected.getEdges(n)));
+            Assert.assertEquals(getIds(graph.getNeighbors(node)), getIds(expected.getNeighbors(n)));
+            for (Node m : expected.getNodes()) {
+                Node other = graph.getNode(m.getId());
+                Assert.assertEquals(graph.getEdge(node, other) != null, expected.getEdge(n, m) != null);
+                if (n != m && expected.getEdge(n, m) != null) {
+                    Assert.assertEquals(getIds(graph.getEdges(node, other)), getIds(expected.getEdges(n, m)));
+                }
+            }
+        }
+        Assert.assertEquals(graph.getEdge(graph.getNode("3"), graph.getNode("2")).getId(), "c");
+        Assert.assertFalse(graph.isDirected());
+    }
+
+    @Test
+    public void testMainView() throws IOException {
+        GraphModel graphModel = map(GraphGenerator.generateSmallGraphStore());
+        GraphView view = graphModel.getVisibleView();
+        Assert.assertTrue(view.isMainView());
+        Assert.assertSame(graphModel.getGraph(view), graphModel.getGraph());
+        Assert.assertSame(graphModel.getDirectedGraph(view), graphModel.getDirectedGraph());
+        Assert.assertSame(graphModel.getUndirectedGraph(view), graphModel.getUndirectedGraph());
+        Assert.assertSame(graphModel.getNodeIndex(view), graphModel.getNodeIndex());
+        Assert.assertSame(graphModel.getEdgeIndex(view), graphModel.getEdgeIndex());
+        Assert.assertEquals(graphModel.getTimeBounds(view), graphModel.getTimeBounds());
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testOtherView() throws IOException {
+        GraphModel graphModel = map(GraphGenerator.generateSmallGraphStore());
+        graphModel.getNodeIndex(new GraphModelImpl().getVisibleView());
+    }
+
+    @Test
+    public void testMissingNode() throws IOException {
+        GraphStore graphStore = GraphGenerator.generateSmallGraphStore();
+        Graph graph = map(graphStore).getGraph();
+        Assert.assertNull(graph.getNode("foo"));
+        Assert.assertFalse(graph.contains(new GraphModelImpl().factory().newNode("foo")));
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testAddNode() throws IOException {
+        GraphModel graphModel = map(GraphGenerator.generateSmallGraphStore());
+        graphModel.getGraph().addNode(new GraphModelImpl().factory().newNode("foo"));
+    }
+
+    @Test
+    public void testIndex() throws IOException {
+        GraphModelImpl graphModelImpl = new GraphModelImpl();
+        Column age = graphModelImpl.getNodeTable().addColumn("age", Integer.class);
+        Column name = graphModelImpl.getNodeTable().addColumn("name", String.class);
+        int[] ages = new int[] { 5, 10, 10, 3, 20 };
+        for (int i = 0; i < ages.length; i++) {
+            Node n = graphModelImpl.factory().newNode(String.valueOf(i));
+            graphModelImpl.getStore().addNode(n);
+            n.setAttribute(age, ages[i]);
+            n.setAttribute(name, i % 2 == 0 ? "Foo" + i : "bar" + i);
+        }
+
+        GraphModel graphModel = map(graphModelImpl.getStore());
+        Index<Node> index = graphModel.getNodeIndex();
+        Column readAge = graphModel.getNodeTable().getColumn("age");
+        Column readName = graphModel.getNodeTable().getColumn("name");
+        Assert.assertEquals(index.count(readAge, 10), 2);
+        Assert.assertEquals(index.count(readAge, 11), 0);
+        Assert.assertNull(index.get(readAge, 11));
+        Assert.assertEquals(getIds(index.get(readAge, 10)), list("1", "2"));
+        Assert.assertEquals(index.countValues(readAge), 4);
+        Assert.assertEquals(index.countElements(readAge), 5);
+        Assert.assertEquals(index.getMinValue(readAge), 3);
+        Assert.assertEquals(index.getMaxValue(readAge), 20);
+        Assert.assertEquals(index.getSum(readAge).doubleValue(), 48.0);
+        Assert.assertEquals(index.getAverage(readAge), 9.6);
+        Assert.assertEquals(index.getQuantile(readAge, 0.5), 10);
+        Assert.assertEquals(index.getHistogram(readAge, 2), new int[] { 4, 1 });
+        Assert.assertEquals(getIds(index.getByPrefix(readName, "foo", true)), list("0", "2", "4"));
+        Assert.assertEquals(getIds(index.getByPrefix(readName, "foo", false)), list());
+        Assert.assertEquals(getIds(index.getBySubstring(readName, "AR", true)), list("1", "3"));
+        Assert.assertEquals(index.count(new Column[] { readAge, readName }, new Object[] { 10, "Foo2" }), 1);
+    }
+
+    @Test
+    public void testIndexNullValues() throws IOException {
+        GraphModelImpl graphModelImpl = new GraphModelImpl();
+        Column age = graphModelImpl.getNodeTable().addColumn("age", Integer.class);
+        Integer[] ages = new Integer[] { 5, null, 0, null, -3 };
+        for (int i = 0; i < ages.length; i++) {
+            Node n = graphModelImpl.factory().newNode(String.valueOf(i));
+            graphModelImpl.getStore().addNode(n);
+            n.setAttribute(age, ages[i]);
+        }
+
+        GraphModel graphModel = map(graphModelImpl.getStore());
+        Index<Node> expected = graphModelImpl.getNodeIndex();
+        Index<Node> index = graphModel.getNodeIndex();
+        Column readAge = graphModel.getNodeTable().getColumn("age");
+        Assert.assertEquals(index.count(readAge, 0), expected.count(age, 0));
+        Assert.assertEquals(index.count(readAge, null), expected.count(age, null));
+        Assert.assertEquals(getIds(index.get(readAge, null)), getIds(expected.get(age, null)));
+        Assert.assertEquals(index.countValues(readAge), expected.countValues(age));
+        Assert.assertEquals(index.countElements(readAge), expected.countElements(age));
+        Assert.assertEquals(index.getMinValue(readAge), expected.getMinValue(age));
+        Assert.assertEquals(index.getMaxValue(readAge), expected.getMaxValue(age));
+        Assert.assertEquals(index.getSum(readAge).doubleValue(), expected.getSum(age).doubleValue());
+        Assert.assertEquals(index.getAverage(readAge), expected.getAverage(age), 1e-9);
+        Assert.assertEquals(index.getVariance(readAge), expected.getVariance(age), 1e-9);
+        Assert.assertEquals(index.getQuantile(readAge, 0.5), expected.getQuantile(age, 0.5));
+        Assert.assertEquals(index.getHistogram(readAge, 2), expected.getHistogram(age, 2));
+        Assert.assertNull(graphModel.getGraph().getNode("1").getAttribute(readAge));
+        Assert.assertEquals(graphModel.getGraph().getNode("2").getAttribute(readAge), 0);
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testIndexNotSortable() throws IOException {
+        GraphModelImpl graphModelImpl = new GraphModelImpl();
+        graphModelImpl.getStore().addNode(graphModelImpl.factory().newNode("1"));
+        GraphModel graphModel = map(graphModelImpl.getStore());
+        graphModel.getNodeIndex().getMinValue(graphModel.getNodeTable().getColumn("label"));
+    }
+
+    // Utility
+    private void assertSameGraph(DirectedGraph graph, GraphStore expected) {
+        Assert.assertEquals(graph.getNodeCount(), expected.getNodeCount());
+        Assert.assertEquals(graph.getEdgeCount(), expected.getEdgeCount());
+        Assert.assertEquals(getIds(graph.getNodes()), getIds(expected.getNodes()));
+        Assert.assertEquals(getIds(graph.getEdges()), getIds(expected.getEdges()));
+        for (Node n : expected.getNodes()) {
+            Node node = graph.getNode(n.getId());
+            Assert.assertNotNull(node);
+            Assert.assertTrue(graph.contains(n));
+            Assert.assertEquals(getIds(graph.getNeighbors(node)), getIds(expected.getNeighbors(n)));
+            Assert.assertEquals(getIds(graph.getOutEdges(node)), getIds(expected.getOutEdges(n)));
+            Assert.assertEquals(getIds(graph.getInEdges(node)), getIds(expected.getInEdges(n)));
+            Assert.assertEquals(getIds(graph.getEdges(node)), getIds(expected.getEdges(n)));
+            Assert.assertEquals(graph.getDegree(node), expected.getDegree(n));
+            Assert.assertEquals(graph.getOutDegree(node), expected.getOutDegree(n));
+            Assert.assertEquals(graph.getInDegree(node), expected.getInDegree(n));
+        }
+        for (Edge e : expected.getEdges()) {
+            Node source = graph.getNode(e.getSource().getId());
+            Node target = graph.getNode(e.getTarget().getId());
+            Edge edge = graph.getEdge(source, target, e.getType());
+            Assert.assertNotNull(edge);
+            Assert.assertEquals(edge, expected.getEdge(e.getSource(), e.getTarget(), e.getType()));
+            Assert.assertTrue(graph.isAdjacent(source, target));
+            Assert.assertEquals(graph.getOpposite(source, edge).getId(), target.getId());
+            Assert.assertEquals(graph.getEdge(e.getId()).getWeight(), e.getWeight());
+        }
+    }
+
+    private static <T> List<T> list(T... values) {
+        List<T> list = new ArrayList<T>();
+        Collections.addAll(list, values);
+        return list;
+    }
+
+    private static List<String> getIds(Iterable<? extends Element> elements) {
+        List<String> ids = new ArrayList<String>();
+        if (elements != null) {
+            for (Element e : elements) {
+                ids.add(String.valueOf(e.getId()));
+            }
+        }
+        Collections.sort(ids);
+        return ids;
+    }
+
+    private GraphModel map(GraphStore graphStore) throws IOException {
+        File file = File.createTempFile("snapshot", ".bin");
+        file.deleteOnExit();
+        GraphModel.Serialization.writeSnapshot(file, graphStore.graphModel.snapshotAt(1.0));
+        return GraphModel.Serialization.mapGraphModel(file);
+    }
+}
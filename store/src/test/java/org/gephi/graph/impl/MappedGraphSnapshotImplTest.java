@@ -0,0 +1,247 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import org.gephi.graph.api.Column;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.Estimator;
+import org.gephi.graph.api.GraphModel;
+import org.gephi.graph.api.GraphSnapshot;
+import org.gephi.graph.api.Interval;
+import org.gephi.graph.api.Node;
+import org.gephi.graph.api.types.TimestampIntegerMap;
+import org.gephi.graph.api.types.TimestampStringMap;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class MappedGraphSnapshotImplTest {
+
+    @Test
+    public void testEmpty() throws IOException {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        GraphSnapshot snapshot = map(graphModel.snapshotAt(1.0));
+        Assert.assertEquals(snapshot.getNodeCount(), 0);
+        Assert.assertEquals(snapshot.getEdgeCount(), 0);
+        Assert.assertEquals(snapshot.getInterval(), new Interval(1.0, 1.0));
+        Assert.assertEquals(snapshot.getEstimator(), Estimator.FIRST);
+    }
+
+    @Test
+    public void testStaticGraph() throws IOException {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        Node n1 = graphModel.factory().newNode("1");
+        Node n2 = graphModel.factory().newNode("2");
+        graphModel.getStore().addNode(n1);
+        graphModel.getStore().addNode(n2);
+        int type = graphModel.addEdgeType("foo");
+        Edge e = graphModel.factory().newEdge(n1, n2, type, 2.5, true);
+        graphModel.getStore().addEdge(e);
+
+        GraphSnapshot snapshot = map(graphModel.snapshotAt(1.0));
+        Assert.assertEquals(snapshot.getNodeCount(), 2);
+        Assert.assertEquals(snapshot.getEdgeCount(), 1);
+        Assert.assertEquals(snapshot.getNode(snapshot.getIndex(n1)).getId(), "1");
+        Assert.assertEquals(snapshot.getIndex(snapshot.getNode(1)), 1);
+        Assert.assertEquals(snapshot.getSource(0), snapshot.getIndex(n1));
+        Assert.assertEquals(snapshot.getTarget(0), snapshot.getIndex(n2));
+        Assert.assertEquals(snapshot.getWeight(0), 2.5);
+
+        Edge edge = snapshot.getEdge(0);
+        Assert.assertEquals(edge.getId(), e.getId());
+        Assert.assertEquals(edge.getSource().getId(), "1");
+        Assert.assertEquals(edge.getTarget().getId(), "2");
+        Assert.assertEquals(edge.getType(), type);
+        Assert.assertEquals(edge.getWeight(), 2.5);
+        Assert.assertTrue(edge.isDirected());
+        Assert.assertEquals(snapshot.getIndex(e), 0);
+
+        Column weight = snapshot.getEdgeTable().getColumn("weight");
+        Assert.assertEquals(snapshot.getValues(weight), new double[] { 2.5 });
+        Column id = snapshot.getNodeTable().getColumn("id");
+        Assert.assertEquals(snapshot.getAttribute(id, snapshot.getIndex(n2)), "2");
+        Assert.assertEquals(snapshot.getValues(id), new Object[] { "1", "2" });
+    }
+
+    @Test
+    public void testMissingElement() throws IOException {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        Node n1 = graphModel.factory().newNode("1");
+        graphModel.getStore().addNode(n1);
+
+        GraphSnapshot snapshot = map(graphModel.snapshotAt(1.0));
+        Assert.assertEquals(snapshot.getIndex(graphModel.factory().newNode("2")), -1);
+    }
+
+    @Test
+    public void testTimestampAttributes() throws IOException {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        Column age = graphModel.getNodeTable().addColumn("age", TimestampIntegerMap.class);
+        Column name = graphModel.getNodeTable().addColumn("name", TimestampStringMap.class);
+        Node n1 = graphModel.factory().newNode("1");
+        Node n2 = graphModel.factory().newNode("2");
+        graphModel.getStore().addNode(n1);
+        graphModel.getStore().addNode(n2);
+        n1.setAttribute(age, 10, 1.0);
+        n1.setAttribute(age, 20, 3.0);
+        n1.setAttribute(name, "foo", 1.0);
+        n2.setAttribute(age, 5, 3.0);
+
+        GraphSnapshot snapshot = map(graphModel.snapshotOver(new Interval(1.0, 3.0), Estimator.MAX));
+        Column readAge = snapshot.getNodeTable().getColumn("age");
+        Column readName = snapshot.getNodeTable().getColumn("name");
+        int i1 = snapshot.getIndex(n1);
+        int i2 = snapshot.getIndex(n2);
+        Assert.assertEquals(snapshot.getAttribute(readAge, i1), 20);
+        Assert.assertEquals(((int[]) snapshot.getValues(readAge))[i2], 5);
+        Assert.assertEquals(snapshot.getAttribute(readName, i1), "foo");
+        Assert.assertNull(snapshot.getAttribute(readName, i2));
+    }
+
+    @Test
+    public void testLargeGraph() throws IOException {
+        GraphStore graphStore = new GraphModelImpl().store;
+        NodeImpl[] nodes = GraphGenerator
+                .generateNodeList(GraphStoreConfiguration.NODESTORE_BLOCK_SIZE * 2, graphStore);
+        graphStore.addAllNodes(Arrays.asList(nodes));
+        EdgeImpl[] edges = GraphGenerator
+                .generateEdgeList(graphStore.nodeStore, GraphStoreConfiguration.EDGESTORE_BLOCK_SIZE * 2, 0, true, true, false);
+        graphStore.addAllEdges(Arrays.asList(edges));
+        for (int i = 0; i < nodes.length; i += 3) {
+            graphStore.removeNode(nodes[i]);
+        }
+
+        GraphSnapshot expected = graphStore.graphModel.snapshotAt(1.0);
+        GraphSnapshot snapshot = map(expected);
+        Assert.assertEquals(snapshot.getNodeCount(), expected.getNodeCount());
+        Assert.assertEquals(snapshot.getEdgeCount(), expected.getEdgeCount());
+        for (int i = 0; i < expected.getNodeCount(); i++) {
+            Assert.assertEquals(snapshot.getNode(i).getId(), expected.getNode(i).getId());
+            Assert.assertEquals(snapshot.getOutDegree(i), expected.getOutDegree(i));
+            Assert.assertEquals(snapshot.getInDegree(i), expected.getInDegree(i));
+            for (int j = 0; j < expected.getOutDegree(i); j++) {
+                Assert.assertEquals(snapshot.getOutEdge(i, j), expected.getOutEdge(i, j));
+            }
+            for (int j = 0; j < expected.getInDegree(i); j++) {
+                Assert.assertEquals(snapshot.getInEdge(i, j), expected.getInEdge(i, j));
+            }
+        }
+        for (int i = 0; i < expected.getEdgeCount(); i++) {
+            Assert.assertEquals(snapshot.getEdge(i).getId(), expected.getEdge(i).getId());
+            Assert.assertEquals(snapshot.getSource(i), expected.getSource(i));
+            Assert.assertEquals(snapshot.getTarget(i), expected.getTarget(i));
+            Assert.assertEquals(snapshot.getWeight(i), expected.getWeight(i));
+        }
+        Assert.assertEquals(snapshot.getIndex(nodes[1]), expected.getIndex(nodes[1]));
+    }
+
+    @Test
+    public void testSegmentedMapping() throws Exception {
+        GraphStore graphStore = GraphGenerator.generateSmallGraphStore();
+        Column age = graphStore.nodeTable.addColumn("age", Integer.class);
+        for (Node n : graphStore.getNodes()) {
+            n.setAttribute(age, n.getStoreId());
+        }
+        GraphSnapshot expected = graphStore.graphModel.snapshotAt(1.0);
+        File file = File.createTempFile("snapshot", ".bin");
+        file.deleteOnExit();
+        GraphModel.Serialization.writeSnapshot(file, expected);
+
+        // Small segments so that values span segment boundaries
+        GraphSnapshot snapshot = MappedGraphSnapshotImpl.map(file, 16);
+        Assert.assertEquals(snapshot.getNodeCount(), expected.getNodeCount());
+        Assert.assertEquals(snapshot.getEdgeCount(), expected.getEdgeCount());
+        Column readAge = snapshot.getNodeTable().getColumn("age");
+        for (int i = 0; i < expected.getNodeCount(); i++) {
+            Assert.assertEquals(snapshot.getNode(i).getId(), expected.getNode(i).getId());
+            Assert.assertEquals(snapshot.getAttribute(readAge, i), expected.getAttribute(age, i));
+            Assert.assertEquals(snapshot.getIndex(expected.getNode(i)), i);
+        }
+        for (int i = 0; i < expected.getEdgeCount(); i++) {
+            Assert.assertEquals(snapshot.getEdge(i).getId(), expected.getEdge(i).getId());
+            Assert.assertEquals(snapshot.getSource(i), expected.getSource(i));
+            Assert.assertEquals(snapshot.getTarget(i), expected.getTarget(i));
+            Assert.assertEquals(snapshot.getWeight(i), expected.getWeight(i));
+        }
+    }
+
+    @Test
+    public void testFlyweightAttributes() throws IOException {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        Column age = graphModel.getNodeTable().addColumn("age", Integer.class);
+        Column label = graphModel.getEdgeTable().addColumn("foo", String.class);
+        Node n1 = graphModel.factory().newNode("1");
+        Node n2 = graphModel.factory().newNode("2");
+        graphModel.getStore().addNode(n1);
+        graphModel.getStore().addNode(n2);
+        n1.setAttribute(age, 42);
+        Edge e = graphModel.factory().newEdge(n1, n2, 0, 3.0, true);
+        graphModel.getStore().addEdge(e);
+        e.setAttribute(label, "bar");
+
+        GraphSnapshot snapshot = map(graphModel.snapshotAt(1.0));
+        Node node = snapshot.getNode(snapshot.getIndex(n1));
+        Assert.assertEquals(node.getAttribute(snapshot.getNodeTable().getColumn("age")), 42);
+        Assert.assertNull(snapshot.getNode(snapshot.getIndex(n2)).getAttribute(snapshot.getNodeTable()
+                .getColumn("label")));
+        Edge edge = snapshot.getEdge(0);
+        Assert.assertEquals(edge.getAttribute(snapshot.getEdgeTable().getColumn("foo")), "bar");
+        Assert.assertEquals(edge.getWeight(), 3.0);
+        Assert.assertEquals(snapshot.getIndex(node), snapshot.getIndex(n1));
+        Assert.assertEquals(((NodeImpl) snapshot.getNode(snapshot.getIndex(n2))).inDegree, 1);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testUnknownColumn() throws IOException {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        GraphSnapshot snapshot = map(graphModel.snapshotAt(1.0));
+        snapshot.getValues(graphModel.getNodeTable().getColumn("id"));
+    }
+
+    @Test(expectedExceptions = IndexOutOfBoundsException.class)
+    public void testIndexOutOfBounds() throws IOException {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        graphModel.getStore().addNode(graphModel.factory().newNode("1"));
+        GraphSnapshot snapshot = map(graphModel.snapshotAt(1.0));
+        snapshot.getOutDegree(1);
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testTruncated() throws IOException {
+        GraphModelImpl graphModel = GraphGenerator.generateSmallGraphStore().graphModel;
+        File file = File.createTempFile("snapshot", ".bin");
+        file.deleteOnExit();
+        GraphModel.Serialization.writeSnapshot(file, graphModel.snapshotAt(1.0));
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.setLength(raf.length() - 10);
+        } finally {
+            raf.close();
+        }
+        GraphModel.Serialization.mapSnapshot(file);
+    }
+
+    // Utility
+    private GraphSnapshot map(GraphSnapshot snapshot) throws IOException {
+        File file = File.createTempFile("snapshot", ".bin");
+        file.deleteOnExit();
+        GraphModel.Serialization.writeSnapshot(file, snapshot);
+        return GraphModel.Serialization.mapSnapshot(file);
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import java.awt.Color;
+import org.gephi.graph.api.GraphModel;
+import org.gephi.graph.api.Node;
+import org.gephi.graph.api.PropertiesObserver;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class PropertiesObserverTest {
+
+    @Test
+    public void testDefaultObserver() {
+        GraphStore store = new GraphStore();
+        PropertiesObserver observer = store.createPropertiesObserver();
+
+        Assert.assertFalse(observer.hasPropertiesChanged());
+        Assert.assertEquals(observer.getChangedNodes().length, 0);
+        Assert.assertEquals(observer.getChangedEdges().length, 0);
+        Assert.assertFalse(observer.isDestroyed());
+    }
+
+    @Test
+    public void testSetPosition() {
+        GraphStore store = new GraphStore();
+        NodeImpl[] nodes = addNodes(store, 3);
+        PropertiesObserver observer = store.createPropertiesObserver();
+
+        nodes[2].setPosition(1f, 2f);
+        nodes[0].setX(1f);
+        nodes[2].setZ(3f);
+
+        Assert.assertTrue(observer.hasPropertiesChanged());
+        Assert.assertEquals(observer.getChangedNodes(), new int[] { nodes[0].getStoreId(), nodes[2].getStoreId() });
+        Assert.assertEquals(observer.getChangedEdges().length, 0);
+        Assert.assertFalse(observer.hasPropertiesChanged());
+        Assert.assertEquals(observer.getChangedNodes().length, 0);
+    }
+
+    @Test
+    public void testSetNodeProperties() {
+        GraphStore store = new GraphStore();
+        NodeImpl[] nodes = addNodes(store, 4);
+        PropertiesObserver observer = store.createPropertiesObserver();
+
+        nodes[0].setColor(Color.RED);
+        nodes[1].setSize(2f);
+        nodes[2].setAlpha(0.5f);
+        nodes[3].getTextProperties().setText("foo");
+
+        Assert.assertTrue(observer.hasPropertiesChanged());
+        Assert.assertEquals(observer.getChangedNodes().length, 4);
+    }
+
+    @Test
+    public void testSetEdgeProperties() {
+        GraphStore store = new GraphStore();
+        NodeImpl[] nodes = addNodes(store, 2);
+        EdgeImpl edge = new EdgeImpl("0", store, nodes[0], nodes[1], 0, 1.0, true);
+        store.addEdge(edge);
+        PropertiesObserver observer = store.createPropertiesObserver();
+
+        edge.setColor(Color.BLUE);
+        Assert.assertTrue(observer.hasPropertiesChanged());
+        Assert.assertEquals(observer.getChangedEdges(), new int[] { edge.getStoreId() });
+        Assert.assertEquals(observer.getChangedNodes().length, 0);
+
+        edge.getTextProperties().setSize(3f);
+        Assert.assertTrue(observer.hasPropertiesChanged());
+        Assert.assertEquals(observer.getChangedEdges(), new int[] { edge.getStoreId() });
+    }
+
+    @Test
+    public void testNotDirtyProperties() {
+        GraphStore store = new GraphStore();
+        NodeImpl[] nodes = addNodes(store, 1);
+        PropertiesObserver observer = store.createPropertiesObserver();
+
+        nodes[0].setFixed(true);
+        nodes[0].getTextProperties().setDimensions(1f, 2f);
+        Assert.assertFalse(observer.hasPropertiesChanged());
+    }
+
+    @Test
+    public void testElementNotInStore() {
+        GraphStore store = new GraphStore();
+        PropertiesObserver observer = store.createPropertiesObserver();
+
+        NodeImpl node = new NodeImpl("0", store);
+        node.setPosition(1f, 2f);
+        Assert.assertFalse(observer.hasPropertiesChanged());
+    }
+
+    @Test
+    public void testManyChanges() {
+        GraphStore store = new GraphStore();
+        NodeImpl[] nodes = addNodes(store, 1000);
+        PropertiesObserver observer = store.createPropertiesObserver();
+
+        for (int j = 0; j < 3; j++) {
+            for (int i = nodes.length - 1; i >= 0; i--) {
+                nodes[i].setPosition(i, j);
+            }
+        }
+
+        Assert.assertTrue(observer.hasPropertiesChanged());
+        int[] changed = observer.getChangedNodes();
+        Assert.assertEquals(changed.length, nodes.length);
+        for (int i = 0; i < changed.length; i++) {
+            Assert.assertEquals(changed[i], nodes[i].getStoreId());
+        }
+    }
+
+    @Test
+    public void testMultipleObservers() {
+        GraphStore store = new GraphStore();
+        NodeImpl[] nodes = addNodes(store, 2);
+        PropertiesObserver observer1 = store.createPropertiesObserver();
+        PropertiesObserver observer2 = store.createPropertiesObserver();
+
+        nodes[0].setSize(2f);
+        Assert.assertTrue(observer1.hasPropertiesChanged());
+        nodes[1].setSize(2f);
+        Assert.assertTrue(observer2.hasPropertiesChanged());
+        Assert.assertEquals(observer2.getChangedNodes().length, 2);
+        Assert.assertTrue(observer1.hasPropertiesChanged());
+        Assert.assertEquals(observer1.getChangedNodes(), new int[] { nodes[1].getStoreId() });
+    }
+
+    @Test
+    public void testDestroy() {
+        GraphStore store = new GraphStore();
+        NodeImpl[] nodes = addNodes(store, 1);
+        PropertiesObserver observer = store.createPropertiesObserver();
+
+        observer.destroy();
+        Assert.assertTrue(observer.isDestroyed());
+        Assert.assertTrue(store.propertiesObservers.isEmpty());
+
+        nodes[0].setSize(2f);
+        Assert.assertFalse(observer.hasPropertiesChanged());
+    }
+
+    @Test
+    public void testGraphModel() {
+        GraphModel graphModel = GraphModel.Factory.newInstance();
+        Node node = graphModel.factory().newNode();
+        graphModel.getDirectedGraph().addNode(node);
+        PropertiesObserver observer = graphModel.createPropertiesObserver();
+
+        node.setPosition(1f, 1f);
+        Assert.assertTrue(observer.hasPropertiesChanged());
+        Assert.assertEquals(observer.getChangedNodes(), new int[] { node.getStoreId() });
+    }
+
+    private NodeImpl[] addNodes(GraphStore store, int count) {
+        NodeImpl[] nodes = new NodeImpl[count];
+        for (int i = 0; i < count; i++) {
+            nodes[i] = new NodeImpl(String.valueOf(i), store);
+            store.addNode(nodes[i]);
+        }
+        return nodes;
+    }
+}
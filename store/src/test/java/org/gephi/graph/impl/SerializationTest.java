@@ -41,9 +41,14 @@ import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet;
 import it.unimi.dsi.fastutil.shorts.Short2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.shorts.ShortArrayList;
 import it.unimi.dsi.fastutil.shorts.ShortOpenHashSet;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.nio.channels.Channels;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
@@ -53,9 +58,11 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import org.gephi.graph.api.Column;
 import org.gephi.graph.api.Configuration;
 import org.gephi.graph.api.Origin;
 import org.gephi.graph.api.Estimator;
+import org.gephi.graph.api.GraphModel;
 import org.gephi.graph.api.TimeFormat;
 import org.gephi.graph.api.types.TimestampBooleanMap;
 import org.gephi.graph.api.types.TimestampByteMap;
@@ -68,7 +75,9 @@ import org.gephi.graph.api.types.TimestampSet;
 import org.gephi.graph.api.types.TimestampShortMap;
 import org.gephi.graph.api.types.TimestampStringMap;
 import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.Subgraph;
 import org.gephi.graph.api.Interval;
+import org.gephi.graph.api.Node;
 import org.gephi.graph.api.TimeRepresentation;
 import org.gephi.graph.api.types.IntervalBooleanMap;
 import org.gephi.graph.api.types.IntervalByteMap;
@@ -268,6 +277,25 @@ public class SerializationTest {
         Assert.assertEquals(c.estimator, col2.getEstimator());
     }
 
+    @Test
+    public void testTableWithCompositeIndex() throws IOException, ClassNotFoundException {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        GraphStore graphStore = graphModel.store;
+
+        TableImpl table = graphStore.nodeTable;
+        Column col1 = table.addColumn("foo", String.class);
+        Column col2 = table.addColumn("bar", Integer.class);
+        table.addIndex(col1, col2);
+
+        Serialization ser = new Serialization(graphModel);
+        byte[] buf = ser.serialize(graphStore.nodeTable);
+
+        graphModel = new GraphModelImpl();
+        ser = new Serialization(graphModel);
+        TableImpl l = (TableImpl) ser.deserialize(buf);
+        Assert.assertTrue(l.hasIndex(l.getColumn("foo"), l.getColumn("bar")));
+    }
+
     @Test
     public void testViewStore() throws IOException, ClassNotFoundException {
         GraphStore graphStore = GraphGenerator.generateSmallMultiTypeGraphStore();
@@ -741,6 +769,9 @@ public class SerializationTest {
         configuration.setNodeIdType(Float.class);
         configuration.setEdgeIdType(Long.class);
         configuration.setTimeRepresentation(TimeRepresentation.INTERVAL);
+        configuration.setStringIndex(Boolean.TRUE);
+        configuration.setDegreeIndex(Boolean.TRUE);
+        configuration.setRangeAggregates(Boolean.TRUE);
 
         Serialization ser = new Serialization(graphModel);
         byte[] buf = ser.serialize(configuration);
@@ -1186,6 +1217,28 @@ public class SerializationTest {
         Assert.assertTrue(read.deepEquals(gm));
     }
 
+    @Test
+    public void testGraphModelRangeAggregates() throws Exception {
+        Configuration config = new Configuration();
+        config.setRangeAggregates(Boolean.TRUE);
+        GraphModelImpl gm = new GraphModelImpl(config);
+        Column column = gm.getNodeTable().addColumn("foo", TimestampDoubleMap.class);
+        Node node = gm.factory().newNode("0");
+        node.setAttribute(column, 1.0, 2.0);
+        gm.getStore().addNode(node);
+
+        Serialization ser = new Serialization(gm);
+        DataInputOutput dio = new DataInputOutput();
+        ser.serializeGraphModel(dio, gm);
+        byte[] bytes = dio.toByteArray();
+
+        GraphModelImpl read = ser.deserializeGraphModel(dio.reset(bytes));
+        Assert.assertTrue(read.configuration.getRangeAggregates());
+        TimestampDoubleMap map = (TimestampDoubleMap) read.getStore().getNode("0")
+                .getAttribute(read.getNodeTable().getColumn("foo"));
+        Assert.assertTrue(map.isRangeAggregatesEnabled());
+    }
+
     @Test
     public void testSmallUndirectedGraphModel() throws Exception {
         GraphModelImpl gm = GraphGenerator.generateSmallUndirectedGraphStore().graphModel;
@@ -1198,4 +1251,221 @@ public class SerializationTest {
         GraphModelImpl read = ser.deserializeGraphModel(dio.reset(bytes));
         Assert.assertTrue(read.deepEquals(gm));
     }
+
+    @Test
+    public void testGraphModelMultipleBlocks() throws Exception {
+        GraphStore graphStore = new GraphModelImpl().store;
+        int nodeCount = GraphStoreConfiguration.NODESTORE_BLOCK_SIZE * 2 + 100;
+        NodeImpl[] nodes = GraphGenerator.generateNodeList(nodeCount, graphStore);
+        graphStore.addAllNodes(Arrays.asList(nodes));
+        EdgeImpl[] edges = GraphGenerator
+                .generateEdgeList(graphStore.nodeStore, GraphStoreConfiguration.EDGESTORE_BLOCK_SIZE * 3, 0, true, true, false);
+        graphStore.addAllEdges(Arrays.asList(edges));
+
+        for (int i = 0; i < nodeCount; i += 5) {
+            graphStore.removeNode(nodes[i]);
+        }
+        Column column = graphStore.nodeTable.addColumn("score", TimestampDoubleMap.class);
+        for (int i = 1; i < nodeCount; i += 97) {
+            nodes[i].setAttribute(column, (double) i, 1000.0);
+            nodes[i].setAttribute(column, (double) -i, 2000.0);
+        }
+
+        GraphModelImpl gm = graphStore.graphModel;
+        Serialization ser = new Serialization(gm);
+        DataInputOutput dio = new DataInputOutput();
+        ser.serializeGraphModel(dio, gm);
+        byte[] bytes = dio.toByteArray();
+
+        GraphModelImpl read = ser.deserializeGraphModel(dio.reset(bytes));
+        Assert.assertTrue(read.deepEquals(gm));
+        Assert.assertEquals(read.getStore().getNodeCount(), graphStore.getNodeCount());
+        Assert.assertEquals(read.getStore().getEdgeCount(), graphStore.getEdgeCount());
+
+        Column readColumn = read.getNodeTable().getColumn("score");
+        int last = nodeCount - 1 - (nodeCount - 2) % 97;
+        Node node = read.getStore().getNode(nodes[last].getId());
+        Assert.assertEquals(((TimestampDoubleMap) node.getAttribute(readColumn)).getDouble(2000.0), (double) -last);
+    }
+
+    @Test
+    public void testGraphModelRestoreStoreIds() throws Exception {
+        GraphStore graphStore = GraphGenerator.generateSmallMultiTypeGraphStore();
+        Column column = graphStore.nodeTable.addColumn("group", "group", Integer.class, Origin.DATA, null, true);
+        for (Node node : graphStore.getNodes().toArray()) {
+            node.setAttribute(column, node.getStoreId() % 3);
+        }
+        NodeImpl[] nodes = graphStore.nodeStore.toArray();
+        graphStore.removeNode(nodes[3]);
+        graphStore.removeNode(nodes[7]);
+        graphStore.removeEdge(graphStore.edgeStore.toArray()[5]);
+
+        GraphModelImpl gm = graphStore.graphModel;
+        GraphViewImpl view = (GraphViewImpl) gm.createView();
+        Subgraph subgraph = gm.getGraph(view);
+        subgraph.addNode(nodes[8]);
+        subgraph.addNode(nodes[9]);
+
+        Serialization ser = new Serialization(gm);
+        DataInputOutput dio = new DataInputOutput();
+        ser.serializeGraphModel(dio, gm);
+        byte[] bytes = dio.toByteArray();
+
+        GraphModelImpl read = ser.deserializeGraphModel(dio.reset(bytes));
+        GraphStore readStore = read.store;
+        Assert.assertEquals(readStore.edgeStore.mutualEdgesSize, graphStore.edgeStore.mutualEdgesSize);
+        Assert.assertEquals(readStore.edgeStore.undirectedSize, graphStore.edgeStore.undirectedSize);
+        for (Node node : graphStore.getNodes()) {
+            NodeImpl readNode = readStore.getNode(node.getId());
+            Assert.assertEquals(readNode.getStoreId(), node.getStoreId());
+            Assert.assertEquals(readNode.getInDegree(), ((NodeImpl) node).getInDegree());
+            Assert.assertEquals(readNode.getOutDegree(), ((NodeImpl) node).getOutDegree());
+            Assert.assertEquals(readNode.getUndirectedDegree(), ((NodeImpl) node).getUndirectedDegree());
+            Assert.assertEquals(readStore.getOutEdges(readNode).toCollection().size(), graphStore.getOutEdges(node)
+                    .toCollection().size());
+        }
+        for (Edge edge : graphStore.getEdges()) {
+            EdgeImpl readEdge = readStore.getEdge(edge.getId());
+            Assert.assertEquals(readEdge.getStoreId(), edge.getStoreId());
+            Assert.assertEquals(readEdge.isMutual(), ((EdgeImpl) edge).isMutual());
+            Assert.assertSame(readStore.getEdge(readEdge.getSource(), readEdge.getTarget(), readEdge.getType()), readEdge);
+        }
+
+        Subgraph readSubgraph = read.getGraph(read.store.viewStore.views[view.storeId]);
+        Assert.assertEquals(readSubgraph.getNodeCount(), 2);
+        Assert.assertTrue(readSubgraph.contains(readStore.getNode(nodes[8].getId())));
+        Assert.assertTrue(readSubgraph.contains(readStore.getNode(nodes[9].getId())));
+
+        Column readColumn = read.getNodeTable().getColumn("group");
+        Assert.assertEquals(read.getNodeIndex().count(readColumn, 1), gm.getNodeIndex().count(column, 1));
+
+        NodeImpl added = (NodeImpl) gm.factory().newNode("added");
+        graphStore.addNode(added);
+        NodeImpl readAdded = (NodeImpl) read.factory().newNode("added");
+        readStore.addNode(readAdded);
+        Assert.assertEquals(readAdded.getStoreId(), added.getStoreId());
+        Assert.assertTrue(read.deepEquals(gm));
+    }
+
+    @Test
+    public void testGraphModelEmpty() throws Exception {
+        GraphModelImpl gm = new GraphModelImpl();
+        Serialization ser = new Serialization(gm);
+
+        DataInputOutput dio = new DataInputOutput();
+        ser.serializeGraphModel(dio, gm);
+        byte[] bytes = dio.toByteArray();
+
+        GraphModelImpl read = ser.deserializeGraphModel(dio.reset(bytes));
+        Assert.assertTrue(read.deepEquals(gm));
+        Assert.assertEquals(read.getStore().getNodeCount(), 0);
+    }
+
+    @Test
+    public void testTimestampMapKeysEncodings() throws IOException, ClassNotFoundException {
+        double[][] keys = new double[][] { {}, { 5.0 }, { 1.0, 2.0, 3.0, 4.0 }, { 0.5, 0.75, 1.0 }, { -3.0, 7.0, 1e12, 1e12 + 5 }, { 0.1, 0.2, 1.7 }, { Double.NEGATIVE_INFINITY, 0.0, Double.POSITIVE_INFINITY } };
+        Serialization ser = new Serialization(null);
+        for (double[] k : keys) {
+            TimestampDoubleMap timestampMap = new TimestampDoubleMap();
+            timestampMap.putAll(k, new double[k.length]);
+            TimestampDoubleMap l = (TimestampDoubleMap) ser.deserialize(ser.serialize(timestampMap));
+            Assert.assertEquals(l, timestampMap);
+        }
+    }
+
+    @Test
+    public void testTimestampMapRegularKeysSize() throws IOException {
+        double[] keys = new double[1000];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = 1000.0 + i * 0.25;
+        }
+        TimestampIntegerMap timestampMap = new TimestampIntegerMap();
+        timestampMap.putAll(keys, new int[keys.length]);
+
+        Serialization ser = new Serialization(null);
+        Assert.assertTrue(ser.serialize(timestampMap).length < keys.length * 6);
+    }
+
+    @Test
+    public void testGraphModelSharedTimeKeys() throws Exception {
+        GraphModelImpl gm = new GraphModelImpl();
+        Column column = gm.getNodeTable().addColumn("score", TimestampDoubleMap.class);
+        Node n1 = gm.factory().newNode("1");
+        Node n2 = gm.factory().newNode("2");
+        gm.getStore().addAllNodes(Arrays.asList(n1, n2));
+        for (int i = 0; i < 10; i++) {
+            n1.setAttribute(column, (double) i, 1000.0 + i * 60);
+            n2.setAttribute(column, (double) -i, 1000.0 + i * 60);
+        }
+
+        Serialization ser = new Serialization(gm);
+        DataInputOutput dio = new DataInputOutput();
+        ser.serializeGraphModel(dio, gm);
+        byte[] bytes = dio.toByteArray();
+
+        GraphModelImpl read = ser.deserializeGraphModel(dio.reset(bytes));
+        Assert.assertTrue(read.deepEquals(gm));
+
+        Column readColumn = read.getNodeTable().getColumn("score");
+        TimestampDoubleMap m1 = (TimestampDoubleMap) read.getStore().getNode("1").getAttribute(readColumn);
+        TimestampDoubleMap m2 = (TimestampDoubleMap) read.getStore().getNode("2").getAttribute(readColumn);
+        Assert.assertSame(m1.getTimestamps(), m2.getTimestamps());
+        Assert.assertEquals(m2.getDouble(1060.0), -1.0);
+    }
+
+    @Test
+    public void testGraphModelSharedTimeKeysAcrossBlocks() throws Exception {
+        GraphStore graphStore = new GraphModelImpl().store;
+        int nodeCount = GraphStoreConfiguration.NODESTORE_BLOCK_SIZE * 2 + 100;
+        NodeImpl[] nodes = GraphGenerator.generateNodeList(nodeCount, graphStore);
+        graphStore.addAllNodes(Arrays.asList(nodes));
+        Column column = graphStore.nodeTable.addColumn("score", TimestampDoubleMap.class);
+        for (int i = 0; i < nodeCount; i++) {
+            for (int j = 0; j < 10; j++) {
+                nodes[i].setAttribute(column, (double) i, 1000.0 + j * 60);
+            }
+        }
+
+        GraphModelImpl gm = graphStore.graphModel;
+        Serialization ser = new Serialization(gm);
+        DataInputOutput dio = new DataInputOutput();
+        ser.serializeGraphModel(dio, gm);
+        byte[] bytes = dio.toByteArray();
+
+        GraphModelImpl read = ser.deserializeGraphModel(dio.reset(bytes));
+        Column readColumn = read.getNodeTable().getColumn("score");
+        TimestampDoubleMap first = (TimestampDoubleMap) read.getStore().getNode(nodes[0].getId())
+                .getAttribute(readColumn);
+        TimestampDoubleMap last = (TimestampDoubleMap) read.getStore().getNode(nodes[nodeCount - 1].getId())
+                .getAttribute(readColumn);
+        Assert.assertSame(first.getTimestamps(), last.getTimestamps());
+        Assert.assertEquals(last.getDouble(1060.0), (double) (nodeCount - 1));
+        Assert.assertTrue(read.deepEquals(gm));
+    }
+
+    @Test
+    public void testGraphModelChannel() throws Exception {
+        GraphModelImpl gm = GraphGenerator.generateSmallGraphStore().graphModel;
+
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        GraphModel.Serialization.write(new DataOutputStream(expected), gm);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        GraphModel.Serialization.write(Channels.newChannel(bytes), gm);
+        Assert.assertEquals(bytes.toByteArray(), expected.toByteArray());
+
+        GraphModelImpl read = (GraphModelImpl) GraphModel.Serialization.read(Channels
+                .newChannel(new ByteArrayInputStream(bytes.toByteArray())));
+        Assert.assertTrue(read.deepEquals(gm));
+    }
+
+    @Test
+    public void testGraphModelFile() throws Exception {
+        GraphModelImpl gm = GraphGenerator.generateSmallGraphStore().graphModel;
+        File file = File.createTempFile("graph", ".bin");
+        file.deleteOnExit();
+
+        GraphModel.Serialization.write(file, gm);
+        GraphModelImpl read = (GraphModelImpl) GraphModel.Serialization.read(file);
+        Assert.assertTrue(read.deepEquals(gm));
+    }
 }
@@ -193,6 +193,28 @@ public class TableImplTest {
         Assert.assertFalse(table.hasColumn("Id"));
     }
 
+    @Test
+    public void testAddIndex() {
+        GraphStore graphStore = new GraphStore();
+        TableImpl<Node> table = graphStore.nodeTable;
+        Column col1 = table.addColumn("foo", String.class);
+        Column col2 = table.addColumn("bar", Integer.class);
+
+        Assert.assertFalse(table.hasIndex(col1, col2));
+        table.addIndex(col1, col2);
+        Assert.assertTrue(table.hasIndex(col1, col2));
+        table.removeIndex(col1, col2);
+        Assert.assertFalse(table.hasIndex(col1, col2));
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testAddIndexNotIndexedTable() {
+        TableImpl<Node> table = new TableImpl<Node>(Node.class, false);
+        Column col1 = table.addColumn("foo", String.class);
+        Column col2 = table.addColumn("bar", Integer.class);
+        table.addIndex(col1, col2);
+    }
+
     @Test
     public void testCountColumns() {
         TableImpl<Node> table = new TableImpl<Node>(Node.class, false);
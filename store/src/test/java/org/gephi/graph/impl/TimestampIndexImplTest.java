@@ -18,10 +18,16 @@ package org.gephi.graph.impl;
 import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet;
 import it.unimi.dsi.fastutil.objects.ObjectSet;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
+import org.gephi.graph.api.ElementIterable;
 import org.gephi.graph.api.Graph;
 import org.gephi.graph.api.Interval;
 import org.gephi.graph.api.Node;
+import org.gephi.graph.api.TimeEvent;
+import org.gephi.graph.api.TimeEventIterable;
+import org.gephi.graph.api.TimeIndex;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
@@ -128,6 +134,151 @@ public class TimestampIndexImplTest {
         Assert.assertEquals(r5.size(), 2);
     }
 
+    @Test
+    public void testGetElementsNoDuplicates() {
+        TimeStore timestampStore = new TimeStore(null, null, true);
+        TimestampIndexStore store = (TimestampIndexStore) timestampStore.nodeIndexStore;
+        store.add(1.0);
+        store.add(2.0);
+        store.add(3.0);
+
+        NodeImpl n0 = new NodeImpl(0);
+        n0.setStoreId(0);
+        NodeImpl n1 = new NodeImpl(1);
+        n1.setStoreId(1);
+
+        store.add(1.0, n0);
+        store.add(2.0, n0);
+        store.add(3.0, n0);
+        store.add(2.0, n1);
+        store.add(3.0, n1);
+
+        Object[] r1 = getArrayFromIterable(store.mainIndex.get(new Interval(1.0, 3.0)));
+        Assert.assertEquals(r1.length, 2);
+        Assert.assertEquals(new ObjectOpenHashSet(r1).size(), 2);
+
+        Object[] r2 = getArrayFromIterable(store.mainIndex.get(new Interval(2.5, 3.0)));
+        Assert.assertEquals(r2.length, 2);
+    }
+
+    @Test
+    public void testGetElementsDoBreak() {
+        TimeStore timestampStore = new TimeStore(null, null, true);
+        TimestampIndexStore store = (TimestampIndexStore) timestampStore.nodeIndexStore;
+        store.add(1.0);
+        store.add(2.0);
+
+        NodeImpl n0 = new NodeImpl(0);
+        n0.setStoreId(0);
+        store.add(1.0, n0);
+        store.add(2.0, n0);
+
+        ElementIterable iterable = store.mainIndex.get(new Interval(1.0, 2.0));
+        Assert.assertTrue(iterable.iterator().hasNext());
+        iterable.doBreak();
+
+        Assert.assertEquals(getArrayFromIterable(store.mainIndex.get(new Interval(1.0, 2.0))).length, 1);
+    }
+
+    @Test
+    public void testCount() {
+        TimeStore timestampStore = new TimeStore(null, null, true);
+        TimestampIndexStore store = (TimestampIndexStore) timestampStore.nodeIndexStore;
+        Assert.assertEquals(store.mainIndex.count(new Interval(1.0, 3.0)), 0);
+
+        store.add(1.0);
+        store.add(2.0);
+        store.add(3.0);
+
+        NodeImpl n0 = new NodeImpl(0);
+        n0.setStoreId(0);
+        NodeImpl n1 = new NodeImpl(1);
+        NodeImpl n2 = new NodeImpl(2);
+        n2.setStoreId(2);
+
+        store.add(1.0, n0);
+        store.add(2.0, n0);
+        store.add(1.0, n1);
+        store.add(3.0, n1);
+        store.add(3.0, n2);
+
+        Assert.assertEquals(store.mainIndex.count(new Interval(1.0, 1.0)), 2);
+        Assert.assertEquals(store.mainIndex.count(new Interval(1.0, 2.0)), 2);
+        Assert.assertEquals(store.mainIndex.count(new Interval(1.0, 3.0)), 3);
+        Assert.assertEquals(store.mainIndex.count(new Interval(2.0, 3.0)), 3);
+        Assert.assertEquals(store.mainIndex.count(new Interval(4.0, 5.0)), 0);
+    }
+
+    @Test
+    public void testGetElementsFromStore() {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        GraphStore graphStore = graphModel.store;
+        List<Node> nodes = new ArrayList<Node>();
+        for (int i = 0; i < 100; i++) {
+            Node n = graphStore.factory.newNode(String.valueOf(i));
+            graphStore.addNode(n);
+            n.addTimestamp(1.0);
+            if (i % 2 == 0) {
+                n.addTimestamp(2.0);
+            }
+            nodes.add(n);
+        }
+        TimeIndexImpl index = (TimeIndexImpl) graphModel.getNodeTimeIndex();
+
+        Object[] r1 = getArrayFromIterable(index.get(new Interval(1.0, 2.0)));
+        Assert.assertEquals(r1.length, 100);
+        Assert.assertEquals(new ObjectOpenHashSet(r1), new ObjectOpenHashSet(nodes));
+        Assert.assertEquals(index.count(new Interval(1.0, 2.0)), 100);
+        Assert.assertEquals(index.count(new Interval(2.0, 2.0)), 50);
+
+        graphStore.removeNode(nodes.get(0));
+        graphStore.removeNode(nodes.get(1));
+        Assert.assertEquals(getArrayFromIterable(index.get(new Interval(1.0, 2.0))).length, 98);
+        Assert.assertEquals(getArrayFromIterable(index.get(2.0)).length, 49);
+        Assert.assertEquals(index.count(new Interval(1.0, 2.0)), 98);
+    }
+
+    @Test
+    public void testEntryIds() {
+        TimeIndexImpl.TimeIndexEntry entry = new TimeIndexImpl.TimeIndexEntry();
+        Assert.assertTrue(entry.isEmpty());
+        Assert.assertTrue(entry.addId(5));
+        Assert.assertTrue(entry.addId(2));
+        Assert.assertFalse(entry.addId(5));
+        Assert.assertEquals(entry.size(), 2);
+        Assert.assertEquals(Arrays.copyOf(entry.ids, entry.idCount), new int[] { 2, 5 });
+        Assert.assertTrue(entry.removeId(2));
+        Assert.assertFalse(entry.removeId(2));
+        Assert.assertTrue(entry.removeId(5));
+        Assert.assertTrue(entry.isEmpty());
+    }
+
+    @Test
+    public void testEntryBitmap() {
+        TimeIndexImpl.TimeIndexEntry entry = new TimeIndexImpl.TimeIndexEntry();
+        int count = GraphStoreConfiguration.TIMESTAMP_INDEX_ENTRY_BITMAP_MIN_SIZE;
+        for (int i = count - 1; i >= 0; i--) {
+            Assert.assertTrue(entry.addId(i));
+        }
+        Assert.assertNotNull(entry.idSet);
+        Assert.assertEquals(entry.size(), count);
+        Assert.assertFalse(entry.addId(0));
+        Assert.assertTrue(entry.removeId(0));
+        Assert.assertFalse(entry.removeId(0));
+        Assert.assertEquals(entry.size(), count - 1);
+    }
+
+    @Test
+    public void testEntrySparseIds() {
+        TimeIndexImpl.TimeIndexEntry entry = new TimeIndexImpl.TimeIndexEntry();
+        int count = GraphStoreConfiguration.TIMESTAMP_INDEX_ENTRY_BITMAP_MIN_SIZE * 2;
+        for (int i = 0; i < count; i++) {
+            Assert.assertTrue(entry.addId(i * 1000));
+        }
+        Assert.assertNull(entry.idSet);
+        Assert.assertEquals(entry.size(), count);
+    }
+
     @Test
     public void testHasNodesEdgesEmpty() {
         TimeStore timestampStore = new TimeStore(null, null, true);
@@ -169,7 +320,182 @@ public class TimestampIndexImplTest {
         Assert.assertFalse(store.mainIndex.hasElements());
     }
 
+    @Test
+    public void testGetEventsEmpty() {
+        TimeStore timestampStore = new TimeStore(null, null, true);
+        TimestampIndexStore store = (TimestampIndexStore) timestampStore.nodeIndexStore;
+        Assert.assertFalse(store.mainIndex.getEvents().iterator().hasNext());
+
+        store.add(1.0);
+        Assert.assertFalse(store.mainIndex.getEvents().iterator().hasNext());
+    }
+
+    @Test
+    public void testGetEvents() {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        GraphStore graphStore = graphModel.store;
+        Node n0 = graphStore.factory.newNode("0");
+        Node n1 = graphStore.factory.newNode("1");
+        Node n2 = graphStore.factory.newNode("2");
+        graphStore.addAllNodes(Arrays.asList(n0, n1, n2));
+        n0.addTimestamp(1.0);
+        n0.addTimestamp(2.0);
+        n1.addTimestamp(2.0);
+        n2.addTimestamp(1.0);
+        n2.addTimestamp(3.0);
+
+        Assert.assertEquals(getEventStrings(graphModel.getNodeTimeIndex().getEvents()), Arrays
+                .asList("ENTER 0 at 1.0", "ENTER 2 at 1.0", "LEAVE 2 at 1.0", "ENTER 1 at 2.0", "LEAVE 0 at 2.0", "LEAVE 1 at 2.0", "ENTER 2 at 3.0", "LEAVE 2 at 3.0"));
+    }
+
+    @Test
+    public void testGetEventsWithoutStoreId() {
+        TimeStore timestampStore = new TimeStore(null, null, true);
+        TimestampIndexStore store = (TimestampIndexStore) timestampStore.nodeIndexStore;
+        store.add(1.0);
+        store.add(2.0);
+        store.add(3.0);
+
+        NodeImpl n0 = new NodeImpl(0);
+        store.add(1.0, n0);
+        store.add(2.0, n0);
+
+        Assert.assertEquals(getEventStrings(store.mainIndex.getEvents()), Arrays
+                .asList("ENTER 0 at 1.0", "LEAVE 0 at 2.0"));
+    }
+
+    @Test
+    public void testGetEventsAfterRemove() {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        GraphStore graphStore = graphModel.store;
+        Node n0 = graphStore.factory.newNode("0");
+        Node n1 = graphStore.factory.newNode("1");
+        graphStore.addAllNodes(Arrays.asList(n0, n1));
+        n0.addTimestamp(1.0);
+        n0.addTimestamp(2.0);
+        n0.addTimestamp(3.0);
+        n1.addTimestamp(2.0);
+        n0.removeTimestamp(2.0);
+
+        Assert.assertEquals(getEventStrings(graphModel.getNodeTimeIndex().getEvents()), Arrays
+                .asList("ENTER 0 at 1.0", "LEAVE 0 at 1.0", "ENTER 1 at 2.0", "LEAVE 1 at 2.0", "ENTER 0 at 3.0", "LEAVE 0 at 3.0"));
+
+        n1.removeTimestamp(2.0);
+        Assert.assertEquals(getEventStrings(graphModel.getNodeTimeIndex().getEvents()), Arrays
+                .asList("ENTER 0 at 1.0", "LEAVE 0 at 3.0"));
+    }
+
+    @Test
+    public void testGetEventsDoBreak() {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        GraphStore graphStore = graphModel.store;
+        Node n0 = graphStore.factory.newNode("0");
+        graphStore.addNode(n0);
+        n0.addTimestamp(1.0);
+        n0.addTimestamp(2.0);
+
+        TimeEventIterable<Node> iterable = graphModel.getNodeTimeIndex().getEvents();
+        Assert.assertTrue(iterable.iterator().hasNext());
+        iterable.doBreak();
+        Assert.assertFalse(iterable.iterator().hasNext());
+
+        // Would fail if the read lock was still held
+        graphStore.addNode(graphStore.factory.newNode("1"));
+    }
+
+    @Test
+    public void testHistogram() {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        GraphStore graphStore = graphModel.store;
+        Random random = new Random(124l);
+        for (int i = 0; i < 50; i++) {
+            Node n = graphStore.factory.newNode(String.valueOf(i));
+            graphStore.addNode(n);
+            for (int j = 0; j < 5; j++) {
+                n.addTimestamp(random.nextInt(20));
+            }
+        }
+        TimeIndex<Node> index = graphModel.getNodeTimeIndex();
+
+        int[] histogram = index.histogram(-0.5, 19.5, 10);
+        Assert.assertEquals(histogram.length, 10);
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals(histogram[i], index.count(new Interval(-0.5 + i * 2, 1.5 + i * 2)));
+        }
+
+        histogram = index.histogram(5.0, 5.0, 1);
+        Assert.assertEquals(histogram[0], index.count(new Interval(5.0, 5.0)));
+    }
+
+    @Test
+    public void testHistogramBounds() {
+        TimeStore timestampStore = new TimeStore(null, null, true);
+        TimestampIndexStore store = (TimestampIndexStore) timestampStore.nodeIndexStore;
+        store.add(1.0);
+        store.add(2.0);
+        store.add(4.0);
+
+        NodeImpl n0 = new NodeImpl(0);
+        NodeImpl n1 = new NodeImpl(1);
+        store.add(1.0, n0);
+        store.add(2.0, n0);
+        store.add(2.0, n1);
+        store.add(4.0, n1);
+
+        Assert.assertEquals(store.mainIndex.histogram(0.0, 4.0, 2), new int[] { 1, 2 });
+        Assert.assertEquals(store.mainIndex.histogram(2.0, 3.0, 4), new int[] { 2, 0, 0, 0 });
+        Assert.assertEquals(store.mainIndex.histogram(5.0, 6.0, 2), new int[] { 0, 0 });
+    }
+
+    @Test
+    public void testCumulativeHistogram() {
+        TimeStore timestampStore = new TimeStore(null, null, true);
+        TimestampIndexStore store = (TimestampIndexStore) timestampStore.nodeIndexStore;
+        store.add(1.0);
+        store.add(2.0);
+        store.add(3.0);
+
+        NodeImpl n0 = new NodeImpl(0);
+        NodeImpl n1 = new NodeImpl(1);
+        store.add(1.0, n0);
+        store.add(2.0, n0);
+        store.add(2.0, n1);
+        store.add(3.0, n1);
+
+        Assert.assertEquals(store.mainIndex.cumulativeHistogram(0.0, 4.0, 8), new int[] { 0, 1, 1, 2, 1, 1, 0, 0 });
+        Assert.assertEquals(store.mainIndex.cumulativeHistogram(2.0, 2.0, 1), new int[] { 2 });
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testHistogramInvalidBuckets() {
+        TimeStore timestampStore = new TimeStore(null, null, true);
+        TimestampIndexStore store = (TimestampIndexStore) timestampStore.nodeIndexStore;
+        store.mainIndex.histogram(1.0, 2.0, 0);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testHistogramInvalidRange() {
+        TimeStore timestampStore = new TimeStore(null, null, true);
+        TimestampIndexStore store = (TimestampIndexStore) timestampStore.nodeIndexStore;
+        store.mainIndex.cumulativeHistogram(2.0, 1.0, 2);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testHistogramInfinite() {
+        TimeStore timestampStore = new TimeStore(null, null, true);
+        TimestampIndexStore store = (TimestampIndexStore) timestampStore.nodeIndexStore;
+        store.mainIndex.histogram(1.0, Double.POSITIVE_INFINITY, 2);
+    }
+
     // UTILITY
+    private List<String> getEventStrings(TimeEventIterable<?> iterable) {
+        List<String> list = new ArrayList<String>();
+        for (TimeEvent<?> event : iterable) {
+            list.add(event.toString());
+        }
+        return list;
+    }
+
     private <T> Object[] getArrayFromIterable(Iterable<T> iterable) {
         List<T> list = new ArrayList<T>();
         for (T t : iterable) {
@@ -643,6 +643,75 @@ public class TimestampIndexStoreTest {
         Assert.assertFalse(index.hasElements());
     }
 
+    @Test
+    public void testFillWithView() {
+        GraphStore graphStore = GraphGenerator.generateTinyGraphStore();
+        NodeImpl n1 = graphStore.getNode("1");
+        NodeImpl n2 = graphStore.getNode("2");
+        n1.addTimestamp(1.0);
+        n2.addTimestamp(1.0);
+        n2.addTimestamp(2.0);
+
+        TimestampIndexStore store = (TimestampIndexStore) graphStore.timeStore.nodeIndexStore;
+
+        GraphViewImpl view = graphStore.viewStore.createView();
+        Graph graph = graphStore.viewStore.getGraph(view);
+        graph.addNode(n1);
+        TimeIndexImpl index = store.createViewIndex(graph);
+        view.fill();
+
+        Assert.assertEquals(getArrayFromIterable(index.get(1.0)).length, 2);
+        Assert.assertEquals(getArrayFromIterable(index.get(2.0)), new Object[] { n2 });
+
+        graph.removeNode(n2);
+        Assert.assertEquals(getArrayFromIterable(index.get(1.0)), new Object[] { n1 });
+        Assert.assertEquals(getArrayFromIterable(index.get(2.0)).length, 0);
+    }
+
+    @Test
+    public void testNotWithView() {
+        GraphStore graphStore = GraphGenerator.generateTinyGraphStore();
+        NodeImpl n1 = graphStore.getNode("1");
+        NodeImpl n2 = graphStore.getNode("2");
+        n1.addTimestamp(1.0);
+        n2.addTimestamp(1.0);
+        n2.addTimestamp(2.0);
+
+        TimestampIndexStore store = (TimestampIndexStore) graphStore.timeStore.nodeIndexStore;
+
+        GraphViewImpl view = graphStore.viewStore.createView();
+        Graph graph = graphStore.viewStore.getGraph(view);
+        graph.addNode(n1);
+        TimeIndexImpl index = store.createViewIndex(graph);
+        view.not();
+
+        Assert.assertEquals(getArrayFromIterable(index.get(1.0)), new Object[] { n2 });
+        Assert.assertEquals(getArrayFromIterable(index.get(2.0)), new Object[] { n2 });
+
+        n1.addTimestamp(3.0);
+        n2.addTimestamp(3.0);
+        Assert.assertEquals(getArrayFromIterable(index.get(3.0)), new Object[] { n2 });
+    }
+
+    @Test
+    public void testRemoveEdgeWithView() {
+        GraphStore graphStore = GraphGenerator.generateTinyGraphStore();
+        NodeImpl n1 = graphStore.getNode("1");
+        EdgeImpl e = graphStore.getEdge("0");
+        e.addTimestamp(1.0);
+
+        TimestampIndexStore store = (TimestampIndexStore) graphStore.timeStore.edgeIndexStore;
+
+        GraphViewImpl view = graphStore.viewStore.createView();
+        Graph graph = graphStore.viewStore.getGraph(view);
+        view.fill();
+        TimeIndexImpl index = store.createViewIndex(graph);
+        Assert.assertTrue(index.hasElements());
+
+        graph.removeNode(n1);
+        Assert.assertFalse(index.hasElements());
+    }
+
     // UTILITY
     private <T> Object[] getArrayFromIterable(Iterable<T> iterable) {
         List<T> list = new ArrayList<T>();